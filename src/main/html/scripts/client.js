@@ -199,6 +199,7 @@ const actionHandlers = {
     "set checked": setCheckedFlag,
     "set multiple input": setMultipleInput,
     "set accepted files": setAcceptedFiles,
+    "set percent": setPercent,
     "next chunk": sendNextChunk
 };
 
@@ -3,4 +3,6 @@
  */
 
 const DEFAULT_FONT_FACE = "Inter";
-const MAX_UPLOAD_CHUNK_SIZE = 1024 * 64;
+const MAX_UPLOAD_CHUNK_SIZE = 1024 * 256;
+const MAX_UPLOADS_IN_FLIGHT = 4;
+const MAX_UPLOAD_RETRIES = 3;
@@ -5,6 +5,7 @@
 // The registry connects server-side widget IDs to their browser DOM nodes.
 const widgets = {};
 let lastFileId = 0;
+let crc32Table = null;
 
 // Protocol widget type names map to factories that initialize the matching DOM element.
 const widgetsLibrary = {
@@ -131,6 +132,9 @@ const widgetsLibrary = {
     image: function () {
         return document.createElement("img");
     },
+    "progress circle": function () {
+        return createProgressCircle();
+    },
     "active image": function () {
         const widget = document.createElement("img");
         widget._sources = {
@@ -833,12 +837,29 @@ function setAcceptedFiles(data) {
     return false;
 }
 
+function setPercent(data) {
+    const widget = widgets[data.widget];
+    const value = data.percent;
+    if (widget && widget._setPercent && typeof value == "number") {
+        widget._setPercent(value);
+        log("The percent of the widget " + data.widget + ' has been set to "' + value + '".');
+        return true;
+    }
+    return false;
+}
+
+// The server accepted the oldest announced file of the widget and assigned it an upload ID:
+// remember the ID to resume the upload after a reconnect, then send the chunks the server lacks.
 function sendNextChunk(data) {
     const widget = widgets[data.widget];
     if (widget) {
-        setTimeout(function () {
-            sendNextChunkToServer(widget);
-        }, 0);
+        const file = widget._files.shift();
+        if (file) {
+            file.uploadId = data.upload;
+            file.parallel = data.parallel || MAX_UPLOADS_IN_FLIGHT;
+            localStorage.setItem(file.key, data.upload);
+            queryUploadStatus(widget, file);
+        }
         return true;
     }
     return false;
@@ -862,6 +883,58 @@ function createInputField() {
     return widget;
 }
 
+// The arc is drawn in the current CSS color, so the color property needs no extra handling;
+// a negative percent turns the ring into a rotating indeterminate indicator.
+function createProgressCircle() {
+    const ns = "http://www.w3.org/2000/svg";
+    const radius = 45;
+    const circumference = 2 * Math.PI * radius;
+    const widget = document.createElementNS(ns, "svg");
+    widget.setAttribute("viewBox", "0 0 100 100");
+    widget.style.display = "inline-block";
+    const createCircle = function () {
+        const circle = document.createElementNS(ns, "circle");
+        circle.setAttribute("cx", "50");
+        circle.setAttribute("cy", "50");
+        circle.setAttribute("r", String(radius));
+        circle.setAttribute("fill", "none");
+        circle.setAttribute("stroke", "currentColor");
+        circle.setAttribute("stroke-width", "10");
+        widget.appendChild(circle);
+        return circle;
+    };
+    createCircle().setAttribute("opacity", "0.25");
+    const arc = createCircle();
+    arc.setAttribute("stroke-linecap", "round");
+    arc.setAttribute("transform", "rotate(-90 50 50)");
+    let spinner = null;
+    widget._setPercent = function (value) {
+        if (value < 0) {
+            arc.setAttribute("stroke-dasharray", circumference * 0.25 + " " + circumference);
+            if (!spinner) {
+                spinner = document.createElementNS(ns, "animateTransform");
+                spinner.setAttribute("attributeName", "transform");
+                spinner.setAttribute("type", "rotate");
+                spinner.setAttribute("from", "-90 50 50");
+                spinner.setAttribute("to", "270 50 50");
+                spinner.setAttribute("dur", "1.1s");
+                spinner.setAttribute("repeatCount", "indefinite");
+                arc.appendChild(spinner);
+            }
+            return;
+        }
+        if (spinner) {
+            arc.removeChild(spinner);
+            spinner = null;
+        }
+        const percent = Math.min(value, 100);
+        arc.setAttribute("visibility", percent > 0 ? "visible" : "hidden");
+        arc.setAttribute("stroke-dasharray", (circumference * percent) / 100 + " " + circumference);
+    };
+    widget._setPercent(0);
+    return widget;
+}
+
 function processPointerEvent(element, event) {
     const rect = element.getBoundingClientRect();
     const data = {};
@@ -948,83 +1021,161 @@ function initFocusEvents(widget, state) {
     });
 }
 
-// File contents are encoded as hexadecimal chunks for the existing upload protocol.
-const int2hex = "0123456789abcdef";
-function arrayBufferToHex(buffer) {
-    const bytes = new Uint8Array(buffer);
-    const result = [];
-    let chunk = [];
-    let size = 0;
-    for (let index = 0; index < bytes.length; index++) {
-        const byte = bytes[index];
-        chunk.push(int2hex[byte >> 4]);
-        chunk.push(int2hex[byte & 0xf]);
-        size++;
-        if (size == MAX_UPLOAD_CHUNK_SIZE) {
-            result.push(chunk.join(""));
-            chunk = [];
-            size = 0;
-        }
-    }
-    result.push(chunk.join(""));
-    return result;
-}
-
+// Files are announced with an "upload" event and then sent as raw chunks in separate requests.
+// A file that was being uploaded before the page was reloaded is announced with its previous
+// upload ID, so the server can resume the upload.
 function loadFile(widget, descr) {
     const reader = new FileReader();
     addEvent(reader, "load", function (evt) {
+        const buffer = evt.target.result;
         const file = {
             id: ++lastFileId,
+            key: "upload:" + descr.name + ":" + buffer.byteLength + ":" + descr.lastModified,
             name: descr.name,
-            type: descr.type,
-            size: descr.size,
-            content: arrayBufferToHex(evt.target.result),
-            nextChunk: 0
+            buffer: buffer,
+            totalChunks: Math.max(1, Math.ceil(buffer.byteLength / MAX_UPLOAD_CHUNK_SIZE)),
+            pending: [],
+            remaining: 0,
+            inFlight: 0,
+            failed: false
         };
-        widget._files.push(file);
-        if (widget._files.length == 1) {
-            sendNextChunkToServer(widget);
-        } else {
-            sendEmptyChunkToServer(widget, file);
-        }
+        computeDigest(buffer, function (digest) {
+            widget._files.push(file);
+            sendEventToServer(widget, "upload", {
+                fileId: file.id,
+                name: descr.name,
+                type: descr.type,
+                size: buffer.byteLength,
+                chunkSize: MAX_UPLOAD_CHUNK_SIZE,
+                totalChunks: file.totalChunks,
+                sha256: digest,
+                resume: localStorage.getItem(file.key) || ""
+            });
+        });
     });
     reader.readAsArrayBuffer(descr);
 }
 
-function sendNextChunkToServer(widget) {
-    const files = widget._files;
-    if (files.length == 0) {
-        log("The widget " + widget._id + " sent all the files that were selected by the user.");
+// The digest is only available in secure contexts; without it, the server skips the check.
+function computeDigest(buffer, callback) {
+    if (!window.crypto || !window.crypto.subtle) {
+        callback("");
         return;
     }
-    const file = files[0];
-    const data = {
-        fileId: file.id,
-        name: file.name,
-        type: file.type,
-        size: file.size,
-        content: file.content[file.nextChunk],
-        chunkIndex: file.nextChunk,
-        totalChunks: file.content.length
-    };
-    file.nextChunk++;
-    sendEventToServer(widget, "upload", data);
-    if (file.content.length == file.nextChunk) {
-        files.shift();
+    window.crypto.subtle.digest("SHA-256", buffer).then(
+        function (hash) {
+            const bytes = new Uint8Array(hash);
+            let hex = "";
+            for (let index = 0; index < bytes.length; index++) {
+                hex += (bytes[index] < 16 ? "0" : "") + bytes[index].toString(16);
+            }
+            callback(hex);
+        },
+        function () {
+            callback("");
+        }
+    );
+}
+
+// Asks the server which chunks of the upload it already has; only the others are sent.
+function queryUploadStatus(widget, file) {
+    sendRequest(
+        {
+            action: "upload status",
+            upload: file.uploadId
+        },
+        function (data) {
+            const status = data ? JSON.parse(data) : null;
+            const received = status && status.result ? atob(status.chunks) : "";
+            for (let index = 0; index < file.totalChunks; index++) {
+                const byte = index >> 3 < received.length ? received.charCodeAt(index >> 3) : 0;
+                if (!readBit(byte, index & 7)) {
+                    file.pending.push(index);
+                }
+            }
+            file.remaining = file.pending.length;
+            sendChunksToServer(widget, file);
+        },
+        "post"
+    );
+}
+
+// Keeps up to file.parallel chunk requests of the file running at once.
+function sendChunksToServer(widget, file) {
+    while (!file.failed && file.inFlight < file.parallel && file.pending.length > 0) {
+        sendChunkToServer(widget, file, file.pending.shift(), 0);
     }
 }
 
-function sendEmptyChunkToServer(widget, file) {
-    const data = {
-        fileId: file.id,
-        name: file.name,
-        type: file.type,
-        size: file.size,
-        content: "",
-        chunkIndex: -1,
-        totalChunks: file.content.length
-    };
-    createEvent(widget, "upload", data);
+function sendChunkToServer(widget, file, index, attempt) {
+    const offset = index * MAX_UPLOAD_CHUNK_SIZE;
+    const length = Math.min(MAX_UPLOAD_CHUNK_SIZE, file.buffer.byteLength - offset);
+    const bytes = new Uint8Array(file.buffer, offset, length);
+    file.inFlight++;
+    sendRequest(
+        {
+            action: "upload",
+            client: clientId,
+            widget: widget._id,
+            file: file.id,
+            chunk: index,
+            crc: computeCrc32(bytes),
+            data: bytesToBase64(bytes)
+        },
+        function (data) {
+            file.inFlight--;
+            const accepted = data && JSON.parse(data).result;
+            if (!accepted) {
+                if (attempt < MAX_UPLOAD_RETRIES) {
+                    setTimeout(function () {
+                        sendChunkToServer(widget, file, index, attempt + 1);
+                    }, 1000);
+                } else {
+                    file.failed = true;
+                    localStorage.removeItem(file.key);
+                    log("Uploading the file '" + file.name + "' failed.");
+                }
+                return;
+            }
+            file.remaining--;
+            if (file.remaining == 0) {
+                file.buffer = null;
+                localStorage.removeItem(file.key);
+                log("The widget " + widget._id + " sent the file '" + file.name + "'.");
+            } else {
+                sendChunksToServer(widget, file);
+            }
+        },
+        "post"
+    );
+}
+
+// Every chunk carries its CRC32, so the server rejects chunks damaged in transit.
+function computeCrc32(bytes) {
+    if (!crc32Table) {
+        crc32Table = new Uint32Array(256);
+        for (let n = 0; n < 256; n++) {
+            let c = n;
+            for (let k = 0; k < 8; k++) {
+                c = c & 1 ? 0xedb88320 ^ (c >>> 1) : c >>> 1;
+            }
+            crc32Table[n] = c;
+        }
+    }
+    let crc = 0xffffffff;
+    for (let index = 0; index < bytes.length; index++) {
+        crc = crc32Table[(crc ^ bytes[index]) & 0xff] ^ (crc >>> 8);
+    }
+    return (crc ^ 0xffffffff) >>> 0;
+}
+
+// Request fields are strings, so chunks travel Base64-encoded.
+function bytesToBase64(bytes) {
+    const parts = [];
+    for (let offset = 0; offset < bytes.length; offset += 0x8000) {
+        parts.push(String.fromCharCode.apply(null, bytes.subarray(offset, offset + 0x8000)));
+    }
+    return btoa(parts.join(""));
 }
 
 // Rendering helpers.
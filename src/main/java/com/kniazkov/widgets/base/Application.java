@@ -5,6 +5,8 @@ package com.kniazkov.widgets.base;
 
 import com.kniazkov.json.JsonObject;
 import com.kniazkov.widgets.common.RMId;
+import com.kniazkov.widgets.model.ModelDiagnostics;
+import com.kniazkov.widgets.view.FileLoader;
 import com.kniazkov.widgets.view.RootWidget;
 import java.util.Map;
 import java.util.TreeMap;
@@ -115,6 +117,7 @@ public final class Application {
 
         final RMId id = client.getId();
         final RootWidget root = client.getRootWidget();
+        root.setMobile(context.mobile);
         final Page page = this.pages.get(this.pages.containsKey(address) ? address : "/");
         try {
             page.create(root, context);
@@ -181,9 +184,39 @@ public final class Application {
         });
     }
 
+    /**
+     * Stores a chunk of a file uploaded by a client.
+     * <p>
+     *     The client lock is held only to reset its lifetime timer and find the target
+     *     widget; the chunk itself is stored outside the lock, so chunks sent in parallel
+     *     do not wait for each other or for synchronization requests.
+     * </p>
+     *
+     * @param clientId The unique identifier of the client session
+     * @param widgetId The identifier of the {@link FileLoader} receiving the file
+     * @param fileId   The file ID from the upload announcement
+     * @param chunkIndex Zero-based index of the chunk
+     * @param data     Raw content of the chunk
+     * @return {@code true} if the chunk was accepted
+     */
+    boolean upload(final RMId clientId, final RMId widgetId, final int fileId,
+                   final int chunkIndex, final byte[] data) {
+        this.counter++;
+        final Client client = this.clients.get(clientId);
+        if (client == null) {
+            return false;
+        }
+        final FileLoader loader;
+        synchronized (client) {
+            client.timer = this.options.clientLifetime;
+            loader = client.getFileLoader(widgetId);
+        }
+        return loader != null && loader.receiveChunk(fileId, chunkIndex, data);
+    }
+
     /**
      * Watchdog that periodically walks through clients and removes stale ones.
-     * Also logs performance stats every minute.
+     * Also logs performance stats and discards expired suspended uploads every minute.
      */
     private class Watchdog extends Periodic {
         @Override
@@ -203,8 +236,9 @@ public final class Application {
                 });
             }
 
-            // Every minute, log performance
+            // Every minute, log performance and discard expired uploads
             if (this.getTotalTime() % 60000 == 0) {
+                FileLoader.discardExpiredUploads();
                 if (counter > 0) {
                     LOGGER.info("Server processed " + counter + " action"
                         + (counter != 1 ? "s" : "") + " in one minute (~" + (counter / 60) + "/sec).");
@@ -212,6 +246,11 @@ public final class Application {
                 } else {
                     LOGGER.info("Server processed no actions.");
                 }
+                for (final ModelDiagnostics.Report report : ModelDiagnostics.sample()) {
+                    if (report.isGrowing()) {
+                        LOGGER.warning("Possible listener leak, " + report + '.');
+                    }
+                }
             }
 
             return true; // Continue ticking
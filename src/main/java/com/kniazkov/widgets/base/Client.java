@@ -10,6 +10,7 @@ import com.kniazkov.json.JsonException;
 import com.kniazkov.json.JsonObject;
 import com.kniazkov.widgets.common.RMId;
 import com.kniazkov.widgets.protocol.Update;
+import com.kniazkov.widgets.view.FileLoader;
 import com.kniazkov.widgets.view.RootWidget;
 import com.kniazkov.widgets.view.Widget;
 import java.util.Map;
@@ -81,6 +82,21 @@ public final class Client implements Comparable<Client> {
         return this.root;
     }
 
+    /**
+     * Finds a file loader among the widgets of this client.
+     *
+     * @param widgetId the widget identifier
+     * @return the file loader, or {@code null} if there is no file loader with this identifier
+     */
+    FileLoader getFileLoader(final RMId widgetId) {
+        for (final Widget<?> widget : this.root) {
+            if (widget.getId().equals(widgetId)) {
+                return widget instanceof FileLoader ? (FileLoader) widget : null;
+            }
+        }
+        return null;
+    }
+
     /**
      * Processes a synchronization request from the client.
      * <p>
@@ -231,10 +247,16 @@ public final class Client implements Comparable<Client> {
     }
 
     /**
-     * Cleans up client state before destruction.
+     * Cleans up client state before destruction: disposes every widget, so that models shared
+     * between clients stop notifying the widgets of this client and resources held by the
+     * widgets (such as temporary files of uploads) are released.
      */
     void destroy() {
-        // nothing for now
+        synchronized (this.root) {
+            for (final Widget<?> widget : this.root) {
+                widget.dispose();
+            }
+        }
     }
 
     /**
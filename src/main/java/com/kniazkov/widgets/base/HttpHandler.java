@@ -4,6 +4,7 @@
 package com.kniazkov.widgets.base;
 
 import com.kniazkov.widgets.common.Utils;
+import com.kniazkov.widgets.images.ImageStore;
 import com.kniazkov.json.JsonObject;
 import com.kniazkov.webserver.Method;
 import com.kniazkov.webserver.Request;
@@ -37,7 +38,7 @@ final class HttpHandler implements com.kniazkov.webserver.Handler {
     private final Application application;
 
     /**
-     * Registered action handlers (e.g. "new instance", "synchronize", etc.).
+     * Registered action handlers (e.g. "new instance", "synchronize", "upload", etc.).
      */
     private final Map<String, ActionHandler> actionHandlers;
 
@@ -58,6 +59,8 @@ final class HttpHandler implements com.kniazkov.webserver.Handler {
         this.actionHandlers.put("new instance", new CreateClient(application));
         this.actionHandlers.put("synchronize", new Synchronize(application));
         this.actionHandlers.put("kill", new KillClient(application));
+        this.actionHandlers.put("upload", new Upload(application));
+        this.actionHandlers.put("upload status", new UploadStatus(application));
         this.options = options;
     }
 
@@ -73,6 +76,24 @@ final class HttpHandler implements com.kniazkov.webserver.Handler {
             return null;
         }
 
+        // Handle images from the content-addressed store: /images/<digest>
+        if (request.path.startsWith(ImageStore.URL_PREFIX)) {
+            final ImageStore.Image image = ImageStore.getInstance().get(request.path);
+            if (image != null) {
+                return new Response() {
+                    @Override
+                    public String getContentType() {
+                        return image.getType();
+                    }
+
+                    @Override
+                    public byte[] getData() {
+                        return image.getData();
+                    }
+                };
+            }
+        }
+
         final String address;
         final boolean replaceAddress;
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.base;
+
+import com.kniazkov.json.JsonElement;
+import com.kniazkov.json.JsonObject;
+import com.kniazkov.widgets.common.RMId;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Action handler that receives one chunk of a file uploaded through a
+ * {@link com.kniazkov.widgets.view.FileLoader}.
+ * <p>
+ * Chunks do not travel inside synchronization requests: after the client has announced
+ * a file with an upload event, it sends the chunks as separate requests, several at a time.
+ * Each request carries the client, the widget, the file ID, the chunk index, the chunk
+ * content in the {@code data} field, Base64-encoded because the web server delivers request
+ * fields as strings, and the CRC32 checksum of the content in the {@code crc} field.
+ * The content is decoded here, outside the client lock, and written straight to its place
+ * in the file.
+ * <p>
+ * A chunk without a checksum or not matching it is rejected, and the client sends it again.
+ */
+final class Upload extends ActionHandler {
+    /**
+     * Constructs a new upload handler.
+     *
+     * @param application the application instance
+     */
+    Upload(final Application application) {
+        super(application);
+    }
+
+    @Override
+    JsonElement process(final Map<String, String> data) {
+        final JsonObject obj = new JsonObject();
+        boolean result = false;
+        try {
+            final String client = data.get("client");
+            final String widget = data.get("widget");
+            final String file = data.get("file");
+            final String chunk = data.get("chunk");
+            final String content = data.get("data");
+            final String crc = data.get("crc");
+            if (client != null && widget != null && file != null && chunk != null
+                    && content != null && crc != null) {
+                final byte[] bytes = Base64.getDecoder().decode(content);
+                if (Long.parseLong(crc) == getChecksum(bytes)) {
+                    result = this.application.upload(RMId.parse(client), RMId.parse(widget),
+                        Integer.parseInt(file), Integer.parseInt(chunk), bytes);
+                }
+            }
+        } catch (final IllegalArgumentException ignored) {
+        }
+        obj.addBoolean("result", result);
+        return obj;
+    }
+
+    /**
+     * Computes the CRC32 checksum of a chunk.
+     *
+     * @param bytes the content of the chunk
+     * @return the checksum
+     */
+    private static long getChecksum(final byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+}
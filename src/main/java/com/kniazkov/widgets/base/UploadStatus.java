@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.base;
+
+import com.kniazkov.json.JsonElement;
+import com.kniazkov.json.JsonObject;
+import com.kniazkov.widgets.view.FileLoader;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Action handler that reports which chunks of an unfinished upload the server already has.
+ * <p>
+ * The client sends the upload ID in the {@code upload} field before sending the chunks of
+ * a file, and skips the chunks marked in the response. This is how an upload resumed after
+ * a reconnect continues where it stopped. The response contains the chunk bitmap in the
+ * {@code chunks} field: Base64-encoded bytes, where bit {@code i % 8} of byte {@code i / 8}
+ * is set if chunk {@code i} has been received; missing trailing bytes mean zero bits.
+ */
+final class UploadStatus extends ActionHandler {
+    /**
+     * Constructs a new upload status handler.
+     *
+     * @param application the application instance
+     */
+    UploadStatus(final Application application) {
+        super(application);
+    }
+
+    @Override
+    JsonElement process(final Map<String, String> data) {
+        final JsonObject obj = new JsonObject();
+        final BitSet chunks = FileLoader.getReceivedChunks(data.get("upload"));
+        obj.addBoolean("result", chunks != null);
+        if (chunks != null) {
+            obj.addString("chunks", Base64.getEncoder().encodeToString(chunks.toByteArray()));
+        }
+        return obj;
+    }
+}
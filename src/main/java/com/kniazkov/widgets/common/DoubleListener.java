@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.common;
+
+/**
+ * A listener interface for receiving notifications about changes of primitive {@code double} data.
+ * <p>
+ * This is the unboxed counterpart of {@link Listener Listener&lt;Double&gt;}: values are delivered
+ * without allocating {@link Double} wrappers.
+ */
+@FunctionalInterface
+public interface DoubleListener {
+    /**
+     * Called when the observed data has changed.
+     *
+     * @param data the updated data
+     */
+    void accept(double data);
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.common;
+
+/**
+ * A listener interface for receiving notifications about changes of primitive {@code int} data.
+ * <p>
+ * This is the unboxed counterpart of {@link Listener Listener&lt;Integer&gt;}: values are delivered
+ * without allocating {@link Integer} wrappers, which matters for counters and progress values
+ * that change at a high rate.
+ */
+@FunctionalInterface
+public interface IntListener {
+    /**
+     * Called when the observed data has changed.
+     *
+     * @param data the updated data
+     */
+    void accept(int data);
+}
@@ -3,10 +3,30 @@
  */
 package com.kniazkov.widgets.common;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Represents a file that has been successfully uploaded.
+ * <p>
+ * Small files are kept in memory. Large files are stored in a temporary file on disk, which
+ * this object owns: it is deleted by {@link #delete()}, or automatically when the client that
+ * uploaded it is destroyed, unless it has been {@link #moveTo(Path) moved} elsewhere before.
+ * Either way, the content is best read through {@link #getInputStream()},
+ * {@link #openChannel()} or {@link #map()}, which do not copy the whole file to the heap.
  */
 public class UploadedFile {
     /**
@@ -20,10 +40,30 @@ public class UploadedFile {
     private final String type;
 
     /**
-     * Binary content of the uploaded file.
+     * Binary content of the uploaded file, or {@code null} if the content is stored on disk.
      */
     private final byte[] content;
 
+    /**
+     * Size of the uploaded file, in bytes.
+     */
+    private final int size;
+
+    /**
+     * The file containing the content, or {@code null} if the content is kept in memory.
+     */
+    private Path path;
+
+    /**
+     * Whether the file on disk is temporary and must be deleted by {@link #delete()}.
+     */
+    private boolean owned;
+
+    /**
+     * SHA-256 digest of the content as a hexadecimal string; computed on first request.
+     */
+    private String sha256 = null;
+
     /**
      * Constructs a new UploadedFile with the specified metadata and content.
      *
@@ -35,6 +75,27 @@ public class UploadedFile {
         this.name = name;
         this.type = type;
         this.content = content;
+        this.size = content.length;
+        this.path = null;
+        this.owned = false;
+    }
+
+    /**
+     * Constructs a new UploadedFile whose content is stored in a temporary file.
+     * The new object takes ownership of the file.
+     *
+     * @param name the original filename
+     * @param type the MIME type of the file
+     * @param path the temporary file containing the content
+     * @param size the size of the file, in bytes
+     */
+    public UploadedFile(final String name, final String type, final Path path, final int size) {
+        this.name = name;
+        this.type = type;
+        this.content = null;
+        this.size = size;
+        this.path = path;
+        this.owned = true;
     }
 
     /**
@@ -57,11 +118,66 @@ public class UploadedFile {
 
     /**
      * Returns the binary content of the uploaded file.
+     * <p>
+     * The content is copied to a new array on every call; for large files, prefer
+     * {@link #getInputStream()}, {@link #openChannel()} or {@link #map()}.
      *
      * @return a copy of the file content as a byte array
+     * @throws UncheckedIOException if the content is stored on disk and cannot be read
      */
     public byte[] getContent() {
-        return this.content.clone();
+        if (this.content != null) {
+            return this.content.clone();
+        }
+        try {
+            return Files.readAllBytes(this.getPath());
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Opens a stream reading the content of the uploaded file.
+     *
+     * @return a new input stream; the caller must close it
+     * @throws IOException if the content is stored on disk and cannot be opened
+     */
+    public InputStream getInputStream() throws IOException {
+        if (this.content != null) {
+            return new ByteArrayInputStream(this.content);
+        }
+        return Files.newInputStream(this.getPath());
+    }
+
+    /**
+     * Opens a channel reading the content of the uploaded file. If the content is stored
+     * on disk, the channel is a {@link FileChannel}, which supports positional reads and
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+     *
+     * @return a new channel; the caller must close it
+     * @throws IOException if the content is stored on disk and cannot be opened
+     */
+    public ReadableByteChannel openChannel() throws IOException {
+        if (this.content != null) {
+            return Channels.newChannel(new ByteArrayInputStream(this.content));
+        }
+        return FileChannel.open(this.getPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Returns a read-only buffer with the content of the uploaded file without copying it:
+     * the buffer wraps the content kept in memory, or maps the file stored on disk.
+     *
+     * @return a read-only buffer
+     * @throws IOException if the content is stored on disk and cannot be mapped
+     */
+    public ByteBuffer map() throws IOException {
+        if (this.content != null) {
+            return ByteBuffer.wrap(this.content).asReadOnlyBuffer();
+        }
+        try (FileChannel channel = FileChannel.open(this.getPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, this.size);
+        }
     }
 
     /**
@@ -70,14 +186,98 @@ public class UploadedFile {
      * @return the size of the uploaded file
      */
     public int getSize() {
-        return this.content.length;
+        return this.size;
+    }
+
+    /**
+     * Returns the SHA-256 digest of the content. The digest is computed by streaming
+     * the content on first request and then cached.
+     *
+     * @return the digest as a lowercase hexadecimal string
+     * @throws IOException if the content is stored on disk and cannot be read
+     */
+    public String getSha256() throws IOException {
+        synchronized (this) {
+            if (this.sha256 != null) {
+                return this.sha256;
+            }
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+        try (InputStream stream = this.getInputStream()) {
+            final byte[] buffer = new byte[65536];
+            int count;
+            while ((count = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        final String hex = Utils.toHexString(digest.digest());
+        synchronized (this) {
+            this.sha256 = hex;
+            return this.sha256;
+        }
+    }
+
+    /**
+     * Checks whether the content is stored on disk rather than in memory.
+     *
+     * @return {@code true} if the content is stored on disk
+     */
+    public synchronized boolean isStoredOnDisk() {
+        return this.path != null;
+    }
+
+    /**
+     * Saves the content to the specified file. A temporary file is moved there without
+     * copying; afterwards, the uploaded file reads its content from the new location and is
+     * no longer deleted automatically.
+     *
+     * @param target the target file; replaced if it exists
+     * @throws IOException if the content cannot be saved
+     */
+    public synchronized void moveTo(final Path target) throws IOException {
+        if (this.content != null) {
+            Files.write(target, this.content);
+            return;
+        }
+        Files.move(this.getPath(), target, StandardCopyOption.REPLACE_EXISTING);
+        this.path = target;
+        this.owned = false;
+    }
+
+    /**
+     * Deletes the temporary file containing the content. Does nothing if the content is kept
+     * in memory or the file has been {@link #moveTo(Path) moved}. The content cannot be read
+     * after this call.
+     */
+    public synchronized void delete() {
+        if (this.owned) {
+            this.owned = false;
+            try {
+                Files.deleteIfExists(this.path);
+            } catch (final IOException ignored) {
+            }
+        }
     }
 
     @Override
     public String toString() {
         if (this.type != null && this.type.startsWith("text/")) {
-            return new String(this.content, StandardCharsets.UTF_8);
+            return new String(this.getContent(), StandardCharsets.UTF_8);
         }
         return this.type;
     }
+
+    /**
+     * Returns the file containing the content.
+     *
+     * @return the path
+     */
+    private synchronized Path getPath() {
+        return this.path;
+    }
 }
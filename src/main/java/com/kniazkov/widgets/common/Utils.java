@@ -34,4 +34,19 @@ public class Utils {
             default:     return "application/" + ext;
         }
     }
+
+    /**
+     * Converts bytes (for example, a digest) to a lowercase hexadecimal string.
+     *
+     * @param bytes Bytes to convert
+     * @return Hexadecimal string, two characters per byte
+     */
+    public static String toHexString(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte value : bytes) {
+            builder.append(Character.forDigit((value >> 4) & 0xF, 16))
+                .append(Character.forDigit(value & 0xF, 16));
+        }
+        return builder.toString();
+    }
 }
@@ -212,7 +212,7 @@ public abstract class Event<T> {
     };
 
     /**
-     * Event triggered when a file upload chunk is received from the client.
+     * Event triggered when the client announces a file upload.
      */
     public static final Event<UploadEvent> UPLOAD = new Event<UploadEvent>() {
         @Override
@@ -4,7 +4,12 @@
 package com.kniazkov.widgets.controller;
 
 /**
- * Represents a file chunk upload event sent from the client to the server.
+ * Announces a file upload: sent from the client to the server when the user selects a file.
+ * <p>
+ * The content of the file does not travel in events; once the server has accepted the
+ * announcement, the client sends the chunks of the file as raw data in separate
+ * {@code "upload"} requests, several at a time. An announcement may ask to resume an
+ * unfinished upload of the same file, so that only the missing chunks are sent again.
  */
 public class UploadEvent {
     /**
@@ -29,18 +34,24 @@ public class UploadEvent {
     public int size;
 
     /**
-     * Hex-encoded content of this specific chunk.
+     * Size of every chunk except possibly the last one, in bytes.
      */
-    public String content;
+    public int chunkSize;
 
     /**
-     * Zero-based index of this chunk within the total sequence.
-     * The first chunk has index 0.
+     * Total number of chunks that constitute the complete file.
      */
-    public int chunkIndex;
+    public int totalChunks;
 
     /**
-     * Total number of chunks that constitute the complete file.
+     * SHA-256 digest of the complete file as a hexadecimal string; empty or {@code null}
+     * if the client cannot compute it. The server checks the assembled file against it.
      */
-    public int totalChunks;
+    public String sha256;
+
+    /**
+     * Upload ID of an unfinished upload of the same file that the client wants to resume
+     * (for example, after reconnecting); empty or {@code null} to start a new upload.
+     */
+    public String resume;
 }
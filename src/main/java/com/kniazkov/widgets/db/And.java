@@ -26,6 +26,24 @@ public class And implements Filter {
         this.second = second;
     }
 
+    /**
+     * Returns the first filter.
+     *
+     * @return the first filter
+     */
+    Filter getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Returns the second filter.
+     *
+     * @return the second filter
+     */
+    Filter getSecond() {
+        return this.second;
+    }
+
     @Override
     public boolean match(final Record record) {
         return this.first.match(record) && this.second.match(record);
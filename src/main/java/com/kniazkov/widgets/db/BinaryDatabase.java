@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A {@link Database} implementation that stores each store in a compact binary file.
+ * <p>
+ * Each store is kept in {@code name.bin} inside the database folder. The file has a versioned
+ * header with the schema taken from the fields of the store, followed by fixed-layout records:
+ * numbers are stored as binary values, identifiers as two longs and strings as length-prefixed
+ * UTF-8. Files are read through memory mapping, which makes startup much faster than parsing
+ * JSON.
+ * <p>
+ * JSON remains the interchange format: a store without a binary file is imported from
+ * {@code name.json} written by {@link JsonDatabase}, and {@link #exportJson(Path)} writes
+ * all stores back to JSON.
+ */
+public class BinaryDatabase extends Database {
+    /**
+     * The folder where store files are located.
+     */
+    private final Path folder;
+
+    /**
+     * The registered stores indexed by their names.
+     */
+    private final Map<String, BinaryStore> stores;
+
+    /**
+     * Creates a binary database rooted at the specified folder.
+     *
+     * @param folder the folder containing store files
+     */
+    public BinaryDatabase(final Path folder) {
+        this.folder = folder;
+        this.stores = new TreeMap<>();
+    }
+
+    /**
+     * Registers a store in this database.
+     * <p>
+     * The store is loaded from {@code name.bin} inside the configured folder if the file
+     * exists, otherwise imported from {@code name.json} if that file exists. Otherwise, an
+     * empty store with the specified schema is created.
+     *
+     * @param name the unique store name
+     * @param fields the schema fields supported by the store
+     * @return this database instance
+     * @throws IllegalStateException if a store with the same name is already registered
+     */
+    @Override
+    public synchronized Database registerStore(final String name, final List<Field<?>> fields) {
+        if (this.stores.containsKey(name)) {
+            throw new IllegalStateException("A store named '" + name + "' already exists");
+        }
+        final BinaryStore store = BinaryStore.load(this,
+            this.folder.resolve(name + ".bin").toFile(),
+            this.folder.resolve(name + ".json").toFile(), fields);
+        this.stores.put(name, store);
+        return this;
+    }
+
+    /**
+     * Returns a registered store by name.
+     *
+     * @param name the store name
+     * @return the registered store
+     * @throws IllegalStateException if no store with the specified name has been registered
+     */
+    @Override
+    public synchronized Store getStore(final String name) {
+        final BinaryStore store = this.stores.get(name);
+        if (store == null) {
+            throw new IllegalStateException("No store named '" + name + "' has been registered");
+        }
+        return store;
+    }
+
+    /**
+     * Writes all stores that have unsaved changes to their binary files.
+     *
+     * @return {@code true} if all stores were flushed successfully; {@code false} otherwise
+     */
+    @Override
+    public synchronized boolean flush() {
+        boolean flag = true;
+        for (final BinaryStore store : this.stores.values()) {
+            flag = store.flush() && flag;
+        }
+        return flag;
+    }
+
+    /**
+     * Exports all stores as JSON files ({@code name.json}) in the format used by
+     * {@link JsonDatabase}.
+     *
+     * @param target the folder to write the files to
+     * @return {@code true} if all stores were exported successfully; {@code false} otherwise
+     */
+    public synchronized boolean exportJson(final Path target) {
+        boolean flag = true;
+        for (final Map.Entry<String, BinaryStore> entry : this.stores.entrySet()) {
+            flag = entry.getValue().exportJson(target.resolve(entry.getKey() + ".json").toFile())
+                && flag;
+        }
+        return flag;
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Binary snapshot of a store: a compact, versioned file that can be read without parsing
+ * the whole content.
+ * <p>
+ * All numbers are big-endian. The file consists of:
+ * <ul>
+ *     <li>the header: the magic number, the format version, and the schema, that is, the
+ *         number of fields followed by the name and the type tag of each field;</li>
+ *     <li>the number of records and a table with the file offset of each record;</li>
+ *     <li>the records. Each record starts with its identifier (two longs) and timestamp
+ *         (seconds and nanoseconds), followed by a bitmap of the fields it contains and the
+ *         values of these fields: integers take 4 bytes, reals 8, booleans 1, identifiers
+ *         two longs, and strings are UTF-8 bytes prefixed with their length.</li>
+ * </ul>
+ * A snapshot is read through a {@link MappedByteBuffer}, so opening it costs only the
+ * header and the offset table; each record is decoded directly from the mapped file when
+ * it is requested. Because offsets are 32-bit, a snapshot cannot exceed {@link #MAX_SIZE};
+ * larger stores are refused instead of being written with wrapped offsets.
+ */
+final class BinarySnapshot {
+    /**
+     * The magic number identifying the format ({@code "WDBS"}).
+     */
+    private static final int MAGIC = 0x57444253;
+
+    /**
+     * The current format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Type tag of boolean fields.
+     */
+    private static final byte BOOLEAN = 1;
+
+    /**
+     * Type tag of integer fields.
+     */
+    private static final byte INTEGER = 2;
+
+    /**
+     * Type tag of real fields.
+     */
+    private static final byte REAL = 3;
+
+    /**
+     * Type tag of string fields.
+     */
+    private static final byte STRING = 4;
+
+    /**
+     * Type tag of identifier fields.
+     */
+    private static final byte IDENTIFIER = 5;
+
+    /**
+     * Size of the fixed part of a record: the identifier and the timestamp.
+     */
+    private static final int RECORD_HEADER_SIZE = 28;
+
+    /**
+     * The largest snapshot that can be written and read: offsets are stored as integers
+     * and a mapped buffer cannot be larger.
+     */
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Names of the fields stored in the file, in file order.
+     */
+    private final String[] names;
+
+    /**
+     * Type tags of the fields stored in the file, in file order.
+     */
+    private final byte[] tags;
+
+    /**
+     * Offsets of the records.
+     */
+    private final int[] offsets;
+
+    /**
+     * Creates a snapshot over a parsed header.
+     *
+     * @param buffer the mapped file
+     * @param names the field names
+     * @param tags the field type tags
+     * @param offsets the record offsets
+     */
+    private BinarySnapshot(final ByteBuffer buffer, final String[] names, final byte[] tags,
+            final int[] offsets) {
+        this.buffer = buffer;
+        this.names = names;
+        this.tags = tags;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Maps a snapshot file and reads its header.
+     *
+     * @param file the file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, is larger than {@link #MAX_SIZE},
+     *  or is not a snapshot of a supported version
+     */
+    static BinarySnapshot open(final File file) throws IOException {
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > MAX_SIZE) {
+                throw new IOException("Snapshot is larger than " + MAX_SIZE + " bytes: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary store snapshot: " + file);
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            final int fieldCount = buffer.getInt();
+            final String[] names = new String[fieldCount];
+            final byte[] tags = new byte[fieldCount];
+            for (int index = 0; index < fieldCount; index++) {
+                names[index] = readString(buffer);
+                tags[index] = buffer.get();
+            }
+            final int recordCount = buffer.getInt();
+            final int[] offsets = new int[recordCount];
+            for (int index = 0; index < recordCount; index++) {
+                offsets[index] = buffer.getInt();
+                if (offsets[index] < buffer.position()
+                        || offsets[index] > buffer.limit() - RECORD_HEADER_SIZE) {
+                    throw new IOException("Corrupted snapshot: " + file);
+                }
+            }
+            return new BinarySnapshot(buffer, names, tags, offsets);
+        } catch (final BufferUnderflowException | NegativeArraySizeException exception) {
+            throw new IOException("Truncated snapshot: " + file, exception);
+        }
+    }
+
+    /**
+     * Returns the number of records in the snapshot.
+     *
+     * @return the record count
+     */
+    int getRecordCount() {
+        return this.offsets.length;
+    }
+
+    /**
+     * Returns the identifier of a record.
+     *
+     * @param index the record index
+     * @return the identifier
+     */
+    UUID getId(final int index) {
+        final int offset = this.offsets[index];
+        return new UUID(this.buffer.getLong(offset), this.buffer.getLong(offset + 8));
+    }
+
+    /**
+     * Returns the creation timestamp of a record.
+     *
+     * @param index the record index
+     * @return the timestamp
+     */
+    Instant getTimestamp(final int index) {
+        final int offset = this.offsets[index];
+        return Instant.ofEpochSecond(this.buffer.getLong(offset + 16),
+            this.buffer.getInt(offset + 24));
+    }
+
+    /**
+     * Matches the fields stored in the snapshot with the schema of a store.
+     * Fields missing from the schema, or whose type has changed, are not matched.
+     *
+     * @param fields the schema of the store
+     * @return the matching schema field for each field of the snapshot, or {@code null}
+     */
+    Field<?>[] bind(final List<Field<?>> fields) {
+        final Map<String, Field<?>> known = new HashMap<>();
+        for (final Field<?> field : fields) {
+            known.put(field.getName(), field);
+        }
+        final Field<?>[] bound = new Field<?>[this.names.length];
+        for (int ordinal = 0; ordinal < bound.length; ordinal++) {
+            final Field<?> field = known.get(this.names[ordinal]);
+            if (field != null && getTag(field) == this.tags[ordinal]) {
+                bound[ordinal] = field;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Decodes the field values of a record and writes them into the target record.
+     *
+     * @param index the record index
+     * @param record the target record
+     * @param bound the schema fields returned by {@link #bind(List)}
+     */
+    void readFields(final int index, final Record record, final Field<?>[] bound) {
+        final ByteBuffer view = this.buffer.duplicate();
+        final int bitmap = this.offsets[index] + RECORD_HEADER_SIZE;
+        view.position(bitmap + (this.names.length + 7) / 8);
+        for (int ordinal = 0; ordinal < this.names.length; ordinal++) {
+            if ((view.get(bitmap + ordinal / 8) & (1 << (ordinal % 8))) == 0) {
+                continue;
+            }
+            final Object value = readValue(view, this.tags[ordinal]);
+            if (bound[ordinal] != null) {
+                setValue(record, bound[ordinal], value);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the specified records.
+     *
+     * @param file the file
+     * @param fields the schema of the store
+     * @param records the records
+     * @throws IOException if writing fails or the snapshot would be larger than
+     *  {@link #MAX_SIZE}
+     */
+    static void write(final File file, final List<Field<?>> fields, final List<Record> records)
+            throws IOException {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        final DataOutputStream headerStream = new DataOutputStream(header);
+        headerStream.writeInt(MAGIC);
+        headerStream.writeInt(VERSION);
+        headerStream.writeInt(fields.size());
+        for (final Field<?> field : fields) {
+            writeString(headerStream, field.getName());
+            headerStream.writeByte(getTag(field));
+        }
+        headerStream.writeInt(records.size());
+        final long start = header.size() + 4L * records.size();
+        final int[] offsets = new int[records.size()];
+        try (final RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(0);
+            output.write(header.toByteArray());
+            output.seek(start);
+            final DataOutputStream stream = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(output.getChannel())));
+            for (int index = 0; index < offsets.length; index++) {
+                offsets[index] = checkSize(file, start + stream.size());
+                writeRecord(stream, fields, records.get(index));
+            }
+            stream.flush();
+            checkSize(file, start + stream.size());
+            final ByteBuffer table = ByteBuffer.allocate(4 * offsets.length);
+            for (final int offset : offsets) {
+                table.putInt(offset);
+            }
+            table.flip();
+            output.getChannel().write(table, header.size());
+            output.getFD().sync();
+        }
+    }
+
+    /**
+     * Checks that a position in a snapshot being written fits into the format.
+     * <p>
+     * {@link DataOutputStream#size()} saturates at {@link Integer#MAX_VALUE} instead of
+     * wrapping, so a saturated count added to the non-empty header is always detected.
+     *
+     * @param file the file being written
+     * @param position the position
+     * @return the position as an offset
+     * @throws IOException if the position is beyond {@link #MAX_SIZE}
+     */
+    private static int checkSize(final File file, final long position) throws IOException {
+        if (position > MAX_SIZE) {
+            throw new IOException("Snapshot would be larger than " + MAX_SIZE + " bytes: "
+                + file);
+        }
+        return (int) position;
+    }
+
+    /**
+     * Writes one record.
+     *
+     * @param stream the output stream
+     * @param fields the schema of the store
+     * @param record the record
+     * @throws IOException if writing fails
+     */
+    private static void writeRecord(final DataOutputStream stream, final List<Field<?>> fields,
+            final Record record) throws IOException {
+        final UUID id = record.getId();
+        stream.writeLong(id.getMostSignificantBits());
+        stream.writeLong(id.getLeastSignificantBits());
+        final Instant timestamp = record.getTimestamp();
+        stream.writeLong(timestamp.getEpochSecond());
+        stream.writeInt(timestamp.getNano());
+        final byte[] bitmap = new byte[(fields.size() + 7) / 8];
+        final Object[] values = new Object[fields.size()];
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            final Field<?> field = fields.get(ordinal);
+            if (record.hasModel(field)) {
+                values[ordinal] = record.getValue(field);
+            }
+            if (values[ordinal] != null) {
+                bitmap[ordinal / 8] |= (byte) (1 << (ordinal % 8));
+            }
+        }
+        stream.write(bitmap);
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            if (values[ordinal] != null) {
+                writeValue(stream, getTag(fields.get(ordinal)), values[ordinal]);
+            }
+        }
+    }
+
+    /**
+     * Writes one value.
+     *
+     * @param stream the output stream
+     * @param tag the type tag
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    static void writeValue(final DataOutputStream stream, final byte tag,
+            final Object value) throws IOException {
+        switch (tag) {
+            case BOOLEAN:
+                stream.writeBoolean((Boolean) value);
+                break;
+            case INTEGER:
+                stream.writeInt((Integer) value);
+                break;
+            case REAL:
+                stream.writeDouble((Double) value);
+                break;
+            case IDENTIFIER:
+                final UUID uuid = (UUID) value;
+                stream.writeLong(uuid.getMostSignificantBits());
+                stream.writeLong(uuid.getLeastSignificantBits());
+                break;
+            default:
+                writeString(stream, value.toString());
+        }
+    }
+
+    /**
+     * Reads one value.
+     *
+     * @param buffer the buffer positioned at the value
+     * @param tag the type tag
+     * @return the value
+     */
+    static Object readValue(final ByteBuffer buffer, final byte tag) {
+        switch (tag) {
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case INTEGER:
+                return buffer.getInt();
+            case REAL:
+                return buffer.getDouble();
+            case IDENTIFIER:
+                return new UUID(buffer.getLong(), buffer.getLong());
+            default:
+                return readString(buffer);
+        }
+    }
+
+    /**
+     * Writes a string as its length followed by UTF-8 bytes.
+     *
+     * @param stream the output stream
+     * @param value the string
+     * @throws IOException if writing fails
+     */
+    static void writeString(final DataOutputStream stream, final String value)
+            throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param buffer the buffer positioned at the string
+     * @return the string
+     */
+    static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the type tag of a field.
+     *
+     * @param field the field
+     * @return the type tag
+     */
+    static byte getTag(final Field<?> field) {
+        final Class<?> valueClass = field.getType().getValueClass();
+        if (valueClass == Boolean.class) {
+            return BOOLEAN;
+        }
+        if (valueClass == Integer.class) {
+            return INTEGER;
+        }
+        if (valueClass == Double.class) {
+            return REAL;
+        }
+        if (valueClass == UUID.class) {
+            return IDENTIFIER;
+        }
+        return STRING;
+    }
+
+    /**
+     * Writes a decoded value into a record.
+     *
+     * @param record the record
+     * @param field the field
+     * @param value the value, of the value class of the field
+     * @param <T> the value type
+     */
+    private static <T> void setValue(final Record record, final Field<T> field,
+            final Object value) {
+        record.setValue(field, field.getType().getValueClass().cast(value));
+    }
+}
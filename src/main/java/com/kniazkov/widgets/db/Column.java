@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact storage for the values of one {@link Field} of all records in a {@link Store}.
+ * <p>
+ * Each record registered in a store occupies one slot (row); a column keeps the value of its
+ * field for every slot in a single array. Integer, real and boolean fields use primitive arrays,
+ * so their values are stored without wrapper objects. A slot may have no value, which means
+ * the record does not contain the field.
+ * <p>
+ * Columns are not thread-safe; the owning store guards them with its own lock.
+ */
+abstract class Column {
+    /**
+     * Initial number of slots.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Creates an empty column suitable for the specified type.
+     *
+     * @param type the field type
+     * @return a new column
+     */
+    static Column create(final Type<?> type) {
+        final Class<?> valueClass = type.getValueClass();
+        if (valueClass == Integer.class) {
+            return new IntColumn();
+        }
+        if (valueClass == Double.class) {
+            return new DoubleColumn();
+        }
+        if (valueClass == Boolean.class) {
+            return new BooleanColumn();
+        }
+        return new ObjectColumn();
+    }
+
+    /**
+     * Returns the value stored in the slot.
+     *
+     * @param slot the slot
+     * @return the value, or {@code null} if the slot has no value
+     */
+    abstract Object get(int slot);
+
+    /**
+     * Stores a value in the slot.
+     *
+     * @param slot the slot
+     * @param value the value, not {@code null}
+     */
+    abstract void set(int slot, Object value);
+
+    /**
+     * Removes the value from the slot.
+     *
+     * @param slot the slot
+     */
+    abstract void clear(int slot);
+
+    /**
+     * Computes a new array capacity large enough for the specified slot.
+     *
+     * @param length the current capacity
+     * @param slot the slot to fit
+     * @return the new capacity
+     */
+    private static int grow(final int length, final int slot) {
+        int capacity = Math.max(length, INITIAL_CAPACITY);
+        while (capacity <= slot) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Column of {@code int} values.
+     */
+    private static final class IntColumn extends Column {
+        /**
+         * Values.
+         */
+        private int[] values = new int[0];
+
+        /**
+         * Slots that have a value.
+         */
+        private final BitSet present = new BitSet();
+
+        @Override
+        Object get(final int slot) {
+            return this.present.get(slot) ? this.values[slot] : null;
+        }
+
+        @Override
+        void set(final int slot, final Object value) {
+            if (slot >= this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            }
+            this.values[slot] = (Integer) value;
+            this.present.set(slot);
+        }
+
+        @Override
+        void clear(final int slot) {
+            this.present.clear(slot);
+        }
+    }
+
+    /**
+     * Column of {@code double} values.
+     */
+    private static final class DoubleColumn extends Column {
+        /**
+         * Values.
+         */
+        private double[] values = new double[0];
+
+        /**
+         * Slots that have a value.
+         */
+        private final BitSet present = new BitSet();
+
+        @Override
+        Object get(final int slot) {
+            return this.present.get(slot) ? this.values[slot] : null;
+        }
+
+        @Override
+        void set(final int slot, final Object value) {
+            if (slot >= this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            }
+            this.values[slot] = (Double) value;
+            this.present.set(slot);
+        }
+
+        @Override
+        void clear(final int slot) {
+            this.present.clear(slot);
+        }
+    }
+
+    /**
+     * Column of {@code boolean} values, one bit per slot.
+     */
+    private static final class BooleanColumn extends Column {
+        /**
+         * Values.
+         */
+        private final BitSet values = new BitSet();
+
+        /**
+         * Slots that have a value.
+         */
+        private final BitSet present = new BitSet();
+
+        @Override
+        Object get(final int slot) {
+            return this.present.get(slot) ? this.values.get(slot) : null;
+        }
+
+        @Override
+        void set(final int slot, final Object value) {
+            this.values.set(slot, (Boolean) value);
+            this.present.set(slot);
+        }
+
+        @Override
+        void clear(final int slot) {
+            this.present.clear(slot);
+            this.values.clear(slot);
+        }
+    }
+
+    /**
+     * Column of immutable objects such as strings and identifiers.
+     */
+    private static final class ObjectColumn extends Column {
+        /**
+         * Values; {@code null} marks a slot without a value.
+         */
+        private Object[] values = new Object[0];
+
+        @Override
+        Object get(final int slot) {
+            return slot < this.values.length ? this.values[slot] : null;
+        }
+
+        @Override
+        void set(final int slot, final Object value) {
+            if (slot >= this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            }
+            this.values[slot] = value;
+        }
+
+        @Override
+        void clear(final int slot) {
+            if (slot < this.values.length) {
+                this.values[slot] = null;
+            }
+        }
+    }
+}
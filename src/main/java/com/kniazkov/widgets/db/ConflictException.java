@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.UUID;
+
+/**
+ * Thrown when an edited copy of a record is saved, but the record has been saved or removed
+ * by someone else since the copy was created.
+ * <p>
+ * The changes of the copy are not applied. Usually the editor reloads the record, shows the
+ * new values to the user and lets them repeat the edit.
+ */
+public class ConflictException extends RuntimeException {
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The identifier of the record.
+     */
+    private final UUID id;
+
+    /**
+     * The version the editor started from.
+     */
+    private final long expectedVersion;
+
+    /**
+     * The version the record had at the moment of the commit.
+     */
+    private final long actualVersion;
+
+    /**
+     * Creates an exception.
+     *
+     * @param id the identifier of the record
+     * @param expectedVersion the version the editor started from
+     * @param actualVersion the version the record had at the moment of the commit
+     */
+    public ConflictException(final UUID id, final long expectedVersion,
+            final long actualVersion) {
+        super("Record " + id + " has been changed: expected version " + expectedVersion
+            + ", found " + actualVersion);
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    /**
+     * Returns the identifier of the record.
+     *
+     * @return the identifier
+     */
+    public UUID getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the version the editor started from.
+     *
+     * @return the expected version
+     */
+    public long getExpectedVersion() {
+        return this.expectedVersion;
+    }
+
+    /**
+     * Returns the version the record had at the moment of the commit.
+     *
+     * @return the actual version
+     */
+    public long getActualVersion() {
+        return this.actualVersion;
+    }
+}
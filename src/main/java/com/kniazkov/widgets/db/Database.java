@@ -3,8 +3,10 @@
  */
 package com.kniazkov.widgets.db;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents a database that manages named {@link Store} instances.
@@ -12,8 +14,48 @@ import java.util.List;
  * A {@code Database} acts as a registry and access point for stores that share
  * a common persistence backend or storage location. Implementations define how
  * stores are created, loaded, and flushed to the underlying medium.
+ * <p>
+ * By default, data is written only when {@link #flush()} is called. A background flusher
+ * started with {@link #startFlusher(long, int)} writes pending changes automatically and
+ * groups saves made by many threads into a single flush.
+ * <p>
+ * New backends can be added by subclassing this class together with {@link Store}, or, more
+ * simply, by implementing a {@link KeyValueEngine} and an optional {@link RecordCodec} for
+ * {@link KeyValueDatabase}.
  */
 public abstract class Database {
+    /**
+     * Background flusher; stopped until {@link #startFlusher(long, int)} is called.
+     */
+    private final Flusher flusher = new Flusher(this);
+
+    /**
+     * Creates a database of the specified kind, so that the backend can be chosen by
+     * configuration. Supported kinds are {@code "json"} ({@link JsonDatabase}), {@code "log"}
+     * ({@link LogDatabase}), {@code "binary"} ({@link BinaryDatabase}) and {@code "kv"}
+     * ({@link KeyValueDatabase} with the default engine). All kinds provide the same
+     * {@link Store} and {@link Record} behavior.
+     *
+     * @param kind the kind of the database
+     * @param folder the folder containing the database files
+     * @return a new database
+     * @throws IllegalArgumentException if the kind is unknown
+     */
+    public static Database open(final String kind, final Path folder) {
+        switch (kind) {
+            case "json":
+                return new JsonDatabase(folder);
+            case "log":
+                return new LogDatabase(folder);
+            case "binary":
+                return new BinaryDatabase(folder);
+            case "kv":
+                return new KeyValueDatabase(folder);
+            default:
+                throw new IllegalArgumentException("Unknown database kind '" + kind + "'");
+        }
+    }
+
     /**
      * Registers a store with the specified name and schema.
      * <p>
@@ -58,4 +100,50 @@ public abstract class Database {
      * @return {@code true} if flushing succeeded; {@code false} otherwise
      */
     public abstract boolean flush();
+
+    /**
+     * Starts the background flusher, or changes its triggers if it is already running.
+     * <p>
+     * The flusher writes pending changes when the interval has elapsed since the previous
+     * flush, or earlier when the number of record saves reaches the threshold. Saves made
+     * while a flush is waiting are written together, so many saves cost one round of I/O.
+     *
+     * @param interval maximum time between flushes, in milliseconds
+     * @param saveThreshold number of saves that triggers an early flush,
+     *  or {@code 0} to flush by interval only
+     */
+    public void startFlusher(final long interval, final int saveThreshold) {
+        this.flusher.start(interval, saveThreshold);
+    }
+
+    /**
+     * Stops the background flusher after it has written all pending changes.
+     * Does nothing if the flusher is not running.
+     */
+    public void stopFlusher() {
+        this.flusher.stop();
+    }
+
+    /**
+     * Requests a flush and returns a future that completes once all changes made before
+     * this call are written. If the background flusher is running, the request joins its
+     * next group commit; otherwise the database is flushed in the calling thread.
+     *
+     * @return a future holding the result of the flush
+     *  ({@code true} if flushing succeeded; {@code false} otherwise)
+     */
+    public CompletableFuture<Boolean> flushAsync() {
+        final CompletableFuture<Boolean> future = this.flusher.request();
+        if (future != null) {
+            return future;
+        }
+        return CompletableFuture.completedFuture(this.flush());
+    }
+
+    /**
+     * Notifies the background flusher that a store has unsaved changes.
+     */
+    void recordSave() {
+        this.flusher.recordSave();
+    }
 }
@@ -3,6 +3,10 @@
  */
 package com.kniazkov.widgets.db;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
 /**
  * Describes a single field in the primitive database schema.
  *
@@ -19,6 +23,11 @@ public class Field<T> {
      */
     private final String name;
 
+    /**
+     * The value of a record that does not contain this field; computed on first use.
+     */
+    private volatile T defaultValue;
+
     /**
      * Creates a new field descriptor with the given type and name.
      *
@@ -48,6 +57,21 @@ public class Field<T> {
         return this.name;
     }
 
+    /**
+     * Returns the value reported by a record that does not contain this field,
+     * which is the initial value of a model created by the field type.
+     *
+     * @return the default value
+     */
+    T getDefaultValue() {
+        T value = this.defaultValue;
+        if (value == null) {
+            value = this.type.createModel().getData();
+            this.defaultValue = value;
+        }
+        return value;
+    }
+
     /**
      * Creates a filter that matches records where this field's value exactly matches
      * the specified value.
@@ -56,6 +80,111 @@ public class Field<T> {
      * @return a filter that returns {@code true} for records with matching field value
      */
     public Filter is(final T value) {
-        return record -> record.getModel(this).getData().equals(value);
+        return new FieldFilter.Equals<>(this, value);
+    }
+
+    /**
+     * Creates a filter that matches records where this field's value is less than
+     * the specified value.
+     *
+     * @param value the upper bound (exclusive)
+     * @return a filter that returns {@code true} for records with a smaller field value
+     */
+    public Filter lt(final T value) {
+        return new FieldFilter.Range<>(this, null, false, value, false);
+    }
+
+    /**
+     * Creates a filter that matches records where this field's value is greater than
+     * the specified value.
+     *
+     * @param value the lower bound (exclusive)
+     * @return a filter that returns {@code true} for records with a greater field value
+     */
+    public Filter gt(final T value) {
+        return new FieldFilter.Range<>(this, value, false, null, false);
+    }
+
+    /**
+     * Creates a filter that matches records where this field's value lies between
+     * the specified values, both inclusive.
+     *
+     * @param from the lower bound (inclusive)
+     * @param to the upper bound (inclusive)
+     * @return a filter that returns {@code true} for records with a field value in the range
+     */
+    public Filter between(final T from, final T to) {
+        return new FieldFilter.Range<>(this, from, true, to, true);
+    }
+
+    /**
+     * Creates a filter that matches records where this field's value is equal to any of
+     * the specified values.
+     *
+     * @param values the accepted values
+     * @return a filter that returns {@code true} for records with one of the values
+     */
+    @SafeVarargs
+    public final Filter in(final T... values) {
+        return this.in(Arrays.asList(values));
+    }
+
+    /**
+     * Creates a filter that matches records where this field's value is equal to any of
+     * the specified values.
+     *
+     * @param values the accepted values
+     * @return a filter that returns {@code true} for records with one of the values
+     */
+    public Filter in(final Collection<? extends T> values) {
+        return new FieldFilter.In<>(this, new HashSet<T>(values));
+    }
+
+    /**
+     * Creates a filter that matches records where this field's value starts with
+     * the specified prefix. Applicable to fields with string values only.
+     *
+     * @param prefix the prefix
+     * @return a filter that returns {@code true} for records whose value starts with the prefix
+     * @throws IllegalStateException if the values of this field are not strings
+     */
+    public Filter startsWith(final String prefix) {
+        if (this.type.getValueClass() != String.class) {
+            throw new IllegalStateException("Field '" + this.name + "' does not contain strings");
+        }
+        return new FieldFilter.Prefix<>(this, prefix);
+    }
+
+    /**
+     * Creates a filter for search-as-you-type: matches records where, for each word of the
+     * query, this field's value contains a word starting with it. Words are runs of letters
+     * and digits compared case-insensitively, so {@code "iv kni"} matches
+     * {@code "Ivan Kniazkov"}. Applicable to fields with string values only; a
+     * {@link IndexType#FULL_TEXT full-text index} on the field makes it fast.
+     *
+     * @param query the query
+     * @return a filter that returns {@code true} for records matching all words of the query
+     * @throws IllegalStateException if the values of this field are not strings
+     */
+    public Filter search(final String query) {
+        if (this.type.getValueClass() != String.class) {
+            throw new IllegalStateException("Field '" + this.name + "' does not contain strings");
+        }
+        return new FieldFilter.Search<>(this, query);
+    }
+
+    /**
+     * Compares two field values using their natural ordering. All built-in {@link Type types}
+     * have comparable values.
+     *
+     * @param first the first value
+     * @param second the second value
+     * @return a negative number, zero, or a positive number as the first value is less than,
+     *  equal to, or greater than the second
+     * @throws ClassCastException if the values are not mutually comparable
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(final Object first, final Object second) {
+        return ((Comparable<Object>) first).compareTo(second);
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A filter that tests the value of a single {@link Field}.
+ * <p>
+ * Besides matching individual records, such a filter can ask a secondary {@link Index}
+ * on its field for candidate records, which lets {@link Store#select(Filter)} avoid
+ * scanning the whole store.
+ *
+ * @param <T> the Java type of the field
+ */
+abstract class FieldFilter<T> implements Filter {
+    /**
+     * The tested field.
+     */
+    private final Field<T> field;
+
+    /**
+     * Creates a filter over the specified field.
+     *
+     * @param field the tested field
+     */
+    FieldFilter(final Field<T> field) {
+        this.field = field;
+    }
+
+    /**
+     * Returns the tested field.
+     *
+     * @return the field
+     */
+    Field<T> getField() {
+        return this.field;
+    }
+
+    @Override
+    public boolean match(final Record record) {
+        return this.test(record.getValue(this.field));
+    }
+
+    /**
+     * Tests a field value.
+     *
+     * @param data the value of the field
+     * @return {@code true} if the value satisfies this filter
+     */
+    abstract boolean test(T data);
+
+    /**
+     * Looks up candidate records in an index over the tested field.
+     *
+     * @param index the index
+     * @return candidate records, or {@code null} if the index cannot serve this filter
+     */
+    abstract List<Record> lookup(Index index);
+
+    /**
+     * Exact-match filter.
+     *
+     * @param <T> the Java type of the field
+     */
+    static final class Equals<T> extends FieldFilter<T> {
+        /**
+         * The expected value.
+         */
+        private final T value;
+
+        /**
+         * Creates an exact-match filter.
+         *
+         * @param field the tested field
+         * @param value the expected value
+         */
+        Equals(final Field<T> field, final T value) {
+            super(field);
+            this.value = value;
+        }
+
+        @Override
+        boolean test(final T data) {
+            return data.equals(this.value);
+        }
+
+        @Override
+        List<Record> lookup(final Index index) {
+            return index.find(this.value);
+        }
+    }
+
+    /**
+     * Range filter using the natural ordering of values.
+     *
+     * @param <T> the Java type of the field
+     */
+    static final class Range<T> extends FieldFilter<T> {
+        /**
+         * The lower bound, or {@code null} if the range is not bounded below.
+         */
+        private final T lower;
+
+        /**
+         * Whether the lower bound itself matches.
+         */
+        private final boolean lowerInclusive;
+
+        /**
+         * The upper bound, or {@code null} if the range is not bounded above.
+         */
+        private final T upper;
+
+        /**
+         * Whether the upper bound itself matches.
+         */
+        private final boolean upperInclusive;
+
+        /**
+         * Creates a range filter.
+         *
+         * @param field the tested field
+         * @param lower the lower bound, or {@code null}
+         * @param lowerInclusive whether the lower bound itself matches
+         * @param upper the upper bound, or {@code null}
+         * @param upperInclusive whether the upper bound itself matches
+         */
+        Range(final Field<T> field, final T lower, final boolean lowerInclusive,
+                final T upper, final boolean upperInclusive) {
+            super(field);
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+        }
+
+        @Override
+        boolean test(final T data) {
+            if (this.lower != null) {
+                final int order = Field.compare(data, this.lower);
+                if (order < 0 || order == 0 && !this.lowerInclusive) {
+                    return false;
+                }
+            }
+            if (this.upper != null) {
+                final int order = Field.compare(data, this.upper);
+                return order < 0 || order == 0 && this.upperInclusive;
+            }
+            return true;
+        }
+
+        @Override
+        List<Record> lookup(final Index index) {
+            return index.findRange(this.lower, this.lowerInclusive,
+                this.upper, this.upperInclusive);
+        }
+    }
+
+    /**
+     * Filter matching any value from a set.
+     *
+     * @param <T> the Java type of the field
+     */
+    static final class In<T> extends FieldFilter<T> {
+        /**
+         * The accepted values.
+         */
+        private final Set<T> values;
+
+        /**
+         * Creates a set-membership filter.
+         *
+         * @param field the tested field
+         * @param values the accepted values
+         */
+        In(final Field<T> field, final Set<T> values) {
+            super(field);
+            this.values = values;
+        }
+
+        @Override
+        boolean test(final T data) {
+            return this.values.contains(data);
+        }
+
+        @Override
+        List<Record> lookup(final Index index) {
+            final Map<Record, Boolean> found = new IdentityHashMap<>();
+            for (final T value : this.values) {
+                final List<Record> bucket = index.find(value);
+                if (bucket == null) {
+                    return null;
+                }
+                for (final Record record : bucket) {
+                    found.put(record, Boolean.TRUE);
+                }
+            }
+            return new ArrayList<>(found.keySet());
+        }
+    }
+
+    /**
+     * Filter matching string values that start with a prefix.
+     *
+     * @param <T> the Java type of the field, which is {@link String}
+     */
+    static final class Prefix<T> extends FieldFilter<T> {
+        /**
+         * The prefix.
+         */
+        private final String prefix;
+
+        /**
+         * Creates a prefix filter.
+         *
+         * @param field the tested field; its values must be strings
+         * @param prefix the prefix
+         */
+        Prefix(final Field<T> field, final String prefix) {
+            super(field);
+            this.prefix = prefix;
+        }
+
+        @Override
+        boolean test(final T data) {
+            return ((String) data).startsWith(this.prefix);
+        }
+
+        /**
+         * Serves the filter from a sorted index as the range from the prefix (inclusive)
+         * to the smallest string greater than all strings with that prefix (exclusive).
+         */
+        @Override
+        List<Record> lookup(final Index index) {
+            if (this.prefix.isEmpty()) {
+                return null;
+            }
+            return index.findRange(this.prefix, true, Index.getPrefixEnd(this.prefix), false);
+        }
+    }
+
+    /**
+     * Word search filter: matches string values containing, for each word of the query,
+     * a word that starts with it.
+     *
+     * @param <T> the Java type of the field, which is {@link String}
+     */
+    static final class Search<T> extends FieldFilter<T> {
+        /**
+         * The words of the query.
+         */
+        private final List<String> prefixes;
+
+        /**
+         * Creates a word search filter.
+         *
+         * @param field the tested field; its values must be strings
+         * @param query the query
+         */
+        Search(final Field<T> field, final String query) {
+            super(field);
+            this.prefixes = Index.tokenize(query);
+        }
+
+        @Override
+        boolean test(final T data) {
+            final List<String> words = Index.tokenize((String) data);
+            for (final String prefix : this.prefixes) {
+                boolean found = false;
+                for (final String word : words) {
+                    if (word.startsWith(prefix)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        List<Record> lookup(final Index index) {
+            return this.prefixes.isEmpty() ? null : index.search(this.prefixes);
+        }
+    }
+}
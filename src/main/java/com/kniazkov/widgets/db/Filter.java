@@ -31,4 +31,28 @@ public interface Filter {
     default Filter and(Filter other) {
         return new And(this, other);
     }
+
+    /**
+     * Combines this filter with another filter using a logical OR operation.
+     * <p>
+     * The resulting filter matches records that satisfy this filter
+     * <b>or</b> the specified filter.
+     *
+     * @param other the other filter to combine with
+     * @return a new filter representing the disjunction of both filters
+     */
+    default Filter or(Filter other) {
+        return new Or(this, other);
+    }
+
+    /**
+     * Creates the negation of this filter.
+     * <p>
+     * The resulting filter matches records that do <b>not</b> satisfy this filter.
+     *
+     * @return a new filter representing the negation of this filter
+     */
+    default Filter not() {
+        return new Not(this);
+    }
 }
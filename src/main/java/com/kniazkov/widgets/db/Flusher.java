@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background thread that flushes a {@link Database} with group commit.
+ * <p>
+ * Saves only mark data as pending; the flusher writes them out when one of the triggers fires:
+ * <ul>
+ *     <li>the flush interval has elapsed since the previous flush;</li>
+ *     <li>the number of saves since the previous flush reached the save threshold;</li>
+ *     <li>someone is waiting for durability via {@link Database#flushAsync()}.</li>
+ * </ul>
+ * One flush covers all stores and completes every future that was waiting when it started,
+ * so a burst of saves from many clients turns into a single round of I/O. If a flush fails,
+ * its saves stay pending and are retried when the next interval elapses.
+ */
+final class Flusher {
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Flusher.class.getName());
+
+    /**
+     * The database to flush.
+     */
+    private final Database database;
+
+    /**
+     * Guards all mutable state and is used to wake the thread.
+     */
+    private final Object monitor;
+
+    /**
+     * Futures waiting for the next flush.
+     */
+    private List<CompletableFuture<Boolean>> waiters;
+
+    /**
+     * Number of saves since the previous flush.
+     */
+    private int pendingSaves;
+
+    /**
+     * Maximum time between flushes, in milliseconds.
+     */
+    private long interval;
+
+    /**
+     * Number of saves that triggers a flush before the interval elapses,
+     * or {@code 0} to flush by interval only.
+     */
+    private int saveThreshold;
+
+    /**
+     * The background thread, or {@code null} if the flusher is not running.
+     */
+    private Thread thread;
+
+    /**
+     * Creates a stopped flusher.
+     *
+     * @param database the database to flush
+     */
+    Flusher(final Database database) {
+        this.database = database;
+        this.monitor = new Object();
+        this.waiters = new ArrayList<>();
+    }
+
+    /**
+     * Starts the background thread or updates the triggers of the running one.
+     *
+     * @param interval maximum time between flushes, in milliseconds
+     * @param saveThreshold number of saves that triggers a flush, or {@code 0}
+     */
+    void start(final long interval, final int saveThreshold) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval");
+        }
+        if (saveThreshold < 0) {
+            throw new IllegalArgumentException("saveThreshold");
+        }
+        synchronized (this.monitor) {
+            this.interval = interval;
+            this.saveThreshold = saveThreshold;
+            if (this.thread == null) {
+                this.thread = new Thread(this::run, "Database flusher");
+                this.thread.setDaemon(true);
+                this.thread.start();
+            } else {
+                this.monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread after it has written all pending data.
+     * Does nothing if the flusher is not running.
+     */
+    void stop() {
+        final Thread stopping;
+        synchronized (this.monitor) {
+            stopping = this.thread;
+            this.thread = null;
+            this.monitor.notifyAll();
+        }
+        if (stopping != null && stopping != Thread.currentThread()) {
+            try {
+                stopping.join();
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the background thread is running.
+     *
+     * @return {@code true} if the flusher is running
+     */
+    boolean isRunning() {
+        synchronized (this.monitor) {
+            return this.thread != null;
+        }
+    }
+
+    /**
+     * Records one save and wakes the thread if the save threshold is reached.
+     */
+    void recordSave() {
+        synchronized (this.monitor) {
+            this.pendingSaves++;
+            if (this.thread != null && this.saveThreshold > 0
+                    && this.pendingSaves >= this.saveThreshold) {
+                this.monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Requests a flush that covers all changes made so far.
+     *
+     * @return a future completed after the flush, or {@code null} if the flusher is not running
+     */
+    CompletableFuture<Boolean> request() {
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        synchronized (this.monitor) {
+            if (this.thread == null) {
+                return null;
+            }
+            this.waiters.add(future);
+            this.monitor.notifyAll();
+        }
+        return future;
+    }
+
+    /**
+     * Body of the background thread.
+     */
+    private void run() {
+        final Thread self = Thread.currentThread();
+        boolean stopping = false;
+        boolean failed = false;
+        while (!stopping) {
+            final List<CompletableFuture<Boolean>> batch;
+            final int saves;
+            synchronized (this.monitor) {
+                final long deadline = System.currentTimeMillis() + this.interval;
+                // after a failure the saves are still pending, so the threshold is ignored
+                // until the interval elapses, instead of retrying in a tight loop
+                while (this.thread == self && this.waiters.isEmpty()
+                        && (this.saveThreshold == 0 || failed
+                            || this.pendingSaves < this.saveThreshold)) {
+                    final long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        this.monitor.wait(remaining);
+                    } catch (final InterruptedException ignored) {
+                        if (this.thread == self) {
+                            this.thread = null;
+                        }
+                    }
+                }
+                stopping = this.thread != self;
+                if (this.pendingSaves == 0 && this.waiters.isEmpty()) {
+                    continue;
+                }
+                batch = this.waiters;
+                this.waiters = new ArrayList<>();
+                saves = this.pendingSaves;
+                this.pendingSaves = 0;
+            }
+            boolean result;
+            try {
+                result = this.database.flush();
+            } catch (final RuntimeException exception) {
+                LOGGER.log(Level.SEVERE, "Background flush failed.", exception);
+                result = false;
+            }
+            if (!result) {
+                synchronized (this.monitor) {
+                    this.pendingSaves += saves;
+                }
+            }
+            failed = !result;
+            for (final CompletableFuture<Boolean> future : batch) {
+                future.complete(result);
+            }
+        }
+    }
+}
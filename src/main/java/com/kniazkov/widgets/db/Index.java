@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * A secondary index over the values of one {@link Field} in a {@link Store}.
+ * <p>
+ * The index maps field values to the records holding them. It reflects the state of records
+ * at the moment they were last saved: the store updates the index whenever a record is saved
+ * or removed. A record that does not contain the field is indexed under the default value of
+ * the field type, which is the value such a record reports when it is read.
+ * <p>
+ * Indexes are not thread-safe; the owning store guards them with its own lock.
+ */
+abstract class Index {
+    /**
+     * The indexed field.
+     */
+    private final Field<?> field;
+
+    /**
+     * The indexed value of every record, used to find the old entry when a record changes.
+     */
+    private final Map<UUID, Object> values;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param field the indexed field
+     */
+    Index(final Field<?> field) {
+        this.field = field;
+        this.values = new HashMap<>();
+    }
+
+    /**
+     * Creates an empty index of the specified kind.
+     *
+     * @param field the indexed field
+     * @param type the kind of the index
+     * @return a new index
+     */
+    static Index create(final Field<?> field, final IndexType type) {
+        switch (type) {
+            case SORTED:
+                return new Sorted(field);
+            case FULL_TEXT:
+                return new Text(field);
+            default:
+                return new Hash(field);
+        }
+    }
+
+    /**
+     * Returns the indexed field.
+     *
+     * @return the field
+     */
+    Field<?> getField() {
+        return this.field;
+    }
+
+    /**
+     * Returns the kind of this index.
+     *
+     * @return the index type
+     */
+    abstract IndexType getType();
+
+    /**
+     * Adds a record to the index or moves it to the entry matching its current value.
+     *
+     * @param record the saved record
+     */
+    void update(final Record record) {
+        final Object value = record.getValue(this.field);
+        final Object previous = this.values.put(record.getId(), value);
+        if (previous != null) {
+            if (previous.equals(value)) {
+                return;
+            }
+            this.removeEntry(previous, record);
+        }
+        this.addEntry(value, record);
+    }
+
+    /**
+     * Removes a record from the index.
+     *
+     * @param record the removed record
+     */
+    void remove(final Record record) {
+        final Object previous = this.values.remove(record.getId());
+        if (previous != null) {
+            this.removeEntry(previous, record);
+        }
+    }
+
+    /**
+     * Returns the records indexed under the specified value.
+     *
+     * @param value the value to look up
+     * @return a new list of matching records, or {@code null} if this index cannot serve
+     *  exact matches
+     */
+    abstract List<Record> find(Object value);
+
+    /**
+     * Returns the records whose indexed values lie within the specified range.
+     *
+     * @param lower the lower bound, or {@code null} if the range is not bounded below
+     * @param lowerInclusive whether the lower bound itself matches
+     * @param upper the upper bound, or {@code null} if the range is not bounded above
+     * @param upperInclusive whether the upper bound itself matches
+     * @return a new list of matching records, or {@code null} if this index cannot serve ranges
+     */
+    List<Record> findRange(final Object lower, final boolean lowerInclusive,
+            final Object upper, final boolean upperInclusive) {
+        return null;
+    }
+
+    /**
+     * Returns the value under which a record is indexed.
+     *
+     * @param id the record identifier
+     * @return the indexed value, or {@code null} if the record is not in the index
+     */
+    Object getIndexedValue(final UUID id) {
+        return this.values.get(id);
+    }
+
+    /**
+     * Collects records in index order, starting after the specified position.
+     *
+     * @param after the position to start after, or {@code null} to start from the beginning
+     * @param descending whether to walk the index in descending order
+     * @param max the maximum number of records to collect
+     * @param out the list receiving the records
+     * @return the position of the last collected record, or {@code null} if none was collected
+     * @throws IllegalStateException if this index does not keep its entries ordered
+     */
+    RecordView.Cursor scan(final RecordView.Cursor after, final boolean descending,
+            final int max, final List<Record> out) {
+        throw new IllegalStateException(
+            "Field '" + this.field.getName() + "' has no sorted index"
+        );
+    }
+
+    /**
+     * Returns the records containing words that start with each of the specified prefixes.
+     *
+     * @param prefixes the word prefixes, in lower case
+     * @return a new list of matching records, or {@code null} if this index cannot serve
+     *  word searches
+     */
+    List<Record> search(final List<String> prefixes) {
+        return null;
+    }
+
+    /**
+     * Writes the content of this index to a stream, so that it can be restored later without
+     * reading the indexed values of all records again.
+     *
+     * @param stream the output stream
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if this kind of index cannot be persisted
+     */
+    void writeTo(final DataOutputStream stream) throws IOException {
+        throw new IllegalStateException(
+            "Index on field '" + this.field.getName() + "' cannot be persisted"
+        );
+    }
+
+    /**
+     * Restores the content of this index from a stream written by
+     * {@link #writeTo(DataOutputStream)}. Entries of records that are no longer in the store,
+     * or whose value has changed since the index was written, are not restored.
+     *
+     * @param stream the input stream
+     * @param records the records of the store, keyed by identifier
+     * @return identifiers of the records whose entries were restored
+     * @throws IOException if reading fails or the data is not a persisted index
+     * @throws IllegalStateException if this kind of index cannot be persisted
+     */
+    Set<UUID> readFrom(final DataInputStream stream, final Map<UUID, ? extends Record> records)
+            throws IOException {
+        throw new IllegalStateException(
+            "Index on field '" + this.field.getName() + "' cannot be persisted"
+        );
+    }
+
+    /**
+     * Splits a text into words: maximal runs of letters and digits, in lower case.
+     * Each word is returned once.
+     *
+     * @param text the text
+     * @return the words in order of their first occurrence
+     */
+    static List<String> tokenize(final String text) {
+        final Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int index = 0; index <= text.length(); index++) {
+            final boolean letter = index < text.length()
+                && Character.isLetterOrDigit(text.charAt(index));
+            if (letter && start < 0) {
+                start = index;
+            } else if (!letter && start >= 0) {
+                words.add(text.substring(start, index).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Returns the smallest string that is greater than every string starting with the prefix.
+     *
+     * @param prefix the prefix, not empty
+     * @return the upper bound, or {@code null} if there is no such string
+     */
+    static String getPrefixEnd(final String prefix) {
+        final StringBuilder end = new StringBuilder(prefix);
+        while (end.length() > 0 && end.charAt(end.length() - 1) == Character.MAX_VALUE) {
+            end.setLength(end.length() - 1);
+        }
+        if (end.length() == 0) {
+            return null;
+        }
+        final int last = end.length() - 1;
+        end.setCharAt(last, (char) (end.charAt(last) + 1));
+        return end.toString();
+    }
+
+    /**
+     * Adds a record to the bucket of the specified value.
+     *
+     * @param key the indexed value
+     * @param record the record
+     */
+    protected abstract void addEntry(Object key, Record record);
+
+    /**
+     * Removes a record from the bucket of the specified value.
+     *
+     * @param key the indexed value
+     * @param record the record
+     */
+    protected abstract void removeEntry(Object key, Record record);
+
+    /**
+     * Adds a record to a bucket map.
+     *
+     * @param buckets the bucket map
+     * @param key the indexed value
+     * @param record the record
+     */
+    private static void addToBucket(final Map<Object, Set<Record>> buckets, final Object key,
+            final Record record) {
+        buckets.computeIfAbsent(key, k -> new HashSet<>()).add(record);
+    }
+
+    /**
+     * Removes a record from a bucket map, dropping the bucket once it is empty.
+     *
+     * @param buckets the bucket map
+     * @param key the indexed value
+     * @param record the record
+     */
+    private static void removeFromBucket(final Map<Object, Set<Record>> buckets, final Object key,
+            final Record record) {
+        final Set<Record> bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(record) && bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Copies a bucket into a new list.
+     *
+     * @param bucket the bucket, may be {@code null}
+     * @return a new list
+     */
+    private static List<Record> copy(final Collection<Record> bucket) {
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+
+    /**
+     * An index backed by a hash map.
+     */
+    private static final class Hash extends Index {
+        /**
+         * Records grouped by value.
+         */
+        private final Map<Object, Set<Record>> buckets = new HashMap<>();
+
+        /**
+         * Creates an empty hash index.
+         *
+         * @param field the indexed field
+         */
+        private Hash(final Field<?> field) {
+            super(field);
+        }
+
+        @Override
+        IndexType getType() {
+            return IndexType.HASH;
+        }
+
+        @Override
+        List<Record> find(final Object value) {
+            return copy(this.buckets.get(value));
+        }
+
+        @Override
+        protected void addEntry(final Object key, final Record record) {
+            addToBucket(this.buckets, key, record);
+        }
+
+        @Override
+        protected void removeEntry(final Object key, final Record record) {
+            removeFromBucket(this.buckets, key, record);
+        }
+    }
+
+    /**
+     * An index backed by a tree map ordered by the natural ordering of values.
+     * Records sharing a value are ordered by identifier, so every entry has a unique position
+     * that can serve as a keyset cursor.
+     */
+    private static final class Sorted extends Index {
+        /**
+         * Records grouped by value, in ascending order of values and identifiers.
+         */
+        private final NavigableMap<Object, NavigableMap<UUID, Record>> buckets = new TreeMap<>();
+
+        /**
+         * Creates an empty sorted index.
+         *
+         * @param field the indexed field
+         */
+        private Sorted(final Field<?> field) {
+            super(field);
+        }
+
+        @Override
+        IndexType getType() {
+            return IndexType.SORTED;
+        }
+
+        @Override
+        List<Record> find(final Object value) {
+            final NavigableMap<UUID, Record> bucket = this.buckets.get(value);
+            return copy(bucket == null ? null : bucket.values());
+        }
+
+        @Override
+        List<Record> findRange(final Object lower, final boolean lowerInclusive,
+                final Object upper, final boolean upperInclusive) {
+            NavigableMap<Object, NavigableMap<UUID, Record>> range = this.buckets;
+            if (lower != null && upper != null) {
+                final int order = Field.compare(lower, upper);
+                if (order > 0 || order == 0 && !(lowerInclusive && upperInclusive)) {
+                    return new ArrayList<>();
+                }
+            }
+            if (lower != null) {
+                range = range.tailMap(lower, lowerInclusive);
+            }
+            if (upper != null) {
+                range = range.headMap(upper, upperInclusive);
+            }
+            final List<Record> result = new ArrayList<>();
+            for (final NavigableMap<UUID, Record> bucket : range.values()) {
+                result.addAll(bucket.values());
+            }
+            return result;
+        }
+
+        @Override
+        RecordView.Cursor scan(final RecordView.Cursor after, final boolean descending,
+                final int max, final List<Record> out) {
+            NavigableMap<Object, NavigableMap<UUID, Record>> range =
+                descending ? this.buckets.descendingMap() : this.buckets;
+            if (after != null) {
+                range = range.tailMap(after.getValue(), true);
+            }
+            RecordView.Cursor last = null;
+            for (final Map.Entry<Object, NavigableMap<UUID, Record>> entry : range.entrySet()) {
+                NavigableMap<UUID, Record> bucket =
+                    descending ? entry.getValue().descendingMap() : entry.getValue();
+                if (after != null && after.getValue().equals(entry.getKey())) {
+                    bucket = bucket.tailMap(after.getId(), false);
+                }
+                for (final Record record : bucket.values()) {
+                    if (out.size() == max) {
+                        return last;
+                    }
+                    out.add(record);
+                    last = new RecordView.Cursor(entry.getKey(), record.getId());
+                }
+            }
+            return last;
+        }
+
+        @Override
+        protected void addEntry(final Object key, final Record record) {
+            this.buckets.computeIfAbsent(key, k -> new TreeMap<>()).put(record.getId(), record);
+        }
+
+        @Override
+        protected void removeEntry(final Object key, final Record record) {
+            final NavigableMap<UUID, Record> bucket = this.buckets.get(key);
+            if (bucket != null && bucket.remove(record.getId()) != null && bucket.isEmpty()) {
+                this.buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * A full-text index: an inverted index from words to the records containing them.
+     * <p>
+     * Words are kept in a tree map, so all words starting with a prefix form one range of keys.
+     * A search intersects, for each prefix of the query, the union of the records of the words
+     * in its range.
+     */
+    private static final class Text extends Index {
+        /**
+         * The magic number identifying a persisted full-text index ({@code "WDBX"}).
+         */
+        private static final int TEXT_MAGIC = 0x57444258;
+
+        /**
+         * The current version of the persisted format.
+         */
+        private static final int TEXT_VERSION = 2;
+
+        /**
+         * Length of the digest that identifies the indexed value of a record.
+         */
+        private static final int DIGEST_LENGTH = 32;
+
+        /**
+         * Records containing each word, keyed by identifier.
+         */
+        private final NavigableMap<String, Map<UUID, Record>> postings = new TreeMap<>();
+
+        /**
+         * Creates an empty full-text index.
+         *
+         * @param field the indexed field
+         */
+        private Text(final Field<?> field) {
+            super(field);
+        }
+
+        @Override
+        IndexType getType() {
+            return IndexType.FULL_TEXT;
+        }
+
+        @Override
+        List<Record> find(final Object value) {
+            return null;
+        }
+
+        @Override
+        List<Record> search(final List<String> prefixes) {
+            Map<Record, Boolean> result = null;
+            for (final String prefix : prefixes) {
+                final String end = getPrefixEnd(prefix);
+                final NavigableMap<String, Map<UUID, Record>> range = end == null
+                    ? this.postings.tailMap(prefix, true)
+                    : this.postings.subMap(prefix, true, end, false);
+                final Map<Record, Boolean> matches = new IdentityHashMap<>();
+                for (final Map<UUID, Record> bucket : range.values()) {
+                    for (final Record record : bucket.values()) {
+                        if (result == null || result.containsKey(record)) {
+                            matches.put(record, Boolean.TRUE);
+                        }
+                    }
+                }
+                result = matches;
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result == null ? null : new ArrayList<>(result.keySet());
+        }
+
+        @Override
+        void writeTo(final DataOutputStream stream) throws IOException {
+            final Map<UUID, Object> values = ((Index) this).values;
+            final Map<UUID, Integer> ordinals = new HashMap<>();
+            stream.writeInt(TEXT_MAGIC);
+            stream.writeInt(TEXT_VERSION);
+            stream.writeInt(values.size());
+            for (final Map.Entry<UUID, Object> entry : values.entrySet()) {
+                ordinals.put(entry.getKey(), ordinals.size());
+                stream.writeLong(entry.getKey().getMostSignificantBits());
+                stream.writeLong(entry.getKey().getLeastSignificantBits());
+                final byte[] text = ((String) entry.getValue()).getBytes(StandardCharsets.UTF_8);
+                stream.writeInt(text.length);
+                stream.write(getDigest(text));
+            }
+            stream.writeInt(this.postings.size());
+            for (final Map.Entry<String, Map<UUID, Record>> entry : this.postings.entrySet()) {
+                stream.writeUTF(entry.getKey());
+                stream.writeInt(entry.getValue().size());
+                for (final UUID id : entry.getValue().keySet()) {
+                    stream.writeInt(ordinals.get(id));
+                }
+            }
+        }
+
+        @Override
+        Set<UUID> readFrom(final DataInputStream stream,
+                final Map<UUID, ? extends Record> records) throws IOException {
+            if (stream.readInt() != TEXT_MAGIC || stream.readInt() != TEXT_VERSION) {
+                throw new IOException("Not a persisted full-text index");
+            }
+            final Field<?> field = this.getField();
+            final int count = stream.readInt();
+            final Record[] restored = new Record[count];
+            final Object[] values = new Object[count];
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                final UUID id = new UUID(stream.readLong(), stream.readLong());
+                final int length = stream.readInt();
+                final byte[] digest = new byte[DIGEST_LENGTH];
+                stream.readFully(digest);
+                final Record record = records.get(id);
+                if (record != null) {
+                    final Object value = record.getValue(field);
+                    final byte[] text = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    if (text.length == length && Arrays.equals(getDigest(text), digest)) {
+                        restored[ordinal] = record;
+                        values[ordinal] = value;
+                    }
+                }
+            }
+            final int words = stream.readInt();
+            for (int index = 0; index < words; index++) {
+                final String word = stream.readUTF();
+                final int size = stream.readInt();
+                Map<UUID, Record> bucket = null;
+                for (int item = 0; item < size; item++) {
+                    final int ordinal = stream.readInt();
+                    if (ordinal < 0 || ordinal >= count) {
+                        throw new IOException("Corrupted full-text index");
+                    }
+                    final Record record = restored[ordinal];
+                    if (record != null) {
+                        if (bucket == null) {
+                            bucket = this.postings.computeIfAbsent(word, w -> new HashMap<>());
+                        }
+                        bucket.put(record.getId(), record);
+                    }
+                }
+            }
+            final Set<UUID> result = new HashSet<>();
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                if (restored[ordinal] != null) {
+                    ((Index) this).values.put(restored[ordinal].getId(), values[ordinal]);
+                    result.add(restored[ordinal].getId());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Computes the SHA-256 digest of an indexed value. Postings are restored only for
+         * records whose current value has the persisted length and digest, so a record changed
+         * since the index was written is never left with the words of its old value.
+         *
+         * @param text the value, encoded to UTF-8
+         * @return the digest
+         */
+        private static byte[] getDigest(final byte[] text) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(text);
+            } catch (final NoSuchAlgorithmException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        @Override
+        protected void addEntry(final Object key, final Record record) {
+            for (final String word : tokenize((String) key)) {
+                this.postings.computeIfAbsent(word, w -> new HashMap<>())
+                    .put(record.getId(), record);
+            }
+        }
+
+        @Override
+        protected void removeEntry(final Object key, final Record record) {
+            for (final String word : tokenize((String) key)) {
+                final Map<UUID, Record> bucket = this.postings.get(word);
+                if (bucket != null && bucket.remove(record.getId()) != null
+                        && bucket.isEmpty()) {
+                    this.postings.remove(word);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+/**
+ * Kinds of secondary indexes that can be declared on a {@link Store} field.
+ */
+public enum IndexType {
+    /**
+     * A hash index. Speeds up exact-match filters such as {@link Field#is(Object)}.
+     */
+    HASH,
+
+    /**
+     * A sorted index. Speeds up exact-match filters as well as range filters such as
+     * {@link Field#lt(Object)}, {@link Field#gt(Object)} and {@link Field#between(Object, Object)}.
+     */
+    SORTED,
+
+    /**
+     * A full-text index over a field with string values. Splits values into words and speeds up
+     * word prefix searches made with {@link Field#search(String)}.
+     */
+    FULL_TEXT
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import com.kniazkov.json.Json;
+import com.kniazkov.json.JsonElement;
+import com.kniazkov.json.JsonException;
+import com.kniazkov.json.JsonObject;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the elements of a top-level JSON array one by one.
+ * <p>
+ * Instead of building a document tree for the whole file, the reader scans the text,
+ * tracking nesting and string literals, and returns the source text of each element of the
+ * root array. Only one element is held in memory at a time; each element is then parsed
+ * separately. If the root is not an array, or the text ends unexpectedly, reading stops.
+ */
+final class JsonArrayReader implements Closeable {
+    /**
+     * Number of elements decoded together in parallel mode.
+     */
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * The source of characters.
+     */
+    private final Reader reader;
+
+    /**
+     * Read buffer.
+     */
+    private final char[] buffer;
+
+    /**
+     * Number of valid characters in the buffer.
+     */
+    private int length;
+
+    /**
+     * Position of the next character in the buffer.
+     */
+    private int position;
+
+    /**
+     * Whether the opening bracket of the root array has been consumed.
+     */
+    private boolean started;
+
+    /**
+     * Whether the end of the root array (or of the input) has been reached.
+     */
+    private boolean finished;
+
+    /**
+     * Creates a reader over the specified character stream.
+     *
+     * @param reader the character stream
+     */
+    JsonArrayReader(final Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[8192];
+    }
+
+    /**
+     * Returns the source text of the next element of the root array.
+     *
+     * @return the element text, or {@code null} if there are no more elements
+     * @throws IOException if reading fails
+     */
+    String next() throws IOException {
+        if (this.finished) {
+            return null;
+        }
+        if (!this.started) {
+            this.started = true;
+            if (this.skipWhitespace() != '[') {
+                this.finished = true;
+                return null;
+            }
+            this.position++;
+        }
+        int ch = this.skipWhitespace();
+        if (ch == ',') {
+            this.position++;
+            ch = this.skipWhitespace();
+        }
+        if (ch == ']' || ch < 0) {
+            this.finished = true;
+            return null;
+        }
+        final StringBuilder element = new StringBuilder();
+        int depth = 0;
+        boolean string = false;
+        boolean escape = false;
+        while (true) {
+            ch = this.peek();
+            if (ch < 0) {
+                this.finished = true;
+                return null;
+            }
+            final char c = (char) ch;
+            if (string) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    string = false;
+                }
+            } else if (c == '"') {
+                string = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                break;
+            }
+            element.append(c);
+            this.position++;
+        }
+        return element.toString();
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it.
+     *
+     * @return the next character, or {@code -1} at the end of input
+     * @throws IOException if reading fails
+     */
+    private int skipWhitespace() throws IOException {
+        int ch = this.peek();
+        while (ch >= 0 && Character.isWhitespace(ch)) {
+            this.position++;
+            ch = this.peek();
+        }
+        return ch;
+    }
+
+    /**
+     * Returns the next character without consuming it.
+     *
+     * @return the next character, or {@code -1} at the end of input
+     * @throws IOException if reading fails
+     */
+    private int peek() throws IOException {
+        if (this.position == this.length) {
+            this.length = this.reader.read(this.buffer);
+            this.position = 0;
+            if (this.length <= 0) {
+                this.length = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    /**
+     * Reads a file containing a JSON array and passes each element that is a JSON object to
+     * the consumer. Malformed elements are skipped.
+     * <p>
+     * In parallel mode, elements are parsed and consumed in batches on the common fork-join
+     * pool, so the consumer must be thread-safe and must not rely on the element order.
+     *
+     * @param file the file to read
+     * @param charset the character set of the file
+     * @param parallel whether elements may be decoded in parallel
+     * @param consumer the consumer of the objects
+     * @throws IOException if reading fails
+     */
+    static void forEachObject(final File file, final Charset charset, final boolean parallel,
+            final Consumer<JsonObject> consumer) throws IOException {
+        try (final JsonArrayReader reader =
+                 new JsonArrayReader(new InputStreamReader(new FileInputStream(file), charset))) {
+            if (!parallel) {
+                String text;
+                while ((text = reader.next()) != null) {
+                    decode(text, consumer);
+                }
+                return;
+            }
+            final List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String text;
+            while ((text = reader.next()) != null) {
+                batch.add(text);
+                if (batch.size() == BATCH_SIZE) {
+                    batch.parallelStream().forEach(item -> decode(item, consumer));
+                    batch.clear();
+                }
+            }
+            batch.parallelStream().forEach(item -> decode(item, consumer));
+        }
+    }
+
+    /**
+     * Parses one element and passes it to the consumer if it is a JSON object.
+     *
+     * @param text the element text
+     * @param consumer the consumer of the objects
+     */
+    private static void decode(final String text, final Consumer<JsonObject> consumer) {
+        final JsonElement element;
+        try {
+            element = Json.parse(text);
+        } catch (final JsonException ignored) {
+            return;
+        }
+        final JsonObject object = element == null ? null : element.toJsonObject();
+        if (object != null) {
+            consumer.accept(object);
+        }
+    }
+}
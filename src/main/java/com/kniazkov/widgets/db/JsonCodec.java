@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import com.kniazkov.json.JsonBoolean;
+import com.kniazkov.json.JsonElement;
+import com.kniazkov.json.JsonNumber;
+import com.kniazkov.json.JsonObject;
+import com.kniazkov.json.JsonString;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Converts records to and from JSON objects.
+ * <p>
+ * Each record is represented as a JSON object with:
+ * <ul>
+ *     <li>{@code id} – the UUID of the record;</li>
+ *     <li>{@code timestamp} – the creation time of the record;</li>
+ *     <li>one entry per field contained in the record.</li>
+ * </ul>
+ * Each JSON-based store creates a codec for its schema.
+ */
+final class JsonCodec {
+    /**
+     * A type-specific serializer/deserializer for converting values between JSON representation
+     * and model data. Each handler corresponds to exactly one {@link Type}, and is responsible for
+     * both parsing JSON and serializing values back into JSON.
+     *
+     * @param <T> the Java type handled by this serializer
+     */
+    private static abstract class Handler<T> {
+        /**
+         * Parses a JSON element into a Java value of type {@code T}.
+         *
+         * @param element the JSON element to parse
+         * @return the parsed value
+         */
+        protected abstract T parse(JsonElement element);
+
+        /**
+         * Converts a Java value into its JSON representation.
+         *
+         * @param data the value to serialize
+         * @return a JSON element representing the value
+         */
+        protected abstract JsonElement serialize(T data);
+
+        /**
+         * Reads the value for the given field from JSON and writes it into the target record.
+         */
+        @SuppressWarnings("unchecked")
+        private void createFieldFromJsonElement(
+            final Record record,
+            final Field<?> field,
+            final JsonElement element) {
+
+            record.setValue((Field<T>) field, this.parse(element));
+        }
+
+        /**
+         * Reads the value of a field from the record and returns its JSON representation.
+         */
+        @SuppressWarnings("unchecked")
+        private JsonElement createJsonElementFromField(
+            final Record record,
+            final Field<?> field) {
+
+            return this.serialize(record.getValue((Field<T>) field));
+        }
+    }
+
+    /**
+     * The global mapping of {@link Type} to {@link Handler} instances.
+     */
+    private static final Map<Type<?>, Handler<?>> HANDLERS;
+
+    /**
+     * Handler for string processing
+     */
+    private static final Handler<String> STRING_HANDLER = new Handler<String>() {
+        @Override
+        protected String parse(final JsonElement element) {
+            return element.getStringValue();
+        }
+
+        @Override
+        protected JsonElement serialize(final String data) {
+            return new JsonString(data.trim());
+        }
+    };
+
+    static {
+        Map<Type<?>, Handler<?>> m = new HashMap<>();
+
+        final Handler<Boolean> booleanHandler = new Handler<Boolean>() {
+            @Override
+            protected Boolean parse(final JsonElement element) {
+                return element.getBooleanValue();
+            }
+
+            @Override
+            protected JsonElement serialize(final Boolean data) {
+                return JsonBoolean.getInstance(data);
+            }
+        };
+        m.put(Type.BOOLEAN, booleanHandler);
+
+        m.put(Type.STRING, STRING_HANDLER);
+        m.put(Type.NOT_EMPTY_STRING, STRING_HANDLER);
+        m.put(Type.USERNAME, STRING_HANDLER);
+        m.put(Type.PHONE_NUMBER, STRING_HANDLER);
+        m.put(Type.EMAIL, STRING_HANDLER);
+
+        final Handler<Integer> integerHandler = new Handler<Integer>() {
+            @Override
+            protected Integer parse(final JsonElement element) {
+                return element.getIntValue();
+            }
+
+            @Override
+            protected JsonElement serialize(final Integer data) {
+                return new JsonNumber(data);
+            }
+        };
+        m.put(Type.INTEGER, integerHandler);
+        m.put(Type.POSITIVE_INTEGER, integerHandler);
+
+        final Handler<Double> realNumberHandler = new Handler<Double>() {
+            @Override
+            protected Double parse(final JsonElement element) {
+                return element.getDoubleValue();
+            }
+
+            @Override
+            protected JsonElement serialize(final Double data) {
+                return new JsonNumber(data);
+            }
+        };
+        m.put(Type.REAL, realNumberHandler);
+        m.put(Type.POSITIVE_REAL, realNumberHandler);
+
+        final Handler<UUID> identifierHandler = new Handler<UUID>() {
+            @Override
+            protected UUID parse(final JsonElement element) {
+                return UUID.fromString(element.getStringValue());
+            }
+
+            @Override
+            protected JsonElement serialize(final UUID data) {
+                return new JsonString(data.toString());
+            }
+        };
+        m.put(Type.IDENTIFIER, identifierHandler);
+
+        HANDLERS = Collections.unmodifiableMap(m);
+    }
+
+    /**
+     * The schema of the store.
+     */
+    private final List<Field<?>> fields;
+
+    /**
+     * Handlers of the fields, indexed by the position of the field in the schema, resolved
+     * once so that serialization does not look them up for every value. An element is
+     * {@code null} if the type of the field is not supported.
+     */
+    private final Handler<?>[] handlers;
+
+    /**
+     * Creates a codec for the records of a store.
+     *
+     * @param fields the schema of the store
+     */
+    JsonCodec(final List<Field<?>> fields) {
+        this.fields = fields;
+        this.handlers = new Handler<?>[fields.size()];
+        for (int index = 0; index < this.handlers.length; index++) {
+            final Type<?> type = fields.get(index).getType();
+            Handler<?> handler = HANDLERS.get(type);
+            if (handler == null && type.getValueClass() == String.class) {
+                handler = STRING_HANDLER;
+            }
+            this.handlers[index] = handler;
+        }
+    }
+
+    /**
+     * Returns the handler for the values of a field.
+     *
+     * @param index the position of the field in the schema
+     * @return the corresponding handler
+     * @throws IllegalStateException if the type of the field is not supported
+     */
+    private Handler<?> getHandler(final int index) {
+        final Handler<?> handler = this.handlers[index];
+        if (handler == null) {
+            throw new IllegalStateException(
+                    "Unsupported type: "
+                        + this.fields.get(index).getType().getValueClass().getName()
+            );
+        }
+        return handler;
+    }
+
+    /**
+     * Writes a record into a JSON object.
+     *
+     * @param record the record to write
+     * @param object the target JSON object
+     */
+    void write(final Record record, final JsonObject object) {
+        object.addString("id", record.getId().toString());
+        object.addString("timestamp", record.getTimestamp().toString());
+
+        for (int index = 0; index < this.handlers.length; index++) {
+            final Field<?> field = this.fields.get(index);
+            if (record.hasModel(field)) {
+                final Handler<?> handler = this.getHandler(index);
+                object.addElement(
+                    field.getName(),
+                    handler.createJsonElementFromField(record, field)
+                );
+            }
+        }
+    }
+
+    /**
+     * Reads the identifier of a record from a JSON object.
+     *
+     * @param object the JSON object
+     * @return the identifier, or {@code null} if the object has no valid identifier
+     */
+    static UUID readId(final JsonObject object) {
+        final JsonElement element = object.get("id");
+        if (element == null || !element.isString()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(element.getStringValue());
+        } catch (final IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the creation timestamp of a record from a JSON object.
+     *
+     * @param object the JSON object
+     * @return the timestamp, or {@code null} if the object has no valid timestamp
+     */
+    static Instant readTimestamp(final JsonObject object) {
+        final JsonElement element = object.get("timestamp");
+        if (element == null || !element.isString()) {
+            return null;
+        }
+        try {
+            return Instant.parse(element.getStringValue());
+        } catch (final RuntimeException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads field values from a JSON object into a record.
+     * Fields missing from the object are left untouched.
+     *
+     * @param object the JSON object
+     * @param record the target record
+     */
+    void readFields(final JsonObject object, final Record record) {
+        for (int index = 0; index < this.handlers.length; index++) {
+            final Field<?> field = this.fields.get(index);
+            final JsonElement element = object.getElement(field.getName());
+            if (element == null) {
+                continue;
+            }
+
+            final Handler<?> handler = this.getHandler(index);
+            handler.createFieldFromJsonElement(record, field, element);
+        }
+    }
+}
@@ -27,14 +27,31 @@ public class JsonDatabase extends Database {
      */
     private final Map<String, JsonStore> stores;
 
+    /**
+     * Whether store files are decoded by several threads when loading.
+     */
+    private final boolean parallelLoading;
+
     /**
      * Creates a JSON-backed database rooted at the specified folder.
      *
      * @param folder the folder containing JSON files for registered stores
      */
     public JsonDatabase(final Path folder) {
+        this(folder, false);
+    }
+
+    /**
+     * Creates a JSON-backed database rooted at the specified folder.
+     *
+     * @param folder the folder containing JSON files for registered stores
+     * @param parallelLoading whether store files are decoded by several threads when loading;
+     *  useful for large stores on multicore machines
+     */
+    public JsonDatabase(final Path folder, final boolean parallelLoading) {
         this.folder = folder;
         this.stores = new TreeMap<>();
+        this.parallelLoading = parallelLoading;
     }
 
     /**
@@ -50,12 +67,12 @@ public class JsonDatabase extends Database {
      * @throws IllegalStateException if a store with the same name is already registered
      */
     @Override
-    public Database registerStore(final String name, final List<Field<?>> fields) {
+    public synchronized Database registerStore(final String name, final List<Field<?>> fields) {
         if (this.stores.containsKey(name)) {
             throw new IllegalStateException("A store named '" + name + "' already exists");
         }
         final File file = this.folder.resolve(name + ".json").toFile();
-        final JsonStore store = JsonStore.load(this, file, fields);
+        final JsonStore store = JsonStore.load(this, file, fields, this.parallelLoading);
         this.stores.put(name, store);
         return this;
     }
@@ -68,7 +85,7 @@ public class JsonDatabase extends Database {
      * @throws IllegalStateException if no store with the specified name has been registered
      */
     @Override
-    public Store getStore(final String name) {
+    public synchronized Store getStore(final String name) {
         final JsonStore store = this.stores.get(name);
         if (store == null) {
             throw  new IllegalStateException("No store named '" + name + "' has been registered");
@@ -82,10 +99,10 @@ public class JsonDatabase extends Database {
      * @return {@code true} if all stores were flushed successfully; {@code false} otherwise
      */
     @Override
-    public boolean flush() {
+    public synchronized boolean flush() {
         boolean flag = true;
         for (JsonStore store : stores.values()) {
-            flag = flag && store.flush();
+            flag = store.flush() && flag;
         }
         return flag;
     }
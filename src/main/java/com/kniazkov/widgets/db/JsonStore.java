@@ -5,22 +5,32 @@ package com.kniazkov.widgets.db;
 
 import com.kniazkov.json.Json;
 import com.kniazkov.json.JsonArray;
-import com.kniazkov.json.JsonBoolean;
 import com.kniazkov.json.JsonElement;
 import com.kniazkov.json.JsonException;
-import com.kniazkov.json.JsonNumber;
 import com.kniazkov.json.JsonObject;
-import com.kniazkov.json.JsonString;
-import com.kniazkov.widgets.model.Model;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A {@link Store} implementation that persists records in a JSON file.
@@ -35,181 +45,48 @@ import java.util.UUID;
  * The JSON file contains a single root {@link JsonArray} where each element represents
  * one {@link Record}.
  * <br>
- * Saving always rewrites the entire file.
+ * Saving always rewrites the entire file, but the store tracks which records have been saved
+ * since the last flush, so only those records are serialized again: the text of the others
+ * is copied from the previous file, which is read as a stream, and the new file replaces it
+ * atomically. Saving the whole store via {@link #save()} serializes all records.
  */
 public final class JsonStore extends Store {
     /**
-     * A type-specific serializer/deserializer for converting values between JSON representation
-     * and model data. Each handler corresponds to exactly one {@link Type}, and is responsible for
-     * both parsing JSON and serializing values back into JSON.
-     *
-     * @param <T> the Java type handled by this serializer
+     * Matches the beginning of a record written by this class, which starts with
+     * the identifier.
      */
-    private static abstract class Handler<T> {
-        /**
-         * Parses a JSON element into a Java value of type {@code T}.
-         *
-         * @param element the JSON element to parse
-         * @return the parsed value
-         */
-        protected abstract T parse(JsonElement element);
-
-        /**
-         * Converts a Java value into its JSON representation.
-         *
-         * @param data the value to serialize
-         * @return a JSON element representing the value
-         */
-        protected abstract JsonElement serialize(T data);
-
-        /**
-         * Reads the value for the given field from JSON and writes it into the appropriate
-         * {@link Model} of the target record.
-         */
-        @SuppressWarnings("unchecked")
-        private void createFieldFromJsonElement(
-            final Record record,
-            final Field<?> field,
-            final JsonElement element) {
-
-            Model<T> model = record.getModel((Field<T>) field);
-            model.setData(this.parse(element));
-        }
-
-        /**
-         * Reads the value of a field from the record's model and returns its JSON representation.
-         */
-        @SuppressWarnings("unchecked")
-        private JsonElement createJsonElementFromField(
-            final Record record,
-            final Field<?> field) {
-
-            Model<T> model = record.getModel((Field<T>) field);
-            return this.serialize(model.getData());
-        }
-    }
+    private static final Pattern ID_PATTERN =
+        Pattern.compile("\\{\\s*\"id\"\\s*:\\s*\"([0-9a-fA-F-]{36})\"");
 
     /**
-     * The global mapping of {@link Type} to {@link Handler} instances.
+     * Database that manages all stores.
      */
-    private static final Map<Type<?>, Handler<?>> HANDLERS;
+    private final JsonDatabase database;
 
     /**
-     * Handler for string processing
+     * The file where all records are serialized.
      */
-    private static final Handler<String> STRING_HANDLER = new Handler<String>() {
-        @Override
-        protected String parse(final JsonElement element) {
-            return element.getStringValue();
-        }
-
-        @Override
-        protected JsonElement serialize(final String data) {
-            return new JsonString(data.trim());
-        }
-    };
-
-    static {
-        Map<Type<?>, Handler<?>> m = new HashMap<>();
-
-        final Handler<Boolean> booleanHandler = new Handler<Boolean>() {
-            @Override
-            protected Boolean parse(final JsonElement element) {
-                return element.getBooleanValue();
-            }
-
-            @Override
-            protected JsonElement serialize(final Boolean data) {
-                return JsonBoolean.getInstance(data);
-            }
-        };
-        m.put(Type.BOOLEAN, booleanHandler);
-
-        m.put(Type.STRING, STRING_HANDLER);
-        m.put(Type.NOT_EMPTY_STRING, STRING_HANDLER);
-        m.put(Type.USERNAME, STRING_HANDLER);
-        m.put(Type.PHONE_NUMBER, STRING_HANDLER);
-        m.put(Type.EMAIL, STRING_HANDLER);
-
-        final Handler<Integer> integerHandler = new Handler<Integer>() {
-            @Override
-            protected Integer parse(final JsonElement element) {
-                return element.getIntValue();
-            }
-
-            @Override
-            protected JsonElement serialize(final Integer data) {
-                return new JsonNumber(data);
-            }
-        };
-        m.put(Type.INTEGER, integerHandler);
-        m.put(Type.POSITIVE_INTEGER, integerHandler);
-
-        final Handler<Double> realNumberHandler = new Handler<Double>() {
-            @Override
-            protected Double parse(final JsonElement element) {
-                return element.getDoubleValue();
-            }
-
-            @Override
-            protected JsonElement serialize(final Double data) {
-                return new JsonNumber(data);
-            }
-        };
-        m.put(Type.REAL, realNumberHandler);
-        m.put(Type.POSITIVE_REAL, realNumberHandler);
-
-        final Handler<UUID> identifierHandler = new Handler<UUID>() {
-            @Override
-            protected UUID parse(final JsonElement element) {
-                return UUID.fromString(element.getStringValue());
-            }
-
-            @Override
-            protected JsonElement serialize(final UUID data) {
-                return new JsonString(data.toString());
-            }
-        };
-        m.put(Type.IDENTIFIER, identifierHandler);
-
-        HANDLERS = Collections.unmodifiableMap(m);
-    }
+    private final File file;
 
     /**
-     * Returns the handler associated with the given {@link Type}.
-     *
-     * @param type the value type
-     * @return the corresponding handler
-     * @throws IllegalStateException if the type is not supported
+     * A flag indicating that the storage system contains data that has not been written to disk.
      */
-    private static Handler<?> getHandler(final Type<?> type) {
-        Handler<?> handler = HANDLERS.get(type);
-        if (handler == null) {
-            if (type.getValueClass() == String.class) {
-                handler = STRING_HANDLER;
-            } else {
-                throw new IllegalStateException(
-                        "Unsupported type: " + type.getValueClass().getName()
-                );
-            }
-        }
-        return handler;
-    }
+    private volatile boolean dirty;
 
     /**
-     * Database that manages all stores.
+     * Identifiers of records saved since the last flush.
      */
-    private final JsonDatabase database;
+    private final Set<UUID> dirtyRecords;
 
     /**
-     * The file where all records are serialized.
+     * Whether all records must be serialized again on the next flush.
      */
-    private final File file;
+    private volatile boolean allDirty;
 
     /**
-     * A flag indicating that the storage system contains data that has not been written to disk.
+     * Converts records to and from JSON.
      */
-    private boolean dirty;
+    private final JsonCodec codec;
 
     /**
      * Creates a JSON-backed store with the specified output file and schema.
@@ -221,60 +98,236 @@ public final class JsonStore extends Store {
         super(fields);
         this.database = database;
         this.file = file;
+        this.dirtyRecords = ConcurrentHashMap.newKeySet();
+        this.codec = new JsonCodec(fields);
     }
 
     /**
      * Marks the store as “dirty” but does not actually write to the disk.
+     * If the database runs a background flusher, the change will be written by it.
      */
     @Override
     public void save() {
+        this.allDirty = true;
         this.dirty = true;
+        this.database.recordSave();
+    }
+
+    /**
+     * Registers the record and marks only this record as changed.
+     *
+     * @param record the record to be saved
+     */
+    @Override
+    void save(final PermanentRecord record) {
+        this.registerRecord(record);
+        this.dirtyRecords.add(record.getId());
+        this.dirty = true;
+        this.database.recordSave();
+    }
+
+    /**
+     * Marks the store as changed; the removed record disappears from the next written file.
+     *
+     * @param record the removed record
+     */
+    @Override
+    void saveRemoval(final PermanentRecord record) {
+        this.dirty = true;
+        this.database.recordSave();
     }
 
     /**
      * Saves all records to the backing JSON file.
      * <p>
-     * The entire file is rewritten. Each record becomes one object in the resulting JSON array.
+     * The entire file is rewritten. Each record becomes one object in the resulting JSON array:
+     * records saved since the last flush are serialized, the others are copied from
+     * the previous file. The new file is written next to the previous one, forced to
+     * the storage device and then moved in its place, so a failed flush leaves the previous
+     * file intact. The dirty flag is cleared before records are collected, so changes saved
+     * during the write are not lost and will be written by the next flush.
      *
-     * @throws IllegalStateException if writing fails
+     * @return {@code true} if writing succeeded; {@code false} otherwise
      */
-    boolean flush() {
+    synchronized boolean flush() {
         if (!this.dirty) {
             return true;
         }
+        this.dirty = false;
+        final boolean all = this.allDirty;
+        this.allDirty = false;
+        final List<Record> records = this.getSnapshot();
+        final Map<UUID, Record> remaining = new LinkedHashMap<>(records.size() * 4 / 3 + 1);
+        final Set<UUID> changed = new HashSet<>();
+        for (final Record record : records) {
+            final UUID id = record.getId();
+            remaining.put(id, record);
+            if (this.dirtyRecords.remove(id) || all) {
+                changed.add(id);
+            }
+        }
+        final File temporary = new File(this.file.getPath() + ".tmp");
+        try {
+            final File parentDir = this.file.getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                parentDir.mkdirs();
+            }
+            try (final FileOutputStream stream = new FileOutputStream(temporary)) {
+                final Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(stream, Charset.defaultCharset()));
+                writer.write('[');
+                int count = all ? 0 : this.copyUnchanged(writer, remaining, changed);
+                for (final Record record : remaining.values()) {
+                    writer.write(count++ == 0 ? "\n" : ",\n");
+                    writer.write(this.serialize(record));
+                }
+                writer.write(count == 0 ? "]" : "\n]");
+                writer.flush();
+                stream.getFD().sync();
+            }
+            try {
+                Files.move(temporary.toPath(), this.file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException ignored) {
+                Files.move(temporary.toPath(), this.file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException ignored) {
+            if (all) {
+                this.allDirty = true;
+            } else {
+                this.dirtyRecords.addAll(changed);
+            }
+            this.dirty = true;
+            return false;
+        }
+        return true;
+    }
 
-        final JsonArray array = new JsonArray();
-
-        for (final Record record : this.getRecords()) {
-            final JsonObject object = array.createObject();
-            object.addString("id", record.getId().toString());
-            object.addString("timestamp", record.getTimestamp().toString());
-
-            for (final Field<?> field : this.getFields()) {
-                if (record.hasModel(field)) {
-                    final Handler<?> handler = getHandler(field.getType());
-                    object.addElement(
-                        field.getName(),
-                        handler.createJsonElementFromField(record, field)
-                    );
+    /**
+     * Copies the records that have not changed from the previous file to the new one.
+     * Copied records are removed from the map of remaining records. If the previous file
+     * is missing or cannot be read to the end, the records not copied remain in the map.
+     *
+     * @param writer the writer of the new file, positioned after the opening bracket
+     * @param remaining the records still to be written, keyed by identifier
+     * @param changed identifiers of the records that must be serialized again
+     * @return the number of copied records
+     * @throws IOException if writing fails
+     */
+    private int copyUnchanged(final Writer writer, final Map<UUID, Record> remaining,
+            final Set<UUID> changed) throws IOException {
+        final JsonArrayReader reader;
+        try {
+            reader = new JsonArrayReader(
+                new InputStreamReader(new FileInputStream(this.file), Charset.defaultCharset()));
+        } catch (final FileNotFoundException ignored) {
+            return 0;
+        }
+        int count = 0;
+        try {
+            while (true) {
+                final String text;
+                try {
+                    text = reader.next();
+                } catch (final IOException ignored) {
+                    break;
+                }
+                if (text == null) {
+                    break;
                 }
+                final UUID id = getId(text);
+                if (id != null && !changed.contains(id) && remaining.remove(id) != null) {
+                    writer.write(count++ == 0 ? "\n  " : ",\n  ");
+                    writer.write(text.trim());
+                }
+            }
+        } finally {
+            try {
+                reader.close();
+            } catch (final IOException ignored) {
             }
         }
+        return count;
+    }
+
+    /**
+     * Extracts the identifier of a record from its text in the file.
+     *
+     * @param text the text of the record
+     * @return the identifier, or {@code null} if the text is not a valid record
+     */
+    private static UUID getId(final String text) {
+        final Matcher matcher = ID_PATTERN.matcher(text);
+        if (matcher.lookingAt()) {
+            try {
+                return UUID.fromString(matcher.group(1));
+            } catch (final IllegalArgumentException ignored) {
+                return null;
+            }
+        }
+        final JsonElement element;
+        try {
+            element = Json.parse(text);
+        } catch (final JsonException ignored) {
+            return null;
+        }
+        final JsonObject object = element == null ? null : element.toJsonObject();
+        return object == null ? null : JsonCodec.readId(object);
+    }
+
+    /**
+     * Serializes one record as an indented element of the root array.
+     *
+     * @param record the record
+     * @return the text of the record
+     */
+    private String serialize(final Record record) {
+        final JsonObject object = new JsonObject();
+        this.codec.write(record, object);
+        return "  " + object.toText("  ").replace("\n", "\n  ");
+    }
+
+    /**
+     * Writes records to a JSON file as an array of objects, replacing its content.
+     * The data is forced to the storage device before this method returns.
+     *
+     * @param file the file to write
+     * @param fields the schema of the store
+     * @param records the records to write
+     * @throws IOException if writing fails
+     */
+    static void writeFile(final File file, final List<Field<?>> fields,
+            final List<Record> records) throws IOException {
+        final JsonCodec codec = new JsonCodec(fields);
+        final JsonArray array = new JsonArray();
+
+        for (final Record record : records) {
+            codec.write(record, array.createObject());
+        }
 
-        final String json = array.toText("  ");
+        writeText(file, array.toText("  "));
+    }
 
-        final File parentDir = this.file.getParentFile();
+    /**
+     * Replaces the content of a file with the specified text.
+     * The data is forced to the storage device before this method returns.
+     *
+     * @param file the file to write
+     * @param json the text
+     * @throws IOException if writing fails
+     */
+    private static void writeText(final File file, final String json) throws IOException {
+        final File parentDir = file.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
             parentDir.mkdirs();
         }
-        try (final FileWriter writer = new FileWriter(this.file)) {
+        try (final FileOutputStream stream = new FileOutputStream(file)) {
+            final Writer writer = new OutputStreamWriter(stream);
             writer.write(json);
-        } catch (final IOException ignored) {
-            return false;
+            writer.flush();
+            stream.getFD().sync();
         }
-
-        this.dirty = false;
-        return true;
     }
 
     /**
@@ -298,57 +351,52 @@ public final class JsonStore extends Store {
      * Loads a JSON file and constructs a {@link JsonStore} instance populated
      * with the stored records.
      * <p>
+     * The file is read as a stream: each element of the root array is parsed and turned into
+     * a record on its own, so the whole document is never held in memory at once.
      * Unsupported fields or malformed entries are silently skipped.
      *
      * @param database the database that manages all stores
      * @param file the JSON file to read
      * @param fields the schema to use when interpreting records
+     * @param parallel whether records may be decoded by several threads
      * @return a fully populated store instance
      */
     static JsonStore load(final JsonDatabase database, final File file,
-                             final List<Field<?>> fields) {
+                             final List<Field<?>> fields, final boolean parallel) {
         final JsonStore store = new JsonStore(database, file, fields);
+        if (!file.exists()) {
+            return store;
+        }
 
         try {
-            final JsonElement root = Json.parse(file);
-            if (root == null) {
-                return store;
-            }
-
-            final JsonArray array = root.toJsonArray();
-            if (array == null) {
-                return store;
-            }
-
-            for (final JsonElement entry : array) {
-                final JsonObject object = entry.toJsonObject();
-                if (object == null) {
-                    continue;
-                }
-
-                final JsonElement idStr = object.get("id");
-                final JsonElement tsStr = object.get("timestamp");
-                if (idStr == null || !idStr.isString() || tsStr == null || !tsStr.isString()) {
-                    continue;
-                }
-
-                final UUID id = UUID.fromString(idStr.getStringValue());
-                final Instant timestamp = Instant.parse(tsStr.getStringValue());
-                final Record record = store.createRecord(id, timestamp);
+            readFile(store, file, parallel);
+        } catch (final IOException ignored) {
+        }
 
-                for (final Field<?> field : fields) {
-                    final JsonElement element = object.getElement(field.getName());
-                    if (element == null) {
-                        continue;
-                    }
+        return store;
+    }
 
-                    Handler<?> handler = getHandler(field.getType());
-                    handler.createFieldFromJsonElement(record, field, element);
-                }
+    /**
+     * Reads records from a JSON file and adds them to a store.
+     * Unsupported fields or malformed entries are silently skipped.
+     *
+     * @param store the store receiving the records
+     * @param file the JSON file to read
+     * @param parallel whether records may be decoded by several threads
+     * @throws IOException if reading fails
+     */
+    static void readFile(final Store store, final File file, final boolean parallel)
+            throws IOException {
+        final JsonCodec codec = new JsonCodec(store.getFields());
+        JsonArrayReader.forEachObject(file, Charset.defaultCharset(), parallel, object -> {
+            final UUID id = JsonCodec.readId(object);
+            final Instant timestamp = JsonCodec.readTimestamp(object);
+            if (id == null || timestamp == null) {
+                return;
             }
-        } catch (JsonException ignored) {
-        }
 
-        return store;
+            final Record record = store.createRecord(id, timestamp);
+            codec.readFields(object, record);
+        });
     }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A {@link Database} implementation that keeps all stores in an embedded
+ * {@link KeyValueEngine}.
+ * <p>
+ * Each record is a separate entry of the engine, so saving or removing a record writes only
+ * that record, and the size of the data on disk is not limited by the size of the files that
+ * can be rewritten at once. The engine and the binary representation of records are
+ * pluggable: by default, the database uses an {@link LsmEngine} in its folder and the
+ * {@link RecordCodec#BINARY binary codec}.
+ * <p>
+ * Stores behave exactly like the stores of other databases: records are loaded when a store
+ * is registered, {@link Store#createIndex(Field, IndexType) indexes} and queries work in
+ * memory, and {@link #flush()} makes all saved changes durable. The engine itself keeps
+ * only a small part of the data in memory, but the records of all registered stores must
+ * still fit into the heap.
+ */
+public class KeyValueDatabase extends Database implements Closeable {
+    /**
+     * The engine.
+     */
+    private final KeyValueEngine engine;
+
+    /**
+     * The codec of field values.
+     */
+    private final RecordCodec codec;
+
+    /**
+     * The registered stores indexed by their names.
+     */
+    private final Map<String, KeyValueStore> stores;
+
+    /**
+     * Creates a database backed by an {@link LsmEngine} in the specified folder.
+     *
+     * @param folder the folder containing the engine files; created if missing
+     * @throws UncheckedIOException if the engine cannot be opened
+     */
+    public KeyValueDatabase(final Path folder) {
+        this(openEngine(folder), RecordCodec.BINARY);
+    }
+
+    /**
+     * Creates a database backed by the specified engine.
+     *
+     * @param engine the engine; closed together with the database
+     * @param codec the codec of field values
+     */
+    public KeyValueDatabase(final KeyValueEngine engine, final RecordCodec codec) {
+        this.engine = engine;
+        this.codec = codec;
+        this.stores = new TreeMap<>();
+    }
+
+    /**
+     * Registers a store in this database and loads its records from the engine.
+     *
+     * @param name the unique store name; must not contain the zero character
+     * @param fields the schema fields supported by the store
+     * @return this database instance
+     * @throws IllegalStateException if a store with the same name is already registered
+     * @throws IllegalArgumentException if the name contains the zero character
+     * @throws UncheckedIOException if the records cannot be read
+     */
+    @Override
+    public synchronized Database registerStore(final String name, final List<Field<?>> fields) {
+        if (this.stores.containsKey(name)) {
+            throw new IllegalStateException("A store named '" + name + "' already exists");
+        }
+        if (name.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("Invalid store name");
+        }
+        try {
+            this.stores.put(name,
+                KeyValueStore.load(this, this.engine, this.codec, name, fields));
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return this;
+    }
+
+    /**
+     * Returns a registered store by name.
+     *
+     * @param name the store name
+     * @return the registered store
+     * @throws IllegalStateException if no store with the specified name has been registered
+     */
+    @Override
+    public synchronized Store getStore(final String name) {
+        final KeyValueStore store = this.stores.get(name);
+        if (store == null) {
+            throw new IllegalStateException("No store named '" + name + "' has been registered");
+        }
+        return store;
+    }
+
+    /**
+     * Makes all saved changes durable.
+     *
+     * @return {@code true} if flushing succeeded; {@code false} otherwise
+     */
+    @Override
+    public synchronized boolean flush() {
+        boolean flag = true;
+        for (final KeyValueStore store : this.stores.values()) {
+            flag = store.flush() && flag;
+        }
+        try {
+            this.engine.sync();
+        } catch (final IOException ignored) {
+            return false;
+        }
+        return flag;
+    }
+
+    /**
+     * Stops the background flusher, flushes the database and closes the engine.
+     *
+     * @throws IOException if the engine cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.stopFlusher();
+        synchronized (this) {
+            this.flush();
+            this.engine.close();
+        }
+    }
+
+    /**
+     * Opens the default engine.
+     *
+     * @param folder the folder containing the engine files
+     * @return the engine
+     * @throws UncheckedIOException if the engine cannot be opened
+     */
+    private static KeyValueEngine openEngine(final Path folder) {
+        try {
+            return LsmEngine.open(folder);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+/**
+ * Service provider interface for an embedded, ordered key-value engine that backs a
+ * {@link KeyValueDatabase}.
+ * <p>
+ * Keys and values are byte arrays; keys are ordered by comparing their bytes as unsigned
+ * numbers, shorter keys first when one is a prefix of the other. The database stores each
+ * record under a key made of the store name and the record identifier, so the engine only
+ * has to provide point operations and prefix scans.
+ * <p>
+ * Writes may be buffered: {@link #put(byte[], byte[])} and {@link #delete(byte[])} must be
+ * visible to subsequent reads at once, but become durable only after {@link #sync()}.
+ * Implementations must be thread-safe.
+ */
+public interface KeyValueEngine extends Closeable {
+    /**
+     * Returns the value stored under the key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if the key is absent
+     * @throws IOException if reading fails
+     */
+    byte[] get(byte[] key) throws IOException;
+
+    /**
+     * Stores a value under the key, replacing the previous one.
+     *
+     * @param key the key
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    void put(byte[] key, byte[] value) throws IOException;
+
+    /**
+     * Removes the key. Does nothing if the key is absent.
+     *
+     * @param key the key
+     * @throws IOException if writing fails
+     */
+    void delete(byte[] key) throws IOException;
+
+    /**
+     * Passes all entries whose keys start with the prefix to the visitor, in key order.
+     * The arrays passed to the visitor belong to it.
+     *
+     * @param prefix the key prefix; an empty prefix visits all entries
+     * @param visitor the visitor receiving keys and values
+     * @throws IOException if reading fails
+     */
+    void scan(byte[] prefix, BiConsumer<byte[], byte[]> visitor) throws IOException;
+
+    /**
+     * Makes all writes done so far durable.
+     *
+     * @throws IOException if writing fails
+     */
+    void sync() throws IOException;
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A {@link Store} persisted record by record in a {@link KeyValueEngine}.
+ * <p>
+ * Each record is stored under a key made of the store name, a zero byte and the 16 bytes of
+ * the record identifier. The value holds the timestamp of the record (seconds and
+ * nanoseconds) followed by the field values written by the {@link RecordCodec} of the
+ * database. Saving or removing a record writes only that record.
+ */
+final class KeyValueStore extends Store {
+    /**
+     * Database that manages this store.
+     */
+    private final KeyValueDatabase database;
+
+    /**
+     * The engine.
+     */
+    private final KeyValueEngine engine;
+
+    /**
+     * The codec of field values.
+     */
+    private final RecordCodec codec;
+
+    /**
+     * The common prefix of the keys of this store.
+     */
+    private final byte[] prefix;
+
+    /**
+     * Set when writing a record to the engine failed; all records are written again on the
+     * next flush.
+     */
+    private volatile boolean failed;
+
+    /**
+     * Constructs a new store.
+     *
+     * @param database the database that manages this store
+     * @param engine the engine
+     * @param codec the codec of field values
+     * @param name the store name
+     * @param fields the schema describing the fields available in this store
+     */
+    private KeyValueStore(final KeyValueDatabase database, final KeyValueEngine engine,
+            final RecordCodec codec, final String name, final List<Field<?>> fields) {
+        super(fields);
+        this.database = database;
+        this.engine = engine;
+        this.codec = codec;
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        this.prefix = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, this.prefix, 0, bytes.length);
+    }
+
+    /**
+     * Writes all records of the store to the engine.
+     */
+    @Override
+    public void save() {
+        this.failed = !this.writeAll();
+        this.database.recordSave();
+    }
+
+    /**
+     * Registers the record and writes it to the engine.
+     *
+     * @param record the record to be saved
+     */
+    @Override
+    void save(final PermanentRecord record) {
+        this.registerRecord(record);
+        if (!this.write(record)) {
+            this.failed = true;
+        }
+        this.database.recordSave();
+    }
+
+    /**
+     * Removes the record from the engine.
+     *
+     * @param record the removed record
+     */
+    @Override
+    void saveRemoval(final PermanentRecord record) {
+        try {
+            this.engine.delete(this.getKey(record.getId()));
+        } catch (final IOException ignored) {
+            this.failed = true;
+        }
+        this.database.recordSave();
+    }
+
+    /**
+     * Writes all records again if an earlier write failed. The engine itself is synchronized
+     * by the database.
+     *
+     * @return {@code true} if the engine contains all records; {@code false} otherwise
+     */
+    boolean flush() {
+        if (this.failed) {
+            this.failed = false;
+            if (!this.writeAll()) {
+                this.failed = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all records to the engine. Records that are no longer in the store may remain
+     * in the engine if their removal was not written. Each record is written under its edit
+     * lock and only while it is still registered, so a concurrent removal is never undone.
+     *
+     * @return {@code true} on success
+     */
+    private boolean writeAll() {
+        boolean flag = true;
+        for (final Record record : this.getSnapshot()) {
+            synchronized (((PermanentRecord) record).getEditLock()) {
+                if (this.getRecordById(record.getId()) == record) {
+                    flag = this.write(record) && flag;
+                }
+            }
+        }
+        return flag;
+    }
+
+    /**
+     * Writes one record to the engine.
+     *
+     * @param record the record
+     * @return {@code true} on success
+     */
+    private boolean write(final Record record) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream stream = new DataOutputStream(buffer)) {
+            final Instant timestamp = record.getTimestamp();
+            stream.writeLong(timestamp.getEpochSecond());
+            stream.writeInt(timestamp.getNano());
+            this.codec.encode(record, this.getFields(), stream);
+        } catch (final IOException ignored) {
+            return false;
+        }
+        try {
+            this.engine.put(this.getKey(record.getId()), buffer.toByteArray());
+        } catch (final IOException ignored) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the key of a record.
+     *
+     * @param id the record identifier
+     * @return the key
+     */
+    private byte[] getKey(final UUID id) {
+        final byte[] key = new byte[this.prefix.length + 16];
+        System.arraycopy(this.prefix, 0, key, 0, this.prefix.length);
+        ByteBuffer.wrap(key, this.prefix.length, 16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits());
+        return key;
+    }
+
+    /**
+     * Loads a store from the engine.
+     *
+     * @param database the database that manages all stores
+     * @param engine the engine
+     * @param codec the codec of field values
+     * @param name the store name
+     * @param fields the schema of the store
+     * @return a populated store instance
+     * @throws IOException if reading fails
+     */
+    static KeyValueStore load(final KeyValueDatabase database, final KeyValueEngine engine,
+            final RecordCodec codec, final String name, final List<Field<?>> fields)
+            throws IOException {
+        final KeyValueStore store = new KeyValueStore(database, engine, codec, name, fields);
+        final int offset = store.prefix.length;
+        engine.scan(store.prefix, (key, value) -> {
+            if (key.length != offset + 16) {
+                return;
+            }
+            final ByteBuffer id = ByteBuffer.wrap(key, offset, 16);
+            final ByteBuffer buffer = ByteBuffer.wrap(value);
+            final Instant timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            final Record record = store.createRecord(new UUID(id.getLong(), id.getLong()),
+                timestamp);
+            codec.decode(buffer, record, fields);
+        });
+        return store;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import com.kniazkov.widgets.common.Listener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * A record set that keeps the result of a query up to date as records are saved and removed.
+ * <p>
+ * A live query is created by {@link Store#liveSelect(Filter)}. The store tests every saved
+ * or removed record against the filters of its live queries, so the result is maintained
+ * incrementally instead of being recomputed. Each change of the result is reported
+ * to the listeners as a {@link RecordChange} (insert, update or delete), which is enough
+ * to add, refresh or remove a single row of a table.
+ * <p>
+ * Like indexes, live queries follow the state of records as it was when they were last saved.
+ * Listeners are called by the thread that saved or removed the record, after the store lock
+ * has been released; changes are delivered one at a time and in the order they happened.
+ * A live query stays registered in the store until it is {@link #close() closed}.
+ */
+public final class LiveQuery extends RecordSet {
+    /**
+     * The store.
+     */
+    private final Store store;
+
+    /**
+     * The filter.
+     */
+    private final Filter filter;
+
+    /**
+     * The records matching the filter, keyed by identifier.
+     */
+    private final NavigableMap<UUID, Record> matches;
+
+    /**
+     * The listeners.
+     */
+    private final List<Listener<RecordChange>> listeners;
+
+    /**
+     * Changes not yet delivered to the listeners.
+     */
+    private final ArrayDeque<RecordChange> pending;
+
+    /**
+     * Whether some thread is delivering changes right now.
+     */
+    private boolean dispatching;
+
+    /**
+     * Creates a live query with the specified initial result.
+     *
+     * @param store the store
+     * @param filter the filter
+     * @param initial the records matching the filter at the moment of creation
+     */
+    LiveQuery(final Store store, final Filter filter, final List<Record> initial) {
+        this.store = store;
+        this.filter = filter;
+        this.matches = new TreeMap<>();
+        for (final Record record : initial) {
+            this.matches.put(record.getId(), record);
+        }
+        this.listeners = new ArrayList<>();
+        this.pending = new ArrayDeque<>();
+    }
+
+    /**
+     * Adds a listener notified about every change of the result.
+     *
+     * @param listener the listener
+     */
+    public synchronized void addListener(final Listener<RecordChange> listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public synchronized void removeListener(final Listener<RecordChange> listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Unregisters this live query from the store. The result is no longer updated afterwards.
+     */
+    public void close() {
+        this.store.removeLiveQuery(this);
+    }
+
+    @Override
+    public synchronized int getRecordCount() {
+        return this.matches.size();
+    }
+
+    /**
+     * Returns the records currently matching the query, ordered by identifier.
+     *
+     * @return a new list of records
+     */
+    @Override
+    public synchronized List<Record> getRecords() {
+        return new ArrayList<>(this.matches.values());
+    }
+
+    /**
+     * Updates the result after a record has been saved and queues the resulting change.
+     * Called by the store under its lock.
+     *
+     * @param record the saved record
+     * @return {@code true} if a change was queued
+     */
+    boolean recordSaved(final Record record) {
+        final boolean match = this.filter.match(record);
+        synchronized (this) {
+            final boolean present;
+            if (match) {
+                present = this.matches.put(record.getId(), record) != null;
+            } else {
+                present = this.matches.remove(record.getId()) != null;
+                if (!present) {
+                    return false;
+                }
+            }
+            final RecordChange.Kind kind = !match ? RecordChange.Kind.DELETE
+                : present ? RecordChange.Kind.UPDATE : RecordChange.Kind.INSERT;
+            this.pending.add(new RecordChange(kind, record));
+            return true;
+        }
+    }
+
+    /**
+     * Updates the result after a record has been removed and queues the resulting change.
+     * Called by the store under its lock.
+     *
+     * @param record the removed record
+     * @return {@code true} if a change was queued
+     */
+    synchronized boolean recordRemoved(final Record record) {
+        if (this.matches.remove(record.getId()) == null) {
+            return false;
+        }
+        this.pending.add(new RecordChange(RecordChange.Kind.DELETE, record));
+        return true;
+    }
+
+    /**
+     * Delivers queued changes to the listeners. Must be called without holding the store lock.
+     * If another thread is already delivering, it will deliver the new changes as well.
+     */
+    void dispatch() {
+        synchronized (this) {
+            if (this.dispatching) {
+                return;
+            }
+            this.dispatching = true;
+        }
+        boolean done = false;
+        try {
+            while (true) {
+                final RecordChange change;
+                final List<Listener<RecordChange>> targets;
+                synchronized (this) {
+                    change = this.pending.poll();
+                    if (change == null) {
+                        this.dispatching = false;
+                        done = true;
+                        return;
+                    }
+                    targets = new ArrayList<>(this.listeners);
+                }
+                for (final Listener<RecordChange> listener : targets) {
+                    listener.accept(change);
+                }
+            }
+        } finally {
+            if (!done) {
+                synchronized (this) {
+                    this.dispatching = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Database} implementation that stores data in log-structured files.
+ * <p>
+ * Each store keeps a snapshot file {@code name.json} and a series of append-only log
+ * segments {@code name.N.log} in the database folder. Saving a record appends one line
+ * describing the change, so the cost of a write is proportional to the size of the record,
+ * not to the size of the store. {@link #flush()} makes all appended changes durable with a
+ * single {@code fsync} per store.
+ * <p>
+ * When the log of a store exceeds the compaction threshold, the store is compacted in the
+ * background: its records are written to a new snapshot, which atomically replaces the old one
+ * via a rename, and the covered log segments are deleted.
+ * <p>
+ * The snapshot format is the same as the one used by {@link JsonDatabase}, so a folder created
+ * by {@link JsonDatabase} can be opened by this class.
+ */
+public class LogDatabase extends Database {
+    /**
+     * Default log size that triggers compaction of a store, in bytes.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 4L * 1024 * 1024;
+
+    /**
+     * The folder where store files are located.
+     */
+    private final Path folder;
+
+    /**
+     * Log size that triggers compaction of a store, in bytes.
+     */
+    private final long compactionThreshold;
+
+    /**
+     * The registered stores indexed by their names. Guarded by this database, because
+     * the background flusher iterates it while other threads may register stores.
+     */
+    private final Map<String, LogStore> stores;
+
+    /**
+     * Single background thread that compacts stores.
+     */
+    private final ExecutorService compactor;
+
+    /**
+     * Creates a log-structured database rooted at the specified folder
+     * with the default compaction threshold.
+     *
+     * @param folder the folder containing store files
+     */
+    public LogDatabase(final Path folder) {
+        this(folder, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Creates a log-structured database rooted at the specified folder.
+     *
+     * @param folder the folder containing store files
+     * @param compactionThreshold log size that triggers compaction of a store, in bytes
+     */
+    public LogDatabase(final Path folder, final long compactionThreshold) {
+        this.folder = folder;
+        this.compactionThreshold = compactionThreshold;
+        this.stores = new TreeMap<>();
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "LogDatabase compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a store in this database.
+     * <p>
+     * The store is loaded from its snapshot and log segments inside the configured folder
+     * if such files already exist. Otherwise, an empty store with the specified schema
+     * is created.
+     *
+     * @param name the unique store name
+     * @param fields the schema fields supported by the store
+     * @return this database instance
+     * @throws IllegalStateException if a store with the same name is already registered
+     */
+    @Override
+    public synchronized Database registerStore(final String name, final List<Field<?>> fields) {
+        if (this.stores.containsKey(name)) {
+            throw new IllegalStateException("A store named '" + name + "' already exists");
+        }
+        final LogStore store = LogStore.load(this, this.folder, name, fields);
+        this.stores.put(name, store);
+        return this;
+    }
+
+    /**
+     * Returns a registered store by name.
+     *
+     * @param name the store name
+     * @return the registered store
+     * @throws IllegalStateException if no store with the specified name has been registered
+     */
+    @Override
+    public synchronized Store getStore(final String name) {
+        final LogStore store = this.stores.get(name);
+        if (store == null) {
+            throw new IllegalStateException("No store named '" + name + "' has been registered");
+        }
+        return store;
+    }
+
+    /**
+     * Makes all changes appended so far durable and schedules background compaction
+     * of stores whose logs have grown past the threshold.
+     *
+     * @return {@code true} if all stores were flushed successfully; {@code false} otherwise
+     */
+    @Override
+    public synchronized boolean flush() {
+        boolean flag = true;
+        for (final LogStore store : this.stores.values()) {
+            flag = store.flush() && flag;
+            if (store.needsCompaction(this.compactionThreshold)) {
+                this.scheduleCompaction(store);
+            }
+        }
+        return flag;
+    }
+
+    /**
+     * Compacts all stores in the calling thread.
+     *
+     * @return {@code true} if all snapshots were written successfully; {@code false} otherwise
+     */
+    public synchronized boolean compact() {
+        boolean flag = true;
+        for (final LogStore store : this.stores.values()) {
+            flag = store.compact() && flag;
+        }
+        return flag;
+    }
+
+    /**
+     * Stops the background flusher, flushes all stores, waits for running compactions
+     * and releases all files. The database must not be used afterwards.
+     *
+     * @return {@code true} if all stores were flushed successfully; {@code false} otherwise
+     */
+    public boolean close() {
+        this.stopFlusher();
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        boolean flag = true;
+        synchronized (this) {
+            for (final LogStore store : this.stores.values()) {
+                flag = store.close() && flag;
+            }
+        }
+        return flag;
+    }
+
+    /**
+     * Schedules background compaction of a store, unless it is already scheduled.
+     *
+     * @param store the store to compact
+     */
+    void scheduleCompaction(final LogStore store) {
+        if (!this.compactor.isShutdown() && store.markScheduled()) {
+            this.compactor.execute(store::compact);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import com.kniazkov.json.Json;
+import com.kniazkov.json.JsonArray;
+import com.kniazkov.json.JsonElement;
+import com.kniazkov.json.JsonException;
+import com.kniazkov.json.JsonObject;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A log-structured {@link Store} that persists records as a snapshot plus an append-only log.
+ * <p>
+ * The store keeps two kinds of files in the database folder:
+ * <ul>
+ *     <li>{@code name.json} – a snapshot in the same format as {@link JsonStore} uses;</li>
+ *     <li>{@code name.N.log} – log segments, one JSON object per line. Each line either puts
+ *         the full state of one record ({@code "op": "put"}) or removes a record
+ *         ({@code "op": "remove"}).</li>
+ * </ul>
+ * Saving a record only appends one line to an in-memory buffer. {@link #flush()} writes
+ * the buffer to the current segment and forces it to disk once, so a burst of saves costs
+ * a single {@code fsync}. When the log grows large, the store is compacted: a new segment
+ * is started, all records are written to a temporary snapshot, which then atomically replaces
+ * the old one, and the segments it covers are deleted.
+ * <p>
+ * Loading reads the snapshot and replays all segments in order. Replaying is idempotent,
+ * so a crash at any point of compaction loses nothing; a line torn by a crash is skipped.
+ */
+final class LogStore extends Store {
+    /**
+     * Database that manages all stores.
+     */
+    private final LogDatabase database;
+
+    /**
+     * The folder containing the snapshot and the segments.
+     */
+    private final Path folder;
+
+    /**
+     * The store name, used as a prefix for all file names.
+     */
+    private final String name;
+
+    /**
+     * Converts records to and from JSON.
+     */
+    private final JsonCodec codec;
+
+    /**
+     * Guards the segment state: the pending buffer, the channel and counters.
+     */
+    private final Object lock;
+
+    /**
+     * Log lines that have not been written to the segment yet.
+     */
+    private final StringBuilder pending;
+
+    /**
+     * Number of the segment new lines are appended to.
+     */
+    private long segment;
+
+    /**
+     * The open channel of the current segment, or {@code null} if it is not open yet.
+     */
+    private FileChannel channel;
+
+    /**
+     * Number of bytes written to the segments since the last snapshot.
+     */
+    private long logSize;
+
+    /**
+     * Serializes compactions, so that an older snapshot never replaces a newer one.
+     */
+    private final Object compaction;
+
+    /**
+     * Set while a background compaction is scheduled but has not started yet.
+     */
+    private final AtomicBoolean scheduled;
+
+    /**
+     * Creates an empty log-structured store.
+     *
+     * @param database the database that manages all stores
+     * @param folder the folder containing store files
+     * @param name the store name
+     * @param fields the list of fields describing the schema
+     */
+    private LogStore(final LogDatabase database, final Path folder, final String name,
+            final List<Field<?>> fields) {
+        super(fields);
+        this.database = database;
+        this.folder = folder;
+        this.name = name;
+        this.codec = new JsonCodec(fields);
+        this.lock = new Object();
+        this.pending = new StringBuilder();
+        this.compaction = new Object();
+        this.scheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Writes a snapshot of all records. The snapshot is written in the background.
+     */
+    @Override
+    public void save() {
+        this.database.scheduleCompaction(this);
+    }
+
+    /**
+     * Registers the record and appends its current state to the log.
+     *
+     * @param record the record to be saved
+     */
+    @Override
+    void save(final PermanentRecord record) {
+        this.registerRecord(record);
+        final JsonObject entry = new JsonObject();
+        entry.addString("op", "put");
+        this.codec.write(record, entry);
+        this.append(entry);
+        this.database.recordSave();
+    }
+
+    /**
+     * Appends the removal of the record to the log.
+     *
+     * @param record the removed record
+     */
+    @Override
+    void saveRemoval(final PermanentRecord record) {
+        final JsonObject entry = new JsonObject();
+        entry.addString("op", "remove");
+        entry.addString("id", record.getId().toString());
+        this.append(entry);
+        this.database.recordSave();
+    }
+
+    /**
+     * Appends one entry to the pending buffer.
+     *
+     * @param entry the log entry
+     */
+    private void append(final JsonObject entry) {
+        final String line = entry.toString();
+        synchronized (this.lock) {
+            this.pending.append(line).append('\n');
+        }
+    }
+
+    /**
+     * Writes all pending log entries to the current segment and forces them to disk.
+     *
+     * @return {@code true} if all entries are durable; {@code false} if writing failed
+     */
+    boolean flush() {
+        synchronized (this.lock) {
+            return this.writePending();
+        }
+    }
+
+    /**
+     * Writes all pending log entries to the current segment. Must be called under the lock.
+     *
+     * @return {@code true} on success
+     */
+    private boolean writePending() {
+        if (this.pending.length() == 0) {
+            return true;
+        }
+        final ByteBuffer buffer =
+            ByteBuffer.wrap(this.pending.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (this.channel == null) {
+                Files.createDirectories(this.folder);
+                this.channel = FileChannel.open(this.getSegmentPath(this.segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            }
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+            this.channel.force(false);
+        } catch (final IOException ignored) {
+            this.closeChannel();
+            return false;
+        }
+        this.logSize += buffer.limit();
+        this.pending.setLength(0);
+        return true;
+    }
+
+    /**
+     * Checks whether the log has grown enough to be compacted.
+     *
+     * @param threshold the log size that triggers compaction, in bytes
+     * @return {@code true} if the store should be compacted
+     */
+    boolean needsCompaction(final long threshold) {
+        synchronized (this.lock) {
+            return this.logSize >= threshold;
+        }
+    }
+
+    /**
+     * Marks the store as scheduled for background compaction.
+     *
+     * @return {@code true} if the store was not scheduled yet
+     */
+    boolean markScheduled() {
+        return this.scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Replaces the snapshot with the current state of all records and deletes the segments
+     * covered by the new snapshot. The store stays fully usable while this runs.
+     *
+     * @return {@code true} if the snapshot was written successfully
+     */
+    boolean compact() {
+        this.scheduled.set(false);
+        synchronized (this.compaction) {
+            final List<Record> records;
+            final long covered;
+            final long coveredSize;
+            synchronized (this.lock) {
+                if (!this.writePending()) {
+                    return false;
+                }
+                records = this.getRecords();
+                covered = this.segment;
+                coveredSize = this.logSize;
+                this.closeChannel();
+                this.segment++;
+                this.logSize = 0;
+            }
+            if (!this.writeSnapshot(records)) {
+                synchronized (this.lock) {
+                    this.logSize += coveredSize;
+                }
+                return false;
+            }
+            for (final long number : this.findSegments().keySet()) {
+                if (number <= covered) {
+                    this.getSegmentPath(number).toFile().delete();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and atomically moves it in place.
+     *
+     * @param records the records to write
+     * @return {@code true} on success
+     */
+    private boolean writeSnapshot(final List<Record> records) {
+        final JsonArray array = new JsonArray();
+        for (final Record record : records) {
+            this.codec.write(record, array.createObject());
+        }
+        final byte[] data = array.toText("  ").getBytes(StandardCharsets.UTF_8);
+        final Path snapshot = this.getSnapshotPath();
+        final Path temporary = this.folder.resolve(this.name + ".json.tmp");
+        try {
+            Files.createDirectories(this.folder);
+            try (final FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+                stream.write(data);
+                stream.getChannel().force(true);
+            }
+            try {
+                Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException ignored) {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException ignored) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Closes the channel of the current segment. Must be called under the lock.
+     */
+    private void closeChannel() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (final IOException ignored) {
+            }
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Writes pending entries and releases the segment file.
+     *
+     * @return {@code true} if all entries are durable
+     */
+    boolean close() {
+        synchronized (this.lock) {
+            final boolean result = this.writePending();
+            this.closeChannel();
+            return result;
+        }
+    }
+
+    /**
+     * Returns the path of the snapshot file.
+     *
+     * @return the snapshot path
+     */
+    private Path getSnapshotPath() {
+        return this.folder.resolve(this.name + ".json");
+    }
+
+    /**
+     * Returns the path of a segment file.
+     *
+     * @param number the segment number
+     * @return the segment path
+     */
+    private Path getSegmentPath(final long number) {
+        return this.folder.resolve(this.name + '.' + number + ".log");
+    }
+
+    /**
+     * Finds all segment files of this store.
+     *
+     * @return segment files keyed by segment number, in ascending order
+     */
+    private TreeMap<Long, File> findSegments() {
+        final TreeMap<Long, File> segments = new TreeMap<>();
+        final File[] files = this.folder.toFile().listFiles();
+        if (files == null) {
+            return segments;
+        }
+        final String prefix = this.name + '.';
+        for (final File file : files) {
+            final String fileName = file.getName();
+            if (!fileName.startsWith(prefix) || !fileName.endsWith(".log")) {
+                continue;
+            }
+            final String number =
+                fileName.substring(prefix.length(), fileName.length() - ".log".length());
+            try {
+                segments.put(Long.parseLong(number), file);
+            } catch (final NumberFormatException ignored) {
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Loads a log-structured store: reads the snapshot, then replays all segments.
+     * <p>
+     * Unsupported fields or malformed entries are silently skipped.
+     *
+     * @param database the database that manages all stores
+     * @param folder the folder containing store files
+     * @param name the store name
+     * @param fields the schema to use when interpreting records
+     * @return a fully populated store instance
+     */
+    static LogStore load(final LogDatabase database, final Path folder, final String name,
+            final List<Field<?>> fields) {
+        final LogStore store = new LogStore(database, folder, name, fields);
+        store.readSnapshot();
+        final TreeMap<Long, File> segments = store.findSegments();
+        for (final File file : segments.values()) {
+            store.replay(file);
+        }
+        store.segment = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        for (final File file : segments.values()) {
+            store.logSize += file.length();
+        }
+        return store;
+    }
+
+    /**
+     * Reads records from the snapshot file, if it exists.
+     */
+    private void readSnapshot() {
+        final File file = this.getSnapshotPath().toFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JsonArrayReader.forEachObject(file, StandardCharsets.UTF_8, false, this::put);
+        } catch (final IOException ignored) {
+        }
+    }
+
+    /**
+     * Applies all entries of one segment file.
+     *
+     * @param file the segment file
+     */
+    private void replay(final File file) {
+        try (final BufferedReader reader =
+                 Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final JsonObject object;
+                try {
+                    final JsonElement element = Json.parse(line);
+                    object = element == null ? null : element.toJsonObject();
+                } catch (final JsonException ignored) {
+                    continue;
+                }
+                if (object == null) {
+                    continue;
+                }
+                final JsonElement op = object.get("op");
+                if (op != null && op.isString() && "remove".equals(op.getStringValue())) {
+                    final UUID id = JsonCodec.readId(object);
+                    if (id != null) {
+                        this.unregisterRecord(id);
+                    }
+                } else {
+                    this.put(object);
+                }
+            }
+        } catch (final IOException ignored) {
+        }
+    }
+
+    /**
+     * Creates or updates a record from its JSON representation.
+     *
+     * @param object the JSON object
+     */
+    private void put(final JsonObject object) {
+        final UUID id = JsonCodec.readId(object);
+        final Instant timestamp = JsonCodec.readTimestamp(object);
+        if (id == null || timestamp == null) {
+            return;
+        }
+        Record record = this.getRecordById(id);
+        if (record == null) {
+            record = this.createRecord(id, timestamp);
+        }
+        this.codec.readFields(object, record);
+    }
+}
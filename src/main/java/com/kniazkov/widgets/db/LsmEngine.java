@@ -0,0 +1,1013 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded log-structured merge (LSM) {@link KeyValueEngine} that keeps its data in a folder.
+ * <p>
+ * Writes go to an in-memory table (the memtable) and to a write-ahead log, {@code wal.log},
+ * which is appended and forced to disk by {@link #sync()}. When the memtable grows beyond
+ * its limit, it is written to a new immutable sorted table, {@code N.sst}, and the log is
+ * truncated. Tables keep only a sparse index in memory (one key of every
+ * {@value #INDEX_INTERVAL}), so the amount of data is limited by the disk, not by the heap.
+ * <p>
+ * A read looks at the memtable first and then at the tables from the newest to the oldest;
+ * removals are recorded as tombstones that hide older values. Tables are merged by size
+ * tiers: a table belongs to tier {@code n} if its size is below the memtable limit multiplied
+ * by {@value #MERGE_FACTOR}<sup>n+1</sup>. Once the newest {@value #MERGE_FACTOR} or more
+ * tables belong to the same or a lower tier, they are merged into one table of a higher
+ * tier, which drops overwritten values, and also tombstones if the oldest table is merged.
+ * Every byte is thus rewritten about once per tier, that is, a logarithmic number of times,
+ * instead of on every merge. A merged table records the oldest table it replaces, so tables
+ * left over by an interrupted merge are recognized and deleted when the folder is opened
+ * again.
+ * <p>
+ * Every log entry carries a checksum; an incomplete entry at the end of the log, left by a
+ * crash during a write, is ignored on recovery.
+ */
+public final class LsmEngine implements KeyValueEngine {
+    /**
+     * Default memtable size that triggers writing a table, in bytes.
+     */
+    public static final long DEFAULT_MEMTABLE_LIMIT = 4L * 1024 * 1024;
+
+    /**
+     * Number of table entries per sparse index entry.
+     */
+    private static final int INDEX_INTERVAL = 32;
+
+    /**
+     * Number of tables of one tier that are merged into a table of the next tier; also the
+     * ratio of the sizes of adjacent tiers.
+     */
+    private static final int MERGE_FACTOR = 4;
+
+    /**
+     * The magic number ending every table ({@code "WDBT"}).
+     */
+    private static final int TABLE_MAGIC = 0x57444254;
+
+    /**
+     * Size of the table footer, in bytes.
+     */
+    private static final int FOOTER_SIZE = 32;
+
+    /**
+     * Log entry type: a value is stored.
+     */
+    private static final byte PUT = 1;
+
+    /**
+     * Log entry type: a key is removed.
+     */
+    private static final byte DELETE = 2;
+
+    /**
+     * Orders keys by their unsigned bytes.
+     */
+    static final Comparator<byte[]> KEY_ORDER = LsmEngine::compare;
+
+    /**
+     * The folder containing the engine files.
+     */
+    private final Path folder;
+
+    /**
+     * Memtable size that triggers writing a table, in bytes.
+     */
+    private final long memtableLimit;
+
+    /**
+     * Recent writes; a {@code null} value is a tombstone.
+     */
+    private NavigableMap<byte[], byte[]> memtable;
+
+    /**
+     * Approximate size of the memtable, in bytes.
+     */
+    private long memtableSize;
+
+    /**
+     * Log entries not yet written to the log file.
+     */
+    private final ByteArrayOutputStream pending;
+
+    /**
+     * The open log file.
+     */
+    private final FileChannel log;
+
+    /**
+     * Tables ordered from the newest to the oldest.
+     */
+    private final List<Table> tables;
+
+    /**
+     * Number of the next table.
+     */
+    private long nextNumber;
+
+    /**
+     * Total number of bytes written to tables, including merges.
+     */
+    private long written;
+
+    /**
+     * Whether the engine is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Opens an engine with the default memtable limit.
+     *
+     * @param folder the folder containing the engine files; created if missing
+     * @return the engine
+     * @throws IOException if the folder cannot be opened
+     */
+    public static LsmEngine open(final Path folder) throws IOException {
+        return open(folder, DEFAULT_MEMTABLE_LIMIT);
+    }
+
+    /**
+     * Opens an engine, recovering writes from the log of the previous session.
+     *
+     * @param folder the folder containing the engine files; created if missing
+     * @param memtableLimit memtable size that triggers writing a table, in bytes
+     * @return the engine
+     * @throws IOException if the folder cannot be opened
+     */
+    public static LsmEngine open(final Path folder, final long memtableLimit)
+            throws IOException {
+        Files.createDirectories(folder);
+        final List<Table> tables = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                } else if (name.endsWith(".sst")) {
+                    tables.add(Table.open(file,
+                        Long.parseLong(name.substring(0, name.length() - 4))));
+                }
+            }
+        }
+        tables.sort((first, second) -> Long.compare(second.number, first.number));
+        long covered = Long.MAX_VALUE;
+        long next = 1;
+        final Iterator<Table> iterator = tables.iterator();
+        while (iterator.hasNext()) {
+            final Table table = iterator.next();
+            next = Math.max(next, table.number + 1);
+            if (table.number >= covered) {
+                table.close();
+                Files.delete(table.file);
+                iterator.remove();
+            } else {
+                covered = Math.min(covered, table.covered);
+            }
+        }
+        final LsmEngine engine = new LsmEngine(folder, memtableLimit, tables, next);
+        engine.recover();
+        return engine;
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param folder the folder containing the engine files
+     * @param memtableLimit memtable size that triggers writing a table, in bytes
+     * @param tables the tables, from the newest to the oldest
+     * @param nextNumber number of the next table
+     * @throws IOException if the log cannot be opened
+     */
+    private LsmEngine(final Path folder, final long memtableLimit, final List<Table> tables,
+            final long nextNumber) throws IOException {
+        this.folder = folder;
+        this.memtableLimit = memtableLimit;
+        this.memtable = new TreeMap<>(KEY_ORDER);
+        this.pending = new ByteArrayOutputStream();
+        this.tables = tables;
+        this.nextNumber = nextNumber;
+        this.log = FileChannel.open(folder.resolve("wal.log"), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public synchronized byte[] get(final byte[] key) throws IOException {
+        this.checkOpen();
+        if (this.memtable.containsKey(key)) {
+            final byte[] value = this.memtable.get(key);
+            return value == null ? null : value.clone();
+        }
+        for (final Table table : this.tables) {
+            final Entry entry = table.find(key);
+            if (entry != null) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void put(final byte[] key, final byte[] value) throws IOException {
+        this.checkOpen();
+        this.append(PUT, key, value);
+        this.apply(key.clone(), value.clone());
+    }
+
+    @Override
+    public synchronized void delete(final byte[] key) throws IOException {
+        this.checkOpen();
+        this.append(DELETE, key, null);
+        this.apply(key.clone(), null);
+    }
+
+    @Override
+    public synchronized void scan(final byte[] prefix, final BiConsumer<byte[], byte[]> visitor)
+            throws IOException {
+        this.checkOpen();
+        final List<Iterator<Entry>> sources = new ArrayList<>();
+        sources.add(memtableEntries(this.memtable.tailMap(prefix, true)));
+        for (final Table table : this.tables) {
+            sources.add(table.iterator(prefix));
+        }
+        final Iterator<Entry> merged = merge(sources);
+        while (merged.hasNext()) {
+            final Entry entry = merged.next();
+            if (!startsWith(entry.key, prefix)) {
+                break;
+            }
+            if (entry.value != null) {
+                visitor.accept(entry.key, entry.value);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending log entries and forces them to disk. If the memtable has grown
+     * beyond its limit, writes it to a new table and truncates the log; if the newest tables
+     * fill a tier, merges them.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public synchronized void sync() throws IOException {
+        this.checkOpen();
+        if (this.pending.size() > 0) {
+            final ByteBuffer buffer = ByteBuffer.wrap(this.pending.toByteArray());
+            this.log.position(this.log.size());
+            while (buffer.hasRemaining()) {
+                this.log.write(buffer);
+            }
+            this.log.force(false);
+            this.pending.reset();
+        }
+        if (this.memtableSize >= this.memtableLimit) {
+            this.writeMemtable();
+        }
+    }
+
+    /**
+     * Makes all writes durable and closes the files. The engine cannot be used afterwards.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.sync();
+        } finally {
+            this.closed = true;
+            this.log.close();
+            for (final Table table : this.tables) {
+                table.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tables, for tests.
+     *
+     * @return the number of tables
+     */
+    synchronized int getTableCount() {
+        return this.tables.size();
+    }
+
+    /**
+     * Returns the total number of bytes written to tables, including merges, for tests.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getWrittenBytes() {
+        return this.written;
+    }
+
+    /**
+     * Returns the total size of the current tables, for tests.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getTableBytes() {
+        long size = 0;
+        for (final Table table : this.tables) {
+            size += table.end;
+        }
+        return size;
+    }
+
+    /**
+     * Replays the log of the previous session into the memtable.
+     *
+     * @throws IOException if reading fails
+     */
+    private void recover() throws IOException {
+        final long size = this.log.size();
+        if (size == 0) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && this.log.read(buffer, buffer.position()) >= 0) {
+            // keep reading
+        }
+        buffer.flip();
+        long valid = 0;
+        final CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 9) {
+            final int start = buffer.position();
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            if (length < 5 || length > buffer.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            final byte type = buffer.get();
+            final byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            if (type == PUT) {
+                final byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                this.apply(key, value);
+            } else {
+                this.apply(key, null);
+            }
+            valid = start + 8 + length;
+            buffer.position((int) valid);
+        }
+        if (valid < size) {
+            this.log.truncate(valid);
+        }
+    }
+
+    /**
+     * Appends a log entry to the pending buffer: the length and the checksum of the body,
+     * then the body (type, key and, for puts, value).
+     *
+     * @param type the entry type
+     * @param key the key
+     * @param value the value, or {@code null} for removals
+     */
+    private void append(final byte type, final byte[] key, final byte[] value) {
+        final int length = 1 + 4 + key.length + (value == null ? 0 : 4 + value.length);
+        final ByteBuffer body = ByteBuffer.allocate(length);
+        body.put(type).putInt(key.length).put(key);
+        if (value != null) {
+            body.putInt(value.length).put(value);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+        final ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(length).putInt((int) crc.getValue());
+        this.pending.write(header.array(), 0, 8);
+        this.pending.write(body.array(), 0, length);
+    }
+
+    /**
+     * Applies a write to the memtable.
+     *
+     * @param key the key
+     * @param value the value, or {@code null} for a tombstone
+     */
+    private void apply(final byte[] key, final byte[] value) {
+        final byte[] previous = this.memtable.put(key, value);
+        if (previous == null) {
+            this.memtableSize += key.length + 32;
+        } else {
+            this.memtableSize -= previous.length;
+        }
+        if (value != null) {
+            this.memtableSize += value.length;
+        }
+    }
+
+    /**
+     * Writes the memtable to a new table, truncates the log and merges the newest tables
+     * while they fill a tier.
+     *
+     * @throws IOException if writing fails
+     */
+    private void writeMemtable() throws IOException {
+        final long number = this.nextNumber++;
+        final Table table = this.writeTable(number, number,
+            memtableEntries(this.memtable), true);
+        this.tables.add(0, table);
+        this.memtable = new TreeMap<>(KEY_ORDER);
+        this.memtableSize = 0;
+        this.log.truncate(0);
+        this.log.force(true);
+        while (true) {
+            final int tier = this.getTier(this.tables.get(0));
+            int count = 1;
+            while (count < this.tables.size() && this.getTier(this.tables.get(count)) <= tier) {
+                count++;
+            }
+            if (count < MERGE_FACTOR) {
+                break;
+            }
+            this.mergeTables(count);
+        }
+    }
+
+    /**
+     * Returns the size tier of a table.
+     *
+     * @param table the table
+     * @return the tier, {@code 0} for tables not larger than a few memtables
+     */
+    private int getTier(final Table table) {
+        int tier = 0;
+        long limit = Math.max(this.memtableLimit, 1);
+        while (limit <= Long.MAX_VALUE / MERGE_FACTOR && table.end >= limit * MERGE_FACTOR) {
+            tier++;
+            limit *= MERGE_FACTOR;
+        }
+        return tier;
+    }
+
+    /**
+     * Merges the newest tables into one. Tombstones are dropped only if the oldest table is
+     * merged, since otherwise they may still hide values in older tables.
+     *
+     * @param count the number of tables to merge
+     * @throws IOException if writing fails
+     */
+    private void mergeTables(final int count) throws IOException {
+        final List<Table> merging = new ArrayList<>(this.tables.subList(0, count));
+        final List<Iterator<Entry>> sources = new ArrayList<>();
+        for (final Table table : merging) {
+            sources.add(table.iterator(new byte[0]));
+        }
+        final long covered = merging.get(count - 1).number;
+        final long number = this.nextNumber++;
+        final Table merged = this.writeTable(number, covered, merge(sources),
+            count < this.tables.size());
+        for (final Table table : merging) {
+            table.close();
+            Files.delete(table.file);
+        }
+        this.tables.subList(0, count).clear();
+        this.tables.add(0, merged);
+    }
+
+    /**
+     * Writes a table to a temporary file and moves it in place.
+     *
+     * @param number the table number
+     * @param covered the number of the oldest table this table replaces
+     * @param entries the entries in key order
+     * @param tombstones whether tombstones are written
+     * @return the opened table
+     * @throws IOException if writing fails
+     */
+    private Table writeTable(final long number, final long covered,
+            final Iterator<Entry> entries, final boolean tombstones) throws IOException {
+        final Path file = this.folder.resolve(number + ".sst");
+        final Path temporary = this.folder.resolve(number + ".sst.tmp");
+        final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        final DataOutputStream indexStream = new DataOutputStream(index);
+        int indexCount = 0;
+        long count = 0;
+        long position = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final DataOutputStream stream = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel)));
+            while (entries.hasNext()) {
+                final Entry entry = entries.next();
+                if (entry.value == null && !tombstones) {
+                    continue;
+                }
+                if (count % INDEX_INTERVAL == 0) {
+                    indexStream.writeInt(entry.key.length);
+                    indexStream.write(entry.key);
+                    indexStream.writeLong(position);
+                    indexCount++;
+                }
+                stream.writeInt(entry.key.length);
+                stream.write(entry.key);
+                position += 8 + entry.key.length;
+                if (entry.value == null) {
+                    stream.writeInt(-1);
+                } else {
+                    stream.writeInt(entry.value.length);
+                    stream.write(entry.value);
+                    position += entry.value.length;
+                }
+                count++;
+            }
+            final long indexOffset = position;
+            index.writeTo(stream);
+            stream.writeLong(indexOffset);
+            stream.writeInt(indexCount);
+            stream.writeLong(count);
+            stream.writeLong(covered);
+            stream.writeInt(TABLE_MAGIC);
+            stream.flush();
+            channel.force(true);
+            this.written += position;
+        }
+        try {
+            Files.move(temporary, file,
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException ignored) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return Table.open(file, number);
+    }
+
+    /**
+     * Throws if the engine is closed.
+     */
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("The engine is closed");
+        }
+    }
+
+    /**
+     * Compares two keys by their unsigned bytes.
+     *
+     * @param first the first key
+     * @param second the second key
+     * @return a negative number, zero or a positive number
+     */
+    static int compare(final byte[] first, final byte[] second) {
+        final int length = Math.min(first.length, second.length);
+        for (int index = 0; index < length; index++) {
+            final int difference = (first[index] & 0xFF) - (second[index] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    /**
+     * Checks whether a key starts with a prefix.
+     *
+     * @param key the key
+     * @param prefix the prefix
+     * @return {@code true} if it does
+     */
+    private static boolean startsWith(final byte[] key, final byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int index = 0; index < prefix.length; index++) {
+            if (key[index] != prefix[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an iterator over a part of the memtable. Values are copied, since the
+     * memtable may change after the iteration.
+     *
+     * @param map the part of the memtable
+     * @return the entries in key order
+     */
+    private static Iterator<Entry> memtableEntries(final Map<byte[], byte[]> map) {
+        final Iterator<Map.Entry<byte[], byte[]>> iterator = map.entrySet().iterator();
+        return new Iterator<Entry>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Entry next() {
+                final Map.Entry<byte[], byte[]> entry = iterator.next();
+                final byte[] value = entry.getValue();
+                return new Entry(entry.getKey().clone(), value == null ? null : value.clone());
+            }
+        };
+    }
+
+    /**
+     * Merges sorted sources into one sorted sequence. When several sources contain the same
+     * key, the entry of the source that comes first in the list wins.
+     *
+     * @param sources the sources, from the newest to the oldest
+     * @return the merged entries, tombstones included
+     */
+    private static Iterator<Entry> merge(final List<Iterator<Entry>> sources) {
+        final PriorityQueue<Head> queue = new PriorityQueue<>();
+        for (int rank = 0; rank < sources.size(); rank++) {
+            final Iterator<Entry> source = sources.get(rank);
+            if (source.hasNext()) {
+                queue.add(new Head(source.next(), source, rank));
+            }
+        }
+        return new Iterator<Entry>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Entry next() {
+                final Head head = queue.poll();
+                final Entry entry = head.entry;
+                head.advance(queue);
+                while (!queue.isEmpty() && compare(queue.peek().entry.key, entry.key) == 0) {
+                    queue.poll().advance(queue);
+                }
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * A key with its value.
+     */
+    private static final class Entry {
+        /**
+         * The key.
+         */
+        private final byte[] key;
+
+        /**
+         * The value, or {@code null} for a tombstone.
+         */
+        private final byte[] value;
+
+        /**
+         * Creates an entry.
+         *
+         * @param key the key
+         * @param value the value, or {@code null} for a tombstone
+         */
+        Entry(final byte[] key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The current entry of one source during a merge.
+     */
+    private static final class Head implements Comparable<Head> {
+        /**
+         * The current entry.
+         */
+        private Entry entry;
+
+        /**
+         * The source.
+         */
+        private final Iterator<Entry> source;
+
+        /**
+         * Position of the source; lower ranks are newer.
+         */
+        private final int rank;
+
+        /**
+         * Creates a head.
+         *
+         * @param entry the current entry
+         * @param source the source
+         * @param rank position of the source
+         */
+        Head(final Entry entry, final Iterator<Entry> source, final int rank) {
+            this.entry = entry;
+            this.source = source;
+            this.rank = rank;
+        }
+
+        /**
+         * Moves to the next entry of the source and puts this head back into the queue,
+         * unless the source is exhausted.
+         *
+         * @param queue the queue
+         */
+        void advance(final PriorityQueue<Head> queue) {
+            if (this.source.hasNext()) {
+                this.entry = this.source.next();
+                queue.add(this);
+            }
+        }
+
+        @Override
+        public int compareTo(final Head other) {
+            final int order = compare(this.entry.key, other.entry.key);
+            return order != 0 ? order : Integer.compare(this.rank, other.rank);
+        }
+    }
+
+    /**
+     * An immutable sorted table stored in a file.
+     * <p>
+     * The file contains the entries (key length, key, value length or {@code -1} for a
+     * tombstone, value), then the sparse index (key length, key, entry offset), then a footer
+     * with the index offset, the number of index entries, the number of entries, the number
+     * of the oldest table this one replaces and the magic number.
+     */
+    private static final class Table {
+        /**
+         * The file.
+         */
+        private final Path file;
+
+        /**
+         * The table number; newer tables have greater numbers.
+         */
+        private final long number;
+
+        /**
+         * Number of the oldest table this table replaces.
+         */
+        private final long covered;
+
+        /**
+         * The open file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Keys of the sparse index.
+         */
+        private final byte[][] keys;
+
+        /**
+         * Entry offsets of the sparse index.
+         */
+        private final long[] offsets;
+
+        /**
+         * Offset of the end of the entries.
+         */
+        private final long end;
+
+        /**
+         * Creates a table.
+         *
+         * @param file the file
+         * @param number the table number
+         * @param covered number of the oldest table this table replaces
+         * @param channel the open file
+         * @param keys keys of the sparse index
+         * @param offsets entry offsets of the sparse index
+         * @param end offset of the end of the entries
+         */
+        private Table(final Path file, final long number, final long covered,
+                final FileChannel channel, final byte[][] keys, final long[] offsets,
+                final long end) {
+            this.file = file;
+            this.number = number;
+            this.covered = covered;
+            this.channel = channel;
+            this.keys = keys;
+            this.offsets = offsets;
+            this.end = end;
+        }
+
+        /**
+         * Opens a table and reads its sparse index.
+         *
+         * @param file the file
+         * @param number the table number
+         * @return the table
+         * @throws IOException if the file cannot be read or is not a table
+         */
+        static Table open(final Path file, final long number) throws IOException {
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                final long size = channel.size();
+                if (size < FOOTER_SIZE) {
+                    throw new IOException("Not a table: " + file);
+                }
+                final ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+                final long indexOffset = footer.getLong();
+                final int indexCount = footer.getInt();
+                footer.getLong();
+                final long covered = footer.getLong();
+                if (footer.getInt() != TABLE_MAGIC || indexOffset < 0
+                        || indexOffset > size - FOOTER_SIZE) {
+                    throw new IOException("Not a table: " + file);
+                }
+                final ByteBuffer index = read(channel, indexOffset,
+                    (int) (size - FOOTER_SIZE - indexOffset));
+                final byte[][] keys = new byte[indexCount][];
+                final long[] offsets = new long[indexCount];
+                for (int item = 0; item < indexCount; item++) {
+                    keys[item] = new byte[index.getInt()];
+                    index.get(keys[item]);
+                    offsets[item] = index.getLong();
+                }
+                return new Table(file, number, covered, channel, keys, offsets, indexOffset);
+            } catch (final IOException | RuntimeException exception) {
+                channel.close();
+                throw exception;
+            }
+        }
+
+        /**
+         * Finds the entry with the key.
+         *
+         * @param key the key
+         * @return the entry (possibly a tombstone), or {@code null} if the table has no entry
+         *  with this key
+         * @throws IOException if reading fails
+         */
+        Entry find(final byte[] key) throws IOException {
+            final int block = this.findBlock(key);
+            if (block < 0) {
+                return null;
+            }
+            final long limit = block + 1 < this.offsets.length
+                ? this.offsets[block + 1] : this.end;
+            final ByteBuffer buffer = read(this.channel, this.offsets[block],
+                (int) (limit - this.offsets[block]));
+            while (buffer.hasRemaining()) {
+                final Entry entry = readEntry(buffer);
+                final int order = compare(entry.key, key);
+                if (order == 0) {
+                    return entry;
+                }
+                if (order > 0) {
+                    break;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns an iterator over the entries with keys not less than the key, reading the
+         * file block by block.
+         *
+         * @param from the first key
+         * @return the entries in key order
+         */
+        Iterator<Entry> iterator(final byte[] from) {
+            final int first = Math.max(this.findBlock(from), 0);
+            return new Iterator<Entry>() {
+                private int block = first;
+                private ByteBuffer buffer;
+                private Entry next = this.advance();
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public Entry next() {
+                    final Entry entry = this.next;
+                    this.next = this.advance();
+                    return entry;
+                }
+
+                private Entry advance() {
+                    final Table table = Table.this;
+                    while (true) {
+                        if (this.buffer == null || !this.buffer.hasRemaining()) {
+                            if (this.block >= table.offsets.length) {
+                                return null;
+                            }
+                            final long start = table.offsets[this.block];
+                            final long limit = this.block + 1 < table.offsets.length
+                                ? table.offsets[this.block + 1] : table.end;
+                            try {
+                                this.buffer = read(table.channel, start, (int) (limit - start));
+                            } catch (final IOException exception) {
+                                throw new UncheckedIOException(exception);
+                            }
+                            this.block++;
+                        }
+                        final Entry entry = readEntry(this.buffer);
+                        if (compare(entry.key, from) >= 0) {
+                            return entry;
+                        }
+                    }
+                }
+            };
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException if closing fails
+         */
+        void close() throws IOException {
+            this.channel.close();
+        }
+
+        /**
+         * Finds the last block whose first key is not greater than the key.
+         *
+         * @param key the key
+         * @return the block, or {@code -1} if the key precedes all keys of the table
+         */
+        private int findBlock(final byte[] key) {
+            int low = 0;
+            int high = this.keys.length - 1;
+            int result = -1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                if (compare(this.keys[middle], key) <= 0) {
+                    result = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Reads one entry.
+         *
+         * @param buffer the buffer positioned at the entry
+         * @return the entry
+         */
+        private static Entry readEntry(final ByteBuffer buffer) {
+            final byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            final int length = buffer.getInt();
+            if (length < 0) {
+                return new Entry(key, null);
+            }
+            final byte[] value = new byte[length];
+            buffer.get(value);
+            return new Entry(key, value);
+        }
+
+        /**
+         * Reads a part of a file.
+         *
+         * @param channel the file
+         * @param position the position
+         * @param length the number of bytes
+         * @return a buffer with the bytes
+         * @throws IOException if the file ends earlier or reading fails
+         */
+        private static ByteBuffer read(final FileChannel channel, final long position,
+                final int length) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+}
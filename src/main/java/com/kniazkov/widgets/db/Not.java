@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+/**
+ * A filter that represents a logical negation of another filter.
+ * <p>
+ * This filter matches a record only when the underlying filter does <b>not</b> match it.
+ */
+public class Not implements Filter {
+    /**
+     * The negated filter.
+     */
+    private final Filter filter;
+
+    /**
+     * Constructs a NOT filter.
+     *
+     * @param filter the filter to negate
+     */
+    public Not(final Filter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean match(final Record record) {
+        return !this.filter.match(record);
+    }
+}
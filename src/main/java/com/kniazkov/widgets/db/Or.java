@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+/**
+ * A composite filter that represents a logical OR operation between two filters.
+ * <p>
+ * This filter matches a record when <b>at least one</b> of the underlying filters
+ * matches the record.
+ */
+public class Or implements Filter {
+    /**
+     * Two filters.
+     */
+    private final Filter first, second;
+
+    /**
+     * Constructs an OR filter from two component filters.
+     *
+     * @param first the first filter to apply
+     * @param second the second filter to apply
+     */
+    public Or(final Filter first, final Filter second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Returns the first filter.
+     *
+     * @return the first filter
+     */
+    Filter getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Returns the second filter.
+     *
+     * @return the second filter
+     */
+    Filter getSecond() {
+        return this.second;
+    }
+
+    @Override
+    public boolean match(final Record record) {
+        return this.first.match(record) || this.second.match(record);
+    }
+}
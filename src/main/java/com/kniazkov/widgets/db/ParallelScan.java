@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tests a list of records against a {@link Filter}, splitting large lists into chunks that are
+ * tested in parallel on the common fork/join pool.
+ * <p>
+ * Lists shorter than the threshold are tested in the calling thread, where the overhead of
+ * forking would outweigh the gain. The result keeps the order of the source list in both modes.
+ * Filters must be safe to call from several threads; all built-in filters are.
+ */
+final class ParallelScan extends RecursiveTask<List<Record>> {
+    /**
+     * Default number of records from which a scan runs in parallel.
+     */
+    static final int DEFAULT_THRESHOLD = 50000;
+
+    /**
+     * Number of records tested by one task without further splitting.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The source list.
+     */
+    private final transient List<Record> records;
+
+    /**
+     * The filter.
+     */
+    private final transient Filter filter;
+
+    /**
+     * Start of the range tested by this task (inclusive).
+     */
+    private final int from;
+
+    /**
+     * End of the range tested by this task (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Creates a task testing a range of the source list.
+     *
+     * @param records the source list
+     * @param filter the filter
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     */
+    private ParallelScan(final List<Record> records, final Filter filter, final int from,
+            final int to) {
+        this.records = records;
+        this.filter = filter;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the records that match the filter, in the order of the source list.
+     *
+     * @param records the source list; must not be modified during the scan
+     * @param filter the filter
+     * @param threshold the list size from which the scan runs in parallel
+     * @return a new list of matching records
+     */
+    static List<Record> filter(final List<Record> records, final Filter filter,
+            final int threshold) {
+        if (records.size() < threshold || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return scan(records, filter, 0, records.size());
+        }
+        return ForkJoinPool.commonPool().invoke(
+            new ParallelScan(records, filter, 0, records.size()));
+    }
+
+    @Override
+    protected List<Record> compute() {
+        if (this.to - this.from <= CHUNK_SIZE) {
+            return scan(this.records, this.filter, this.from, this.to);
+        }
+        final int middle = (this.from + this.to) >>> 1;
+        final ParallelScan left = new ParallelScan(this.records, this.filter, this.from, middle);
+        left.fork();
+        final List<Record> right =
+            new ParallelScan(this.records, this.filter, middle, this.to).compute();
+        final List<Record> result = left.join();
+        result.addAll(right);
+        return result;
+    }
+
+    /**
+     * Tests a range of records in the calling thread.
+     *
+     * @param records the source list
+     * @param filter the filter
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return a new list of matching records
+     */
+    private static List<Record> scan(final List<Record> records, final Filter filter,
+            final int from, final int to) {
+        final List<Record> result = new ArrayList<>();
+        for (int index = from; index < to; index++) {
+            final Record record = records.get(index);
+            if (filter.match(record)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+}
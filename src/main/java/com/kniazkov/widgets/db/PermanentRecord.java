@@ -3,7 +3,12 @@
  */
 package com.kniazkov.widgets.db;
 
+import com.kniazkov.widgets.common.Listener;
+import com.kniazkov.widgets.model.Model;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -17,6 +22,11 @@ import java.util.UUID;
  * The record’s lifecycle is tied to the associated {@code Store}. Whenever {@link #save()}
  * is called, the record delegates the persistence operation to the store, ensuring that all
  * reactive model values are flushed to permanent storage.
+ * <p>
+ * Once registered in the store, the record keeps the values of schema fields in the store's
+ * {@link Column columns} rather than in its own models. A model for a field is created only
+ * when {@link #getModel(Field)} is called (typically when the record is bound to a view);
+ * it starts with the column value and writes every change back to the column.
  */
 class PermanentRecord extends Record {
     /**
@@ -29,6 +39,32 @@ class PermanentRecord extends Record {
      */
     private Store store;
 
+    /**
+     * The row of this record in the store columns, or {@code -1} if the record is not
+     * registered in the store. Guarded by the column lock of the store.
+     */
+    int slot;
+
+    /**
+     * The version of this record, incremented by the store each time the record is saved
+     * or removed. Modified under the store lock.
+     */
+    volatile long version;
+
+    /**
+     * Serializes commits of edited copies with the creation of new copies, so that a copy
+     * never sees a version without the values committed with it. Saving and removing
+     * the record take the same lock, so a removal cannot fall between the registration of
+     * a saved record and the write of its state.
+     */
+    private final Object editLock = new Object();
+
+    /**
+     * Listeners that write changes of created models back to the columns. Models hold their
+     * listeners weakly, so the record keeps strong references to them.
+     */
+    private List<Listener<?>> writers;
+
     /**
      * Creates a new permanent record with the given identifier and backing store.
      *
@@ -40,6 +76,7 @@ class PermanentRecord extends Record {
         super(timestamp);
         this.id = id;
         this.store = store;
+        this.slot = -1;
     }
 
     @Override
@@ -52,14 +89,188 @@ class PermanentRecord extends Record {
      */
     @Override
     public void save() {
-        if (this.store != null) {
-            this.store.save(this);
+        synchronized (this.editLock) {
+            final Store owner = this.store;
+            if (owner != null) {
+                owner.advanceVersion(this);
+                owner.save(this);
+            }
+        }
+    }
+
+    @Override
+    public Record edit() {
+        synchronized (this.editLock) {
+            return super.edit();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Checks the version, writes the values of the edited copy and saves the record
+     * as one step with respect to other editors. Of several editors that started from the same
+     * version, only the first to commit succeeds.
+     */
+    @Override
+    long commit(final Map<String, Model<?>> changes, final long expectedVersion) {
+        final Store owner = this.store;
+        if (owner == null) {
+            throw new ConflictException(this.id, expectedVersion, this.version);
+        }
+        synchronized (this.editLock) {
+            final long committed = owner.advanceVersion(this, expectedVersion);
+            this.apply(changes);
+            owner.save(this);
+            return committed;
+        }
+    }
+
+    @Override
+    public boolean hasModel(final Field<?> field) {
+        if (super.hasModel(field)) {
+            return true;
+        }
+        final Store owner = this.store;
+        if (owner == null) {
+            return false;
+        }
+        final int ordinal = owner.getOrdinal(field.getName());
+        return ordinal >= 0 && owner.readValue(this, ordinal) != null;
+    }
+
+    /**
+     * Reads the raw value from the column while the record is registered in the store,
+     * without going through the field model.
+     */
+    @Override
+    public <T> T getValue(final Field<T> field) {
+        final Store owner = this.store;
+        if (owner != null) {
+            final int ordinal = owner.getOrdinal(field.getName());
+            if (ordinal >= 0) {
+                final Object value = owner.readValue(this, ordinal);
+                if (value != null) {
+                    return field.getType().getValueClass().cast(value);
+                }
+            }
+        }
+        return super.getValue(field);
+    }
+
+    @Override
+    public <T> void setValue(final Field<T> field, final T value) {
+        final Store owner = this.store;
+        if (owner != null && !super.hasModel(field)) {
+            final int ordinal = owner.getOrdinal(field.getName());
+            if (ordinal >= 0 && owner.writeValue(this, ordinal, value)) {
+                return;
+            }
+        }
+        super.setValue(field, value);
+    }
+
+    /**
+     * Creates a model initialized with the column value that writes its changes back
+     * to the column.
+     */
+    @Override
+    protected <T> Model<T> createModel(final Field<T> field) {
+        final Model<T> model = field.getType().createModel();
+        final Store owner = this.store;
+        if (owner == null) {
+            return model.asSynchronized();
+        }
+        final int ordinal = owner.getOrdinal(field.getName());
+        if (ordinal < 0) {
+            return model.asSynchronized();
+        }
+        final Object value = owner.readValue(this, ordinal);
+        if (value != null) {
+            model.setData(field.getType().getValueClass().cast(value));
+        }
+        final Model<T> result = model.asSynchronized();
+        this.attachWriter(owner, ordinal, result);
+        return result;
+    }
+
+    @Override
+    void materialize() {
+        final Store owner = this.store;
+        if (owner == null) {
+            return;
+        }
+        for (final Field<?> field : owner.getFields()) {
+            if (!super.hasModel(field) && this.hasModel(field)) {
+                this.getModel(field);
+            }
+        }
+    }
+
+    @Override
+    void adopt(final String key, final Model<?> model) {
+        super.adopt(key, model);
+        final Store owner = this.store;
+        if (owner != null) {
+            final int ordinal = owner.getOrdinal(key);
+            if (ordinal >= 0) {
+                owner.writeValue(this, ordinal, model.getData());
+                this.attachWriter(owner, ordinal, model);
+            }
+        }
+    }
+
+    /**
+     * Copies the values of all created models into the columns.
+     * Called by the store when the record gets a slot.
+     */
+    void copyModelsToColumns() {
+        for (final String key : this.data.keySet()) {
+            final int ordinal = this.store.getOrdinal(key);
+            if (ordinal >= 0) {
+                this.store.writeValue(this, ordinal, this.data.get(key).getData());
+            }
+        }
+    }
+
+    /**
+     * Subscribes a listener that writes every change of the model to the column.
+     * While the record is not registered in the store, the writes are ignored.
+     *
+     * @param owner the store
+     * @param ordinal the column ordinal
+     * @param model the model
+     * @param <T> the data type
+     */
+    private <T> void attachWriter(final Store owner, final int ordinal, final Model<T> model) {
+        final Listener<T> writer = data -> owner.writeValue(this, ordinal, data);
+        model.addListener(writer);
+        synchronized (this) {
+            if (this.writers == null) {
+                this.writers = new ArrayList<>(2);
+            }
+            this.writers.add(writer);
         }
     }
 
     @Override
     public void remove() {
-        this.store.removeRecord(this);
-        this.store = null;
+        synchronized (this.editLock) {
+            this.store.removeRecord(this);
+            this.store = null;
+        }
+    }
+
+    /**
+     * Returns the lock that serializes saving, committing and removing this record, so that
+     * the store registers the record and persists the change as one step.
+     *
+     * @return the lock object
+     */
+    Object getEditLock() {
+        return this.editLock;
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses secondary indexes for a {@link Filter}.
+ * <p>
+ * The planner understands {@link FieldFilter field filters}, {@link And conjunctions}
+ * and {@link Or disjunctions}:
+ * <ul>
+ *     <li>a field filter uses the index declared on its field, if that index can serve it
+ *         (a hash index serves exact matches and sets of values, a sorted index also serves
+ *         ranges and string prefixes);</li>
+ *     <li>a conjunction uses whichever side yields fewer candidates;</li>
+ *     <li>a disjunction uses the union of both sides, if both sides can use an index.</li>
+ * </ul>
+ * Any other filter requires a full scan. Candidates are a superset of the result: the caller
+ * must still test each of them against the whole filter.
+ */
+final class QueryPlanner {
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private QueryPlanner() {
+    }
+
+    /**
+     * Finds candidate records for the specified filter using the available indexes.
+     *
+     * @param filter the filter
+     * @param indexes indexes keyed by field name
+     * @return candidate records, or {@code null} if no index applies and a full scan is needed
+     */
+    static List<Record> findCandidates(final Filter filter, final Map<String, Index> indexes) {
+        if (indexes.isEmpty()) {
+            return null;
+        }
+        if (filter instanceof FieldFilter) {
+            final FieldFilter<?> fieldFilter = (FieldFilter<?>) filter;
+            final Index index = indexes.get(fieldFilter.getField().getName());
+            return index == null ? null : fieldFilter.lookup(index);
+        }
+        if (filter instanceof And) {
+            final And and = (And) filter;
+            final List<Record> first = findCandidates(and.getFirst(), indexes);
+            if (first != null && first.isEmpty()) {
+                return first;
+            }
+            final List<Record> second = findCandidates(and.getSecond(), indexes);
+            if (first == null) {
+                return second;
+            }
+            if (second == null) {
+                return first;
+            }
+            return first.size() <= second.size() ? first : second;
+        }
+        if (filter instanceof Or) {
+            final Or or = (Or) filter;
+            final List<Record> first = findCandidates(or.getFirst(), indexes);
+            if (first == null) {
+                return null;
+            }
+            final List<Record> second = findCandidates(or.getSecond(), indexes);
+            if (second == null) {
+                return null;
+            }
+            final Map<Record, Boolean> union = new IdentityHashMap<>();
+            for (final Record record : first) {
+                union.put(record, Boolean.TRUE);
+            }
+            for (final Record record : second) {
+                union.put(record, Boolean.TRUE);
+            }
+            return new ArrayList<>(union.keySet());
+        }
+        return null;
+    }
+}
@@ -20,9 +20,11 @@ import java.util.UUID;
  * each associated with a {@link Field}. Different records may contain different sets of fields,
  * and fields are created lazily on demand.
  * <p>
- * Records are identified by a unique immutable {@link UUID}. Field values are stored
+ * Records are identified by a unique immutable {@link UUID}. Field values are exposed
  * as reactive {@code Model} objects, allowing views, controllers, and other system
- * components to observe and react to changes.
+ * components to observe and react to changes. Code that only needs the plain value
+ * (filters, indexes, serialization) should use {@link #getValue(Field)} and
+ * {@link #setValue(Field, Object)}, which let stored records avoid creating models at all.
  */
 public abstract class Record {
     /**
@@ -33,6 +35,7 @@ public abstract class Record {
 
     /**
      * Internal storage for all field models belonging to this record.
+     * Subclasses may keep values elsewhere and create models here on demand.
      */
     protected final Map<String, Model<?>> data;
 
@@ -63,7 +66,8 @@ public abstract class Record {
     }
 
     /**
-     * Checks whether this record already contains a model for the given field.
+     * Checks whether this record already contains a model (or a value, from which a model
+     * is created on demand) for the given field.
      *
      * @param field the field to check
      * @return {@code true} if a model for the field exists, {@code false} otherwise
@@ -106,12 +110,69 @@ public abstract class Record {
             final Model<T> typed = (Model<T>) existing;
             return typed;
         } else {
-            final Model<T> created = field.getType().createModel().asSynchronized();
+            final Model<T> created = this.createModel(field);
             this.data.put(key, created);
             return created;
         }
     }
 
+    /**
+     * Creates the model for a field that has no model yet. By default, creates a new model
+     * using the field's type, wrapped in a synchronized model.
+     *
+     * @param field the field
+     * @param <T> the data type associated with the field
+     * @return a new model
+     */
+    protected <T> Model<T> createModel(final Field<T> field) {
+        return field.getType().createModel().asSynchronized();
+    }
+
+    /**
+     * Returns the value of the given field without creating a model for it.
+     * A record that does not contain the field reports the default value of the field type.
+     *
+     * @param field the field whose value is requested
+     * @param <T> the data type associated with the field
+     * @return the current value of the field
+     */
+    public <T> T getValue(final Field<T> field) {
+        if (this.data.containsKey(field.getName())) {
+            return this.getModel(field).getData();
+        }
+        return field.getDefaultValue();
+    }
+
+    /**
+     * Sets the value of the given field. If the field has a model, the model is updated
+     * and notifies its listeners.
+     *
+     * @param field the field to set
+     * @param value the new value
+     * @param <T> the data type associated with the field
+     */
+    public <T> void setValue(final Field<T> field, final T value) {
+        this.getModel(field).setData(value);
+    }
+
+    /**
+     * Creates models for all fields this record contains.
+     * Does nothing for records that always keep their values in models.
+     */
+    void materialize() {
+    }
+
+    /**
+     * Takes over a model created elsewhere (for example, by a temporary copy of this record)
+     * as the model of the specified field.
+     *
+     * @param key the field name
+     * @param model the model
+     */
+    void adopt(final String key, final Model<?> model) {
+        this.data.put(key, model);
+    }
+
     /**
      * Returns a model representing whether all fields in this record are valid.
      * <p>
@@ -123,6 +184,7 @@ public abstract class Record {
      * @return a boolean model that becomes {@code true} only when all fields are valid
      */
     public Model<Boolean> getValidFlagModel() {
+        this.materialize();
         if (this.data.isEmpty()) {
             return ReadOnlyModel.create(true);
         }
@@ -133,8 +195,23 @@ public abstract class Record {
         return new ConjunctionModel(list);
     }
 
+    /**
+     * Returns the version of this record. The version grows each time the record is saved
+     * or removed, so an editor can detect that the record has changed since it was read.
+     * Records that are not kept in a store have no versions and always return {@code 0}.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return 0;
+    }
+
     /**
      * Creates a temporary editable copy of this record.
+     * <p>
+     * The copy remembers the {@link #getVersion() version} of this record. Saving the copy
+     * fails with a {@link ConflictException} if this record has been saved or removed
+     * in the meantime, so concurrent editors cannot silently overwrite each other's changes.
      *
      * @return an editable temporary record derived from this one
      */
@@ -142,6 +219,37 @@ public abstract class Record {
         return new TemporaryRecord(this);
     }
 
+    /**
+     * Writes the values of an edited copy into this record and saves it.
+     * By default, ignores the version; versioned records check it first.
+     *
+     * @param changes the models of the edited copy, keyed by field name
+     * @param expectedVersion the version of this record when the copy was created
+     * @return the version of this record after the commit
+     * @throws ConflictException if the record has changed since the copy was created
+     */
+    long commit(final Map<String, Model<?>> changes, final long expectedVersion) {
+        this.apply(changes);
+        this.save();
+        return this.getVersion();
+    }
+
+    /**
+     * Writes the values of an edited copy into this record.
+     *
+     * @param changes the models of the edited copy, keyed by field name
+     */
+    void apply(final Map<String, Model<?>> changes) {
+        for (final Map.Entry<String, Model<?>> entry : changes.entrySet()) {
+            final Model<?> dst = this.data.get(entry.getKey());
+            if (dst == null) {
+                this.adopt(entry.getKey(), entry.getValue());
+            } else {
+                dst.setObject(entry.getValue().getData());
+            }
+        }
+    }
+
     /**
      * Saves this record according to the storage strategy defined by the subclass.
      */
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+/**
+ * A change of the result of a {@link LiveQuery}: a record entered, changed within,
+ * or left the result.
+ */
+public final class RecordChange {
+    /**
+     * Kinds of changes.
+     */
+    public enum Kind {
+        /**
+         * The record now matches the query: it was saved for the first time,
+         * or was changed so that it matches.
+         */
+        INSERT,
+
+        /**
+         * The record matched the query before and still matches it after being saved.
+         */
+        UPDATE,
+
+        /**
+         * The record no longer matches the query: it was removed from the store,
+         * or was changed so that it does not match.
+         */
+        DELETE
+    }
+
+    /**
+     * The kind of this change.
+     */
+    private final Kind kind;
+
+    /**
+     * The changed record.
+     */
+    private final Record record;
+
+    /**
+     * Creates a change.
+     *
+     * @param kind the kind of the change
+     * @param record the changed record
+     */
+    RecordChange(final Kind kind, final Record record) {
+        this.kind = kind;
+        this.record = record;
+    }
+
+    /**
+     * Returns the kind of this change.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Returns the changed record.
+     *
+     * @return the record
+     */
+    public Record getRecord() {
+        return this.record;
+    }
+
+    @Override
+    public String toString() {
+        return this.kind + " " + this.record.getId();
+    }
+}
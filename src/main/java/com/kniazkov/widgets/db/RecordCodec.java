@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Service provider interface for the binary representation of the field values of a record
+ * in a {@link KeyValueDatabase}. The identifier and the timestamp of the record are stored
+ * by the database itself.
+ */
+public interface RecordCodec {
+    /**
+     * The default codec: each present field is written as its name, a type tag and the value,
+     * using the value encoding of {@link BinaryDatabase binary snapshots}. Fields are matched
+     * by name when decoding, so fields may be added to or removed from a schema; values of
+     * unknown fields or of fields whose type has changed are skipped.
+     */
+    RecordCodec BINARY = new RecordCodec() {
+        @Override
+        public void encode(final Record record, final List<Field<?>> fields,
+                final DataOutputStream stream) throws IOException {
+            int count = 0;
+            final Object[] values = new Object[fields.size()];
+            for (int ordinal = 0; ordinal < values.length; ordinal++) {
+                final Field<?> field = fields.get(ordinal);
+                if (record.hasModel(field)) {
+                    values[ordinal] = record.getValue(field);
+                    if (values[ordinal] != null) {
+                        count++;
+                    }
+                }
+            }
+            stream.writeInt(count);
+            for (int ordinal = 0; ordinal < values.length; ordinal++) {
+                if (values[ordinal] != null) {
+                    final Field<?> field = fields.get(ordinal);
+                    final byte tag = BinarySnapshot.getTag(field);
+                    BinarySnapshot.writeString(stream, field.getName());
+                    stream.writeByte(tag);
+                    BinarySnapshot.writeValue(stream, tag, values[ordinal]);
+                }
+            }
+        }
+
+        @Override
+        public void decode(final ByteBuffer buffer, final Record record,
+                final List<Field<?>> fields) {
+            final int count = buffer.getInt();
+            for (int index = 0; index < count; index++) {
+                final String name = BinarySnapshot.readString(buffer);
+                final byte tag = buffer.get();
+                final Object value = BinarySnapshot.readValue(buffer, tag);
+                for (final Field<?> field : fields) {
+                    if (field.getName().equals(name) && BinarySnapshot.getTag(field) == tag) {
+                        setValue(record, field, value);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes a decoded value into a record.
+         *
+         * @param record the record
+         * @param field the field
+         * @param value the value, of the value class of the field
+         * @param <T> the value type
+         */
+        private <T> void setValue(final Record record, final Field<T> field, final Object value) {
+            record.setValue(field, field.getType().getValueClass().cast(value));
+        }
+    };
+
+    /**
+     * Writes the field values of a record.
+     *
+     * @param record the record
+     * @param fields the schema of the store
+     * @param stream the output stream
+     * @throws IOException if writing fails
+     */
+    void encode(Record record, List<Field<?>> fields, DataOutputStream stream)
+        throws IOException;
+
+    /**
+     * Reads field values written by {@link #encode(Record, List, DataOutputStream)} and sets
+     * them on a record.
+     *
+     * @param buffer the buffer positioned at the encoded values
+     * @param record the record to fill
+     * @param fields the schema of the store
+     */
+    void decode(ByteBuffer buffer, Record record, List<Field<?>> fields);
+}
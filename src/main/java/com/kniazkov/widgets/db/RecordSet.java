@@ -62,26 +62,32 @@ public abstract class RecordSet {
      * The returned record set is a live view that reflects the state of the original
      * set at the time of creation. Subsequent modifications to the original set
      * will not affect the filtered result.
+     * <p>
+     * Large sets are scanned in parallel on the common fork/join pool.
      *
      * @param filter the filter criteria to apply
      * @return a new record set containing only matching records
      */
     public RecordSet select(final Filter filter) {
-        final List<Record> filtered = new ArrayList<>();
-        for (final Record record : this.getRecords()) {
-            if (filter.match(record)) {
-                filtered.add(record);
-            }
-        }
+        return wrap(ParallelScan.filter(this.getRecords(), filter, ParallelScan.DEFAULT_THRESHOLD));
+    }
+
+    /**
+     * Creates a record set over the specified list. The list must not be modified afterwards.
+     *
+     * @param records the records of the new set
+     * @return a record set that returns copies of the list
+     */
+    static RecordSet wrap(final List<Record> records) {
         return new RecordSet() {
             @Override
             public int getRecordCount() {
-                return filtered.size();
+                return records.size();
             }
 
             @Override
             public List<Record> getRecords() {
-                return new ArrayList<>(filtered);
+                return new ArrayList<>(records);
             }
         };
     }
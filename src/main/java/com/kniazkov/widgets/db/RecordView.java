@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * A lazy, ordered and optionally paged view of the records of a {@link Store}.
+ * <p>
+ * A view only describes a query; records are read from the store when the view is iterated.
+ * Iteration walks the store (or a {@link IndexType#SORTED sorted index}) in small chunks,
+ * taking the store lock once per chunk, so neither the store nor the result is copied as
+ * a whole. Views are immutable: {@link #orderBy(Field)}, {@link #where(Filter)},
+ * {@link #offset(int)}, {@link #limit(int)} and {@link #after(Record)} return new views.
+ * <p>
+ * For pagination, prefer keyset cursors to offsets: {@code view.after(lastRecordOfPage)}
+ * starts right after the given record without walking the skipped records, and stays stable
+ * when records are added or removed between requests.
+ * <pre>{@code
+ * RecordView page = store.orderBy(NAME).limit(50);
+ * List<Record> first = page.getRecords();
+ * List<Record> second = page.after(first.get(first.size() - 1)).getRecords();
+ * }</pre>
+ * Views reflect the state of the store at the moment each chunk is read; record positions
+ * follow field values as they were when the records were last saved.
+ */
+public final class RecordView extends RecordSet implements Iterable<Record> {
+    /**
+     * Maximum number of records read from the store under one lock.
+     */
+    static final int CHUNK_SIZE = 64;
+
+    /**
+     * The store.
+     */
+    private final Store store;
+
+    /**
+     * The field defining the order, or {@code null} to order by record identifier.
+     */
+    private final Field<?> field;
+
+    /**
+     * Whether the order is descending.
+     */
+    private final boolean descending;
+
+    /**
+     * The filter, or {@code null} if all records match.
+     */
+    private final Filter filter;
+
+    /**
+     * Number of matching records to skip.
+     */
+    private final int offset;
+
+    /**
+     * Maximum number of records in the view, or {@code -1} if unlimited.
+     */
+    private final int limit;
+
+    /**
+     * The position to start after, or {@code null} to start from the beginning.
+     */
+    private final Cursor after;
+
+    /**
+     * Creates a view of all records of a store ordered by identifier.
+     *
+     * @param store the store
+     */
+    RecordView(final Store store) {
+        this(store, null, false, null, 0, -1, null);
+    }
+
+    /**
+     * Creates a view.
+     *
+     * @param store the store
+     * @param field the field defining the order, or {@code null} to order by identifier
+     * @param descending whether the order is descending
+     * @param filter the filter, or {@code null}
+     * @param offset number of matching records to skip
+     * @param limit maximum number of records, or {@code -1}
+     * @param after the position to start after, or {@code null}
+     */
+    private RecordView(final Store store, final Field<?> field, final boolean descending,
+            final Filter filter, final int offset, final int limit, final Cursor after) {
+        this.store = store;
+        this.field = field;
+        this.descending = descending;
+        this.filter = filter;
+        this.offset = offset;
+        this.limit = limit;
+        this.after = after;
+    }
+
+    /**
+     * Returns a view ordered by the specified field in ascending order.
+     * Records with equal values are ordered by identifier.
+     * <p>
+     * Any cursor set on this view is dropped, because it refers to another order.
+     *
+     * @param field the field; must have a {@link IndexType#SORTED sorted index} in the store
+     * @return a new view
+     * @throws IllegalStateException if the field has no sorted index
+     */
+    public RecordView orderBy(final Field<?> field) {
+        return this.order(field, false);
+    }
+
+    /**
+     * Returns a view ordered by the specified field in descending order.
+     * Records with equal values are ordered by identifier, also descending.
+     * <p>
+     * Any cursor set on this view is dropped, because it refers to another order.
+     *
+     * @param field the field; must have a {@link IndexType#SORTED sorted index} in the store
+     * @return a new view
+     * @throws IllegalStateException if the field has no sorted index
+     */
+    public RecordView orderByDescending(final Field<?> field) {
+        return this.order(field, true);
+    }
+
+    /**
+     * Returns a view containing only records of this view that match the filter.
+     *
+     * @param filter the filter
+     * @return a new view
+     */
+    public RecordView where(final Filter filter) {
+        return new RecordView(this.store, this.field, this.descending,
+            this.filter == null ? filter : this.filter.and(filter),
+            this.offset, this.limit, this.after);
+    }
+
+    /**
+     * Returns a view that skips the specified number of records.
+     *
+     * @param count the number of records to skip
+     * @return a new view
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public RecordView offset(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count");
+        }
+        return new RecordView(this.store, this.field, this.descending, this.filter,
+            count, this.limit, this.after);
+    }
+
+    /**
+     * Returns a view that contains at most the specified number of records.
+     *
+     * @param count the maximum number of records
+     * @return a new view
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public RecordView limit(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count");
+        }
+        return new RecordView(this.store, this.field, this.descending, this.filter,
+            this.offset, count, this.after);
+    }
+
+    /**
+     * Returns a view that starts right after the specified record in the order of this view.
+     * The offset of this view, if any, is applied after the cursor.
+     * <p>
+     * The record does not have to be in the store anymore: its position is computed from
+     * its identifier and the value of the order field.
+     *
+     * @param record the last record of the previous page
+     * @return a new view
+     */
+    public RecordView after(final Record record) {
+        return new RecordView(this.store, this.field, this.descending, this.filter,
+            this.offset, this.limit, this.store.getCursor(this.field, record));
+    }
+
+    /**
+     * Counts the records of this view by iterating it.
+     *
+     * @return the record count
+     */
+    @Override
+    public int getRecordCount() {
+        int count = 0;
+        final Iterator<Record> iterator = this.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the records of this view, in the order of the view.
+     *
+     * @return a new list containing the records
+     */
+    @Override
+    public List<Record> getRecords() {
+        final List<Record> list =
+            new ArrayList<>(this.limit >= 0 ? Math.min(this.limit, CHUNK_SIZE) : 16);
+        for (final Record record : this) {
+            list.add(record);
+        }
+        return list;
+    }
+
+    /**
+     * Returns a view containing only records of this view that match the filter.
+     *
+     * @param filter the filter criteria to apply
+     * @return a new view
+     */
+    @Override
+    public RecordSet select(final Filter filter) {
+        return this.where(filter);
+    }
+
+    /**
+     * Returns an iterator that reads the records of this view from the store chunk by chunk.
+     *
+     * @return a new iterator
+     */
+    @Override
+    public Iterator<Record> iterator() {
+        return new ChunkIterator();
+    }
+
+    /**
+     * Creates a view with a new order.
+     *
+     * @param newField the field defining the order
+     * @param newDescending whether the order is descending
+     * @return a new view
+     */
+    private RecordView order(final Field<?> newField, final boolean newDescending) {
+        if (this.store.getIndexType(newField) != IndexType.SORTED) {
+            throw new IllegalStateException(
+                "Field '" + newField.getName() + "' has no sorted index"
+            );
+        }
+        return new RecordView(this.store, newField, newDescending, this.filter,
+            this.offset, this.limit, null);
+    }
+
+    /**
+     * Returns the number of records to read from the store at once. The number of records
+     * still needed is a {@code long}, since the offset plus the limit may exceed
+     * {@link Integer#MAX_VALUE}.
+     *
+     * @param needed the number of records the view still needs, or a negative value if
+     *  it is unknown because the view is not limited or has a filter
+     * @return the chunk size, from 1 to {@link #CHUNK_SIZE}
+     */
+    static int getChunkSize(final long needed) {
+        return needed < 0 ? CHUNK_SIZE : (int) Math.max(1, Math.min(CHUNK_SIZE, needed));
+    }
+
+    /**
+     * A position in the order of a view: the value of the order field and the record identifier.
+     */
+    static final class Cursor {
+        /**
+         * The value of the order field, or {@code null} when ordering by identifier.
+         */
+        private final Object value;
+
+        /**
+         * The record identifier.
+         */
+        private final UUID id;
+
+        /**
+         * Creates a cursor.
+         *
+         * @param value the value of the order field, or {@code null}
+         * @param id the record identifier
+         */
+        Cursor(final Object value, final UUID id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        /**
+         * Returns the value of the order field.
+         *
+         * @return the value, or {@code null} when ordering by identifier
+         */
+        Object getValue() {
+            return this.value;
+        }
+
+        /**
+         * Returns the record identifier.
+         *
+         * @return the identifier
+         */
+        UUID getId() {
+            return this.id;
+        }
+    }
+
+    /**
+     * Iterator that fetches records from the store in chunks and applies the filter,
+     * the offset and the limit on the fly.
+     */
+    private final class ChunkIterator implements Iterator<Record> {
+        /**
+         * Records fetched but not yet returned.
+         */
+        private final ArrayDeque<Record> buffer = new ArrayDeque<>();
+
+        /**
+         * Position of the last fetched record.
+         */
+        private Cursor position = RecordView.this.after;
+
+        /**
+         * Number of matching records skipped so far.
+         */
+        private int skipped;
+
+        /**
+         * Number of records returned so far.
+         */
+        private int returned;
+
+        /**
+         * Whether the store has no more records after the position.
+         */
+        private boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            final RecordView view = RecordView.this;
+            if (view.limit >= 0 && this.returned >= view.limit) {
+                return false;
+            }
+            while (this.buffer.isEmpty() && !this.exhausted) {
+                this.fetch();
+            }
+            return !this.buffer.isEmpty();
+        }
+
+        @Override
+        public Record next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.returned++;
+            return this.buffer.poll();
+        }
+
+        /**
+         * Reads the next chunk from the store.
+         */
+        private void fetch() {
+            final RecordView view = RecordView.this;
+            final int size = getChunkSize(view.filter == null && view.limit >= 0
+                ? (long) view.offset - this.skipped + view.limit - this.returned : -1);
+            final List<Record> chunk = new ArrayList<>(size);
+            final Cursor last = view.store.fetch(view.field, view.descending,
+                this.position, size, chunk);
+            if (chunk.size() < size) {
+                this.exhausted = true;
+            }
+            if (last != null) {
+                this.position = last;
+            }
+            for (final Record record : chunk) {
+                if (view.filter != null && !view.filter.match(record)) {
+                    continue;
+                }
+                if (this.skipped < view.offset) {
+                    this.skipped++;
+                } else {
+                    this.buffer.add(record);
+                }
+            }
+        }
+    }
+}
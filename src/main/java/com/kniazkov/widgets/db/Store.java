@@ -2,13 +2,29 @@ package com.kniazkov.widgets.db;
 
 import com.kniazkov.widgets.model.IntegerModel;
 import com.kniazkov.widgets.model.Model;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Represents a storage backend that manages a collection of {@link Record} objects.
@@ -24,6 +40,19 @@ import java.util.UUID;
  * Concrete subclasses describe how and where data is persisted — for example,
  * in memory, on disk, or via a remote protocol. The {@code Store} itself
  * provides fundamental record management operations, including creation and lookup.
+ * <p>
+ * Secondary indexes can be declared on fields with {@link #createIndex(Field, IndexType)}.
+ * They are maintained whenever a record is saved or removed, and {@link #select(Filter)} uses
+ * them to find candidate records instead of scanning the whole store.
+ * <p>
+ * Large result sets can be read page by page through a lazy {@link RecordView}, obtained from
+ * {@link #view()} or {@link #orderBy(Field)}. Views that must follow changes, such as tables
+ * shown to many clients, can use a {@link LiveQuery} from {@link #liveSelect(Filter)}, which
+ * reports every change of its result instead of being recomputed.
+ * <p>
+ * Field values of registered records are kept in per-field {@link Column columns}, one slot
+ * per record, instead of a separate model for every field of every record. Models are created
+ * on demand when a record is bound to a view or edited.
  */
 public abstract class Store extends RecordSet {
     /**
@@ -41,13 +70,67 @@ public abstract class Store extends RecordSet {
      * Only {@link PermanentRecord} instances live here; temporary records modify data through
      * their parent and do not appear in this map.
      */
-    private final Map<UUID, PermanentRecord> records;
+    private final NavigableMap<UUID, PermanentRecord> records;
 
     /**
      * Model containing records count.
      */
     private final Model<Integer> count;
 
+    /**
+     * Secondary indexes keyed by field name. Guarded by the {@link #records} lock.
+     */
+    private final Map<String, Index> indexes;
+
+    /**
+     * Immutable list of all records ordered by identifier, or {@code null} if it must be
+     * rebuilt. Replaced (under the {@link #records} lock) whenever a record is added or removed,
+     * and read without locking.
+     */
+    private volatile List<Record> snapshot;
+
+    /**
+     * Number of records from which a scan runs in parallel.
+     */
+    private volatile int parallelScanThreshold;
+
+    /**
+     * Registered live queries. Guarded by the {@link #records} lock.
+     */
+    private final List<LiveQuery> liveQueries;
+
+    /**
+     * Field values of registered records, one column per field. Guarded by
+     * {@link #columnLock}.
+     */
+    private final Column[] columns;
+
+    /**
+     * Guards the columns and slot assignment. Reads share the lock, so parallel scans do not
+     * serialize on it. When both locks are needed, the {@link #records} lock is taken first.
+     */
+    private final ReentrantReadWriteLock columnLock;
+
+    /**
+     * Column ordinals keyed by field name.
+     */
+    private final Map<String, Integer> ordinals;
+
+    /**
+     * Number of slots ever allocated. Guarded by {@link #columnLock}.
+     */
+    private int slotCount;
+
+    /**
+     * Released slots available for reuse. Guarded by {@link #columnLock}.
+     */
+    private int[] freeSlots;
+
+    /**
+     * Number of entries in {@link #freeSlots}. Guarded by {@link #columnLock}.
+     */
+    private int freeSlotCount;
+
     /**
      * Creates a new store with the specified list of fields.
      *
@@ -57,6 +140,18 @@ public abstract class Store extends RecordSet {
         this.fields = Collections.unmodifiableList(fields);
         this.records = new TreeMap<>();
         this.count = new IntegerModel().asSynchronized();
+        this.indexes = new HashMap<>();
+        this.liveQueries = new ArrayList<>();
+        this.parallelScanThreshold = ParallelScan.DEFAULT_THRESHOLD;
+        this.columns = new Column[fields.size()];
+        this.columnLock = new ReentrantReadWriteLock();
+        this.ordinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < this.columns.length; ordinal++) {
+            final Field<?> field = fields.get(ordinal);
+            this.columns[ordinal] = Column.create(field.getType());
+            this.ordinals.put(field.getName(), ordinal);
+        }
+        this.freeSlots = new int[0];
     }
 
     /**
@@ -68,6 +163,189 @@ public abstract class Store extends RecordSet {
         return this.fields;
     }
 
+    /**
+     * Declares a secondary index on the specified field and builds it from the records
+     * currently in the store.
+     * <p>
+     * An index reflects the values records had when they were last saved, so changes made
+     * to field models become visible to indexed queries after {@link Record#save()}.
+     *
+     * @param field the field to index; must belong to this store
+     * @param type the kind of the index
+     * @return this store
+     * @throws IllegalArgumentException if the field does not belong to this store, or if
+     *  a {@link IndexType#FULL_TEXT full-text index} is requested on a field whose values
+     *  are not strings
+     * @throws IllegalStateException if the field already has an index
+     */
+    public Store createIndex(final Field<?> field, final IndexType type) {
+        this.checkIndexedField(field, type);
+        synchronized (this.records) {
+            this.checkNotIndexed(field);
+            final Index index = Index.create(field, type);
+            for (final PermanentRecord record : this.records.values()) {
+                index.update(record);
+            }
+            this.indexes.put(field.getName(), index);
+        }
+        return this;
+    }
+
+    /**
+     * Declares a {@link IndexType#FULL_TEXT full-text index} on the specified field, restoring
+     * it from a file previously written by {@link #writeTextIndex(Field, File)}.
+     * <p>
+     * Only records whose value of the field is unchanged since the file was written are
+     * taken from the file; the remaining records are indexed from scratch. If the file
+     * is missing or unreadable, the whole index is built from the records, as
+     * {@link #createIndex(Field, IndexType)} does.
+     *
+     * @param field the field to index; must belong to this store and contain strings
+     * @param file the file with the persisted index
+     * @return this store
+     * @throws IllegalArgumentException if the field does not belong to this store or does not
+     *  contain strings
+     * @throws IllegalStateException if the field already has an index
+     */
+    public Store createTextIndex(final Field<String> field, final File file) {
+        this.checkIndexedField(field, IndexType.FULL_TEXT);
+        synchronized (this.records) {
+            this.checkNotIndexed(field);
+            Index index = Index.create(field, IndexType.FULL_TEXT);
+            Set<UUID> restored = Collections.emptySet();
+            if (file.exists()) {
+                try (DataInputStream stream = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file)))) {
+                    restored = index.readFrom(stream, this.records);
+                } catch (final IOException ignored) {
+                    index = Index.create(field, IndexType.FULL_TEXT);
+                }
+            }
+            for (final PermanentRecord record : this.records.values()) {
+                if (!restored.contains(record.getId())) {
+                    index.update(record);
+                }
+            }
+            this.indexes.put(field.getName(), index);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the {@link IndexType#FULL_TEXT full-text index} declared on the specified field
+     * to a file, so that {@link #createTextIndex(Field, File)} can later restore it without
+     * tokenizing every record again. The index is copied under the store lock; the file is
+     * written after the lock is released and replaces the previous one atomically.
+     *
+     * @param field the indexed field
+     * @param file the target file
+     * @return {@code true} if writing succeeded; {@code false} otherwise
+     * @throws IllegalStateException if the field has no full-text index
+     */
+    public boolean writeTextIndex(final Field<String> field, final File file) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        synchronized (this.records) {
+            final Index index = this.indexes.get(field.getName());
+            if (index == null || index.getType() != IndexType.FULL_TEXT) {
+                throw new IllegalStateException(
+                    "Field '" + field.getName() + "' has no full-text index"
+                );
+            }
+            try (DataOutputStream stream = new DataOutputStream(buffer)) {
+                index.writeTo(stream);
+            } catch (final IOException ignored) {
+                return false;
+            }
+        }
+        final File temporary = new File(file.getPath() + ".tmp");
+        try {
+            final File parentDir = file.getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                parentDir.mkdirs();
+            }
+            Files.write(temporary.toPath(), buffer.toByteArray());
+            try {
+                Files.move(temporary.toPath(), file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException ignored) {
+                Files.move(temporary.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException ignored) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a field can carry an index of the specified kind in this store.
+     *
+     * @param field the field
+     * @param type the kind of the index
+     * @throws IllegalArgumentException if the field does not belong to this store, or if
+     *  the index is full-text and the field does not contain strings
+     */
+    private void checkIndexedField(final Field<?> field, final IndexType type) {
+        boolean known = false;
+        for (final Field<?> existing : this.fields) {
+            if (existing.getName().equals(field.getName())) {
+                known = true;
+                break;
+            }
+        }
+        if (!known) {
+            throw new IllegalArgumentException("Unknown field '" + field.getName() + "'");
+        }
+        if (type == IndexType.FULL_TEXT && field.getType().getValueClass() != String.class) {
+            throw new IllegalArgumentException(
+                "Field '" + field.getName() + "' does not contain strings"
+            );
+        }
+    }
+
+    /**
+     * Checks that a field has no index yet. Must be called under the {@link #records} lock.
+     *
+     * @param field the field
+     * @throws IllegalStateException if the field already has an index
+     */
+    private void checkNotIndexed(final Field<?> field) {
+        if (this.indexes.containsKey(field.getName())) {
+            throw new IllegalStateException(
+                "Field '" + field.getName() + "' already has an index"
+            );
+        }
+    }
+
+    /**
+     * Returns the kind of the index declared on the specified field.
+     *
+     * @param field the field
+     * @return the index type, or {@code null} if the field is not indexed
+     */
+    public IndexType getIndexType(final Field<?> field) {
+        synchronized (this.records) {
+            final Index index = this.indexes.get(field.getName());
+            return index == null ? null : index.getType();
+        }
+    }
+
+    /**
+     * Sets the number of records from which {@link #select(Filter)} tests records
+     * in parallel using the common fork/join pool. Smaller scans run in the calling thread.
+     *
+     * @param threshold the threshold; {@link Integer#MAX_VALUE} disables parallel scans
+     * @return this store
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public Store setParallelScanThreshold(final int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold");
+        }
+        this.parallelScanThreshold = threshold;
+        return this;
+    }
+
     /**
      * Creates a new record with a randomly generated {@link UUID}.
      *
@@ -92,17 +370,173 @@ public abstract class Store extends RecordSet {
     }
 
     /**
-     * Adds record to the records collection and updates the record counter.
+     * Adds record to the records collection, updates the record counter, indexes
+     * and live queries.
      *
      * @param record the record to register
      */
-    private void registerRecord(final PermanentRecord record) {
+    void registerRecord(final PermanentRecord record) {
+        final List<LiveQuery> changed = new ArrayList<>();
         synchronized (this.records) {
-            this.records.put(record.getId(), record);
+            if (record.slot < 0) {
+                this.columnLock.writeLock().lock();
+                try {
+                    record.slot = this.allocateSlot();
+                } finally {
+                    this.columnLock.writeLock().unlock();
+                }
+                record.copyModelsToColumns();
+            }
+            if (this.records.put(record.getId(), record) == null) {
+                this.snapshot = null;
+            }
             this.count.setData(this.records.size());
+            for (final Index index : this.indexes.values()) {
+                index.update(record);
+            }
+            for (final LiveQuery query : this.liveQueries) {
+                if (query.recordSaved(record)) {
+                    changed.add(query);
+                }
+            }
+        }
+        dispatch(changed);
+    }
+
+    /**
+     * Creates a live query: a record set containing the records that match the filter,
+     * kept up to date as records are saved and removed.
+     * <p>
+     * The initial result is found using indexes, like {@link #select(Filter)}. Afterwards,
+     * every saved or removed record is tested against the filter once, regardless of how many
+     * listeners the query has. The query must be {@link LiveQuery#close() closed}
+     * when it is no longer needed.
+     *
+     * @param filter the filter
+     * @return a new live query
+     */
+    public LiveQuery liveSelect(final Filter filter) {
+        synchronized (this.records) {
+            List<Record> initial = QueryPlanner.findCandidates(filter, this.indexes);
+            if (initial == null) {
+                initial = new ArrayList<>(this.records.values());
+            }
+            final List<Record> filtered = new ArrayList<>(initial.size());
+            for (final Record record : initial) {
+                if (filter.match(record)) {
+                    filtered.add(record);
+                }
+            }
+            final LiveQuery query = new LiveQuery(this, filter, filtered);
+            this.liveQueries.add(query);
+            return query;
+        }
+    }
+
+    /**
+     * Unregisters a live query.
+     *
+     * @param query the live query
+     */
+    void removeLiveQuery(final LiveQuery query) {
+        synchronized (this.records) {
+            this.liveQueries.remove(query);
+        }
+    }
+
+    /**
+     * Delivers queued changes of live queries to their listeners.
+     *
+     * @param queries the live queries that have queued changes
+     */
+    private static void dispatch(final List<LiveQuery> queries) {
+        for (final LiveQuery query : queries) {
+            query.dispatch();
+        }
+    }
+
+    /**
+     * Returns the column ordinal of a field.
+     *
+     * @param name the field name
+     * @return the ordinal, or {@code -1} if the field does not belong to this store
+     */
+    int getOrdinal(final String name) {
+        final Integer ordinal = this.ordinals.get(name);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Reads a field value of a registered record from its column.
+     *
+     * @param record the record
+     * @param ordinal the column ordinal
+     * @return the value, or {@code null} if the record has no value or is not registered
+     */
+    Object readValue(final PermanentRecord record, final int ordinal) {
+        this.columnLock.readLock().lock();
+        try {
+            return record.slot < 0 ? null : this.columns[ordinal].get(record.slot);
+        } finally {
+            this.columnLock.readLock().unlock();
         }
     }
 
+    /**
+     * Writes a field value of a registered record to its column.
+     *
+     * @param record the record
+     * @param ordinal the column ordinal
+     * @param value the value; {@code null} removes the value
+     * @return {@code true} if the value was written, {@code false} if the record
+     *  is not registered
+     */
+    boolean writeValue(final PermanentRecord record, final int ordinal, final Object value) {
+        this.columnLock.writeLock().lock();
+        try {
+            if (record.slot < 0) {
+                return false;
+            }
+            if (value == null) {
+                this.columns[ordinal].clear(record.slot);
+            } else {
+                this.columns[ordinal].set(record.slot, value);
+            }
+            return true;
+        } finally {
+            this.columnLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes a free slot or allocates a new one. Must be called under the write lock
+     * of {@link #columnLock}.
+     *
+     * @return the slot
+     */
+    private int allocateSlot() {
+        if (this.freeSlotCount > 0) {
+            return this.freeSlots[--this.freeSlotCount];
+        }
+        return this.slotCount++;
+    }
+
+    /**
+     * Clears the columns of a slot and makes it available for reuse.
+     * Must be called under the write lock of {@link #columnLock}.
+     *
+     * @param slot the slot
+     */
+    private void releaseSlot(final int slot) {
+        for (final Column column : this.columns) {
+            column.clear(slot);
+        }
+        if (this.freeSlotCount == this.freeSlots.length) {
+            this.freeSlots = Arrays.copyOf(this.freeSlots, Math.max(16, this.freeSlotCount * 2));
+        }
+        this.freeSlots[this.freeSlotCount++] = slot;
+    }
+
     /**
      * Saves all records managed by this store.
      * <p>
@@ -144,11 +578,175 @@ public abstract class Store extends RecordSet {
      */
     @Override
     public List<Record> getRecords() {
+        return new ArrayList<>(this.getSnapshot());
+    }
+
+    /**
+     * Returns an immutable list of all records ordered by identifier.
+     * <p>
+     * The list is built once after each change of the record set and then shared by all
+     * readers without locking, so readers never wait for writers, and a reader keeps
+     * a consistent set of records even if records are added or removed while it works.
+     *
+     * @return the current snapshot
+     */
+    List<Record> getSnapshot() {
+        List<Record> result = this.snapshot;
+        if (result == null) {
+            synchronized (this.records) {
+                result = this.snapshot;
+                if (result == null) {
+                    result = Collections.unmodifiableList(
+                        new ArrayList<Record>(this.records.values()));
+                    this.snapshot = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Increments the version of a record before it is saved.
+     *
+     * @param record the record
+     */
+    void advanceVersion(final PermanentRecord record) {
         synchronized (this.records) {
-            return new ArrayList<>(this.records.values());
+            record.version++;
         }
     }
 
+    /**
+     * Increments the version of a record if it still has the expected one.
+     *
+     * @param record the record
+     * @param expected the version the caller has read
+     * @return the new version of the record
+     * @throws ConflictException if the record has another version
+     */
+    long advanceVersion(final PermanentRecord record, final long expected) {
+        synchronized (this.records) {
+            if (record.version != expected) {
+                throw new ConflictException(record.getId(), expected, record.version);
+            }
+            return ++record.version;
+        }
+    }
+
+    /**
+     * Selects records matching the specified filter.
+     * <p>
+     * If the filter (or one side of an {@link And}) tests a field that has a suitable index,
+     * only the records found in the index are tested; otherwise all records of the current
+     * snapshot are scanned without holding the store lock. When there are at least
+     * {@link #setParallelScanThreshold(int) threshold} records to test, they are tested
+     * in parallel.
+     * The result is ordered by record identifier in both cases.
+     *
+     * @param filter the filter criteria to apply
+     * @return a new record set containing only matching records
+     */
+    @Override
+    public RecordSet select(final Filter filter) {
+        final List<Record> candidates;
+        synchronized (this.records) {
+            candidates = QueryPlanner.findCandidates(filter, this.indexes);
+        }
+        final int threshold = this.parallelScanThreshold;
+        if (candidates == null) {
+            return wrap(ParallelScan.filter(this.getSnapshot(), filter, threshold));
+        }
+        final List<Record> filtered = ParallelScan.filter(candidates, filter, threshold);
+        filtered.sort(Comparator.comparing(Record::getId));
+        return wrap(filtered);
+    }
+
+    /**
+     * Returns a lazy view of all records of this store ordered by identifier.
+     *
+     * @return a new view
+     */
+    public RecordView view() {
+        return new RecordView(this);
+    }
+
+    /**
+     * Returns a lazy view of all records of this store ordered by the specified field.
+     *
+     * @param field the field; must have a {@link IndexType#SORTED sorted index}
+     * @return a new view
+     * @throws IllegalStateException if the field has no sorted index
+     */
+    public RecordView orderBy(final Field<?> field) {
+        return this.view().orderBy(field);
+    }
+
+    /**
+     * Collects records in the order of a view, starting after the specified position.
+     *
+     * @param field the field defining the order, or {@code null} to order by identifier
+     * @param descending whether the order is descending
+     * @param after the position to start after, or {@code null} to start from the beginning
+     * @param max the maximum number of records to collect
+     * @param out the list receiving the records
+     * @return the position of the last collected record, or {@code null} if none was collected
+     * @throws IllegalStateException if the field has no sorted index
+     */
+    RecordView.Cursor fetch(final Field<?> field, final boolean descending,
+            final RecordView.Cursor after, final int max, final List<Record> out) {
+        synchronized (this.records) {
+            if (field != null) {
+                final Index index = this.indexes.get(field.getName());
+                if (index == null) {
+                    throw new IllegalStateException(
+                        "Field '" + field.getName() + "' has no sorted index"
+                    );
+                }
+                return index.scan(after, descending, max, out);
+            }
+            NavigableMap<UUID, PermanentRecord> range =
+                descending ? this.records.descendingMap() : this.records;
+            if (after != null) {
+                range = range.tailMap(after.getId(), false);
+            }
+            RecordView.Cursor last = null;
+            for (final PermanentRecord record : range.values()) {
+                if (out.size() == max) {
+                    break;
+                }
+                out.add(record);
+                last = new RecordView.Cursor(null, record.getId());
+            }
+            return last;
+        }
+    }
+
+    /**
+     * Computes the position of a record in the order of a view.
+     * For an indexed field, the value the record was indexed under is preferred to its
+     * current value, so that unsaved changes do not move the cursor.
+     *
+     * @param field the field defining the order, or {@code null} to order by identifier
+     * @param record the record
+     * @return the position
+     */
+    RecordView.Cursor getCursor(final Field<?> field, final Record record) {
+        if (field == null) {
+            return new RecordView.Cursor(null, record.getId());
+        }
+        Object value = null;
+        synchronized (this.records) {
+            final Index index = this.indexes.get(field.getName());
+            if (index != null) {
+                value = index.getIndexedValue(record.getId());
+            }
+        }
+        if (value == null) {
+            value = record.getValue(field);
+        }
+        return new RecordView.Cursor(value, record.getId());
+    }
+
     /**
      * Looks up a record by its unique identifier.
      *
@@ -162,12 +760,74 @@ public abstract class Store extends RecordSet {
     }
 
     /**
-     * Removes a record from the store by identifier.
+     * Removes a record from the store by identifier. The removal holds the edit lock of
+     * the record, so a concurrent save of the same record is persisted either entirely before
+     * or entirely after it.
      *
      * @param id the record ID
      */
     public void removeRecord(final UUID id) {
-        this.records.remove(id);
+        final PermanentRecord record;
+        synchronized (this.records) {
+            record = this.records.get(id);
+        }
+        if (record == null) {
+            return;
+        }
+        synchronized (record.getEditLock()) {
+            if (this.unregisterRecord(id) != null) {
+                this.saveRemoval(record);
+            }
+        }
+    }
+
+    /**
+     * Removes a record from the records collection, updates the record counter, indexes
+     * and live queries.
+     *
+     * @param id the record ID
+     * @return the removed record, or {@code null} if there was no record with this ID
+     */
+    PermanentRecord unregisterRecord(final UUID id) {
+        final List<LiveQuery> changed = new ArrayList<>();
+        final PermanentRecord record;
+        synchronized (this.records) {
+            record = this.records.remove(id);
+            if (record == null) {
+                return null;
+            }
+            this.snapshot = null;
+            record.version++;
+            this.count.setData(this.records.size());
+            for (final Index index : this.indexes.values()) {
+                index.remove(record);
+            }
+            for (final LiveQuery query : this.liveQueries) {
+                if (query.recordRemoved(record)) {
+                    changed.add(query);
+                }
+            }
+            record.materialize();
+            this.columnLock.writeLock().lock();
+            try {
+                final int slot = record.slot;
+                record.slot = -1;
+                this.releaseSlot(slot);
+            } finally {
+                this.columnLock.writeLock().unlock();
+            }
+        }
+        dispatch(changed);
+        return record;
+    }
+
+    /**
+     * Persists the removal of one record.
+     * By default, saves the whole store.
+     *
+     * @param record the removed record
+     */
+    void saveRemoval(final PermanentRecord record) {
         this.save();
     }
 
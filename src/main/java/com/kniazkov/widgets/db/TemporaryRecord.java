@@ -23,7 +23,8 @@ import java.util.UUID;
  * This enables safe editing sessions, UI dialogs, transactional user actions, and any workflow
  * where changes need to be applied only after explicit confirmation.
  * <br>
- * When {@link #save()} is called, all modified fields are merged back into the parent.
+ * When {@link #save()} is called, all modified fields are merged back into the parent,
+ * provided the parent has not been changed by someone else since the editing started.
  */
 class TemporaryRecord extends Record {
     /**
@@ -31,6 +32,12 @@ class TemporaryRecord extends Record {
      */
     private final Record parent;
 
+    /**
+     * The version of the parent record at the moment this temporary record was created
+     * or last saved.
+     */
+    private long baseVersion;
+
     /**
      * Creates a new temporary record derived from the given parent record.
      *
@@ -39,6 +46,8 @@ class TemporaryRecord extends Record {
     public TemporaryRecord(final Record parent) {
         super(Instant.now());
         this.parent = parent;
+        this.baseVersion = parent.getVersion();
+        parent.materialize();
 
         for (final String key : parent.data.keySet()) {
             Model<?> model = parent.data.get(key);
@@ -53,19 +62,16 @@ class TemporaryRecord extends Record {
 
     /**
      * Writes all changes made in this temporary record back into the parent record.
+     *
+     * The copy may be kept and saved again: each successful save moves its base version
+     * to the version it has committed.
+     *
+     * @throws ConflictException if the parent has been saved or removed since this
+     *  temporary record was created or last saved
      */
     @Override
     public void save() {
-        for (final String key : this.data.keySet()) {
-            Model<?> src = this.data.get(key);
-            Model<?> dst = this.parent.data.get(key);
-            if (dst == null) {
-                this.parent.data.put(key, src);
-            } else {
-                dst.setObject(src.getData());
-            }
-        }
-        this.parent.save();
+        this.baseVersion = this.parent.commit(this.data, this.baseVersion);
     }
 
     @Override
@@ -8,19 +8,18 @@ import com.kniazkov.widgets.base.Options;
 import com.kniazkov.widgets.base.Page;
 import com.kniazkov.widgets.base.Server;
 import com.kniazkov.widgets.common.BorderStyle;
-import com.kniazkov.widgets.common.Listener;
 import com.kniazkov.widgets.common.Color;
-import com.kniazkov.widgets.images.CircleProgressBarCreator;
+import com.kniazkov.widgets.images.ImageJobs;
 import com.kniazkov.widgets.images.ImageLoader;
-import com.kniazkov.widgets.images.ImageProcessor;
+import com.kniazkov.widgets.images.ImagePipeline;
 import com.kniazkov.widgets.images.ImageSource;
+import com.kniazkov.widgets.model.IntModel;
 import com.kniazkov.widgets.view.FileLoader;
 import com.kniazkov.widgets.view.ImageWidget;
+import com.kniazkov.widgets.view.MarginDecorator;
+import com.kniazkov.widgets.view.ProgressCircle;
 import com.kniazkov.widgets.view.Section;
-import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A demonstration program that allows uploading and displaying multiple images.
@@ -28,6 +27,9 @@ import java.util.Set;
  * This example creates a file upload widget configured to accept multiple image files.
  * Uploaded images are automatically cropped to square aspect ratios and resized to
  * 300x300 pixels with high-quality rendering, then displayed in a gallery layout.
+ * The processing runs on the shared {@link ImageJobs} pool, so many photos uploaded at once
+ * are processed a few at a time instead of all in parallel. While a photo is uploading and
+ * processing, its place shows a {@link ProgressCircle} drawn by the browser.
  *
  * <b>How to use</b>
  * <ol>
@@ -45,7 +47,6 @@ public class LoadImages {
      * @param args program arguments
      */
     public static void main(String[] args) {
-        final Set<Listener<Integer>> listeners = new HashSet<>();
         final Page page = (root, parameters) -> {
             final Section main = new Section();
             root.add(main);
@@ -53,49 +54,38 @@ public class LoadImages {
             final Section images = new Section();
             root.add(images);
 
-            final CircleProgressBarCreator progress = new CircleProgressBarCreator(
-                300,
-                300
-            );
-
             final FileLoader loader = new FileLoader("Click me");
             main.add(loader);
             loader.setMultipleInputFlag(true);
             loader.acceptImagesOnly();
             loader.onSelect(descriptor -> {
-                final ImageWidget widget = new ImageWidget(
-                    progress.getImageSource(0)
-                );
-                images.add(widget);
-                widget.setWidth(300);
-                widget.setHeight(300);
-                widget.setBorderWidth(1);
-                widget.setBorderColor(Color.BLACK);
-                widget.setBorderStyle(BorderStyle.DASHED);
-                widget.setMargin(5);
-                final Listener<Integer> listener =
-                    percent -> widget.setSource(progress.getImageSource(percent));
-                listeners.add(listener);
-                descriptor.getLoadingPercentageModel().addListener(listener);
+                final ProgressCircle circle =
+                    new ProgressCircle(descriptor.getLoadingPercentageModel());
+                circle.setWidth(300);
+                circle.setHeight(300);
+                circle.setColor(Color.GRAY);
+                final MarginDecorator slot = new MarginDecorator(circle);
+                slot.setMargin(5);
+                images.add(slot);
                 descriptor.onLoad(file-> {
-                    widget.setSource(progress.getWaitingImageSource());
-                    try {
-                        final BufferedImage original = ImageLoader.load(
-                            file.getType(),
-                            file.getContent()
-                        );
-                        final BufferedImage cropped = ImageProcessor.cropToSquare(original);
-                        final BufferedImage resized = ImageProcessor.resizeToFit(
-                            cropped,
-                            300
-                        );
-                        widget.setSource(ImageSource.fromImage(resized));
-                        widget.setBorderStyle(BorderStyle.SOLID);
-                    } catch (final IOException ignored) {
-                        images.remove(widget);
-                    } finally {
-                        listeners.remove(listener);
-                    }
+                    circle.setPercentModel(new IntModel(ProgressCircle.INDETERMINATE));
+                    final CompletableFuture<ImageSource> image = ImageJobs.getInstance().submit(
+                        () -> ImagePipeline.of(ImageLoader.load(file, 300))
+                            .cropToSquare()
+                            .resizeToFit(300)
+                            .toImage()
+                    );
+                    image.whenComplete((source, error) -> {
+                        if (error == null) {
+                            final ImageWidget widget = new ImageWidget(source);
+                            widget.setBorderWidth(1);
+                            widget.setBorderColor(Color.BLACK);
+                            widget.setBorderStyle(BorderStyle.SOLID);
+                            slot.put(widget);
+                        } else {
+                            images.remove(slot);
+                        }
+                    });
                 });
             });
         };
@@ -6,40 +6,203 @@ package com.kniazkov.widgets.images;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 
 /**
- * An {@link ImageSource} implementation that provides a Base64-encoded PNG image
- * from an in-memory {@link BufferedImage}.
+ * An {@link ImageSource} implementation that provides a PNG or JPEG image from an in-memory
+ * {@link BufferedImage}.
  * <p>
- * This class converts a Java {@link BufferedImage} to a data URL format suitable
- * for direct embedding in HTML or CSS (e.g., {@code src} attribute of an {@code <img>} tag).
+ * By default, the image is encoded losslessly to PNG. With a quality setting, opaque images
+ * are encoded to JPEG, which is many times smaller for photos; images with transparent
+ * pixels are still encoded to PNG, since JPEG cannot represent them.
+ * <p>
+ * The image is encoded once, on first use, and put into the shared
+ * {@link ImageStore}; the source then resolves to the short content-addressed URL under which
+ * the web server serves the image, so updates carry the URL instead of the image itself.
+ * As long as the source is alive, the store can encode the image again if it has dropped it,
+ * so URLs already sent to clients keep working.
  */
 public class BufferedImageSource implements ImageSource {
+    /**
+     * Minimum alpha of a pixel considered opaque. Resampling may leave fully opaque pixels
+     * with an alpha slightly below 255, which is invisible and must not prevent JPEG encoding.
+     */
+    private static final int OPAQUE_ALPHA = 0xF8;
+
     /**
      * The source image stored in memory.
      */
     private final BufferedImage image;
 
+    /**
+     * JPEG quality, from 0 to 1, or a negative value for lossless PNG encoding.
+     */
+    private final float quality;
+
+    /**
+     * URL of the encoded image in the store, or {@code null} if the image is not encoded yet.
+     */
+    private String url = null;
+
+    /**
+     * Encoder registered in the store along with the image. The store references it weakly,
+     * so it lives exactly as long as this source.
+     */
+    private final ImageStore.Encoder encoder = this::encode;
+
     /**
      * Constructs a new image source from the specified buffered image.
      *
      * @param image the image to encode and serve
      */
     public BufferedImageSource(final BufferedImage image) {
+        this(image, -1);
+    }
+
+    /**
+     * Constructs a new image source that encodes opaque images to JPEG.
+     *
+     * @param image the image to encode and serve
+     * @param quality JPEG quality, from 0 (smallest) to 1 (best), or a negative value
+     *  for lossless PNG encoding
+     * @throws IllegalArgumentException if the quality is greater than 1
+     */
+    public BufferedImageSource(final BufferedImage image, final float quality) {
+        if (quality > 1) {
+            throw new IllegalArgumentException("The quality must not exceed 1");
+        }
         this.image = image;
+        this.quality = quality;
+    }
+
+    /**
+     * Returns the width of the image.
+     *
+     * @return the width, in pixels
+     */
+    public int getWidth() {
+        return this.image.getWidth();
+    }
+
+    /**
+     * Returns the height of the image.
+     *
+     * @return the height, in pixels
+     */
+    public int getHeight() {
+        return this.image.getHeight();
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
+        final ImageStore store = ImageStore.getInstance();
+        if (this.url == null || !store.contains(this.url)) {
+            final ImageStore.Image encoded = this.encode();
+            if (encoded == null) {
+                return "";
+            }
+            this.url = store.put(encoded.getType(), encoded.getData(), this.encoder);
+        }
+        return this.url;
+    }
+
+    /**
+     * Encodes the image.
+     *
+     * @return the encoded image, or {@code null} if the image cannot be encoded
+     */
+    private ImageStore.Image encode() {
+        return encode(this.image, this.quality);
+    }
+
+    /**
+     * Encodes an image to PNG, or to JPEG if a quality is specified and the image is opaque.
+     *
+     * @param image the image
+     * @param quality JPEG quality, from 0 to 1, or a negative value for lossless PNG encoding
+     * @return the encoded image, or {@code null} if the image cannot be encoded
+     */
+    static ImageStore.Image encode(final BufferedImage image, final float quality) {
         final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final String type;
         try {
-            ImageIO.write(image, "PNG", stream);
+            if (quality >= 0 && isOpaque(image)) {
+                writeJpeg(image, quality, stream);
+                type = "image/jpeg";
+            } else {
+                ImageIO.write(image, "PNG", stream);
+                type = "image/png";
+            }
         } catch (final IOException ignored) {
-            return "";
+            return null;
+        }
+        return new ImageStore.Image(type, stream.toByteArray());
+    }
+
+    /**
+     * Checks whether all pixels of an image are opaque.
+     *
+     * @param image the image
+     * @return {@code true} if the image has no transparent or noticeably translucent pixels
+     */
+    private static boolean isOpaque(final BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return true;
+        }
+        final int width = image.getWidth();
+        final int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (final int pixel : row) {
+                if (pixel >>> 24 < OPAQUE_ALPHA) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes an opaque image to JPEG.
+     *
+     * @param image the image
+     * @param quality JPEG quality, from 0 to 1
+     * @param stream the stream receiving the encoded image
+     * @throws IOException if the image cannot be encoded
+     */
+    private static void writeJpeg(final BufferedImage image, final float quality,
+            final ByteArrayOutputStream stream) throws IOException {
+        final BufferedImage rgb;
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            rgb = image;
+        } else {
+            rgb = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+            final int width = image.getWidth();
+            final int[] row = new int[width];
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                rgb.setRGB(0, y, width, 1, row, 0, width);
+            }
+        }
+        final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG encoder available");
+        }
+        final ImageWriter writer = writers.next();
+        final ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(stream)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
         }
-        return "data:image/png;base64," +
-               Base64.getEncoder().encodeToString(stream.toByteArray());
     }
 }
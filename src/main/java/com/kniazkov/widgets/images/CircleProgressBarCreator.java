@@ -9,6 +9,11 @@ import java.util.Arrays;
  * This class generates a series of SVG images representing progress bars where
  * progress is visualized as a circular arc. The images are cached for efficiency
  * and can be customized in terms of size, colors, and appearance.
+ * <p>
+ * Every change of progress sends the client a whole new image. To display the progress of
+ * an operation that changes often, such as an upload, prefer
+ * {@link com.kniazkov.widgets.view.ProgressCircle}, which the browser draws from the percent
+ * alone.
  */
 public class CircleProgressBarCreator {
     /**
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * An {@link ImageSource} that keeps an image only in its encoded form.
+ * <p>
+ * Unlike {@link BufferedImageSource}, which keeps the decoded pixels so that it can encode
+ * them again, this source keeps the encoded bytes, which are many times smaller for photos.
+ * It is used for images kept for a long time, such as the cached {@link ImageVariants}.
+ * If the {@link ImageStore} drops the image, the store gets the same bytes back from
+ * this source.
+ */
+final class EncodedImageSource implements ImageSource {
+    /**
+     * The encoded image.
+     */
+    private final ImageStore.Image image;
+
+    /**
+     * Width of the image, in pixels.
+     */
+    private final int width;
+
+    /**
+     * Height of the image, in pixels.
+     */
+    private final int height;
+
+    /**
+     * URL of the image in the store, or {@code null} if it has not been put there yet.
+     */
+    private String url = null;
+
+    /**
+     * Encoder registered in the store along with the image. The store references it weakly,
+     * so it lives exactly as long as this source.
+     */
+    private final ImageStore.Encoder encoder = this::getImage;
+
+    /**
+     * Creates an image source.
+     *
+     * @param image the encoded image
+     * @param width the width of the image, in pixels
+     * @param height the height of the image, in pixels
+     */
+    private EncodedImageSource(final ImageStore.Image image, final int width, final int height) {
+        this.image = image;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Encodes an image the same way as {@link BufferedImageSource} does and puts it into
+     * the shared {@link ImageStore}. The pixels are not referenced afterwards.
+     *
+     * @param image the image
+     * @param quality JPEG quality, from 0 to 1, or a negative value for lossless PNG encoding
+     * @return the image source
+     * @throws IOException if the image cannot be encoded
+     */
+    static EncodedImageSource encode(final BufferedImage image, final float quality)
+            throws IOException {
+        final ImageStore.Image encoded = BufferedImageSource.encode(image, quality);
+        if (encoded == null) {
+            throw new IOException("The image cannot be encoded");
+        }
+        final EncodedImageSource source =
+            new EncodedImageSource(encoded, image.getWidth(), image.getHeight());
+        source.toString();
+        return source;
+    }
+
+    /**
+     * Returns the width of the image.
+     *
+     * @return the width, in pixels
+     */
+    int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Returns the height of the image.
+     *
+     * @return the height, in pixels
+     */
+    int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Returns the encoded image.
+     *
+     * @return the image
+     */
+    ImageStore.Image getImage() {
+        return this.image;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final ImageStore store = ImageStore.getInstance();
+        if (this.url == null || !store.contains(this.url)) {
+            this.url = store.put(this.image.getType(), this.image.getData(), this.encoder);
+        }
+        return this.url;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.UploadedFile;
+import com.kniazkov.widgets.model.ImageSourceModel;
+import com.kniazkov.widgets.model.SynchronizedModel;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of worker threads for image processing: decoding, cropping, resizing and
+ * encoding. Decoding and resampling photos is CPU-heavy, so instead of running them on
+ * whatever thread receives a file, jobs wait in a queue and at most as many of them run at
+ * once as there are worker threads (by default, one per processor core).
+ * <p>
+ * Jobs are taken from the queue by {@link Priority priority}, and in submission order within
+ * the same priority. Every job returns a {@link CompletableFuture}; cancelling the future
+ * removes a job that is still queued, while a job that is already running completes, but its
+ * result is dropped.
+ */
+public final class ImageJobs {
+    /**
+     * Priority of an image job.
+     */
+    public enum Priority {
+        /**
+         * Jobs the user is waiting for, such as an image that is visible right now.
+         */
+        HIGH,
+
+        /**
+         * Regular jobs.
+         */
+        NORMAL,
+
+        /**
+         * Background jobs, such as generating thumbnails in advance.
+         */
+        LOW
+    }
+
+    /**
+     * Image processing performed by a job.
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Produces the image.
+         *
+         * @return the image
+         * @throws IOException if the image cannot be read or decoded
+         */
+        BufferedImage process() throws IOException;
+    }
+
+    /**
+     * Shared instance, created on first request.
+     */
+    private static ImageJobs instance = null;
+
+    /**
+     * Executor running the jobs.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Source of sequence numbers keeping jobs of the same priority in submission order.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates a pool with one worker thread per processor core.
+     */
+    public ImageJobs() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pool with the specified number of worker threads. The threads are daemon
+     * threads; they are started on demand and stop after a minute without jobs.
+     *
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public ImageJobs(final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable,
+                    "Image job " + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the shared pool, sized to the number of processor cores.
+     *
+     * @return the shared pool
+     */
+    public static synchronized ImageJobs getInstance() {
+        if (instance == null) {
+            instance = new ImageJobs();
+        }
+        return instance;
+    }
+
+    /**
+     * Submits a job with normal priority.
+     *
+     * @param task the image processing to perform
+     * @return a future completed with the resulting image source
+     */
+    public CompletableFuture<ImageSource> submit(final Task task) {
+        return this.submit(Priority.NORMAL, task);
+    }
+
+    /**
+     * Submits a job. The worker thread also encodes the resulting image and puts it into
+     * the {@link ImageStore}, so that sending it to clients costs nothing.
+     *
+     * @param priority the priority of the job
+     * @param task the image processing to perform
+     * @return a future completed with the resulting image source, or completed exceptionally
+     *  if the task fails; cancelling it cancels the job
+     */
+    public CompletableFuture<ImageSource> submit(final Priority priority, final Task task) {
+        return this.submit(priority, task, -1);
+    }
+
+    /**
+     * Submits a job whose result is encoded to JPEG with the specified quality, unless it
+     * has transparent pixels (see {@link BufferedImageSource}).
+     *
+     * @param priority the priority of the job
+     * @param task the image processing to perform
+     * @param quality JPEG quality, from 0 to 1, or a negative value for lossless PNG encoding
+     * @return a future completed with the resulting image source
+     */
+    public CompletableFuture<ImageSource> submit(final Priority priority, final Task task,
+            final float quality) {
+        return this.execute(priority, () -> {
+            final ImageSource source = new BufferedImageSource(task.process(), quality);
+            source.toString();
+            return source;
+        });
+    }
+
+    /**
+     * Queues arbitrary work, such as decoding an image shared by several later jobs.
+     *
+     * @param priority the priority of the work
+     * @param work the work to perform
+     * @param <T> the type of the result
+     * @return a future completed with the result; cancelling it cancels the work
+     */
+    <T> CompletableFuture<T> execute(final Priority priority, final Callable<T> work) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Job<T> job = new Job<>(priority, this.sequence.getAndIncrement(), work, future);
+        future.whenComplete((source, error) -> {
+            if (future.isCancelled()) {
+                this.executor.remove(job);
+            }
+        });
+        this.executor.execute(job);
+        return future;
+    }
+
+    /**
+     * Submits a job that decodes an uploaded image, applying its EXIF orientation, and
+     * scales it down to fit into a square of the specified size. Large images are decoded
+     * at a reduced resolution, see {@link ImageLoader#load(UploadedFile, int)}.
+     *
+     * @param priority the priority of the job
+     * @param file the uploaded image
+     * @param maxSize the maximum width and height of the resulting image
+     * @return a future completed with the resulting image source
+     */
+    public CompletableFuture<ImageSource> load(final Priority priority, final UploadedFile file,
+            final int maxSize) {
+        return this.submit(priority, () -> ImageProcessor.resizeToFit(
+            ImageLoader.load(file, maxSize), maxSize));
+    }
+
+    /**
+     * Creates a thread-safe model that holds a placeholder until the job completes and then
+     * switches to the resulting image, or to {@link ImageSource#INVALID} if the job fails or
+     * is cancelled. Binding a widget to the model displays the result as soon as it is ready,
+     * for example with {@link CircleProgressBarCreator#getWaitingImageSource()} as the
+     * placeholder.
+     *
+     * @param future the future of the job
+     * @param placeholder the image source displayed while the job is queued or running
+     * @return the model
+     */
+    public static SynchronizedModel<ImageSource> track(
+            final CompletableFuture<ImageSource> future, final ImageSource placeholder) {
+        final SynchronizedModel<ImageSource> model =
+            new ImageSourceModel(placeholder).asSynchronized();
+        future.whenComplete((source, error) ->
+            model.setData(error == null ? source : ImageSource.INVALID));
+        return model;
+    }
+
+    /**
+     * Returns the number of jobs waiting in the queue.
+     *
+     * @return the number of queued jobs
+     */
+    public int getQueueLength() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting jobs. Queued jobs are still completed.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * A queued job, ordered by priority and then by submission order.
+     */
+    private static final class Job<T> implements Runnable, Comparable<Job<?>> {
+        /**
+         * Priority of the job.
+         */
+        private final Priority priority;
+
+        /**
+         * Sequence number of the job.
+         */
+        private final long number;
+
+        /**
+         * Work to perform.
+         */
+        private final Callable<T> work;
+
+        /**
+         * Future to complete.
+         */
+        private final CompletableFuture<T> future;
+
+        /**
+         * Creates a job.
+         *
+         * @param priority the priority of the job
+         * @param number the sequence number of the job
+         * @param work the work to perform
+         * @param future the future to complete
+         */
+        Job(final Priority priority, final long number, final Callable<T> work,
+                final CompletableFuture<T> future) {
+            this.priority = priority;
+            this.number = number;
+            this.work = work;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            if (this.future.isDone()) {
+                return;
+            }
+            try {
+                this.future.complete(this.work.call());
+            } catch (final Throwable error) {
+                this.future.completeExceptionally(error);
+            }
+        }
+
+        @Override
+        public int compareTo(final Job<?> other) {
+            final int result = this.priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(this.number, other.number);
+        }
+    }
+}
@@ -4,24 +4,45 @@
 package com.kniazkov.widgets.images;
 
 import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegMetadataReader;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
+import com.kniazkov.widgets.common.UploadedFile;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
 import openize.heic.decoder.HeicImage;
 import openize.heic.decoder.PixelFormat;
 import openize.io.IOSeekMode;
 import openize.io.IOStream;
 
 /**
- * Utility class for loading images from byte arrays.
+ * Utility class for loading images from byte arrays, files and uploaded files.
  * Supports standard formats (via ImageIO) and HEIC format (via the Openize.HEIC library).
+ * <p>
+ * The encoded data is never copied: files are memory-mapped, and the decoders and the EXIF
+ * reader read the same buffer through lightweight streams; for JPEG images, only the header
+ * segments are parsed for metadata. When the caller needs a small image, such as a
+ * thumbnail, the loaders accepting a maximum size decode every n-th pixel only, which is
+ * far cheaper than decoding a photo at its full resolution and scaling it down.
  */
 public final class ImageLoader {
     /**
@@ -41,32 +62,65 @@ public final class ImageLoader {
      * @throws IOException if an error occurs during reading or decoding the image
      */
     public static BufferedImage load(final String type, final byte[] data) throws IOException {
-        final BufferedImage result;
+        return load(type, ByteBuffer.wrap(data), 0);
+    }
+
+    /**
+     * Loads a {@link BufferedImage} from raw byte data, decoding it at a reduced resolution
+     * if it is much larger than needed.
+     *
+     * @param type the MIME type of the image data
+     * @param data the raw byte data of the image
+     * @param maxSize the largest width and height the caller needs, or 0 for the full
+     *  resolution; see {@link #load(String, ByteBuffer, int)}
+     * @return a {@code BufferedImage} containing the decoded image
+     * @throws IOException if an error occurs during reading or decoding the image
+     */
+    public static BufferedImage load(final String type, final byte[] data, final int maxSize)
+            throws IOException {
+        return load(type, ByteBuffer.wrap(data), maxSize);
+    }
+
+    /**
+     * Loads an uploaded image. A file stored on disk is memory-mapped rather than read
+     * into memory.
+     *
+     * @param file the uploaded file
+     * @param maxSize the largest width and height the caller needs, or 0 for the full
+     *  resolution; see {@link #load(String, ByteBuffer, int)}
+     * @return a {@code BufferedImage} containing the decoded image
+     * @throws IOException if an error occurs during reading or decoding the image
+     */
+    public static BufferedImage load(final UploadedFile file, final int maxSize)
+            throws IOException {
+        return load(file.getType(), file.map(), maxSize);
+    }
+
+    /**
+     * Loads a {@link BufferedImage} from a buffer, applying the EXIF orientation.
+     * <p>
+     * If a maximum size is specified, the image is decoded with the largest subsampling
+     * that still keeps both its width and its height at least at the maximum size (or at
+     * its original size, if smaller), so the caller can then scale it down to exactly the size
+     * it needs. HEIC images are always decoded at full resolution.
+     *
+     * @param type the MIME type of the image data
+     * @param buffer the encoded image, from its position to its limit; the position of
+     *  the buffer is not changed
+     * @param maxSize the largest width and height the caller needs, or 0 for the full
+     *  resolution
+     * @return a {@code BufferedImage} containing the decoded image
+     * @throws IOException if an error occurs during reading or decoding the image
+     */
+    public static BufferedImage load(final String type, final ByteBuffer buffer,
+            final int maxSize) throws IOException {
         if (type.equals("image/heic")) {
-            final ByteArrayIOStream inputStream = new ByteArrayIOStream(data);
-            final HeicImage image = HeicImage.load(inputStream);
-            final int width = (int)image.getWidth();
-            final int height = (int)image.getHeight();
-            final int[] pixels = image.getInt32Array(PixelFormat.Argb32);
-            result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            result.setRGB(0, 0, width, height, pixels, 0, width);
-        } else {
-            final ByteArrayInputStream inputStream = new ByteArrayInputStream(data);
-            final BufferedImage image = ImageIO.read(inputStream);
-            int orientation = 1;
-            try (final ByteArrayInputStream metaIn = new ByteArrayInputStream(data)) {
-                final Metadata metadata = ImageMetadataReader.readMetadata(metaIn);
-                final ExifIFD0Directory dir = metadata.getFirstDirectoryOfType(
-                    ExifIFD0Directory.class
-                );
-                if (dir != null && dir.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
-                    orientation = dir.getInt(ExifIFD0Directory.TAG_ORIENTATION);
-                }
-            } catch (final Exception ignore) {
-            }
-            result = applyExifOrientation(image, orientation);
+            final HeicImage image = HeicImage.load(new ByteBufferIOStream(buffer.duplicate()));
+            return wrapArgb((int) image.getWidth(), (int) image.getHeight(),
+                image.getInt32Array(PixelFormat.Argb32));
         }
-        return result;
+        final BufferedImage image = decode(buffer, maxSize);
+        return applyExifOrientation(image, readOrientation(type, buffer));
     }
 
     /**
@@ -80,6 +134,23 @@ public final class ImageLoader {
      *  unsupported format
      */
     public static BufferedImage load(final File file) throws IOException {
+        return load(file, 0);
+    }
+
+    /**
+     * Loads a {@link BufferedImage} from a memory-mapped file, decoding it at a reduced
+     * resolution if it is much larger than needed.
+     * Automatically detects the MIME type based on the file extension.
+     *
+     * @param file the file to load the image from
+     * @param maxSize the largest width and height the caller needs, or 0 for the full
+     *  resolution; see {@link #load(String, ByteBuffer, int)}
+     * @return a {@code BufferedImage} containing the decoded image with preserved transparency
+     * @throws IOException if an error occurs during reading or decoding the image
+     * @throws IllegalArgumentException if the file is null, doesn't exist, or has an
+     *  unsupported format
+     */
+    public static BufferedImage load(final File file, final int maxSize) throws IOException {
         if (file == null) {
             throw new IllegalArgumentException("File cannot be null");
         }
@@ -89,7 +160,10 @@ public final class ImageLoader {
         if (!file.isFile()) {
             throw new IllegalArgumentException("Path is not a file: " + file.getPath());
         }
-        final byte[] data = Files.readAllBytes(file.toPath());
+        final ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
         final String fileName = file.getName().toLowerCase();
         final String type;
         if (fileName.endsWith(".heic") || fileName.endsWith(".heif")) {
@@ -109,7 +183,7 @@ public final class ImageLoader {
         } else {
             try {
                 final String detectedType = ImageIO.getImageReaders(
-                    ImageIO.createImageInputStream(new ByteArrayInputStream(data))
+                    new ByteBufferImageInputStream(data.duplicate())
                 ).next().getFormatName().toLowerCase();
                 if (detectedType.contains("heic") || detectedType.contains("heif")) {
                     type = "image/heic";
@@ -122,7 +196,87 @@ public final class ImageLoader {
                 );
             }
         }
-        return load(type, data);
+        return load(type, data, maxSize);
+    }
+
+    /**
+     * Decodes an image with ImageIO, subsampling it if it is much larger than needed.
+     *
+     * @param buffer the encoded image
+     * @param maxSize the largest width and height the caller needs, or 0 for the full
+     *  resolution
+     * @return the decoded image
+     * @throws IOException if the format is not supported or the image cannot be decoded
+     */
+    private static BufferedImage decode(final ByteBuffer buffer, final int maxSize)
+            throws IOException {
+        try (ImageInputStream input = new ByteBufferImageInputStream(buffer.duplicate())) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                if (maxSize > 0) {
+                    final int factor = Math.min(reader.getWidth(0), reader.getHeight(0))
+                        / maxSize;
+                    if (factor > 1) {
+                        param.setSourceSubsampling(factor, factor, 0, 0);
+                    }
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reads the EXIF orientation of an image. For JPEG images, only the EXIF segments
+     * preceding the compressed image data are read.
+     *
+     * @param type the MIME type of the image data
+     * @param buffer the encoded image
+     * @return the orientation (1-8), or 1 if the image has none
+     */
+    private static int readOrientation(final String type, final ByteBuffer buffer) {
+        try (InputStream input = new ByteBufferInputStream(buffer.duplicate())) {
+            final Metadata metadata = type.equals("image/jpeg")
+                ? JpegMetadataReader.readMetadata(input,
+                    Collections.singletonList(new ExifReader()))
+                : ImageMetadataReader.readMetadata(input);
+            final ExifIFD0Directory dir = metadata.getFirstDirectoryOfType(
+                ExifIFD0Directory.class
+            );
+            if (dir != null && dir.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
+                return dir.getInt(ExifIFD0Directory.TAG_ORIENTATION);
+            }
+        } catch (final Exception ignore) {
+        }
+        return 1;
+    }
+
+    /**
+     * Creates an ARGB image backed by an array of pixels, without copying them.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param pixels the pixels, in the ARGB format, row by row
+     * @return an image of the {@link BufferedImage#TYPE_INT_ARGB} type
+     */
+    private static BufferedImage wrapArgb(final int width, final int height,
+            final int[] pixels) {
+        final WritableRaster raster = Raster.createPackedRaster(
+            new DataBufferInt(pixels, width * height),
+            width,
+            height,
+            width,
+            new int[] {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000},
+            null
+        );
+        return new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
     }
 
     /**
@@ -191,20 +345,19 @@ public final class ImageLoader {
     }
 
     /**
-     * An in-memory {@link IOStream} implementation that wraps a byte array.
-     * Provides read-only, seekable access to the underlying data. Used to feed HEIC image data
-     * to the Openize.HEIC library.
+     * A read-only, seekable {@link IOStream} over a byte buffer, which may wrap an array or
+     * a memory-mapped file. Used to feed HEIC image data to the Openize.HEIC library.
      */
-    private static class ByteArrayIOStream implements IOStream {
+    private static class ByteBufferIOStream implements IOStream {
         /**
-         * The underlying byte array containing the data.
+         * The buffer containing the data; its position is the read position.
          */
-        private final byte[] data;
+        private final ByteBuffer data;
 
         /**
-         * The current read position in the byte array.
+         * Position of the first byte of the data in the buffer.
          */
-        private int position;
+        private final int start;
 
         /**
          * Flag indicating whether the stream has been closed.
@@ -212,126 +365,230 @@ public final class ImageLoader {
         private boolean closed;
 
         /**
-         * Creates a new stream that reads from the specified byte array.
+         * Creates a new stream that reads the specified buffer from its position to its limit.
          *
-         * @param data the byte array to be used as the data source
+         * @param data the buffer to be used as the data source
          */
-        ByteArrayIOStream(byte[] data) {
+        ByteBufferIOStream(final ByteBuffer data) {
             this.data = data;
-            this.position = 0;
+            this.start = data.position();
             this.closed = false;
         }
 
         @Override
-        public int read(byte[] dst) {
-            return read(dst, 0, dst.length);
+        public int read(final byte[] dst) {
+            return this.read(dst, 0, dst.length);
         }
 
         @Override
-        public int read(byte[] dst, int offset, int count) {
+        public int read(final byte[] dst, final int offset, final int count) {
             this.checkClosed();
             if (offset < 0 || count < 0 || offset > dst.length - count) {
                 throw new IndexOutOfBoundsException(
                     String.format("Invalid offset/count, offset: %d, count: %d, array length: %d",
                         offset, count, dst.length));
             }
-            if (this.position >= this.data.length || count == 0) {
+            if (!this.data.hasRemaining() || count == 0) {
                 return -1;
             }
-            int bytesToRead = Math.min(count, this.data.length - this.position);
-            System.arraycopy(this.data, this.position, dst, offset, bytesToRead);
-            this.position += bytesToRead;
+            final int bytesToRead = Math.min(count, this.data.remaining());
+            this.data.get(dst, offset, bytesToRead);
             return bytesToRead;
         }
 
         @Override
-        public void write(byte[] data) {
+        public void write(final byte[] data) {
             throw new UnsupportedOperationException("Write operations are not supported");
         }
 
         @Override
-        public void write(byte[] data, int offset, int count) {
+        public void write(final byte[] data, final int offset, final int count) {
             throw new UnsupportedOperationException("Write operations are not supported");
         }
 
         @Override
-        public long setPosition(long newPosition) {
+        public long setPosition(final long newPosition) {
             this.checkClosed();
             if (newPosition < 0 || newPosition > Integer.MAX_VALUE) {
                 throw new IllegalArgumentException("Position out of valid range: " + newPosition);
             }
-            int oldPosition = this.position;
-            this.position = (int) Math.min(newPosition, this.data.length);
+            final long oldPosition = this.getPosition();
+            this.moveTo(newPosition);
             return oldPosition;
         }
 
         @Override
         public long getPosition() {
             this.checkClosed();
-            return this.position;
+            return this.data.position() - this.start;
         }
 
         @Override
-        public void seek(long newPosition, IOSeekMode mode) {
+        public void seek(final long newPosition, final IOSeekMode mode) {
             this.checkClosed();
+            final long target;
             switch (mode) {
                 case BEGIN:
-                    if (newPosition < 0 || newPosition > Integer.MAX_VALUE) {
-                        throw new IllegalArgumentException(
-                            "Invalid seek position from BEGIN: " + newPosition
-                        );
-                    }
-                    this.position = (int) Math.min(newPosition, this.data.length);
+                    target = newPosition;
                     break;
                 case CURRENT:
-                    long newPosFromCurrent = this.position + newPosition;
-                    if (newPosFromCurrent < 0 || newPosFromCurrent > Integer.MAX_VALUE) {
-                        throw new IllegalArgumentException(
-                            "Invalid seek position from CURRENT: " + newPosFromCurrent
-                        );
-                    }
-                    this.position = (int) Math.max(
-                        0,
-                        Math.min(newPosFromCurrent, this.data.length)
-                    );
+                    target = this.getPosition() + newPosition;
                     break;
                 case END:
-                    long newPosFromEnd = this.data.length + newPosition;
-                    if (newPosFromEnd < 0 || newPosFromEnd > Integer.MAX_VALUE) {
-                        throw new IllegalArgumentException(
-                            "Invalid seek position from END: " + newPosFromEnd
-                        );
-                    }
-                    position = (int) Math.max(0, Math.min(newPosFromEnd, this.data.length));
+                    target = this.getLength() + newPosition;
                     break;
                 default:
                     throw new IllegalArgumentException("Unknown seek mode: " + mode);
             }
+            if (target < 0 || target > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                    "Invalid seek position from " + mode + ": " + target
+                );
+            }
+            this.moveTo(target);
         }
 
         @Override
         public long getLength() {
-            checkClosed();
-            return data.length;
+            this.checkClosed();
+            return this.data.limit() - this.start;
         }
 
         @Override
-        public void setLength(long newLength) {
+        public void setLength(final long newLength) {
             throw new UnsupportedOperationException("setLength operation is not supported");
         }
 
         @Override
         public void close() {
-            closed = true;
+            this.closed = true;
+        }
+
+        /**
+         * Moves the read position, clamping it to the end of the data.
+         *
+         * @param position the new position, relative to the start of the data
+         */
+        private void moveTo(final long position) {
+            this.data.position((int) Math.min(this.start + position, this.data.limit()));
         }
 
         /**
          * Throws an {@link IllegalStateException} if the stream has been closed.
          */
         private void checkClosed() {
-            if (closed) {
+            if (this.closed) {
                 throw new IllegalStateException("Stream is closed");
             }
         }
     }
+
+    /**
+     * An {@link ImageInputStream} over a byte buffer, letting ImageIO decoders read an array
+     * or a memory-mapped file directly, without the caching done by the standard streams.
+     */
+    private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+        /**
+         * The buffer containing the data.
+         */
+        private final ByteBuffer data;
+
+        /**
+         * Position of the first byte of the data in the buffer.
+         */
+        private final int start;
+
+        /**
+         * Creates a stream that reads the specified buffer from its position to its limit.
+         *
+         * @param data the buffer to be used as the data source
+         */
+        ByteBufferImageInputStream(final ByteBuffer data) {
+            this.data = data;
+            this.start = data.position();
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.checkClosed();
+            this.bitOffset = 0;
+            if (this.streamPos >= this.length()) {
+                return -1;
+            }
+            return this.data.get(this.start + (int) this.streamPos++) & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] dst, final int offset, final int count) throws IOException {
+            this.checkClosed();
+            this.bitOffset = 0;
+            if (count == 0) {
+                return 0;
+            }
+            final long remaining = this.length() - this.streamPos;
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int bytesToRead = (int) Math.min(count, remaining);
+            this.data.position(this.start + (int) this.streamPos);
+            this.data.get(dst, offset, bytesToRead);
+            this.streamPos += bytesToRead;
+            return bytesToRead;
+        }
+
+        @Override
+        public long length() {
+            return this.data.limit() - this.start;
+        }
+    }
+
+    /**
+     * An {@link InputStream} over a byte buffer, used to read metadata without copying
+     * the data.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        /**
+         * The buffer containing the data; its position is the read position.
+         */
+        private final ByteBuffer data;
+
+        /**
+         * Creates a stream that reads the specified buffer from its position to its limit.
+         *
+         * @param data the buffer to be used as the data source
+         */
+        ByteBufferInputStream(final ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return this.data.hasRemaining() ? this.data.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] dst, final int offset, final int count) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!this.data.hasRemaining()) {
+                return -1;
+            }
+            final int bytesToRead = Math.min(count, this.data.remaining());
+            this.data.get(dst, offset, bytesToRead);
+            return bytesToRead;
+        }
+
+        @Override
+        public long skip(final long count) {
+            final int skipped = (int) Math.max(0, Math.min(count, this.data.remaining()));
+            this.data.position(this.data.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.data.remaining();
+        }
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.Color;
+import java.awt.image.BufferedImage;
+
+/**
+ * A chain of image operations (crop, resize, recolor, encode) that avoids the intermediate
+ * copies made when the {@link ImageProcessor} methods are called one after another.
+ * <p>
+ * Cropping only narrows the view of the current image, resizing is skipped when the image
+ * already fits, and recoloring works in place on the pixel array once the pipeline holds
+ * its own copy of the image. The source image is never modified:
+ * <pre>{@code
+ * ImageSource icon = ImagePipeline.of(image)
+ *     .cropToSquare()
+ *     .resizeToFit(64)
+ *     .replaceColorIgnoreAlpha(Color.BLACK, Color.BLUE)
+ *     .toImageSource();
+ * }</pre>
+ * A pipeline is not thread-safe and is meant to be used once.
+ */
+public final class ImagePipeline {
+    /**
+     * The current image.
+     */
+    private BufferedImage image;
+
+    /**
+     * Whether the current image is an ARGB image created by this pipeline, which can be
+     * modified in place.
+     */
+    private boolean owned;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param image the source image
+     */
+    private ImagePipeline(final BufferedImage image) {
+        this.image = image;
+        this.owned = false;
+    }
+
+    /**
+     * Starts a pipeline.
+     *
+     * @param image the source image; it is not modified
+     * @return a new pipeline
+     */
+    public static ImagePipeline of(final BufferedImage image) {
+        return new ImagePipeline(image);
+    }
+
+    /**
+     * Crops the image to a rectangle. No pixels are copied.
+     *
+     * @param x the left edge of the rectangle
+     * @param y the top edge of the rectangle
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     * @return this pipeline
+     * @throws java.awt.image.RasterFormatException if the rectangle is outside the image
+     */
+    public ImagePipeline crop(final int x, final int y, final int width, final int height) {
+        this.image = this.image.getSubimage(x, y, width, height);
+        this.owned = false;
+        return this;
+    }
+
+    /**
+     * Crops the image to the largest centered square. No pixels are copied.
+     *
+     * @return this pipeline
+     */
+    public ImagePipeline cropToSquare() {
+        final int width = this.image.getWidth();
+        final int height = this.image.getHeight();
+        final int side = Math.min(width, height);
+        return this.crop((width - side) / 2, (height - side) / 2, side, side);
+    }
+
+    /**
+     * Scales the image down, preserving its aspect ratio, to fit into a square of
+     * the specified size. Does nothing if the image already fits.
+     *
+     * @param maxSize the maximum width and height of the image
+     * @return this pipeline
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     */
+    public ImagePipeline resizeToFit(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        if (this.image.getWidth() > maxSize || this.image.getHeight() > maxSize) {
+            this.image = ImageProcessor.resizeToFit(this.image, maxSize);
+            this.owned = ImageProcessor.isPlain(this.image);
+        }
+        return this;
+    }
+
+    /**
+     * Replaces all pixels of exactly the source color, including alpha, with the target color.
+     *
+     * @param sourceColor the color to replace
+     * @param targetColor the color to replace with
+     * @return this pipeline
+     * @see ImageProcessor#replaceColor(BufferedImage, Color, Color)
+     */
+    public ImagePipeline replaceColor(final Color sourceColor, final Color targetColor) {
+        ImageProcessor.forEachBand(this.own(),
+            ImageProcessor.replacingColor(sourceColor, targetColor));
+        return this;
+    }
+
+    /**
+     * Replaces all pixels of the source color, compared without alpha, with the target color,
+     * combining the alpha of both.
+     *
+     * @param sourceColor the color to replace
+     * @param targetColor the color to replace with
+     * @return this pipeline
+     * @see ImageProcessor#replaceColorIgnoreAlpha(BufferedImage, Color, Color)
+     */
+    public ImagePipeline replaceColorIgnoreAlpha(final Color sourceColor,
+            final Color targetColor) {
+        ImageProcessor.forEachBand(this.own(),
+            ImageProcessor.replacingColorIgnoreAlpha(sourceColor, targetColor));
+        return this;
+    }
+
+    /**
+     * Returns the resulting image.
+     *
+     * @return an ARGB image that does not share pixels with the source image
+     */
+    public BufferedImage toImage() {
+        return this.own();
+    }
+
+    /**
+     * Returns the resulting image as a losslessly encoded image source. If no operation has
+     * copied the pixels, the source image is encoded directly, so it must not be modified
+     * afterwards.
+     *
+     * @return the image source
+     */
+    public ImageSource toImageSource() {
+        return new BufferedImageSource(this.image);
+    }
+
+    /**
+     * Returns the resulting image as an image source that encodes opaque images to JPEG.
+     * If no operation has copied the pixels, the source image is encoded directly, so it must
+     * not be modified afterwards.
+     *
+     * @param quality JPEG quality, from 0 to 1
+     * @return the image source
+     */
+    public ImageSource toImageSource(final float quality) {
+        return new BufferedImageSource(this.image, quality);
+    }
+
+    /**
+     * Makes the current image an ARGB image owned by this pipeline, copying it if necessary.
+     *
+     * @return the current image
+     */
+    private BufferedImage own() {
+        if (!this.owned) {
+            this.image = ImageProcessor.copyAsARGB(this.image);
+            this.owned = true;
+        }
+        return this.image;
+    }
+}
@@ -5,16 +5,47 @@ package com.kniazkov.widgets.images;
 
 import com.kniazkov.widgets.common.Color;
 import org.imgscalr.Scalr;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.stream.IntStream;
 
 /**
  * A utility class providing static methods for common image processing operations
  * such as cropping and resizing. All methods work with and return {@link BufferedImage}
  * objects in the ARGB pixel format for consistency.
+ * <p>
+ * Pixel operations work directly on the {@code int[]} array backing an ARGB image rather
+ * than calling {@link BufferedImage#getRGB(int, int)} per pixel, and large images are
+ * processed in row bands in parallel on the common fork/join pool. To chain several
+ * operations without intermediate copies, use {@link ImagePipeline}.
  */
 public final class ImageProcessor {
+    /**
+     * Number of pixels below which an image is processed on the calling thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Number of pixels in a row band processed by one task.
+     */
+    private static final int BAND_SIZE = 1 << 15;
+
+    /**
+     * Operation on a range of pixels of an image.
+     */
+    @FunctionalInterface
+    interface PixelOperation {
+        /**
+         * Processes a range of pixels.
+         *
+         * @param pixels pixels of the image, in the ARGB format, row by row
+         * @param from index of the first pixel to process
+         * @param to index after the last pixel to process
+         */
+        void apply(int[] pixels, int from, int to);
+    }
     /**
      * Private constructor.
      */
@@ -88,29 +119,93 @@ public final class ImageProcessor {
 
     /**
      * Creates a copy of the given image, ensuring it uses the {@link BufferedImage#TYPE_INT_ARGB}
-     * format. All rendering hints are set for maximum quality during the conversion.
+     * format. Rows of an ARGB image are copied as arrays; other formats are converted by
+     * the color model, without any resampling, since the size does not change.
      *
      * @param src the source image to copy
      * @return an ARGB-format copy of the source image
      */
-    private static BufferedImage copyAsARGB(final BufferedImage src) {
-        final BufferedImage dst = new BufferedImage(
-            src.getWidth(),
-            src.getHeight(),
-            BufferedImage.TYPE_INT_ARGB
-        );
-        final Graphics2D g = dst.createGraphics();
-        g.setRenderingHint(
-            RenderingHints.KEY_INTERPOLATION,
-            RenderingHints.VALUE_INTERPOLATION_BICUBIC
-        );
-        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g.drawImage(src, 0, 0, null);
-        g.dispose();
+    static BufferedImage copyAsARGB(final BufferedImage src) {
+        final int width = src.getWidth();
+        final int height = src.getHeight();
+        final BufferedImage dst = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixels = getPixels(dst);
+        final Raster raster = src.getRaster();
+        if (src.getType() == BufferedImage.TYPE_INT_ARGB
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && raster.getDataBuffer() instanceof DataBufferInt) {
+            final int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+            final int stride =
+                ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            final int offset = raster.getDataBuffer().getOffset()
+                - raster.getSampleModelTranslateY() * stride
+                - raster.getSampleModelTranslateX();
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(data, offset + y * stride, pixels, y * width, width);
+            }
+        } else {
+            forEachBand(dst, (data, from, to) -> {
+                final int first = from / width;
+                final int rows = (to - from) / width;
+                src.getRGB(0, first, width, rows, data, from, width);
+            });
+        }
         return dst;
     }
 
+    /**
+     * Checks whether an image is an ARGB image whose backing array holds exactly its pixels,
+     * row by row, as images created by the {@link BufferedImage} constructor do.
+     *
+     * @param image the image
+     * @return {@code true} if the pixels can be accessed with {@link #getPixels(BufferedImage)}
+     */
+    static boolean isPlain(final BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            return false;
+        }
+        final Raster raster = image.getRaster();
+        return raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+            && ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride()
+                == image.getWidth()
+            && raster.getSampleModelTranslateX() == 0
+            && raster.getSampleModelTranslateY() == 0
+            && raster.getDataBuffer().getOffset() == 0;
+    }
+
+    /**
+     * Returns the array backing an image created by this class.
+     *
+     * @param image an image of the {@link BufferedImage#TYPE_INT_ARGB} type, created by
+     *  the {@link BufferedImage} constructor
+     * @return the pixels of the image, row by row
+     */
+    static int[] getPixels(final BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Applies an operation to all pixels of an image created by this class. Large images
+     * are split into bands of whole rows processed in parallel.
+     *
+     * @param image an image of the {@link BufferedImage#TYPE_INT_ARGB} type, created by
+     *  the {@link BufferedImage} constructor
+     * @param operation the operation
+     */
+    static void forEachBand(final BufferedImage image, final PixelOperation operation) {
+        final int[] pixels = getPixels(image);
+        final int width = image.getWidth();
+        final int total = width * image.getHeight();
+        if (total < PARALLEL_THRESHOLD) {
+            operation.apply(pixels, 0, total);
+            return;
+        }
+        final int rows = Math.max(1, BAND_SIZE / width);
+        final int band = rows * width;
+        IntStream.range(0, (total + band - 1) / band).parallel().forEach(index ->
+            operation.apply(pixels, index * band, Math.min(total, (index + 1) * band)));
+    }
+
     /**
      * Replaces all pixels of a specified source color with a target color in an image.
      * Only pixels that exactly match the source color (including alpha) will be replaced.
@@ -124,18 +219,7 @@ public final class ImageProcessor {
     public static BufferedImage replaceColor(final BufferedImage image,
             final Color sourceColor, final Color targetColor) {
         final BufferedImage result = copyAsARGB(image);
-        final int sourceRGB = sourceColor.pack();
-        final int targetRGB = targetColor.pack();
-        final int width = result.getWidth();
-        final int height = result.getHeight();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                final int pixel = result.getRGB(x, y);
-                if (pixel == sourceRGB) {
-                    result.setRGB(x, y, targetRGB);
-                }
-            }
-        }
+        forEachBand(result, replacingColor(sourceColor, targetColor));
         return result;
     }
 
@@ -151,30 +235,59 @@ public final class ImageProcessor {
     public static BufferedImage replaceColorIgnoreAlpha(final BufferedImage image,
             final Color sourceColor, final Color targetColor) {
         final BufferedImage result = copyAsARGB(image);
+        forEachBand(result, replacingColorIgnoreAlpha(sourceColor, targetColor));
+        return result;
+    }
+
+    /**
+     * Creates an operation replacing the pixels of one exact color with another color.
+     *
+     * @param sourceColor the color to replace (including alpha component)
+     * @param targetColor the color to replace with (including alpha component)
+     * @return the operation
+     */
+    static PixelOperation replacingColor(final Color sourceColor, final Color targetColor) {
+        final int sourceRGB = sourceColor.pack();
+        final int targetRGB = targetColor.pack();
+        return (pixels, from, to) -> {
+            for (int index = from; index < to; index++) {
+                if (pixels[index] == sourceRGB) {
+                    pixels[index] = targetRGB;
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates an operation replacing the pixels of one color, compared without alpha,
+     * with another color, combining the alpha of both.
+     *
+     * @param sourceColor the color to replace (alpha component is ignored during matching)
+     * @param targetColor the color to replace with
+     * @return the operation
+     */
+    static PixelOperation replacingColorIgnoreAlpha(final Color sourceColor,
+            final Color targetColor) {
         final int mask = 0x00FFFFFF;
         final int sourceRGB = sourceColor.pack() & mask;
         final int targetRGB = targetColor.pack() & mask;
         final int targetAlpha = targetColor.getAlpha();
-        final int width = result.getWidth();
-        final int height = result.getHeight();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                final int pixel = result.getRGB(x, y);
+        return (pixels, from, to) -> {
+            for (int index = from; index < to; index++) {
+                final int pixel = pixels[index];
                 if ((pixel & mask) == sourceRGB) {
                     final int origAlpha = (pixel >>> 24) & 0xFF;
                     if (origAlpha == 0) {
                         continue;
                     }
-                    final int finalAlpha = (origAlpha * targetAlpha + 127) / 255;
                     if (targetAlpha == 0) {
-                        result.setRGB(x, y, 0x00000000);
+                        pixels[index] = 0x00000000;
                     } else {
-                        int finalColor = (finalAlpha << 24) | targetRGB;
-                        result.setRGB(x, y, finalColor);
+                        final int finalAlpha = (origAlpha * targetAlpha + 127) / 255;
+                        pixels[index] = (finalAlpha << 24) | targetRGB;
                     }
                 }
             }
-        }
-        return result;
+        };
     }
 }
@@ -30,7 +30,7 @@ public interface ImageSource {
 
     /**
      * Creates an {@link ImageSource} backed by a {@link BufferedImage} object.
-     * The image data will be converted to an internal representation (e.g., a data URL).
+     * The image is encoded once and served from the {@link ImageStore} by a short URL.
      *
      * @param image the {@code BufferedImage} object to be used as the source
      * @return an {@code ImageSource} that contains the converted image data
@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.Utils;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed store of encoded images, served by the web server under
+ * {@link #URL_PREFIX}.
+ * <p>
+ * Instead of embedding an image into every update as a {@code data:} URL, an image source
+ * puts the encoded bytes here once and sends clients a short URL containing the SHA-256
+ * digest of the bytes. The same image shown to many clients is stored and transferred
+ * once per browser, and since the content behind a URL never changes, browsers may cache it.
+ * <p>
+ * The store keeps images in memory up to a size limit, evicting the least recently used
+ * ones. If a spill directory is configured, evicted images are written there and read back
+ * on request; otherwise, they are dropped. The spill directory has its own size limit: when
+ * it is exceeded, the least recently used spilled files are deleted. Image sources register a weakly referenced
+ * encoder along with their images, so as long as a source is alive, a request for its dropped
+ * image encodes the image again instead of failing, and a client that received the URL before
+ * the eviction still gets the image.
+ */
+public final class ImageStore {
+    /**
+     * Prefix of the URLs of stored images.
+     */
+    public static final String URL_PREFIX = "/images/";
+
+    /**
+     * Default maximum total size of the images kept in memory, in bytes.
+     */
+    public static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+
+    /**
+     * Default maximum total size of the images kept in the spill directory, in bytes.
+     */
+    public static final long DEFAULT_SPILL_LIMIT = 1024L * 1024 * 1024;
+
+    /**
+     * Shared instance, created on first request.
+     */
+    private static ImageStore instance = null;
+
+    /**
+     * Maximum total size of the images kept in memory, in bytes.
+     */
+    private final long memoryLimit;
+
+    /**
+     * Directory receiving evicted images, or {@code null} if evicted images are dropped.
+     */
+    private final Path spillDirectory;
+
+    /**
+     * Maximum total size of the images kept in the spill directory, in bytes.
+     */
+    private final long spillLimit;
+
+    /**
+     * Images kept in memory, keyed by digest, in access order.
+     */
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Images spilled to disk, keyed by digest, in access order.
+     */
+    private final LinkedHashMap<String, SpilledImage> spilled =
+        new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Encoders of the images of live image sources, keyed by digest.
+     */
+    private final Map<String, List<EncoderReference>> encoders = new HashMap<>();
+
+    /**
+     * Queue receiving the references to encoders of collected image sources.
+     */
+    private final ReferenceQueue<Encoder> collected = new ReferenceQueue<>();
+
+    /**
+     * Total size of the images kept in memory, in bytes.
+     */
+    private long size = 0;
+
+    /**
+     * Total size of the images spilled to disk, in bytes.
+     */
+    private long spilledSize = 0;
+
+    /**
+     * Creates a store that keeps up to {@link #DEFAULT_MEMORY_LIMIT} bytes in memory and
+     * drops evicted images.
+     */
+    public ImageStore() {
+        this(DEFAULT_MEMORY_LIMIT, null);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param memoryLimit maximum total size of the images kept in memory, in bytes
+     * @param spillDirectory directory receiving evicted images, or {@code null} to drop them
+     */
+    public ImageStore(final long memoryLimit, final Path spillDirectory) {
+        this(memoryLimit, spillDirectory, DEFAULT_SPILL_LIMIT);
+    }
+
+    /**
+     * Creates a store with a limited spill directory.
+     *
+     * @param memoryLimit maximum total size of the images kept in memory, in bytes
+     * @param spillDirectory directory receiving evicted images, or {@code null} to drop them
+     * @param spillLimit maximum total size of the images kept in the spill directory, in bytes
+     */
+    public ImageStore(final long memoryLimit, final Path spillDirectory, final long spillLimit) {
+        this.memoryLimit = memoryLimit;
+        this.spillDirectory = spillDirectory;
+        this.spillLimit = spillLimit;
+    }
+
+    /**
+     * Returns the shared store, which the web server uses to serve images.
+     *
+     * @return the shared store
+     */
+    public static synchronized ImageStore getInstance() {
+        if (instance == null) {
+            instance = new ImageStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the shared store, for example to configure its memory limit or spill directory.
+     * Should be called before the server starts.
+     *
+     * @param store the new shared store
+     */
+    public static synchronized void setInstance(final ImageStore store) {
+        instance = store;
+    }
+
+    /**
+     * Puts an encoded image into the store.
+     *
+     * @param type the MIME type of the image, such as "image/png"
+     * @param data the encoded image; must not be modified afterwards
+     * @return the URL of the image
+     */
+    public String put(final String type, final byte[] data) {
+        return this.put(type, data, null);
+    }
+
+    /**
+     * Puts an encoded image into the store along with an encoder that can re-create it after
+     * it has been dropped. The encoder is weakly referenced: the image source owning it must
+     * keep a strong reference as long as the image may be requested.
+     *
+     * @param type the MIME type of the image, such as "image/png"
+     * @param data the encoded image; must not be modified afterwards
+     * @param encoder the encoder producing the same bytes again, or {@code null}
+     * @return the URL of the image
+     */
+    String put(final String type, final byte[] data, final Encoder encoder) {
+        final String digest = getDigest(data);
+        final List<Map.Entry<String, Image>> evicted;
+        synchronized (this) {
+            if (this.images.get(digest) == null) {
+                this.images.put(digest, new Image(type, data));
+                this.size += data.length;
+            }
+            if (encoder != null) {
+                this.register(digest, encoder);
+            }
+            evicted = this.evict();
+        }
+        this.spill(evicted);
+        return URL_PREFIX + digest;
+    }
+
+    /**
+     * Checks whether an image can be served, from memory or from disk.
+     *
+     * @param url the URL returned by {@link #put(String, byte[])}
+     * @return {@code true} if the image is available
+     */
+    public synchronized boolean contains(final String url) {
+        final String digest = getDigestFromUrl(url);
+        return digest != null
+            && (this.images.containsKey(digest) || this.spilled.containsKey(digest));
+    }
+
+    /**
+     * Returns a stored image. An image spilled to disk is read back into memory; a dropped
+     * image, or one whose spilled file has been deleted, is encoded again if its image source
+     * is still alive.
+     *
+     * @param url the URL of the image, or the path of the HTTP request
+     * @return the image, or {@code null} if the store does not contain it
+     */
+    public Image get(final String url) {
+        final String digest = getDigestFromUrl(url);
+        if (digest == null) {
+            return null;
+        }
+        final String type;
+        synchronized (this) {
+            final Image image = this.images.get(digest);
+            if (image != null) {
+                return image;
+            }
+            final SpilledImage spilledImage = this.spilled.get(digest);
+            type = spilledImage == null ? null : spilledImage.type;
+        }
+        if (type == null) {
+            return this.encode(digest);
+        }
+        final byte[] data;
+        try {
+            data = Files.readAllBytes(this.spillDirectory.resolve(digest));
+        } catch (final IOException exception) {
+            synchronized (this) {
+                final SpilledImage removed = this.spilled.remove(digest);
+                if (removed != null) {
+                    this.spilledSize -= removed.size;
+                }
+            }
+            return this.encode(digest);
+        }
+        this.put(type, data);
+        return new Image(type, data);
+    }
+
+    /**
+     * Returns the total size of the images kept in memory.
+     *
+     * @return the size, in bytes
+     */
+    public synchronized long getMemorySize() {
+        return this.size;
+    }
+
+    /**
+     * Registers the encoder of an image, unless it is already registered. Also forgets
+     * the encoders of collected image sources.
+     *
+     * @param digest the digest of the image
+     * @param encoder the encoder
+     */
+    private void register(final String digest, final Encoder encoder) {
+        EncoderReference reference = (EncoderReference) this.collected.poll();
+        while (reference != null) {
+            final List<EncoderReference> list = this.encoders.get(reference.digest);
+            if (list != null && list.remove(reference) && list.isEmpty()) {
+                this.encoders.remove(reference.digest);
+            }
+            reference = (EncoderReference) this.collected.poll();
+        }
+        final List<EncoderReference> list =
+            this.encoders.computeIfAbsent(digest, key -> new ArrayList<>(1));
+        for (final EncoderReference existing : list) {
+            if (existing.get() == encoder) {
+                return;
+            }
+        }
+        list.add(new EncoderReference(digest, encoder, this.collected));
+    }
+
+    /**
+     * Re-creates a dropped image with the encoder of a live image source and puts it into
+     * the store again.
+     *
+     * @param digest the digest of the image
+     * @return the image, or {@code null} if no live image source can re-create it
+     */
+    private Image encode(final String digest) {
+        final List<Encoder> candidates = new ArrayList<>();
+        synchronized (this) {
+            final List<EncoderReference> list = this.encoders.get(digest);
+            if (list != null) {
+                for (final EncoderReference reference : list) {
+                    final Encoder encoder = reference.get();
+                    if (encoder != null) {
+                        candidates.add(encoder);
+                    }
+                }
+            }
+        }
+        for (final Encoder encoder : candidates) {
+            final Image image = encoder.encode();
+            if (image != null && getDigest(image.data).equals(digest)) {
+                this.put(image.type, image.data);
+                return image;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the least recently used images from memory until the total size fits the limit.
+     * The most recently used image is always kept.
+     *
+     * @return the removed images
+     */
+    private List<Map.Entry<String, Image>> evict() {
+        final List<Map.Entry<String, Image>> evicted = new ArrayList<>();
+        final Iterator<Map.Entry<String, Image>> iterator = this.images.entrySet().iterator();
+        while (this.size > this.memoryLimit && this.images.size() > 1) {
+            final Map.Entry<String, Image> entry = iterator.next();
+            iterator.remove();
+            this.size -= entry.getValue().data.length;
+            evicted.add(entry);
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the total size of the images spilled to disk.
+     *
+     * @return the size, in bytes
+     */
+    public synchronized long getSpilledSize() {
+        return this.spilledSize;
+    }
+
+    /**
+     * Writes evicted images to the spill directory, if any, then deletes the least recently
+     * used spilled files until the directory fits its limit.
+     *
+     * @param evicted the evicted images
+     */
+    private void spill(final List<Map.Entry<String, Image>> evicted) {
+        if (this.spillDirectory == null || evicted.isEmpty()) {
+            return;
+        }
+        for (final Map.Entry<String, Image> entry : evicted) {
+            final String digest = entry.getKey();
+            final Path file = this.spillDirectory.resolve(digest);
+            try {
+                if (!Files.exists(file)) {
+                    final Path temporary = Files.createTempFile(this.spillDirectory, digest,
+                        ".tmp");
+                    Files.write(temporary, entry.getValue().data);
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                }
+                final SpilledImage image =
+                    new SpilledImage(entry.getValue().type, entry.getValue().data.length);
+                synchronized (this) {
+                    final SpilledImage previous = this.spilled.put(digest, image);
+                    this.spilledSize += image.size - (previous == null ? 0 : previous.size);
+                }
+            } catch (final IOException ignored) {
+            }
+        }
+        final List<String> deleted = new ArrayList<>();
+        synchronized (this) {
+            final Iterator<Map.Entry<String, SpilledImage>> iterator =
+                this.spilled.entrySet().iterator();
+            while (this.spilledSize > this.spillLimit && iterator.hasNext()) {
+                final Map.Entry<String, SpilledImage> entry = iterator.next();
+                iterator.remove();
+                this.spilledSize -= entry.getValue().size;
+                deleted.add(entry.getKey());
+            }
+        }
+        for (final String digest : deleted) {
+            try {
+                Files.deleteIfExists(this.spillDirectory.resolve(digest));
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Computes the SHA-256 digest of data.
+     *
+     * @param data the data
+     * @return the digest as a hexadecimal string
+     */
+    private static String getDigest(final byte[] data) {
+        try {
+            return Utils.toHexString(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Extracts the digest from the URL of an image.
+     *
+     * @param url the URL
+     * @return the digest, or {@code null} if the URL does not refer to a stored image
+     */
+    private static String getDigestFromUrl(final String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return null;
+        }
+        final String digest = url.substring(URL_PREFIX.length());
+        if (digest.length() != 64) {
+            return null;
+        }
+        for (int index = 0; index < digest.length(); index++) {
+            final char ch = digest.charAt(index);
+            if ((ch < '0' || ch > '9') && (ch < 'a' || ch > 'f')) {
+                return null;
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Re-creates an encoded image that the store has dropped.
+     */
+    interface Encoder {
+        /**
+         * Encodes the image again.
+         *
+         * @return the encoded image, or {@code null} if it cannot be encoded
+         */
+        Image encode();
+    }
+
+    /**
+     * Weak reference to the encoder of an image, remembering the digest of the image.
+     */
+    private static final class EncoderReference extends WeakReference<Encoder> {
+        /**
+         * The digest of the image.
+         */
+        private final String digest;
+
+        /**
+         * Creates a reference.
+         *
+         * @param digest the digest of the image
+         * @param encoder the encoder
+         * @param queue the queue receiving the reference once the encoder is collected
+         */
+        EncoderReference(final String digest, final Encoder encoder,
+                final ReferenceQueue<Encoder> queue) {
+            super(encoder, queue);
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * An image spilled to disk.
+     */
+    private static final class SpilledImage {
+        /**
+         * MIME type of the image.
+         */
+        private final String type;
+
+        /**
+         * Size of the spilled file, in bytes.
+         */
+        private final long size;
+
+        /**
+         * Creates a description of a spilled image.
+         *
+         * @param type the MIME type of the image
+         * @param size the size of the spilled file, in bytes
+         */
+        SpilledImage(final String type, final long size) {
+            this.type = type;
+            this.size = size;
+        }
+    }
+
+    /**
+     * An encoded image.
+     */
+    public static final class Image {
+        /**
+         * MIME type of the image.
+         */
+        private final String type;
+
+        /**
+         * Encoded image.
+         */
+        private final byte[] data;
+
+        /**
+         * Creates an image.
+         *
+         * @param type the MIME type of the image
+         * @param data the encoded image
+         */
+        Image(final String type, final byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        /**
+         * Returns the MIME type of the image.
+         *
+         * @return the MIME type
+         */
+        public String getType() {
+            return this.type;
+        }
+
+        /**
+         * Returns the encoded image. The array is shared and must not be modified.
+         *
+         * @return the encoded image
+         */
+        public byte[] getData() {
+            return this.data;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.UploadedFile;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Several encoded sizes of the same image, such as a thumbnail, a screen-sized copy and the
+ * original, so that each client receives no more pixels than it can display.
+ * <p>
+ * Variants are generated once per image by {@link #create(ImageJobs, ImageJobs.Priority,
+ * BufferedImage, List)}: the sizes are resized and encoded in parallel on the image job pool.
+ * Only the encoded bytes of the variants are kept; the decoded pixels are released as soon as
+ * a variant is encoded. Variants of uploaded files are also cached by the SHA-256 digest of
+ * the file, up to a total encoded size, so uploading the same photo again costs nothing.
+ * An image widget then calls {@link #select(int, boolean)} to pick the variant that fits its
+ * size and the client device.
+ */
+public final class ImageVariants {
+    /**
+     * A variant size and encoding.
+     */
+    public static final class Size {
+        /**
+         * Small preview for lists and galleries.
+         */
+        public static final Size THUMBNAIL = new Size("thumbnail", 256, 0.8f);
+
+        /**
+         * Copy that fills a typical screen.
+         */
+        public static final Size SCREEN = new Size("screen", 1280, 0.85f);
+
+        /**
+         * The image at its full resolution.
+         */
+        public static final Size ORIGINAL = new Size("original", 0, 0.92f);
+
+        /**
+         * Name of the variant.
+         */
+        private final String name;
+
+        /**
+         * Maximum width and height of the variant, or 0 to keep the original size.
+         */
+        private final int maxSize;
+
+        /**
+         * JPEG quality of the variant, or a negative value for lossless PNG encoding.
+         */
+        private final float quality;
+
+        /**
+         * Creates a variant size.
+         *
+         * @param name the name of the variant
+         * @param maxSize the maximum width and height of the variant, or 0 to keep
+         *  the original size
+         * @param quality JPEG quality, from 0 to 1, or a negative value for lossless
+         *  PNG encoding; images with transparent pixels are always encoded to PNG
+         * @throws IllegalArgumentException if the size is negative or the quality exceeds 1
+         */
+        public Size(final String name, final int maxSize, final float quality) {
+            if (maxSize < 0) {
+                throw new IllegalArgumentException("The size must not be negative");
+            }
+            if (quality > 1) {
+                throw new IllegalArgumentException("The quality must not exceed 1");
+            }
+            this.name = name;
+            this.maxSize = maxSize;
+            this.quality = quality;
+        }
+
+        /**
+         * Returns the name of the variant.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the maximum width and height of the variant.
+         *
+         * @return the size in pixels, or 0 if the variant keeps the original size
+         */
+        public int getMaxSize() {
+            return this.maxSize;
+        }
+
+        /**
+         * Returns the JPEG quality of the variant.
+         *
+         * @return the quality, or a negative value for lossless encoding
+         */
+        public float getQuality() {
+            return this.quality;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ':' + this.maxSize + ':' + this.quality;
+        }
+    }
+
+    /**
+     * Sizes generated by default. The original size is not included, so uploaded photos are
+     * decoded at a reduced resolution; pass {@link Size#ORIGINAL} explicitly to keep it.
+     */
+    public static final List<Size> DEFAULT_SIZES = Collections.unmodifiableList(
+        Arrays.asList(Size.THUMBNAIL, Size.SCREEN));
+
+    /**
+     * Widget sizes are multiplied by this factor when selecting a variant, so that images
+     * stay sharp on high-density screens.
+     */
+    public static final int PIXEL_DENSITY = 2;
+
+    /**
+     * Maximum total encoded size of the cached variant sets of uploaded files, in bytes.
+     */
+    private static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Variant sets of uploaded files, keyed by file digest and sizes, in access order.
+     */
+    private static final Map<String, CompletableFuture<ImageVariants>> CACHE =
+        new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Variants with their sizes, ordered from the smallest to the largest.
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Whether at least one variant is reduced rather than keeping the original size.
+     */
+    private final boolean reduced;
+
+    /**
+     * Total size of the encoded variants, in bytes.
+     */
+    private final long encodedSize;
+
+    /**
+     * Creates a set of variants.
+     *
+     * @param entries the variants, ordered from the smallest to the largest
+     */
+    private ImageVariants(final List<Entry> entries) {
+        this.entries = entries;
+        boolean reduced = false;
+        long encodedSize = 0;
+        for (final Entry entry : entries) {
+            reduced |= entry.size.maxSize != 0;
+            encodedSize += entry.source.getImage().getData().length;
+        }
+        this.reduced = reduced;
+        this.encodedSize = encodedSize;
+    }
+
+    /**
+     * Generates the variants of an image in parallel. Sizes larger than the image are
+     * generated at the size of the image.
+     *
+     * @param jobs the job pool performing the work
+     * @param priority the priority of the jobs
+     * @param image the source image
+     * @param sizes the sizes to generate; must not be empty
+     * @return a future completed with the variants
+     * @throws IllegalArgumentException if no sizes are specified
+     */
+    public static CompletableFuture<ImageVariants> create(final ImageJobs jobs,
+            final ImageJobs.Priority priority, final BufferedImage image,
+            final List<Size> sizes) {
+        if (sizes.isEmpty()) {
+            throw new IllegalArgumentException("No variant sizes specified");
+        }
+        final List<CompletableFuture<EncodedImageSource>> futures = new ArrayList<>();
+        for (final Size size : sizes) {
+            futures.add(jobs.execute(priority, () -> EncodedImageSource.encode(
+                size.maxSize == 0 ? image : ImageProcessor.resizeToFit(image, size.maxSize),
+                size.quality)));
+        }
+        final CompletableFuture<ImageVariants> result =
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    final List<Entry> entries = new ArrayList<>();
+                    for (int index = 0; index < sizes.size(); index++) {
+                        entries.add(new Entry(sizes.get(index), futures.get(index).join()));
+                    }
+                    entries.sort((first, second) ->
+                        Integer.compare(first.getLongSide(), second.getLongSide()));
+                    return new ImageVariants(Collections.unmodifiableList(entries));
+                });
+        result.whenComplete((variants, error) -> {
+            if (result.isCancelled()) {
+                for (final CompletableFuture<EncodedImageSource> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Decodes an uploaded image, applying its EXIF orientation, and generates its variants.
+     * Unless one of the variants keeps the original size, the image is decoded at a reduced
+     * resolution that still covers the largest variant. The result is cached: the variants
+     * of a file with the same content and sizes are generated only once, as long as the total
+     * encoded size of the cache does not force them out.
+     *
+     * @param jobs the job pool performing the work
+     * @param priority the priority of the jobs
+     * @param file the uploaded image
+     * @param sizes the sizes to generate; must not be empty
+     * @return a future completed with the variants
+     * @throws IOException if the file cannot be read
+     */
+    public static CompletableFuture<ImageVariants> load(final ImageJobs jobs,
+            final ImageJobs.Priority priority, final UploadedFile file,
+            final List<Size> sizes) throws IOException {
+        final String key = file.getSha256() + sizes;
+        CompletableFuture<ImageVariants> future;
+        synchronized (CACHE) {
+            future = CACHE.get(key);
+            if (future == null) {
+                final int maxSize = getDecodingSize(sizes);
+                future = jobs.execute(priority, () -> ImageLoader.load(file, maxSize))
+                    .thenCompose(image -> create(jobs, priority, image, sizes));
+                CACHE.put(key, future);
+            }
+        }
+        final CompletableFuture<ImageVariants> cached = future;
+        cached.whenComplete((variants, error) -> {
+            if (error != null) {
+                synchronized (CACHE) {
+                    CACHE.remove(key, cached);
+                }
+            } else {
+                trimCache(MAX_CACHED_BYTES);
+            }
+        });
+        return cached;
+    }
+
+    /**
+     * Removes the least recently used variant sets from the cache until the total encoded size
+     * of the generated sets fits the limit. Sets still being generated are neither counted
+     * nor removed, and the most recently used set is always kept.
+     *
+     * @param limit the maximum total size, in bytes
+     */
+    static void trimCache(final long limit) {
+        synchronized (CACHE) {
+            long total = 0;
+            for (final CompletableFuture<ImageVariants> future : CACHE.values()) {
+                total += getEncodedSize(future);
+            }
+            final Iterator<CompletableFuture<ImageVariants>> iterator =
+                CACHE.values().iterator();
+            int unvisited = CACHE.size();
+            while (total > limit && unvisited > 1) {
+                final long size = getEncodedSize(iterator.next());
+                unvisited--;
+                if (size > 0) {
+                    iterator.remove();
+                    total -= size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the encoded size of a cached variant set.
+     *
+     * @param future the future of the set
+     * @return the size, in bytes, or 0 if the set is still being generated or has failed
+     */
+    private static long getEncodedSize(final CompletableFuture<ImageVariants> future) {
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return 0;
+        }
+        return future.join().encodedSize;
+    }
+
+    /**
+     * Returns the resolution needed to generate variants.
+     *
+     * @param sizes the sizes of the variants
+     * @return the largest size, or 0 if a variant keeps the original size
+     */
+    private static int getDecodingSize(final List<Size> sizes) {
+        int result = 0;
+        for (final Size size : sizes) {
+            if (size.maxSize == 0) {
+                return 0;
+            }
+            result = Math.max(result, size.maxSize);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a variant by its name.
+     *
+     * @param name the name of the variant
+     * @return the variant, or {@code null} if there is no variant with this name
+     */
+    public ImageSource get(final String name) {
+        for (final Entry entry : this.entries) {
+            if (entry.size.name.equals(name)) {
+                return entry.source;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the largest variant.
+     *
+     * @return the variant with the highest resolution
+     */
+    public ImageSource getLargest() {
+        return this.entries.get(this.entries.size() - 1).source;
+    }
+
+    /**
+     * Selects the variant to send to a client.
+     * <p>
+     * If the displayed size is known, this is the smallest variant that covers it on
+     * a high-density screen, see {@link #PIXEL_DENSITY}. Otherwise, desktop clients receive
+     * the largest variant. Mobile clients never receive a variant that keeps the original
+     * size when a reduced one exists, since phone screens cannot show those pixels anyway.
+     *
+     * @param pixels the displayed width or height of the image, in pixels, or 0 if unknown
+     * @param mobile whether the client is a mobile device
+     * @return the selected variant
+     */
+    public ImageSource select(final int pixels, final boolean mobile) {
+        final boolean skipOriginal = mobile && this.reduced;
+        ImageSource selected = null;
+        for (final Entry entry : this.entries) {
+            if (skipOriginal && entry.size.maxSize == 0) {
+                continue;
+            }
+            selected = entry.source;
+            if (pixels > 0 && entry.getLongSide() >= pixels * PIXEL_DENSITY) {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * A generated variant.
+     */
+    private static final class Entry {
+        /**
+         * Size and encoding of the variant.
+         */
+        private final Size size;
+
+        /**
+         * The variant.
+         */
+        private final EncodedImageSource source;
+
+        /**
+         * Creates a variant.
+         *
+         * @param size the size and encoding of the variant
+         * @param source the variant
+         */
+        Entry(final Size size, final EncodedImageSource source) {
+            this.size = size;
+            this.source = source;
+        }
+
+        /**
+         * Returns the larger dimension of the variant.
+         *
+         * @return the width or the height, whichever is larger, in pixels
+         */
+        int getLongSide() {
+            return Math.max(this.source.getWidth(), this.source.getHeight());
+        }
+    }
+}
@@ -4,12 +4,28 @@
 package com.kniazkov.widgets.images;
 
 import com.kniazkov.widgets.common.Color;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An {@link ImageSource} implementation that generates a monochromatic (single-color) image
  * as an SVG rectangle.
+ * <p>
+ * Such images are usually placeholders and backgrounds that are created over and over with
+ * the same few colors and sizes; {@link #of(Color, int, int)} returns a shared instance for
+ * each combination, so that its data URL is encoded only once.
  */
 public class MonochromaticImageSource extends SvgImageSource {
+    /**
+     * Maximum number of shared instances. Once reached, new combinations are no longer cached.
+     */
+    private static final int MAX_CACHED = 256;
+
+    /**
+     * Shared instances, keyed by color and size.
+     */
+    private static final Map<String, MonochromaticImageSource> CACHE = new ConcurrentHashMap<>();
+
     /**
      * The fill color of the generated image.
      */
@@ -38,6 +54,30 @@ public class MonochromaticImageSource extends SvgImageSource {
         this.height = height;
     }
 
+    /**
+     * Returns a shared monochromatic image source with the specified color and size.
+     *
+     * @param color the fill color of the image
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @return an image source, the same for equal arguments
+     */
+    public static MonochromaticImageSource of(final Color color, final int width,
+            final int height) {
+        final String key = color.toString() + ' ' + width + 'x' + height;
+        MonochromaticImageSource source = CACHE.get(key);
+        if (source == null) {
+            source = new MonochromaticImageSource(color, width, height);
+            if (CACHE.size() < MAX_CACHED) {
+                final MonochromaticImageSource existing = CACHE.putIfAbsent(key, source);
+                if (existing != null) {
+                    source = existing;
+                }
+            }
+        }
+        return source;
+    }
+
     /**
      * Builds the raw SVG markup for the monochromatic image.
      *
@@ -45,13 +85,9 @@ public class MonochromaticImageSource extends SvgImageSource {
      */
     @Override
     protected String getSvg() {
-        return String.format(
-                "<svg xmlns='http://www.w3.org/2000/svg' width='%d' height='%d'>" +
-                        "<rect width='100%%' height='100%%' fill='%s'/>" +
-                        "</svg>",
-                this.width,
-                this.height,
-                this.color.toString()
-        );
+        return "<svg xmlns='http://www.w3.org/2000/svg' width='" + this.width
+                + "' height='" + this.height + "'>"
+                + "<rect width='100%' height='100%' fill='" + this.color.toString() + "'/>"
+                + "</svg>";
     }
 }
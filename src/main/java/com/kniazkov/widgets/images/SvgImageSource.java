@@ -3,15 +3,22 @@
  */
 package com.kniazkov.widgets.images;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
 /**
  * An abstract {@link ImageSource} implementation that represents an SVG image.
  * Subclasses provide raw SVG markup, while this class converts it into a data URL.
+ * <p>
+ * Image sources are immutable: the markup is built and encoded once, on first use, and the
+ * data URL is then reused every time the image is sent to a client. Subclasses must
+ * therefore return the same markup from every call of {@link #getSvg()}.
  */
 public abstract class SvgImageSource implements ImageSource {
+    /**
+     * Hexadecimal digits used for percent-encoding.
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * An empty SVG image source containing a valid SVG document with no visible content.
      */
@@ -27,6 +34,11 @@ public abstract class SvgImageSource implements ImageSource {
         }
     };
 
+    /**
+     * The encoded data URL, built on first use.
+     */
+    private volatile String dataUrl = null;
+
     /**
      * Returns the raw SVG markup for this image.
      *
@@ -41,13 +53,53 @@ public abstract class SvgImageSource implements ImageSource {
      */
     @Override
     public String toString() {
-        try {
-            return "data:image/svg+xml," + URLEncoder.encode(
-                    getSvg(),
-                    StandardCharsets.UTF_8.name()
-            ).replaceAll("\\+", "%20");
-        } catch (final UnsupportedEncodingException ignored) {
-            return "";
+        String result = this.dataUrl;
+        if (result == null) {
+            result = "data:image/svg+xml," + encode(this.getSvg());
+            this.dataUrl = result;
         }
+        return result;
+    }
+
+    /**
+     * Percent-encodes SVG markup for a data URL. Unlike form encoding, only the characters
+     * that are unsafe in a URL are encoded, so most of the markup stays as it is: spaces,
+     * quotes, angle brackets, {@code %}, {@code #}, control and non-ASCII characters
+     * (as UTF-8 bytes).
+     *
+     * @param svg SVG markup
+     * @return encoded markup
+     */
+    static String encode(final String svg) {
+        final StringBuilder builder = new StringBuilder(svg.length() + svg.length() / 4);
+        for (int index = 0; index < svg.length(); index++) {
+            final char ch = svg.charAt(index);
+            if (ch < 0x80) {
+                if (ch <= ' ' || ch == 0x7F || "\"#%<>[\\]^`{|}".indexOf(ch) >= 0) {
+                    appendByte(builder, ch);
+                } else {
+                    builder.append(ch);
+                }
+            } else {
+                final int end = Character.isHighSurrogate(ch) && index + 1 < svg.length()
+                    ? index + 2 : index + 1;
+                for (final byte value
+                        : svg.substring(index, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendByte(builder, value & 0xFF);
+                }
+                index = end - 1;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends a percent-encoded byte.
+     *
+     * @param builder the builder
+     * @param value the byte, from 0 to 255
+     */
+    private static void appendByte(final StringBuilder builder, final int value) {
+        builder.append('%').append(HEX_DIGITS[value >> 4]).append(HEX_DIGITS[value & 0xF]);
     }
 }
@@ -64,4 +64,13 @@ public final class Binding<T> {
             this.listener.accept(model.getData());
         }
     }
+
+    /**
+     * Detaches the listener from the currently bound model. After this call the listener no
+     * longer receives updates, regardless of when it is garbage-collected. The binding keeps
+     * a reference to the model, so {@link #setModel(Model)} can still attach it to another one.
+     */
+    public void unbind() {
+        this.model.removeListener(this.listener);
+    }
 }
@@ -24,6 +24,11 @@ import com.kniazkov.widgets.common.Listener;
  * or components locally override values without breaking linkage for other dependents still
  * observing the base.
  * <p>
+ * A cascading model subscribes to the model it delegates to only while it has listeners of its
+ * own. Once the last listener is removed (for example, when the widget that owns the cascade is
+ * unbound), the cascade detaches from the shared base immediately instead of waiting for the
+ * garbage collector, so shared style models do not keep notifying dead views.
+ * <p>
  * Like its superclass {@link SingleThreadModel}, this class is <strong>not thread-safe</strong>
  * and should be used only from a single logical thread or event loop.
  *
@@ -45,6 +50,11 @@ public final class CascadingModel<T> extends SingleThreadModel<T> implements Lis
      */
     private boolean flag;
 
+    /**
+     * Whether this model is currently registered as a listener of {@link #model}.
+     */
+    private boolean attached;
+
     /**
      * Creates a new cascading model that initially delegates all operations
      * to the specified base model.
@@ -54,7 +64,7 @@ public final class CascadingModel<T> extends SingleThreadModel<T> implements Lis
     public CascadingModel(final Model<T> base) {
         this.model = base;
         this.flag = false;
-        base.addListener(this);
+        this.attached = false;
     }
 
     @Override
@@ -72,14 +82,36 @@ public final class CascadingModel<T> extends SingleThreadModel<T> implements Lis
         if (this.flag) {
             return this.model.setData(data);
         }
-        this.model.removeListener(this);
+        if (this.attached) {
+            this.model.removeListener(this);
+        }
         this.model = this.model.deriveWithData(data);
-        this.model.addListener(this);
+        if (this.attached) {
+            this.model.addListener(this);
+        }
         this.notifyListeners(data);
         this.flag = true;
         return true;
     }
 
+    @Override
+    public void addListener(final Listener<T> listener) {
+        super.addListener(listener);
+        if (!this.attached) {
+            this.model.addListener(this);
+            this.attached = true;
+        }
+    }
+
+    @Override
+    public void removeListener(final Listener<T> listener) {
+        super.removeListener(listener);
+        if (this.attached && !this.hasListeners()) {
+            this.model.removeListener(this);
+            this.attached = false;
+        }
+    }
+
     @Override
     public Model<T> deriveWithData(final T data) {
         return this.model.deriveWithData(data);
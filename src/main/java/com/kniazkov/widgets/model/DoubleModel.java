@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.model;
+
+import com.kniazkov.widgets.common.DoubleListener;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A real-number model with primitive {@code double} storage.
+ * <p>
+ * Unlike {@link RealNumberModel}, this model keeps its value unboxed and delivers it to
+ * {@link DoubleListener primitive listeners} without allocating {@link Double} wrappers.
+ * It is intended for progress values, measurements and other numbers that change at a high rate.
+ * Values are compared by their bit patterns, exactly like {@link Double#equals(Object)}, so
+ * {@code NaN} equals itself and {@code 0.0} differs from {@code -0.0}.
+ * <p>
+ * The model is still a regular {@link Model Model&lt;Double&gt;}, so it can be bound to widgets,
+ * wrapped by adapters such as {@link RealToStringModel}, or made thread-safe with
+ * {@link #asSynchronized()}. A boxed value is produced only when the generic API is used:
+ * by {@link #getData()} or when at least one generic listener is registered.
+ * Since a primitive cannot be {@code null}, {@link #setData(Object) setData(null)} is rejected
+ * and {@link #deriveWithData(Object) deriveWithData(null)} starts from zero.
+ * <p>
+ * An optional {@link ValidatedRealNumberModel.Criterion} makes the model behave like
+ * {@link ValidatedRealNumberModel}.
+ */
+public final class DoubleModel extends SingleThreadModel<Double> {
+    /**
+     * The current value.
+     */
+    private double value;
+
+    /**
+     * The validation rule, or {@code null} if every value is valid.
+     */
+    private final ValidatedRealNumberModel.Criterion criterion;
+
+    /**
+     * Weakly referenced registry of primitive listeners.
+     */
+    private final Map<DoubleListener, Object> doubleListeners = new WeakHashMap<>();
+
+    /**
+     * Creates a new real-number model initialized with {@code 0.0}.
+     */
+    public DoubleModel() {
+        this(0.0, null);
+    }
+
+    /**
+     * Creates a new real-number model initialized with the specified value.
+     *
+     * @param value the initial value
+     */
+    public DoubleModel(final double value) {
+        this(value, null);
+    }
+
+    /**
+     * Creates a new validated real-number model initialized with the specified value.
+     *
+     * @param value the initial value
+     * @param criterion the validation rule, or {@code null} to accept every value
+     */
+    public DoubleModel(final double value, final ValidatedRealNumberModel.Criterion criterion) {
+        this.value = value;
+        this.criterion = criterion;
+    }
+
+    @Override
+    public boolean isValid() {
+        return this.criterion == null || this.criterion.isValid(this.value);
+    }
+
+    @Override
+    public Double getData() {
+        return this.value;
+    }
+
+    @Override
+    public boolean setData(final Double data) {
+        return data != null && this.setDouble(data);
+    }
+
+    /**
+     * Returns the current value without boxing.
+     *
+     * @return the current value
+     */
+    public double getDouble() {
+        return this.value;
+    }
+
+    /**
+     * Updates the value if it differs from the current one and notifies all listeners.
+     *
+     * @param value the new value
+     * @return {@code true} if the value was changed, {@code false} otherwise
+     */
+    public boolean setDouble(final double value) {
+        if (Double.doubleToLongBits(this.value) == Double.doubleToLongBits(value)) {
+            return false;
+        }
+        this.value = value;
+        this.notifyDoubleListeners(value);
+        return true;
+    }
+
+    /**
+     * Adds the specified delta to the current value.
+     *
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public double add(final double delta) {
+        this.setDouble(this.value + delta);
+        return this.value;
+    }
+
+    /**
+     * Registers a primitive listener that will be notified whenever the value changes.
+     *
+     * @param listener the listener to register
+     */
+    public void addDoubleListener(final DoubleListener listener) {
+        this.doubleListeners.put(listener, Boolean.TRUE);
+    }
+
+    /**
+     * Unregisters a previously added primitive listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeDoubleListener(final DoubleListener listener) {
+        this.doubleListeners.remove(listener);
+    }
+
+    @Override
+    public int getListenerCount() {
+        return super.getListenerCount() + this.doubleListeners.size();
+    }
+
+    @Override
+    public void notifyListeners() {
+        this.notifyDoubleListeners(this.value);
+    }
+
+    @Override
+    public Model<Double> deriveWithData(final Double data) {
+        return new DoubleModel(data != null ? data : 0.0, this.criterion);
+    }
+
+    /**
+     * Notifies primitive listeners first, then boxes the value once for generic listeners,
+     * if there are any.
+     *
+     * @param data the value to pass to listeners
+     */
+    private void notifyDoubleListeners(final double data) {
+        for (final DoubleListener listener : this.doubleListeners.keySet()) {
+            listener.accept(data);
+        }
+        if (this.hasListeners()) {
+            this.notifyListeners(Double.valueOf(data));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.model;
+
+import com.kniazkov.widgets.common.IntListener;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An integer model with primitive {@code int} storage.
+ * <p>
+ * Unlike {@link IntegerModel}, this model keeps its value unboxed, compares values with
+ * {@code ==} and delivers them to {@link IntListener primitive listeners} without allocating
+ * {@link Integer} wrappers. It is intended for counters, progress values and other numbers
+ * that change at a high rate.
+ * <p>
+ * The model is still a regular {@link Model Model&lt;Integer&gt;}, so it can be bound to widgets,
+ * wrapped by adapters such as {@link IntegerToStringModel}, or made thread-safe with
+ * {@link #asSynchronized()}. A boxed value is produced only when the generic API is used:
+ * by {@link #getData()} or when at least one generic listener is registered.
+ * Since a primitive cannot be {@code null}, {@link #setData(Object) setData(null)} is rejected
+ * and {@link #deriveWithData(Object) deriveWithData(null)} starts from zero.
+ * <p>
+ * An optional {@link ValidatedIntegerModel.Criterion} makes the model behave like
+ * {@link ValidatedIntegerModel}.
+ */
+public final class IntModel extends SingleThreadModel<Integer> {
+    /**
+     * The current value.
+     */
+    private int value;
+
+    /**
+     * The validation rule, or {@code null} if every value is valid.
+     */
+    private final ValidatedIntegerModel.Criterion criterion;
+
+    /**
+     * Weakly referenced registry of primitive listeners.
+     */
+    private final Map<IntListener, Object> intListeners = new WeakHashMap<>();
+
+    /**
+     * Creates a new integer model initialized with {@code 0}.
+     */
+    public IntModel() {
+        this(0, null);
+    }
+
+    /**
+     * Creates a new integer model initialized with the specified value.
+     *
+     * @param value the initial value
+     */
+    public IntModel(final int value) {
+        this(value, null);
+    }
+
+    /**
+     * Creates a new validated integer model initialized with the specified value.
+     *
+     * @param value the initial value
+     * @param criterion the validation rule, or {@code null} to accept every value
+     */
+    public IntModel(final int value, final ValidatedIntegerModel.Criterion criterion) {
+        this.value = value;
+        this.criterion = criterion;
+    }
+
+    @Override
+    public boolean isValid() {
+        return this.criterion == null || this.criterion.isValid(this.value);
+    }
+
+    @Override
+    public Integer getData() {
+        return this.value;
+    }
+
+    @Override
+    public boolean setData(final Integer data) {
+        return data != null && this.setInt(data);
+    }
+
+    /**
+     * Returns the current value without boxing.
+     *
+     * @return the current value
+     */
+    public int getInt() {
+        return this.value;
+    }
+
+    /**
+     * Updates the value if it differs from the current one and notifies all listeners.
+     *
+     * @param value the new value
+     * @return {@code true} if the value was changed, {@code false} otherwise
+     */
+    public boolean setInt(final int value) {
+        if (this.value == value) {
+            return false;
+        }
+        this.value = value;
+        this.notifyIntListeners(value);
+        return true;
+    }
+
+    /**
+     * Adds the specified delta to the current value.
+     *
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public int add(final int delta) {
+        this.setInt(this.value + delta);
+        return this.value;
+    }
+
+    /**
+     * Registers a primitive listener that will be notified whenever the value changes.
+     *
+     * @param listener the listener to register
+     */
+    public void addIntListener(final IntListener listener) {
+        this.intListeners.put(listener, Boolean.TRUE);
+    }
+
+    /**
+     * Unregisters a previously added primitive listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeIntListener(final IntListener listener) {
+        this.intListeners.remove(listener);
+    }
+
+    @Override
+    public int getListenerCount() {
+        return super.getListenerCount() + this.intListeners.size();
+    }
+
+    @Override
+    public void notifyListeners() {
+        this.notifyIntListeners(this.value);
+    }
+
+    @Override
+    public Model<Integer> deriveWithData(final Integer data) {
+        return new IntModel(data != null ? data : 0, this.criterion);
+    }
+
+    /**
+     * Notifies primitive listeners first, then boxes the value once for generic listeners,
+     * if there are any.
+     *
+     * @param data the value to pass to listeners
+     */
+    private void notifyIntListeners(final int data) {
+        for (final IntListener listener : this.intListeners.keySet()) {
+            listener.accept(data);
+        }
+        if (this.hasListeners()) {
+            this.notifyListeners(Integer.valueOf(data));
+        }
+    }
+}
@@ -68,6 +68,19 @@ public interface Model<T> {
      */
     void notifyListeners();
 
+    /**
+     * Returns the number of listeners currently registered with this model.
+     * <p>
+     * The value is meant for diagnostics (see {@link ModelDiagnostics}). Listeners held through
+     * weak references are counted until the garbage collector actually reclaims them.
+     * Implementations that do not track their listeners return {@code -1}.
+     *
+     * @return the number of registered listeners, or {@code -1} if unknown
+     */
+    default int getListenerCount() {
+        return -1;
+    }
+
     /**
      * Creates a new model instance that is <i>similar</i> to this one but initialized
      * with the specified data. The returned model should preserve the same behavioral
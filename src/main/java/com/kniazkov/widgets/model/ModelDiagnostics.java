@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Listener diagnostics for long-lived, shared models.
+ * <p>
+ * Models register their listeners through weak references, so a listener that was never removed
+ * explicitly stays registered until the garbage collector reclaims it. For a shared model (such
+ * as a style model used by every client) this shows up as a listener count that keeps growing
+ * over time. This class watches selected models and reports their listener counts:
+ * <ul>
+ *   <li>{@link #watch(Model, String)} adds a model under a readable name;</li>
+ *   <li>{@link #sample()} takes a new measurement of every watched model and returns a report;</li>
+ *   <li>a model is flagged as {@link Report#isGrowing() growing} when its listener count has
+ *       increased on {@link #getGrowthThreshold()} consecutive samples.</li>
+ * </ul>
+ * The models of default widget styles are watched automatically, and the application watchdog
+ * samples all watched models once a minute and logs those that keep growing. Other shared
+ * models, such as models of application-wide data, must be registered with
+ * {@link #watch(Model, String)} by the application.
+ * <p>
+ * Watched models are referenced weakly and disappear from the reports once they are collected.
+ * All methods are thread-safe.
+ */
+public final class ModelDiagnostics {
+    /**
+     * Default number of consecutive growing samples after which a model is flagged.
+     */
+    public static final int DEFAULT_GROWTH_THRESHOLD = 5;
+
+    /**
+     * Watched models and their measurement history.
+     */
+    private static final Map<Model<?>, Entry> WATCHED = new WeakHashMap<>();
+
+    /**
+     * Number of consecutive growing samples after which a model is flagged.
+     */
+    private static int growthThreshold = DEFAULT_GROWTH_THRESHOLD;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ModelDiagnostics() {
+    }
+
+    /**
+     * Starts watching the specified model. Watching a model again replaces its name
+     * and resets its history.
+     *
+     * @param model the model to watch
+     * @param name a readable name used in reports
+     */
+    public static synchronized void watch(final Model<?> model, final String name) {
+        WATCHED.put(model, new Entry(name));
+    }
+
+    /**
+     * Stops watching the specified model.
+     *
+     * @param model the model to forget
+     */
+    public static synchronized void unwatch(final Model<?> model) {
+        WATCHED.remove(model);
+    }
+
+    /**
+     * Returns the number of consecutive growing samples after which a model is flagged.
+     *
+     * @return the growth threshold
+     */
+    public static synchronized int getGrowthThreshold() {
+        return growthThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive growing samples after which a model is flagged.
+     *
+     * @param threshold the new threshold, at least {@code 1}
+     */
+    public static synchronized void setGrowthThreshold(final int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold");
+        }
+        growthThreshold = threshold;
+    }
+
+    /**
+     * Measures the listener count of every watched model and returns the results.
+     *
+     * @return reports for all watched models, in no particular order
+     */
+    public static synchronized List<Report> sample() {
+        final List<Report> reports = new ArrayList<>(WATCHED.size());
+        for (final Map.Entry<Model<?>, Entry> pair : WATCHED.entrySet()) {
+            final Entry entry = pair.getValue();
+            final int count = pair.getKey().getListenerCount();
+            if (entry.sampled && count > entry.count) {
+                entry.streak++;
+            } else {
+                entry.streak = 0;
+            }
+            entry.count = count;
+            entry.sampled = true;
+            reports.add(entry.toReport());
+        }
+        return reports;
+    }
+
+    /**
+     * Returns the results of the last measurement without taking a new one.
+     * Models that have never been sampled are not included.
+     *
+     * @return reports for all sampled watched models, in no particular order
+     */
+    public static synchronized List<Report> getReports() {
+        final List<Report> reports = new ArrayList<>(WATCHED.size());
+        for (final Entry entry : WATCHED.values()) {
+            if (entry.sampled) {
+                reports.add(entry.toReport());
+            }
+        }
+        return Collections.unmodifiableList(reports);
+    }
+
+    /**
+     * Returns the reports of models that are currently flagged as growing.
+     *
+     * @return reports of growing models
+     */
+    public static synchronized List<Report> getGrowingModels() {
+        final List<Report> reports = new ArrayList<>();
+        for (final Report report : getReports()) {
+            if (report.isGrowing()) {
+                reports.add(report);
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Measurement history of one watched model.
+     */
+    private static final class Entry {
+        /**
+         * Readable model name.
+         */
+        private final String name;
+
+        /**
+         * Listener count at the last sample.
+         */
+        private int count;
+
+        /**
+         * Number of consecutive samples on which the count has grown.
+         */
+        private int streak;
+
+        /**
+         * Whether the model has been sampled at least once.
+         */
+        private boolean sampled;
+
+        /**
+         * Creates a new history.
+         *
+         * @param name readable model name
+         */
+        private Entry(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Creates a report from the current state of this history.
+         *
+         * @return a report
+         */
+        private Report toReport() {
+            return new Report(this.name, this.count, this.streak >= growthThreshold);
+        }
+    }
+
+    /**
+     * Listener statistics of one watched model.
+     */
+    public static final class Report {
+        /**
+         * Readable model name.
+         */
+        private final String name;
+
+        /**
+         * Listener count, or {@code -1} if the model does not track its listeners.
+         */
+        private final int listenerCount;
+
+        /**
+         * Whether the listener count keeps growing.
+         */
+        private final boolean growing;
+
+        /**
+         * Creates a report.
+         *
+         * @param name readable model name
+         * @param listenerCount listener count
+         * @param growing whether the listener count keeps growing
+         */
+        private Report(final String name, final int listenerCount, final boolean growing) {
+            this.name = name;
+            this.listenerCount = listenerCount;
+            this.growing = growing;
+        }
+
+        /**
+         * Returns the name the model was registered with.
+         *
+         * @return the model name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the listener count at the time of the measurement.
+         *
+         * @return the listener count, or {@code -1} if the model does not track its listeners
+         */
+        public int getListenerCount() {
+            return this.listenerCount;
+        }
+
+        /**
+         * Returns whether the listener count has grown on several consecutive samples,
+         * which usually means listeners are added but never removed.
+         *
+         * @return {@code true} if the model looks like it is leaking listeners
+         */
+        public boolean isGrowing() {
+            return this.growing;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ": " + this.listenerCount + " listener"
+                + (this.listenerCount != 1 ? "s" : "") + (this.growing ? " (growing)" : "");
+        }
+    }
+}
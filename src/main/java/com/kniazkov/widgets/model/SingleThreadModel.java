@@ -38,6 +38,21 @@ public abstract class SingleThreadModel<T> implements Model<T> {
         notifyListeners(getData());
     }
 
+    @Override
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Checks whether at least one listener is currently registered.
+     * Subclasses may use it to skip preparing notification data nobody will receive.
+     *
+     * @return {@code true} if the listener registry is not empty
+     */
+    protected boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
     /**
      * Notifies all currently alive listeners with the specified data.
      * Dead (collected) listeners are automatically purged by the {@link WeakHashMap}.
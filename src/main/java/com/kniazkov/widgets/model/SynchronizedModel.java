@@ -18,6 +18,10 @@ import java.util.concurrent.locks.ReentrantLock;
  * model using a {@link ReentrantLock} and maintains its own independent listener registry
  * backed by a {@link WeakHashMap}. Listeners are automatically removed when they
  * are garbage-collected, preventing memory leaks.
+ * <p>
+ * Like {@link CascadingModel}, the wrapper subscribes to its base only while it has listeners
+ * of its own, so a wrapper around a shared model (such as a model of a derived style) does not
+ * keep the shared model notifying it after the last view observing it has been unbound.
  *
  * @param <T> the type of the data managed by this model
  */
@@ -45,6 +49,11 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
      */
     private Listener<T> baseListener;
 
+    /**
+     * Whether {@link #baseListener} is currently registered with the base model.
+     */
+    private boolean attached;
+
     /**
      * Number of base-model calls whose callbacks must be deferred until the lock is released.
      */
@@ -66,7 +75,7 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
         this.listeners = new WeakHashMap<>();
         this.deferredNotifications = new ArrayList<>();
         this.baseListener = this.createBaseListener(this.base);
-        this.base.addListener(this.baseListener);
+        this.attached = false;
     }
 
     @Override
@@ -109,6 +118,10 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
         this.lock.lock();
         try {
             this.listeners.put(listener, Boolean.TRUE);
+            if (!this.attached) {
+                this.base.addListener(this.baseListener);
+                this.attached = true;
+            }
         } finally {
             this.lock.unlock();
         }
@@ -119,6 +132,10 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
         this.lock.lock();
         try {
             this.listeners.remove(listener);
+            if (this.attached && this.listeners.isEmpty()) {
+                this.base.removeListener(this.baseListener);
+                this.attached = false;
+            }
         } finally {
             this.lock.unlock();
         }
@@ -136,6 +153,16 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
         this.dispatch(notifications);
     }
 
+    @Override
+    public int getListenerCount() {
+        this.lock.lock();
+        try {
+            return this.listeners.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     @Override
     public Model<T> deriveWithData(final T data) {
         final Model<T> derived;
@@ -172,7 +199,7 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
      * Replaces the underlying base model with a new one.
      * <p>
      * This method safely detaches the internal listener from the previous base model,
-     * attaches it to the new one, and immediately notifies all listeners of this wrapper
+     * attaches it to the new one (if this wrapper has listeners), and immediately notifies all listeners of this wrapper
      * with the new model’s current data value.
      * <p>
      * If the specified model is the same as the current one, no action is taken.
@@ -189,10 +216,14 @@ public final class SynchronizedModel<T> implements Model<T>, Listener<T> {
             }
             this.deferralDepth++;
             try {
-                this.base.removeListener(this.baseListener);
+                if (this.attached) {
+                    this.base.removeListener(this.baseListener);
+                }
                 this.base = model;
                 this.baseListener = this.createBaseListener(model);
-                this.base.addListener(this.baseListener);
+                if (this.attached) {
+                    this.base.addListener(this.baseListener);
+                }
                 this.enqueueNotification(model.getData(), notifications);
             } finally {
                 this.deferralDepth--;
@@ -3,28 +3,52 @@
  */
 package com.kniazkov.widgets.protocol;
 
+import com.kniazkov.json.JsonObject;
 import com.kniazkov.widgets.common.RMId;
 
 /**
- * An {@link Update} that instructs the client to send the next chunk of a file upload.
+ * An {@link Update} that instructs the client to start sending the chunks of the next file
+ * it has announced for upload. The update carries the upload ID assigned to the file,
+ * which the client uses to query the chunks already received and to resume the upload later,
+ * and the number of chunk requests the client may run at once.
  */
 public final class RequestNextChunk extends Update {
     /**
-     * Creates a new request for the next chunk of a file upload.
+     * The upload ID assigned to the file.
+     */
+    private final String upload;
+
+    /**
+     * Maximum number of chunk requests the client may run at once.
+     */
+    private final int parallel;
+
+    /**
+     * Creates a new request to start sending the chunks of a file.
      *
      * @param widget the widget identifier associated with the upload operation
+     * @param upload the upload ID assigned to the file
+     * @param parallel the maximum number of chunk requests the client may run at once
      */
-    public RequestNextChunk(final RMId widget) {
+    public RequestNextChunk(final RMId widget, final String upload, final int parallel) {
         super(widget);
+        this.upload = upload;
+        this.parallel = parallel;
     }
 
     @Override
     public Update clone() {
-        return new RequestNextChunk(this.getWidgetId());
+        return new RequestNextChunk(this.getWidgetId(), this.upload, this.parallel);
     }
 
     @Override
     protected String getAction() {
         return "next chunk";
     }
+
+    @Override
+    protected void fillJsonObject(final JsonObject json) {
+        json.addString("upload", this.upload);
+        json.addNumber("parallel", this.parallel);
+    }
 }
@@ -3,31 +3,85 @@
  */
 package com.kniazkov.widgets.view;
 
+import com.kniazkov.widgets.common.UploadedFile;
 import com.kniazkov.widgets.controller.Controller;
 import com.kniazkov.widgets.controller.UploadEvent;
 import com.kniazkov.widgets.model.Model;
 import com.kniazkov.widgets.protocol.RequestNextChunk;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A specialized button widget that handles file uploads from the client.
  * <p>
- * This widget manages the upload process by receiving file chunks via events,
- * assembling them into complete files, and providing progress tracking.
- * It automatically requests the next chunk after processing each received chunk.
+ * The client announces each selected file with an {@link UploadEvent}; the widget then
+ * asks the client to send the file, which arrives as raw chunks through separate requests,
+ * several at a time. The widget assembles the chunks into complete files and provides
+ * progress tracking.
+ * <p>
+ * Files up to the {@link #setMemoryThreshold(int) memory threshold} are assembled in memory;
+ * larger files are written to temporary files, which are deleted when the widget is
+ * {@link #dispose() disposed} (that is, when its client is destroyed) unless the application
+ * has {@link UploadedFile#moveTo(Path) moved} them elsewhere.
+ * <p>
+ * Uploads are resumable: each one gets an upload ID, and the client can
+ * {@link #getReceivedChunks(String) query} which chunks the server already has. An unfinished
+ * upload stored on disk outlives its client for a while, so that the browser can announce
+ * the same file again after reconnecting and send only the missing chunks.
  */
 public class FileLoader extends Button implements HasMultipleInput {
     /**
-     * Map of currently uploading files, keyed by their unique file ID.
+     * Default maximum size of a file assembled in memory, in bytes.
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Default maximum number of chunk requests the client runs at once for a file.
+     */
+    public static final int DEFAULT_PARALLEL_CHUNKS = 4;
+
+    /**
+     * Map of currently uploading files, keyed by their unique file ID. Chunks are received
+     * outside the client lock, so the map is concurrent.
      */
-    private final Map<Integer, UploadingFile> uploading = new TreeMap<>();
+    private final Map<Integer, UploadingFile> uploading = new ConcurrentHashMap<>();
+
+    /**
+     * Uploaded files stored in temporary files, to be deleted when the widget is disposed.
+     */
+    private final List<UploadedFile> stored = new ArrayList<>();
 
     /**
      * Controller to notify when a new file upload starts.
      */
     private Controller<UploadingFile> onSelectCtrl = Controller.stub();
 
+    /**
+     * Maximum size of a file assembled in memory, in bytes.
+     */
+    private int memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+
+    /**
+     * Directory for temporary files, or {@code null} to use the default temporary-file
+     * directory.
+     */
+    private Path temporaryDirectory = null;
+
+    /**
+     * Maximum number of chunk requests the client runs at once for a file.
+     */
+    private int parallelChunks = DEFAULT_PARALLEL_CHUNKS;
+
+    /**
+     * Whether the widget has been disposed.
+     */
+    private boolean disposed = false;
+
     /**
      * Constructs a new FileLoader with default text.
      */
@@ -54,31 +108,144 @@ public class FileLoader extends Button implements HasMultipleInput {
         super(style, text);
     }
 
+    /**
+     * Discards uploads suspended when their clients were destroyed and not resumed within
+     * an hour, deleting their temporary files. Called periodically by the application.
+     */
+    public static void discardExpiredUploads() {
+        UploadRegistry.purge();
+    }
+
     @Override
     public String getType() {
         return "file loader";
     }
 
     /**
-     * Processes an incoming upload event containing a file chunk.
+     * Processes an upload announcement.
      * <p>
-     * If this is the first chunk of a new file, creates a new UploadingFile instance.
-     * If the file is already being uploaded, adds the chunk to the existing file.
-     * Automatically requests the next chunk from the client after processing.
+     * Creates a new UploadingFile instance, or resumes the unfinished upload the announcement
+     * refers to, notifies the controller registered by {@link #onSelect(Controller)}, and asks
+     * the client to start sending the chunks. Repeated or inconsistent announcements are
+     * ignored, as well as announcements of large files if the temporary file cannot be created.
      *
-     * @param event the upload event containing file metadata and chunk data
+     * @param event the upload event containing file metadata
      */
     public void handleUploadEvent(final UploadEvent event) {
-        UploadingFile file = this.uploading.get(event.fileId);
+        if (this.uploading.containsKey(event.fileId) || !UploadingFile.isValid(event)) {
+            return;
+        }
+        UploadingFile file = UploadRegistry.resume(event, this);
         if (file == null) {
-            file = new UploadingFile(this, event);
-            this.uploading.put(event.fileId, file);
-            this.onSelectCtrl.handleEvent(file);
-        } else {
-            file.handleUploadEvent(event);
+            try {
+                file = new UploadingFile(this, event, this.memoryThreshold,
+                    this.temporaryDirectory);
+            } catch (final IOException exception) {
+                return;
+            }
+            UploadRegistry.register(file);
+        }
+        this.uploading.put(event.fileId, file);
+        this.onSelectCtrl.handleEvent(file);
+        this.pushUpdate(new RequestNextChunk(this.getId(), file.getUploadId(),
+            this.parallelChunks));
+    }
+
+    /**
+     * Stores a chunk of a file being uploaded. Called by the server for every chunk request,
+     * without holding the client lock, so that several chunks can be stored at once.
+     *
+     * @param fileId the file ID from the upload announcement
+     * @param chunkIndex zero-based index of the chunk
+     * @param data raw content of the chunk
+     * @return {@code true} if the chunk was accepted; {@code false} if the file is unknown or
+     *  the chunk does not match it
+     */
+    public boolean receiveChunk(final int fileId, final int chunkIndex, final byte[] data) {
+        final UploadingFile file = this.uploading.get(fileId);
+        if (file == null || !file.receiveChunk(chunkIndex, data)) {
+            return false;
+        }
+        final UploadedFile result = file.getUploadedFile();
+        if (result != null && this.uploading.remove(fileId, file) && result.isStoredOnDisk()) {
+            final boolean orphan;
+            synchronized (this.stored) {
+                orphan = this.disposed;
+                if (!orphan) {
+                    this.stored.add(result);
+                }
+            }
+            if (orphan) {
+                result.delete();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the maximum size of a file assembled in memory. Larger files are written to
+     * temporary files. Applies to uploads announced after this call.
+     *
+     * @param threshold the threshold, in bytes
+     */
+    public void setMemoryThreshold(final int threshold) {
+        this.memoryThreshold = threshold;
+    }
+
+    /**
+     * Sets the maximum number of chunk requests the client runs at once for a file.
+     * Applies to uploads announced after this call.
+     *
+     * @param count the number of requests, at least one
+     */
+    public void setParallelChunks(final int count) {
+        this.parallelChunks = Math.max(1, count);
+    }
+
+    /**
+     * Returns the chunks received so far for an unfinished upload.
+     *
+     * @param uploadId the upload ID
+     * @return the chunk bitmap, or {@code null} if there is no such unfinished upload
+     */
+    public static BitSet getReceivedChunks(final String uploadId) {
+        final UploadingFile file = UploadRegistry.find(uploadId);
+        return file == null ? null : file.getReceivedChunks();
+    }
+
+    /**
+     * Sets the directory for temporary files of large uploads.
+     *
+     * @param directory the directory, or {@code null} to use the default temporary-file
+     *  directory
+     */
+    public void setTemporaryDirectory(final Path directory) {
+        this.temporaryDirectory = directory;
+    }
+
+    /**
+     * Suspends the unfinished uploads stored on disk, so that they can be resumed by another
+     * client, and discards the other ones. Deletes the temporary files of uploaded files,
+     * except those the application has {@link UploadedFile#moveTo(Path) moved} elsewhere.
+     */
+    @Override
+    public void dispose() {
+        super.dispose();
+        final List<UploadedFile> files;
+        synchronized (this.stored) {
+            this.disposed = true;
+            files = new ArrayList<>(this.stored);
+            this.stored.clear();
+        }
+        for (final UploadingFile file : this.uploading.values()) {
+            final UploadedFile result = file.detach(this);
+            if (result != null) {
+                files.add(result);
+            }
         }
-        if (event.chunkIndex >= 0) {
-            this.pushUpdate(new RequestNextChunk(this.getId()));
+        this.uploading.clear();
+        for (final UploadedFile file : files) {
+            file.delete();
         }
     }
 
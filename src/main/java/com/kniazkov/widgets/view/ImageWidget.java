@@ -3,7 +3,9 @@
  */
 package com.kniazkov.widgets.view;
 
+import com.kniazkov.widgets.common.AbsoluteSize;
 import com.kniazkov.widgets.images.ImageSource;
+import com.kniazkov.widgets.images.ImageVariants;
 import com.kniazkov.widgets.model.ImageSourceModel;
 import com.kniazkov.widgets.model.Model;
 
@@ -33,6 +35,17 @@ public class ImageWidget extends BaseImageWidget<ImageWidgetStyle> {
         this.setSourceModel(new ImageSourceModel(source));
     }
 
+    /**
+     * Creates a new image displaying the variant that suits the widget size and the client
+     * device, see {@link #setSource(ImageVariants)}.
+     *
+     * @param variants the variants of the image
+     */
+    public ImageWidget(final ImageVariants variants) {
+        super(getDefaultStyle());
+        this.setSourceModel(new ImageSourceModel(this.select(variants)));
+    }
+
     /**
      * Creates a new image initialized with a hyperlink string.
      *
@@ -84,6 +97,17 @@ public class ImageWidget extends BaseImageWidget<ImageWidgetStyle> {
         this.getSourceModel().setData(source);
     }
 
+    /**
+     * Updates the image source with a set of variants. The variant is selected when the image
+     * is sent to the client, by the larger of the widget's pixel width and height and by
+     * whether the client is a mobile device (see {@link ImageVariants#select(int, boolean)}).
+     *
+     * @param variants the variants of the image
+     */
+    public void setSource(final ImageVariants variants) {
+        this.getSourceModel().setData(this.select(variants));
+    }
+
     /**
      * Updates the image source using a hyperlink string.
      *
@@ -92,4 +116,28 @@ public class ImageWidget extends BaseImageWidget<ImageWidgetStyle> {
     public void setSource(final String href) {
         this.getSourceModel().setData(ImageSource.fromHyperlink(href));
     }
+
+    /**
+     * Creates an image source that resolves to the variant suiting this widget.
+     *
+     * @param variants the variants of the image
+     * @return an image source selecting the variant each time it is sent
+     */
+    private ImageSource select(final ImageVariants variants) {
+        return new ImageSource() {
+            @Override
+            public String toString() {
+                final ImageWidget widget = ImageWidget.this;
+                final AbsoluteSize width = widget.getWidth();
+                final AbsoluteSize height = widget.getHeight();
+                final int pixels = Math.max(
+                    width == null ? 0 : width.getPixels(),
+                    height == null ? 0 : height.getPixels()
+                );
+                final boolean mobile = widget.getRootWidget()
+                    .map(RootWidget::isMobile).orElse(false);
+                return variants.select(pixels, mobile).toString();
+            }
+        };
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.view;
+
+import com.kniazkov.widgets.model.IntModel;
+import com.kniazkov.widgets.model.Model;
+
+/**
+ * Widget showing the progress of an operation as a circular arc.
+ * <p>
+ * Unlike progress images, such as the ones made by
+ * {@link com.kniazkov.widgets.images.CircleProgressBarCreator}, this widget is drawn by
+ * the browser: each change of progress sends the client a single number instead of a new
+ * image. The arc is painted with the widget's color over a faded ring of the same color.
+ * A negative value turns the widget into a rotating indicator for operations whose progress
+ * is unknown.
+ * <p>
+ * The percent is stored in a {@link Model} bound to the {@link Property#PERCENT} property,
+ * so the widget can share a model with the operation, for example,
+ * {@link UploadingFile#getLoadingPercentageModel()}.
+ */
+public class ProgressCircle extends InlineWidget<ProgressCircleStyle> implements HasColor,
+        HasBgColor, HasMargin, HasAbsoluteWidth, HasAbsoluteHeight, HasOpacity {
+    /**
+     * Value of the percent that displays an indeterminate indicator.
+     */
+    public static final int INDETERMINATE = -1;
+
+    /**
+     * Returns the default style instance used by progress circles.
+     *
+     * @return the singleton default {@link ProgressCircleStyle} instance
+     */
+    public static ProgressCircleStyle getDefaultStyle() {
+        return ProgressCircleStyle.DEFAULT;
+    }
+
+    /**
+     * Creates a new progress circle showing no progress.
+     */
+    public ProgressCircle() {
+        this(new IntModel(0));
+    }
+
+    /**
+     * Creates a new progress circle bound to the specified model.
+     *
+     * @param model the model storing the progress in percent
+     */
+    public ProgressCircle(final Model<Integer> model) {
+        super(getDefaultStyle());
+        this.setPercentModel(model);
+    }
+
+    @Override
+    public String getType() {
+        return "progress circle";
+    }
+
+    /**
+     * Returns the model storing the progress.
+     *
+     * @return the model bound to {@code Property.PERCENT}
+     */
+    public Model<Integer> getPercentModel() {
+        return this.getModel(State.ANY, Property.PERCENT);
+    }
+
+    /**
+     * Sets the model storing the progress.
+     *
+     * @param model the model to bind to {@code Property.PERCENT}
+     */
+    public void setPercentModel(final Model<Integer> model) {
+        this.setModel(State.ANY, Property.PERCENT, model);
+    }
+
+    /**
+     * Returns the current progress.
+     *
+     * @return the progress in percent, or a negative value if it is unknown
+     */
+    public int getPercent() {
+        return this.getPercentModel().getData();
+    }
+
+    /**
+     * Updates the progress.
+     *
+     * @param percent the progress in percent, from 0 to 100, or {@link #INDETERMINATE}
+     */
+    public void setPercent(final int percent) {
+        this.getPercentModel().setData(percent);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.view;
+
+import com.kniazkov.widgets.common.Color;
+import java.util.Set;
+
+/**
+ * Style definition for {@link ProgressCircle}.
+ */
+public class ProgressCircleStyle extends Style implements HasColor, HasBgColor, HasMargin,
+        HasAbsoluteWidth, HasAbsoluteHeight, HasOpacity {
+    /**
+     * Set of supported states.
+     */
+    private static final Set<State> SUPPORTED_STATES = State.setOf(State.NORMAL);
+
+    /**
+     * The global default progress circle style.
+     */
+    public static final ProgressCircleStyle DEFAULT = new ProgressCircleStyle();
+
+    /**
+     * Creates the default progress circle style.
+     */
+    protected ProgressCircleStyle() {
+        this.setColor(State.NORMAL, Color.BLACK);
+        this.setBgColor(State.NORMAL, Color.TRANSPARENT);
+        this.setWidth(24);
+        this.setHeight(24);
+        this.setMargin(0);
+        this.setOpacity(1.0);
+    }
+
+    /**
+     * Creates a new progress circle style that inherits models from the specified parent.
+     *
+     * @param parent the parent style to inherit from
+     */
+    public ProgressCircleStyle(final ProgressCircleStyle parent) {
+        super(parent);
+    }
+
+    @Override
+    public Set<State> getSupportedStates() {
+        return SUPPORTED_STATES;
+    }
+
+    @Override
+    public ProgressCircleStyle derive() {
+        return new ProgressCircleStyle(this);
+    }
+}
@@ -29,6 +29,7 @@ import com.kniazkov.widgets.model.FontSizeModel;
 import com.kniazkov.widgets.model.FontWeightModel;
 import com.kniazkov.widgets.model.HorizontalAlignmentModel;
 import com.kniazkov.widgets.model.ImageSourceModel;
+import com.kniazkov.widgets.model.IntModel;
 import com.kniazkov.widgets.model.Model;
 import com.kniazkov.widgets.model.OffsetModel;
 import com.kniazkov.widgets.model.StringModel;
@@ -521,6 +522,17 @@ public abstract class Property<T> {
      */
     public static final Property<String> ACCEPTED_FILES = stringProperty("accepted files");
 
+    /**
+     * Property storing the progress of an operation in percent, or a negative value if
+     * the progress is unknown. Only the number is sent; the client renders the indicator.
+     */
+    public static final Property<Integer> PERCENT = of(
+            "percent",
+            Integer.class,
+            IntModel::new,
+            data -> new JsonNumber(data)
+    );
+
     /**
      * Property specifying the widget’s absolute position.
      */
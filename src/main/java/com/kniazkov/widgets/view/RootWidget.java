@@ -37,6 +37,11 @@ public final class RootWidget extends Widget<RootWidgetStyle>
      */
     final List<BlockWidget<?>> children = new ArrayList<>();
 
+    /**
+     * Whether the page is displayed on a mobile device.
+     */
+    private boolean mobile = false;
+
     /**
      * Constructor.
      *
@@ -57,6 +62,26 @@ public final class RootWidget extends Widget<RootWidgetStyle>
         }
     }
 
+    /**
+     * Checks whether the page is displayed on a mobile device, so that widgets can adapt,
+     * for example, by sending smaller images.
+     *
+     * @return {@code true} if the client is a mobile device
+     */
+    public boolean isMobile() {
+        return this.mobile;
+    }
+
+    /**
+     * Sets whether the page is displayed on a mobile device. The application sets this flag
+     * from the page context before the page is created.
+     *
+     * @param mobile {@code true} if the client is a mobile device
+     */
+    public void setMobile(final boolean mobile) {
+        this.mobile = mobile;
+    }
+
     @Override
     public Optional<RootWidget> getRootWidget() {
         return Optional.of(this);
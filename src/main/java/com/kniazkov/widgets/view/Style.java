@@ -4,6 +4,7 @@
 package com.kniazkov.widgets.view;
 
 import com.kniazkov.widgets.model.Model;
+import com.kniazkov.widgets.model.ModelDiagnostics;
 import com.kniazkov.widgets.model.SynchronizedModel;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -16,6 +17,9 @@ import java.util.Map;
  * Each style may have an optional parent. When a child style is created from a parent,
  * it inherits all models from the parent using {@link Model#asCascading()},
  * so that changes in the parent propagate to children until overridden locally.
+ * <p>
+ * A style without a parent (such as the default style of a widget type) is shared by every
+ * style derived from it, so its models are registered in {@link ModelDiagnostics}.
  */
 public abstract class Style implements Entity {
     /**
@@ -31,11 +35,17 @@ public abstract class Style implements Entity {
      */
     private final Map<State, Map<Property<?>, SynchronizedModel<?>>> models;
 
+    /**
+     * Whether this style has no parent, so its models are watched by {@link ModelDiagnostics}.
+     */
+    private final boolean shared;
+
     /**
      * Creates an empty style instance intended for subclass initialization.
      */
     protected Style() {
         this.models = new EnumMap<>(State.class);
+        this.shared = true;
     }
 
     /**
@@ -48,6 +58,7 @@ public abstract class Style implements Entity {
      */
     public Style(final Style parent) {
         this.models = new EnumMap<>(State.class);
+        this.shared = false;
         parent.forEachModel((state, property, model) -> {
             Map<Property<?>, SynchronizedModel<?>> subset =
                 this.models.computeIfAbsent(state, s -> new HashMap<>());
@@ -204,6 +215,10 @@ public abstract class Style implements Entity {
             Model<T> defaultModel = property.createDefaultModel();
             SynchronizedModel<T> sync = new SynchronizedModel<>(defaultModel);
             subset.put(property, sync);
+            if (this.shared) {
+                ModelDiagnostics.watch(sync,
+                    this.getClass().getSimpleName() + '.' + state + '.' + property);
+            }
             return sync;
         } else {
             return property.cast(model);
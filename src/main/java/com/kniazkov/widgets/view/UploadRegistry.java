@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.view;
+
+import com.kniazkov.widgets.controller.UploadEvent;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-wide registry of unfinished uploads, keyed by their upload IDs.
+ * <p>
+ * Uploads outlive the clients that started them: when a client is destroyed, its unfinished
+ * uploads stored on disk are suspended here, and a client created later (for example, after
+ * the browser has reconnected) can resume them by announcing the same file with the upload ID.
+ * Suspended uploads that are not resumed within {@link #RESUME_TIMEOUT} are discarded, either
+ * when another upload starts or when the application watchdog calls
+ * {@link FileLoader#discardExpiredUploads()}.
+ */
+final class UploadRegistry {
+    /**
+     * Time during which a suspended upload can be resumed, in milliseconds.
+     */
+    static final long RESUME_TIMEOUT = 60 * 60 * 1000;
+
+    /**
+     * Unfinished uploads, keyed by their upload IDs.
+     */
+    private static final Map<String, UploadingFile> UPLOADS = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private UploadRegistry() {
+    }
+
+    /**
+     * Registers a new upload.
+     *
+     * @param file the upload
+     */
+    static void register(final UploadingFile file) {
+        purge();
+        UPLOADS.put(file.getUploadId(), file);
+    }
+
+    /**
+     * Removes a finished or discarded upload.
+     *
+     * @param file the upload
+     */
+    static void unregister(final UploadingFile file) {
+        UPLOADS.remove(file.getUploadId(), file);
+    }
+
+    /**
+     * Finds an unfinished upload.
+     *
+     * @param uploadId the upload ID
+     * @return the upload, or {@code null} if there is no such unfinished upload
+     */
+    static UploadingFile find(final String uploadId) {
+        return uploadId == null ? null : UPLOADS.get(uploadId);
+    }
+
+    /**
+     * Resumes an unfinished upload on behalf of a widget, provided that the announcement
+     * describes the same file split into the same chunks.
+     *
+     * @param event the event announcing the file, with the ID of the upload to resume
+     * @param widget the widget that continues the upload
+     * @return the resumed upload, or {@code null} if it cannot be resumed
+     */
+    static UploadingFile resume(final UploadEvent event, final Widget<?> widget) {
+        purge();
+        final UploadingFile file = find(event.resume);
+        if (file == null || !file.matches(event) || !file.attach(widget)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Discards suspended uploads that have not been resumed in time.
+     */
+    static void purge() {
+        purge(System.currentTimeMillis());
+    }
+
+    /**
+     * Discards uploads suspended for longer than {@link #RESUME_TIMEOUT} at the specified time.
+     *
+     * @param now the current time, in milliseconds
+     */
+    static void purge(final long now) {
+        final long deadline = now - RESUME_TIMEOUT;
+        final Iterator<UploadingFile> iterator = UPLOADS.values().iterator();
+        while (iterator.hasNext()) {
+            final UploadingFile file = iterator.next();
+            if (file.isSuspendedBefore(deadline)) {
+                iterator.remove();
+                file.discard();
+            }
+        }
+    }
+}
@@ -7,22 +7,43 @@ import com.kniazkov.widgets.common.Utils;
 import com.kniazkov.widgets.common.UploadedFile;
 import com.kniazkov.widgets.controller.Controller;
 import com.kniazkov.widgets.controller.UploadEvent;
-import com.kniazkov.widgets.model.IntegerModel;
-import com.kniazkov.widgets.model.Model;
+import com.kniazkov.widgets.model.IntModel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Manages the state and assembly of a file being uploaded in chunks.
  * <p>
- * This class tracks the progress of a multi-chunk file upload, assembles the chunks
- * in the correct order, decodes Base16 (hex) encoded content, and notifies listeners
- * when the complete file is available.
+ * This class tracks the progress of a multi-chunk file upload, writes every received chunk
+ * straight to its place in a buffer of the declared file size, and notifies listeners
+ * when the complete file is available. Files larger than the memory threshold of the
+ * {@link FileLoader} are written to a temporary file instead of a buffer, so that large
+ * uploads do not occupy the heap. Chunks arrive as raw bytes through separate
+ * requests, possibly several at a time and out of order, so this class is thread-safe.
+ * <p>
+ * Every upload has a unique {@link #getUploadId() upload ID}. An upload stored on disk
+ * survives the client that started it: it is suspended when the client is destroyed and can
+ * be resumed by another client, which then sends only the chunks still missing. A suspended
+ * upload keeps only its temporary file; the file is closed until the upload is resumed. If the
+ * announcement carries a SHA-256 digest of the file, the assembled file is checked against it.
  */
 public class UploadingFile {
     /**
-     * Widget used to download the file.
+     * Unique identifier of the upload, valid across clients.
      */
-    private final Widget<?> widget;
+    private final String uploadId;
+
+    /**
+     * Widget used to download the file, or {@code null} while the upload is suspended.
+     */
+    private Widget<?> widget;
 
     /**
      * Original filename of the file being uploaded.
@@ -40,25 +61,63 @@ public class UploadingFile {
     private final int size;
 
     /**
-     * Array storing Base16-encoded content chunks in their original order.
+     * Size of every chunk except possibly the last one, in bytes.
      */
-    private final String[] content;
+    private final int chunkSize;
 
     /**
-     * Number of chunks that have been successfully received so far.
+     * Total number of chunks expected for this file.
      */
-    private int uploadedChunksCount;
+    private final int totalChunks;
 
     /**
-     * Total number of chunks expected for this file.
+     * Expected SHA-256 digest of the file as a hexadecimal string, or an empty string
+     * if the client has not provided it.
      */
-    private final int totalChunks;
+    private final String digest;
+
+    /**
+     * Buffer of the declared file size receiving the chunks, or {@code null} if the chunks
+     * are written to a temporary file.
+     */
+    private final ByteBuffer content;
+
+    /**
+     * Temporary file receiving the chunks, or {@code null} if the file is kept in memory.
+     */
+    private final Path path;
+
+    /**
+     * Channel writing the chunks to the temporary file, or {@code null} if the file is kept
+     * in memory, the upload is suspended or the file is complete.
+     */
+    private FileChannel channel;
+
+    /**
+     * Indexes of the chunks received so far.
+     */
+    private final BitSet received;
+
+    /**
+     * Number of chunks that have been successfully received so far.
+     */
+    private int uploadedChunksCount;
 
     /**
      * The fully assembled file, available once all chunks are received.
      */
     private UploadedFile fullyUploadedFile = null;
 
+    /**
+     * Whether the upload has been {@link #discard() discarded}.
+     */
+    private boolean discarded = false;
+
+    /**
+     * Time when the upload was suspended, in milliseconds; {@code 0} if it is not suspended.
+     */
+    private long suspendedAt = 0;
+
     /**
      * Controller to notify when the file is completely uploaded.
      */
@@ -67,30 +126,71 @@ public class UploadingFile {
     /**
      * Model tracking the upload progress as a percentage (0-100).
      */
-    private Model<Integer> percentage = null;
+    private IntModel percentage = null;
 
     /**
-     * Constructs a new UploadingFile instance from the initial upload event.
+     * Constructs a new UploadingFile instance from the upload announcement.
      *
      * @param widget Widget used to download the file
-     * @param event the first upload event containing file metadata and possibly the first chunk
+     * @param event the event announcing the file
+     * @param threshold maximum size of a file kept in memory, in bytes
+     * @param directory directory for the temporary file, or {@code null} to use the default
+     *  temporary-file directory
+     * @throws IOException if the file exceeds the threshold and the temporary file cannot be
+     *  created
      */
-    UploadingFile(final Widget<?> widget, final UploadEvent event) {
+    UploadingFile(final Widget<?> widget, final UploadEvent event, final int threshold,
+            final Path directory) throws IOException {
+        this.uploadId = UUID.randomUUID().toString();
         this.widget = widget;
         this.name = event.name;
         this.type = event.type.isEmpty() ? Utils.getContentTypeByExtension(event.name) : event.type;
         this.size = event.size;
-        this.content = new String[event.totalChunks];
-        if (event.chunkIndex >= 0 && event.chunkIndex < event.totalChunks) {
-            this.content[event.chunkIndex] = event.content;
-            this.uploadedChunksCount = 1;
-            if (event.totalChunks == 1) {
-                this.fullyUploadedFile = this.createFile();
+        this.chunkSize = event.chunkSize;
+        this.totalChunks = event.totalChunks;
+        this.digest = event.sha256 == null ? "" : event.sha256;
+        if (event.size > threshold) {
+            this.content = null;
+            this.path = directory == null
+                ? Files.createTempFile("widgets-upload-", ".tmp")
+                : Files.createTempFile(directory, "widgets-upload-", ".tmp");
+            try {
+                this.channel = FileChannel.open(this.path, StandardOpenOption.WRITE);
+            } catch (final IOException exception) {
+                Files.deleteIfExists(this.path);
+                throw exception;
             }
         } else {
-            this.uploadedChunksCount = 0;
+            this.content = ByteBuffer.allocate(event.size);
+            this.path = null;
+            this.channel = null;
         }
-        this.totalChunks = event.totalChunks;
+        this.received = new BitSet(event.totalChunks);
+        this.uploadedChunksCount = 0;
+    }
+
+    /**
+     * Checks that an upload announcement describes a consistent split of a file into chunks.
+     *
+     * @param event the event announcing the file
+     * @return {@code true} if the event is valid
+     */
+    static boolean isValid(final UploadEvent event) {
+        if (event.name == null || event.type == null || event.size < 0 || event.chunkSize <= 0) {
+            return false;
+        }
+        final long expected = Math.max(1, ((long) event.size + event.chunkSize - 1) / event.chunkSize);
+        return event.totalChunks == expected;
+    }
+
+    /**
+     * Returns the unique identifier of the upload. The client uses it to query the chunks
+     * received so far and to resume the upload after reconnecting.
+     *
+     * @return the upload ID
+     */
+    public String getUploadId() {
+        return this.uploadId;
     }
 
     /**
@@ -120,6 +220,24 @@ public class UploadingFile {
         return this.size;
     }
 
+    /**
+     * Returns the total number of chunks of the file.
+     *
+     * @return the number of chunks
+     */
+    public int getTotalChunks() {
+        return this.totalChunks;
+    }
+
+    /**
+     * Returns the indexes of the chunks received so far.
+     *
+     * @return a copy of the chunk bitmap
+     */
+    public synchronized BitSet getReceivedChunks() {
+        return (BitSet) this.received.clone();
+    }
+
     /**
      * Registers a controller to be notified when the file is completely uploaded.
      * If the file is already fully uploaded, the controller is invoked immediately.
@@ -127,114 +245,358 @@ public class UploadingFile {
      * @param ctrl the controller to notify upon completion
      */
     public void onLoad(final Controller<UploadedFile> ctrl) {
-        this.onLoadCtrl = ctrl;
-        if (this.fullyUploadedFile != null) {
-                this.runOnLoadHandler();
+        final boolean loaded;
+        synchronized (this) {
+            this.onLoadCtrl = ctrl;
+            loaded = this.fullyUploadedFile != null;
+        }
+        if (loaded) {
+            this.runOnLoadHandler();
         }
     }
 
     /**
      * Returns a model that tracks the upload progress as a percentage (0-100).
-     * The model is created lazily upon first request.
+     * The model is created lazily upon first request. It stores the value unboxed, so
+     * progress can be observed through {@link IntModel#addIntListener} without boxing.
      *
      * @return a model containing the current upload percentage
      */
-    public Model<Integer> getLoadingPercentageModel() {
+    public synchronized IntModel getLoadingPercentageModel() {
         if (this.percentage == null) {
-            this.percentage = new IntegerModel();
-            this.percentage.setData(this.uploadedChunksCount * 100 / this.totalChunks);
+            this.percentage = new IntModel(this.uploadedChunksCount * 100 / this.totalChunks);
         }
         return this.percentage;
     }
 
     /**
-     * Processes an incoming upload event containing a file chunk.
-     * Updates progress tracking and assembles the complete file when all chunks are received.
+     * Stores a received chunk. Called by the server for every chunk request; chunks may
+     * arrive in any order and from several threads at once. Duplicate chunks are ignored.
+     * The chunk that completes the file also triggers the check of its digest; if the check
+     * fails, the upload is discarded.
      *
-     * @param event the upload event containing a chunk of the file
+     * @param chunkIndex zero-based index of the chunk
+     * @param data raw content of the chunk
+     * @return {@code true} if the chunk is valid (including a duplicate of a received chunk);
+     *  {@code false} if its index or length does not match the announced file, it cannot
+     *  be written to the temporary file, or the assembled file does not match its digest
      */
-    void handleUploadEvent(final UploadEvent event) {
-        if (event.chunkIndex >= 0 && event.chunkIndex < this.totalChunks
-                    && this.content[event.chunkIndex] == null) {
-            this.content[event.chunkIndex] = event.content;
-            this.uploadedChunksCount++;
-            if (this.percentage != null) {
-                int percent = this.uploadedChunksCount * 100 / this.totalChunks;
-                this.percentage.setData(percent);
+    boolean receiveChunk(final int chunkIndex, final byte[] data) {
+        if (chunkIndex < 0 || chunkIndex >= this.totalChunks) {
+            return false;
+        }
+        final int offset = chunkIndex * this.chunkSize;
+        if (data.length != Math.min(this.chunkSize, this.size - offset)) {
+            return false;
+        }
+        if (this.path != null) {
+            final FileChannel target;
+            synchronized (this) {
+                if (this.discarded || this.channel == null) {
+                    return false;
+                }
+                if (this.received.get(chunkIndex)) {
+                    return true;
+                }
+                target = this.channel;
+            }
+            if (!write(target, offset, data)) {
+                return false;
             }
-            if (this.uploadedChunksCount == this.totalChunks) {
-                this.fullyUploadedFile = this.createFile();
-                this.runOnLoadHandler();
+        }
+        final boolean complete;
+        final IntModel model;
+        final Widget<?> owner;
+        synchronized (this) {
+            if (this.discarded) {
+                return false;
+            }
+            if (this.received.get(chunkIndex)) {
+                return true;
+            }
+            if (this.content != null) {
+                final ByteBuffer target = this.content.duplicate();
+                target.position(offset);
+                target.put(data);
             }
+            this.received.set(chunkIndex);
+            this.uploadedChunksCount++;
+            complete = this.uploadedChunksCount == this.totalChunks;
+            model = this.percentage;
+            owner = this.widget;
         }
+        if (model != null && owner != null) {
+            final Optional<RootWidget> root = owner.getRootWidget();
+            if (root.isPresent()) {
+                synchronized (root.get()) {
+                    // Chunks are received in parallel: the count is read under the same lock
+                    // that applies it, so the progress never goes backwards.
+                    final int percent;
+                    synchronized (this) {
+                        percent = this.uploadedChunksCount * 100 / this.totalChunks;
+                    }
+                    model.setInt(percent);
+                }
+            }
+        }
+        if (complete) {
+            return this.complete();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether all chunks have been received.
+     *
+     * @return {@code true} if the file is complete
+     */
+    synchronized boolean isComplete() {
+        return this.fullyUploadedFile != null;
+    }
+
+    /**
+     * Returns the fully assembled file.
+     *
+     * @return the uploaded file, or {@code null} if not all chunks have been received yet
+     */
+    synchronized UploadedFile getUploadedFile() {
+        return this.fullyUploadedFile;
+    }
+
+    /**
+     * Checks whether an announcement describes the same file as this upload, split into
+     * the same chunks.
+     *
+     * @param event the event announcing the file
+     * @return {@code true} if the upload can continue with the announced file
+     */
+    boolean matches(final UploadEvent event) {
+        return this.name.equals(event.name) && this.size == event.size
+            && this.chunkSize == event.chunkSize && this.totalChunks == event.totalChunks
+            && this.digest.equalsIgnoreCase(event.sha256 == null ? "" : event.sha256);
     }
 
     /**
-     * Assembles the complete file from all received chunks and decodes the Base16 content.
+     * Attaches the upload to a widget that continues it, reopening the temporary file of
+     * a suspended upload. The controllers and the progress model of the previous widget are
+     * dropped. A suspended upload whose file cannot be reopened is discarded.
      *
-     * @return the fully assembled UploadedFile
-     * @throws IllegalStateException if the decoded data size doesn't match the declared size
+     * @param owner the widget
+     * @return {@code true} if the upload is attached; {@code false} if it is already complete
+     *  or discarded
      */
-    private UploadedFile createFile() {
-        final byte[] data = decode(this.content);
-        if (data.length != this.size) {
-            throw new IllegalStateException(
-                "The size of the uploaded file does not match the declared"
-            );
+    boolean attach(final Widget<?> owner) {
+        synchronized (this) {
+            if (this.discarded || this.uploadedChunksCount == this.totalChunks) {
+                return false;
+            }
+            if (this.path == null || this.channel != null || this.open()) {
+                this.widget = owner;
+                this.suspendedAt = 0;
+                this.onLoadCtrl = Controller.stub();
+                this.percentage = null;
+                return true;
+            }
         }
-        return new UploadedFile(this.name, this.type, data);
+        this.discard();
+        return false;
     }
 
     /**
-     * Launches a handler (callback) asynchronously, passing it the uploaded file.
-     * The handler will not begin its work until the current synchronization thread with the client
-     * has completed.
+     * Detaches the upload from a widget that is disposed. An unfinished upload stored on disk
+     * is suspended so that it can be resumed later, and its temporary file is closed; an
+     * unfinished upload kept in memory is discarded. Does nothing if the upload has been
+     * attached to another widget.
+     *
+     * @param owner the widget
+     * @return the assembled file if the upload is complete, so that the caller can delete it;
+     *  {@code null} otherwise
      */
-    private void runOnLoadHandler() {
-        Optional<RootWidget> root = this.widget.getRootWidget();
-        if (root.isPresent()) {
-            synchronized (root.get()) {
-                new Thread(() -> {
-                    this.onLoadCtrl.handleEvent(this.fullyUploadedFile);
-                }).start();
+    UploadedFile detach(final Widget<?> owner) {
+        synchronized (this) {
+            if (this.widget != owner) {
+                return null;
+            }
+            this.widget = null;
+            if (this.fullyUploadedFile != null) {
+                return this.fullyUploadedFile;
+            }
+            if (this.path != null) {
+                this.suspendedAt = System.currentTimeMillis();
+                this.close();
+                return null;
             }
         }
+        this.discard();
+        return null;
+    }
+
+    /**
+     * Checks whether the temporary file is open for writing, for tests.
+     *
+     * @return {@code true} if the channel writing the temporary file is open
+     */
+    synchronized boolean isOpen() {
+        return this.channel != null;
     }
 
     /**
-     * Decodes an array of Base16 (hex) encoded strings into a single byte array.
+     * Checks whether the upload was suspended before the specified time.
      *
-     * @param content array of Base16-encoded strings, one per chunk
-     * @return the concatenated and decoded byte array
+     * @param time the time, in milliseconds
+     * @return {@code true} if the upload is suspended and has been so since before the time
      */
-    private static byte[] decode(String[] content) {
-        int size = 0;
-        for (final String chunk : content) {
-            if (chunk != null) {
-                size += chunk.length();
+    synchronized boolean isSuspendedBefore(final long time) {
+        return this.suspendedAt != 0 && this.suspendedAt < time;
+    }
+
+    /**
+     * Abandons an unfinished upload: further chunks are rejected and the temporary file,
+     * if any, is deleted. Does nothing if all chunks have been received.
+     */
+    void discard() {
+        synchronized (this) {
+            if (this.discarded || this.uploadedChunksCount == this.totalChunks) {
+                return;
+            }
+            this.discarded = true;
+            if (this.path != null) {
+                this.close();
+                try {
+                    Files.deleteIfExists(this.path);
+                } catch (final IOException ignored) {
+                }
             }
         }
-        if (size % 2 != 0) {
-            return new byte[0];
+        UploadRegistry.unregister(this);
+    }
+
+    /**
+     * Assembles the file once all chunks have been received, checks its digest and notifies
+     * the controller. If the upload has been suspended meanwhile, nobody is going to receive
+     * the file, so it is deleted.
+     *
+     * @return {@code true} if the file has been assembled
+     */
+    private boolean complete() {
+        UploadedFile file = null;
+        if (this.content != null) {
+            file = new UploadedFile(this.name, this.type, this.content.array());
+        } else if (this.close()) {
+            file = new UploadedFile(this.name, this.type, this.path, this.size);
         }
-        final byte[] result = new byte[size / 2];
-        int offset = 0;
-        for (String chunk : content) {
-            int length = chunk.length();
-            if (length % 2 != 0) {
-                return new byte[0];
+        boolean valid = file != null;
+        if (valid && !this.digest.isEmpty()) {
+            try {
+                valid = this.digest.equalsIgnoreCase(file.getSha256());
+            } catch (final IOException exception) {
+                valid = false;
             }
-            for (int index = 0; index < length; index += 2) {
-                char char1 = chunk.charAt(index);
-                char char2 = chunk.charAt(index + 1);
-                int digit1 = Character.digit(char1, 16);
-                int digit2 = Character.digit(char2, 16);
-                if (digit1 == -1 || digit2 == -1) {
-                    return new byte[0];
+        }
+        final boolean delivered;
+        synchronized (this) {
+            this.discarded = !valid;
+            delivered = valid && this.widget != null;
+            if (delivered) {
+                this.fullyUploadedFile = file;
+            }
+        }
+        UploadRegistry.unregister(this);
+        if (!delivered) {
+            if (file != null) {
+                file.delete();
+            } else {
+                try {
+                    Files.deleteIfExists(this.path);
+                } catch (final IOException ignored) {
                 }
-                result[offset++] = (byte) ((digit1 << 4) | digit2);
+            }
+            return valid;
+        }
+        this.runOnLoadHandler();
+        return true;
+    }
+
+    /**
+     * Writes a chunk to its place in the temporary file. Positional writes do not depend on
+     * the position of the channel, so several chunks can be written at once.
+     *
+     * @param channel the channel writing the temporary file
+     * @param offset offset of the chunk in the file
+     * @param data content of the chunk
+     * @return {@code true} if the chunk was written; {@code false} if writing failed or
+     *  the channel was closed because the upload has been suspended
+     */
+    private static boolean write(final FileChannel channel, final int offset,
+            final byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            return true;
+        } catch (final IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens the channel writing the temporary file.
+     *
+     * @return {@code true} if the channel was opened
+     */
+    private synchronized boolean open() {
+        try {
+            this.channel = FileChannel.open(this.path, StandardOpenOption.WRITE);
+            return true;
+        } catch (final IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes the channel writing the temporary file, if it is open.
+     *
+     * @return {@code true} if the channel was closed without errors
+     */
+    private synchronized boolean close() {
+        final FileChannel open = this.channel;
+        this.channel = null;
+        if (open == null) {
+            return true;
+        }
+        try {
+            open.close();
+            return true;
+        } catch (final IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Launches a handler (callback) asynchronously, passing it the uploaded file.
+     * The handler will not begin its work until the current synchronization thread with the client
+     * has completed.
+     */
+    private void runOnLoadHandler() {
+        final Controller<UploadedFile> ctrl;
+        final UploadedFile file;
+        final Widget<?> owner;
+        synchronized (this) {
+            ctrl = this.onLoadCtrl;
+            file = this.fullyUploadedFile;
+            owner = this.widget;
+        }
+        if (owner == null) {
+            return;
+        }
+        Optional<RootWidget> root = owner.getRootWidget();
+        if (root.isPresent()) {
+            synchronized (root.get()) {
+                new Thread(() -> {
+                    ctrl.handleEvent(file);
+                }).start();
             }
         }
-        return result;
     }
 }
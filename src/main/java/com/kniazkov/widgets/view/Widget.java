@@ -313,6 +313,29 @@ public abstract class Widget<S extends Style> implements Entity, HandlesEvents {
         });
     }
 
+    /**
+     * Detaches this widget from all models it is bound to. After this call, the widget no longer
+     * receives model updates, so shared models (such as style models) stop notifying it
+     * immediately instead of waiting for the garbage collector to reclaim its listeners.
+     * Used when the widget is discarded, for example when its client is destroyed.
+     */
+    public void unbindModels() {
+        for (final Map<Property<?>, Binding<?>> subset : this.bindings.values()) {
+            for (final Binding<?> binding : subset.values()) {
+                binding.unbind();
+            }
+        }
+    }
+
+    /**
+     * Releases everything this widget holds when it is discarded, for example when its client
+     * is destroyed. By default, {@link #unbindModels() detaches the widget from its models};
+     * widgets holding other resources, such as temporary files, extend this method.
+     */
+    public void dispose() {
+        this.unbindModels();
+    }
+
     /**
      * Adds an update for this widget.
      *
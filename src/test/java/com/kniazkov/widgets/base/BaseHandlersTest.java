@@ -6,11 +6,20 @@ package com.kniazkov.widgets.base;
 import com.kniazkov.json.JsonElement;
 import com.kniazkov.json.JsonObject;
 import com.kniazkov.widgets.common.RMId;
+import com.kniazkov.widgets.common.UploadedFile;
+import com.kniazkov.widgets.view.FileLoader;
+import com.kniazkov.widgets.view.Section;
+import com.kniazkov.widgets.view.UploadingFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -67,4 +76,110 @@ public class BaseHandlersTest {
             response.toJsonObject().get("result").getBooleanValue()
         );
     }
+
+    /** Chunks sent as separate upload requests, in any order, assemble the announced file. */
+    @Test
+    public void uploadHandlerAssemblesChunksSentOutOfOrder() throws InterruptedException {
+        final AtomicReference<FileLoader> loader = new AtomicReference<>();
+        final AtomicReference<UploadedFile> uploaded = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Application application = BaseTestSupport.application((root, context) -> {
+            final FileLoader widget = new FileLoader();
+            widget.onSelect(file -> file.onLoad(result -> {
+                uploaded.set(result);
+                done.countDown();
+            }));
+            final Section section = new Section();
+            root.add(section);
+            section.add(widget);
+            loader.set(widget);
+        });
+        final RMId clientId = application.createClient("/", new PageContext());
+        final String widgetId = loader.get().getId().toString();
+        final Map<String, String> sync = new TreeMap<>();
+        sync.put("client", clientId.toString());
+        sync.put("events", "[{\"id\":\"#1\",\"widget\":\"" + widgetId + "\",\"type\":\"upload\","
+            + "\"data\":{\"fileId\":1,\"name\":\"a.txt\",\"type\":\"text/plain\","
+            + "\"size\":5,\"chunkSize\":2,\"totalChunks\":3}}]");
+        new Synchronize(application).process(sync);
+
+        final Upload upload = new Upload(application);
+        assertTrue(sendChunk(upload, clientId, widgetId, 2, "o"));
+        assertFalse(sendChunk(upload, clientId, widgetId, 3, "!"));
+        assertTrue(sendChunk(upload, clientId, widgetId, 1, "ll"));
+        assertTrue(sendChunk(upload, clientId, widgetId, 0, "he"));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("hello", uploaded.get().toString());
+        assertFalse(sendChunk(upload, RMId.create(), widgetId, 0, "he"));
+    }
+
+    @Test
+    public void uploadStatusReportsReceivedChunksAndChecksumIsRequired() {
+        final AtomicReference<FileLoader> loader = new AtomicReference<>();
+        final AtomicReference<UploadingFile> uploading = new AtomicReference<>();
+        final Application application = BaseTestSupport.application((root, context) -> {
+            final FileLoader widget = new FileLoader();
+            widget.onSelect(uploading::set);
+            final Section section = new Section();
+            root.add(section);
+            section.add(widget);
+            loader.set(widget);
+        });
+        final RMId clientId = application.createClient("/", new PageContext());
+        final String widgetId = loader.get().getId().toString();
+        final Map<String, String> sync = new TreeMap<>();
+        sync.put("client", clientId.toString());
+        sync.put("events", "[{\"id\":\"#1\",\"widget\":\"" + widgetId + "\",\"type\":\"upload\","
+            + "\"data\":{\"fileId\":1,\"name\":\"a.txt\",\"type\":\"text/plain\","
+            + "\"size\":20,\"chunkSize\":2,\"totalChunks\":10}}]");
+        new Synchronize(application).process(sync);
+
+        final Upload upload = new Upload(application);
+        final Map<String, String> request = chunkRequest(clientId, widgetId, 9, "xy");
+        request.remove("crc");
+        assertFalse(upload.process(request).toJsonObject().get("result").getBooleanValue());
+        request.put("crc", String.valueOf(getChecksum("xz")));
+        assertFalse(upload.process(request).toJsonObject().get("result").getBooleanValue());
+        request.put("crc", String.valueOf(getChecksum("xy")));
+        assertTrue(upload.process(request).toJsonObject().get("result").getBooleanValue());
+        assertTrue(sendChunk(upload, clientId, widgetId, 1, "ab"));
+
+        final UploadStatus status = new UploadStatus(application);
+        final Map<String, String> query = new TreeMap<>();
+        query.put("upload", uploading.get().getUploadId());
+        final JsonObject response = status.process(query).toJsonObject();
+        assertTrue(response.get("result").getBooleanValue());
+        final byte[] chunks = Base64.getDecoder().decode(response.get("chunks").getStringValue());
+        assertEquals(2, chunks.length);
+        assertEquals(0x02, chunks[0]);
+        assertEquals(0x02, chunks[1]);
+        query.put("upload", UUID.randomUUID().toString());
+        assertFalse(status.process(query).toJsonObject().get("result").getBooleanValue());
+    }
+
+    private static boolean sendChunk(final Upload upload, final RMId clientId,
+            final String widgetId, final int chunk, final String text) {
+        return upload.process(chunkRequest(clientId, widgetId, chunk, text)).toJsonObject()
+            .get("result").getBooleanValue();
+    }
+
+    private static Map<String, String> chunkRequest(final RMId clientId, final String widgetId,
+            final int chunk, final String text) {
+        final Map<String, String> request = new TreeMap<>();
+        request.put("client", clientId.toString());
+        request.put("widget", widgetId);
+        request.put("file", "1");
+        request.put("chunk", String.valueOf(chunk));
+        request.put("data", Base64.getEncoder().encodeToString(
+            text.getBytes(StandardCharsets.UTF_8)));
+        request.put("crc", String.valueOf(getChecksum(text)));
+        return request;
+    }
+
+    private static long getChecksum(final String text) {
+        final CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
 }
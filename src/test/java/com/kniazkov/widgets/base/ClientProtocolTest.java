@@ -5,12 +5,16 @@ package com.kniazkov.widgets.base;
 
 import com.kniazkov.json.JsonArray;
 import com.kniazkov.json.JsonObject;
+import com.kniazkov.widgets.common.Color;
 import com.kniazkov.widgets.common.RMId;
+import com.kniazkov.widgets.model.Model;
 import com.kniazkov.widgets.model.StringModel;
 import com.kniazkov.widgets.protocol.Update;
 import com.kniazkov.widgets.view.Button;
 import com.kniazkov.widgets.view.Section;
+import com.kniazkov.widgets.view.State;
 import com.kniazkov.widgets.view.TextWidget;
+import com.kniazkov.widgets.view.TextWidgetStyle;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -119,6 +123,44 @@ public class ClientProtocolTest {
         }
     }
 
+    /** Destroying a client detaches its widgets from style models shared with other clients. */
+    @Test
+    public void destroyUnbindsWidgetsFromSharedStyleModels() {
+        final TextWidgetStyle style = TextWidgetStyle.DEFAULT.derive();
+        final Model<Color> shared = style.getColorModel(State.NORMAL);
+        final int initial = shared.getListenerCount();
+        final Client first = new Client();
+        final Client second = new Client();
+        first.getRootWidget().add(new Section(new TextWidget(style, "first")));
+        second.getRootWidget().add(new Section(new TextWidget(style, "second")));
+        assertEquals(initial + 2, shared.getListenerCount());
+
+        first.destroy();
+        assertEquals(initial + 1, shared.getListenerCount());
+        final JsonObject before = new JsonObject();
+        first.synchronize(Collections.emptyMap(), before);
+
+        shared.setData(Color.RED);
+        final JsonObject after = new JsonObject();
+        first.synchronize(Collections.emptyMap(), after);
+        assertEquals(before.get("updates").toJsonArray().size(),
+            after.get("updates").toJsonArray().size());
+    }
+
+    /** A style derived by a client's page stops observing the default style with the client. */
+    @Test
+    public void destroyReleasesDefaultStyleModelsOfDerivedStyles() {
+        final Model<Color> shared = TextWidget.getDefaultStyle().getColorModel(State.NORMAL);
+        final int initial = shared.getListenerCount();
+        final Client client = new Client();
+        final TextWidgetStyle style = TextWidget.getDefaultStyle().derive();
+        client.getRootWidget().add(new Section(new TextWidget(style, "page")));
+        assertEquals(initial + 1, shared.getListenerCount());
+
+        client.destroy();
+        assertEquals(initial, shared.getListenerCount());
+    }
+
     /** Set that pauses while the target widget's update list is being iterated. */
     private static final class BlockingUpdateSet extends TreeSet<Update> {
         private final Collection<Update> target;
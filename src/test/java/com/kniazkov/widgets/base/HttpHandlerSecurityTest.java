@@ -6,12 +6,15 @@ package com.kniazkov.widgets.base;
 import com.kniazkov.webserver.Method;
 import com.kniazkov.webserver.Request;
 import com.kniazkov.webserver.Response;
+import com.kniazkov.widgets.images.ImageStore;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -88,6 +91,27 @@ public class HttpHandlerSecurityTest {
         }
     }
 
+    /** Stored images are served by digest, and image URLs cannot address anything else. */
+    @Test
+    public void storedImagesAreServedByDigestOnly() throws Exception {
+        final File root = this.folder.newFolder("www");
+        final File secret = this.folder.newFile("secret.txt");
+        java.nio.file.Files.write(secret.toPath(), "private".getBytes(StandardCharsets.UTF_8));
+        final Options options = new Options();
+        options.wwwRoot = root.getAbsolutePath();
+        final HttpHandler handler = this.handler(options);
+        final byte[] data = {(byte) 0x89, 'P', 'N', 'G'};
+        final String url = ImageStore.getInstance().put("image/png", data);
+
+        final Response response = handler.handle(get(url));
+
+        assertNotNull(response);
+        assertEquals("image/png", response.getContentType());
+        assertArrayEquals(data, response.getData());
+        assertNull(handler.handle(get(ImageStore.URL_PREFIX + "../../secret.txt")));
+        assertNull(handler.handle(get(url.toUpperCase())));
+    }
+
     /** Creates a handler with a registered index page. */
     private HttpHandler handler(final Options options) {
         final Application application = BaseTestSupport.application((root, context) -> { });
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the binary snapshot backend {@link BinaryDatabase}.
+ */
+public final class BinaryDatabaseTest {
+    private static final Field<Double> SCORE = new Field<>(Type.REAL, "score");
+    private static final Field<Boolean> ACTIVE = new Field<>(Type.BOOLEAN, "active");
+    private static final Field<UUID> OWNER = new Field<>(Type.IDENTIFIER, "owner");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsAllTypes() {
+        final Path path = this.folder.getRoot().toPath();
+        final BinaryDatabase database = open(path);
+        final Store store = database.getStore("people");
+        final UUID owner = UUID.randomUUID();
+        final Record full = store.createRecord();
+        full.setValue(NAME, "Łukasz \"the\" ✓");
+        full.setValue(AGE, -7);
+        full.setValue(SCORE, 2.25);
+        full.setValue(ACTIVE, true);
+        full.setValue(OWNER, owner);
+        full.save();
+        final Record partial = store.createRecord();
+        partial.setValue(AGE, 12);
+        partial.save();
+        assertTrue(database.flush());
+
+        final Store reopened = open(path).getStore("people");
+        assertEquals(2, reopened.getRecordCount());
+        final Record loaded = reopened.getRecordById(full.getId());
+        assertEquals(full.getTimestamp(), loaded.getTimestamp());
+        assertEquals("Łukasz \"the\" ✓", loaded.getValue(NAME));
+        assertEquals(Integer.valueOf(-7), loaded.getValue(AGE));
+        assertEquals(Double.valueOf(2.25), loaded.getValue(SCORE));
+        assertEquals(Boolean.TRUE, loaded.getValue(ACTIVE));
+        assertEquals(owner, loaded.getValue(OWNER));
+        final Record other = reopened.getRecordById(partial.getId());
+        assertEquals(Integer.valueOf(12), other.getValue(AGE));
+        assertFalse(other.hasModel(NAME));
+    }
+
+    @Test
+    public void importsAndExportsJson() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase json = new JsonDatabase(path);
+        json.registerStore("people", NAME, AGE);
+        final Record alice = json.getStore("people").createRecord();
+        alice.setValue(NAME, "Alice");
+        alice.setValue(AGE, 30);
+        alice.save();
+        assertTrue(json.flush());
+
+        final BinaryDatabase database = open(path);
+        assertEquals("Alice",
+            database.getStore("people").getRecordById(alice.getId()).getValue(NAME));
+        assertTrue(database.flush());
+        assertTrue(new File(path.toFile(), "people.bin").exists());
+
+        final Path exported = path.resolve("export");
+        assertTrue(database.exportJson(exported));
+        final Store back = new JsonDatabase(exported)
+            .registerStore("people", NAME, AGE).getStore("people");
+        assertEquals(Integer.valueOf(30), back.getRecordById(alice.getId()).getValue(AGE));
+    }
+
+    @Test
+    public void skipsFieldsNotInSchema() {
+        final Path path = this.folder.getRoot().toPath();
+        final BinaryDatabase database = open(path);
+        final Record record = database.getStore("people").createRecord();
+        record.setValue(NAME, "Bob");
+        record.setValue(AGE, 40);
+        record.setValue(ACTIVE, false);
+        record.save();
+        assertTrue(database.flush());
+
+        final Field<String> age = new Field<>(Type.STRING, "age");
+        final Store store = new BinaryDatabase(path)
+            .registerStore("people", ACTIVE, age).getStore("people");
+        final Record loaded = store.getRecordById(record.getId());
+        assertEquals(Boolean.FALSE, loaded.getValue(ACTIVE));
+        assertFalse(loaded.hasModel(age));
+    }
+
+    @Test
+    public void corruptedSnapshotYieldsEmptyStore() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        try (final FileOutputStream stream =
+                 new FileOutputStream(new File(path.toFile(), "people.bin"))) {
+            stream.write(new byte[] {0x57, 0x44, 0x42, 0x53, 0, 0, 0, 1, 0x7f});
+        }
+        assertEquals(0, open(path).getStore("people").getRecordCount());
+    }
+
+    @Test
+    public void snapshotLargerThanOffsetsCanAddressIsRefused() throws IOException {
+        final File file = this.folder.newFile("huge.bin");
+        try (final RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.writeInt(0x57444253);
+            output.writeInt(1);
+            output.setLength(BinarySnapshot.MAX_SIZE + 1);
+        }
+        try {
+            BinarySnapshot.open(file);
+            fail();
+        } catch (final IOException expected) {
+            assertTrue(expected.getMessage().contains("larger than"));
+        }
+    }
+
+    private static BinaryDatabase open(final Path path) {
+        final BinaryDatabase database = new BinaryDatabase(path);
+        database.registerStore("people", NAME, AGE, SCORE, ACTIVE, OWNER);
+        return database;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import com.kniazkov.widgets.model.Model;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the columnar storage of record values in {@link Store}.
+ */
+public final class ColumnarRecordTest {
+    private static final Field<Double> SCORE = new Field<>(Type.REAL, "score");
+    private static final Field<Boolean> ACTIVE = new Field<>(Type.BOOLEAN, "active");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadedRecordsHaveNoModels() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase database = open(path);
+        final Record saved = addPerson(database.getStore("people"), "Alice", 30);
+        assertTrue(database.flush());
+
+        final Record loaded = open(path).getStore("people").getRecordById(saved.getId());
+        assertTrue(loaded.data.isEmpty());
+        assertEquals("Alice", loaded.getValue(NAME));
+        assertEquals(Integer.valueOf(30), loaded.getValue(AGE));
+        assertEquals(Double.valueOf(1.5), loaded.getValue(SCORE));
+        assertEquals(Boolean.TRUE, loaded.getValue(ACTIVE));
+        assertTrue(loaded.hasModel(AGE));
+        assertTrue(loaded.data.isEmpty());
+    }
+
+    @Test
+    public void modelWritesThroughToColumn() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase database = open(path);
+        final Record saved = addPerson(database.getStore("people"), "Alice", 30);
+        assertTrue(database.flush());
+
+        final JsonDatabase reopened = open(path);
+        final Store store = reopened.getStore("people");
+        final Record loaded = store.getRecordById(saved.getId());
+        final Model<Integer> age = loaded.getModel(AGE);
+        assertEquals(Integer.valueOf(30), age.getData());
+        age.setData(31);
+        assertEquals(Integer.valueOf(31), loaded.getValue(AGE));
+        assertEquals(1, store.select(AGE.is(31)).getRecordCount());
+
+        loaded.setValue(NAME, "Alicia");
+        assertFalse(loaded.data.containsKey(NAME.getName()));
+        store.save();
+        assertTrue(reopened.flush());
+
+        final Record again = open(path).getStore("people").getRecordById(saved.getId());
+        assertEquals("Alicia", again.getValue(NAME));
+        assertEquals(Integer.valueOf(31), again.getValue(AGE));
+    }
+
+    @Test
+    public void editCommitsToColumns() {
+        final Store store = open(this.folder.getRoot().toPath()).getStore("people");
+        final Record alice = addPerson(store, "Alice", 30);
+        final Record edit = alice.edit();
+        edit.getModel(AGE).setData(32);
+        assertEquals(Integer.valueOf(30), alice.getValue(AGE));
+        edit.save();
+        assertEquals(Integer.valueOf(32), alice.getValue(AGE));
+        assertEquals("Alice", alice.getValue(NAME));
+    }
+
+    @Test
+    public void removedRecordKeepsValuesAndSlotIsReused() {
+        final Store store = open(this.folder.getRoot().toPath()).getStore("people");
+        final Record alice = addPerson(store, "Alice", 30);
+        alice.remove();
+        final Record bob = addPerson(store, "Bob", 40);
+        bob.setValue(ACTIVE, false);
+
+        assertEquals("Alice", alice.getValue(NAME));
+        assertEquals(Integer.valueOf(30), alice.getValue(AGE));
+        assertEquals(Boolean.TRUE, alice.getValue(ACTIVE));
+        assertEquals("Bob", bob.getValue(NAME));
+        assertEquals(Integer.valueOf(40), bob.getValue(AGE));
+        assertEquals(Boolean.FALSE, bob.getValue(ACTIVE));
+    }
+
+    private static JsonDatabase open(final Path path) {
+        final JsonDatabase database = new JsonDatabase(path);
+        database.registerStore("people", NAME, AGE, SCORE, ACTIVE);
+        return database;
+    }
+
+    private static Record addPerson(final Store store, final String name, final int age) {
+        final Record record = store.createRecord();
+        record.getModel(NAME).setData(name);
+        record.getModel(AGE).setData(age);
+        record.getModel(SCORE).setData(1.5);
+        record.getModel(ACTIVE).setData(true);
+        record.save();
+        return record;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the background flusher of {@link Database}.
+ */
+public final class DatabaseFlusherTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void flushAsyncWritesStoreWithRunningFlusher() throws Exception {
+        final JsonDatabase database = new JsonDatabase(this.folder.getRoot().toPath());
+        database.registerStore("people", NAME);
+        database.startFlusher(60000, 0);
+        try {
+            final Record record = database.getStore("people").createRecord();
+            record.getModel(NAME).setData("Alice");
+            record.save();
+            final File file = new File(this.folder.getRoot(), "people.json");
+            assertFalse(file.exists());
+
+            assertTrue(database.flushAsync().get(10, TimeUnit.SECONDS));
+            assertTrue(file.exists());
+        } finally {
+            database.stopFlusher();
+        }
+    }
+
+    @Test
+    public void flushAsyncWithoutFlusherFlushesImmediately() throws Exception {
+        final JsonDatabase database = new JsonDatabase(this.folder.getRoot().toPath());
+        database.registerStore("people", NAME);
+        database.getStore("people").createRecord().save();
+
+        final CompletableFuture<Boolean> future = database.flushAsync();
+
+        assertTrue(future.isDone());
+        assertTrue(future.get());
+        assertTrue(new File(this.folder.getRoot(), "people.json").exists());
+    }
+
+    @Test
+    public void coalescesConcurrentRequestsIntoGroupCommits() throws Exception {
+        final CountingDatabase database = new CountingDatabase();
+        database.startFlusher(60000, 0);
+        try {
+            final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                database.recordSave();
+                futures.add(database.flushAsync());
+            }
+            for (final CompletableFuture<Boolean> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+            assertTrue(database.flushes.get() >= 1);
+            assertTrue(database.flushes.get() < 100);
+        } finally {
+            database.stopFlusher();
+        }
+    }
+
+    @Test
+    public void saveThresholdTriggersFlushAndStopWritesTheRest() throws Exception {
+        final CountingDatabase database = new CountingDatabase();
+        database.startFlusher(60000, 10);
+        for (int i = 0; i < 10; i++) {
+            database.recordSave();
+        }
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (database.flushes.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, database.flushes.get());
+
+        database.recordSave();
+        database.stopFlusher();
+        assertEquals(2, database.flushes.get());
+    }
+
+    @Test
+    public void failedFlushIsRetriedAfterInterval() throws Exception {
+        final CountingDatabase database = new CountingDatabase();
+        database.failures.set(1);
+        database.startFlusher(20, 0);
+        database.recordSave();
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (database.flushes.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        database.stopFlusher();
+        assertEquals(2, database.flushes.get());
+    }
+
+    /**
+     * A database without stores that counts flushes and fails the first few of them.
+     */
+    private static final class CountingDatabase extends Database {
+        private final AtomicInteger flushes = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public Database registerStore(final String name, final List<Field<?>> fields) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Store getStore(final String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean flush() {
+            return this.flushes.incrementAndGet() > this.failures.get();
+        }
+    }
+}
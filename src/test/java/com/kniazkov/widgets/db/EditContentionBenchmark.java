@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures optimistic editing under contention: several writer threads edit a small set of
+ * records, retrying on {@link ConflictException}, while reader threads scan the store.
+ * <p>
+ * Run with {@code java EditContentionBenchmark [writers] [readers] [records] [seconds]}.
+ * Fewer records mean more conflicts.
+ */
+public final class EditContentionBenchmark {
+    private static final Field<Integer> COUNTER = new Field<>(Type.INTEGER, "counter");
+
+    private EditContentionBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final int size = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        final int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        final Path folder = Files.createTempDirectory("contention");
+        final Store store = new JsonDatabase(folder)
+            .registerStore("counters", COUNTER)
+            .getStore("counters");
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final Record record = store.createRecord();
+            record.setValue(COUNTER, 0);
+            record.save();
+            records.add(record);
+        }
+
+        final AtomicLong commits = new AtomicLong();
+        final AtomicLong conflicts = new AtomicLong();
+        final AtomicLong scans = new AtomicLong();
+        final long deadline = System.currentTimeMillis() + seconds * 1000L;
+        final CountDownLatch done = new CountDownLatch(writers + readers);
+        for (int w = 0; w < writers; w++) {
+            final Random random = new Random(w);
+            new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    final Record record = records.get(random.nextInt(size));
+                    while (true) {
+                        final Record edit = record.edit();
+                        edit.setValue(COUNTER, edit.getValue(COUNTER) + 1);
+                        try {
+                            edit.save();
+                            commits.incrementAndGet();
+                            break;
+                        } catch (final ConflictException ignored) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        for (int r = 0; r < readers; r++) {
+            new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    store.select(COUNTER.gt(0)).getRecordCount();
+                    scans.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        long total = 0;
+        for (final Record record : records) {
+            total += record.getValue(COUNTER);
+        }
+        System.out.printf("writers=%d readers=%d records=%d seconds=%d%n",
+            writers, readers, size, seconds);
+        System.out.printf("commits: %d (%.0f/sec), conflicts: %d (%.1f%%), scans: %d%n",
+            commits.get(), commits.get() / (double) seconds, conflicts.get(),
+            100.0 * conflicts.get() / Math.max(1, commits.get() + conflicts.get()), scans.get());
+        System.out.printf("lost updates: %d%n", commits.get() - total);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for filter combinators and parallel scans.
+ */
+public final class FilterCombinatorTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Store store;
+
+    @Before
+    public void createStore() {
+        this.store = new JsonDatabase(this.folder.getRoot().toPath())
+            .registerStore("people", NAME, AGE)
+            .getStore("people");
+        final String[] names = {"anna", "andrew", "bob", "bobby", "carol", "an\uffff", "ao"};
+        for (int i = 0; i < 700; i++) {
+            final Record record = this.store.createRecord();
+            record.setValue(NAME, names[i % names.length]);
+            record.setValue(AGE, i % 90);
+            record.save();
+        }
+    }
+
+    @Test
+    public void combinatorsMatchExpectedRecords() {
+        assertEquals(300, this.count(NAME.startsWith("an")));
+        assertEquals(200, this.count(NAME.startsWith("bob")));
+        assertEquals(200, this.count(NAME.in("bob", "carol", "nobody")));
+        assertEquals(600, this.count(NAME.is("bob").not()));
+        assertEquals(200, this.count(NAME.is("bob").or(NAME.is("carol"))));
+        assertEquals(700, this.count(AGE.lt(45).or(AGE.gt(44))));
+    }
+
+    @Test
+    public void indexedSelectionMatchesFullScan() {
+        final List<Filter> filters = new ArrayList<>();
+        filters.add(NAME.startsWith("an"));
+        filters.add(NAME.startsWith("an\uffff"));
+        filters.add(NAME.startsWith(""));
+        filters.add(NAME.in("bob", "carol"));
+        filters.add(AGE.in(1, 2, 3).or(NAME.startsWith("car")));
+        filters.add(AGE.lt(10).or(NAME.is("bob").not()));
+        final List<List<Record>> expected = new ArrayList<>();
+        for (final Filter filter : filters) {
+            expected.add(this.store.select(filter).getRecords());
+        }
+
+        this.store.createIndex(NAME, IndexType.SORTED).createIndex(AGE, IndexType.HASH);
+
+        for (int i = 0; i < filters.size(); i++) {
+            assertEquals(expected.get(i), this.store.select(filters.get(i)).getRecords());
+        }
+    }
+
+    @Test
+    public void parallelScanMatchesSequentialScan() {
+        final Filter filter = NAME.startsWith("b").and(AGE.gt(30).not());
+        final List<Record> sequential = this.store.select(filter).getRecords();
+        this.store.setParallelScanThreshold(1);
+        assertEquals(sequential, this.store.select(filter).getRecords());
+        assertEquals(sequential,
+            ParallelScan.filter(this.store.getRecords(), filter, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void startsWithRequiresStringField() {
+        AGE.startsWith("1");
+    }
+
+    private int count(final Filter filter) {
+        return this.store.select(filter).getRecordCount();
+    }
+}
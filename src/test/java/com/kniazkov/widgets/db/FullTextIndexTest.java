@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static com.kniazkov.widgets.db.People.addPerson;
+import static com.kniazkov.widgets.db.People.openJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link IndexType#FULL_TEXT full-text indexes} and {@link Field#search(String)}.
+ */
+public final class FullTextIndexTest {
+    private static final String[] NAMES = {
+        "Ivan Kniazkov", "Ivana Petrova", "John Smith", "Jane Smith-Jones",
+        "Kniaz Ivanov", "O'Brien, Ivan", "Smithers 2nd", "ivan IVAN ivan"
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void tokenizeSplitsLowercasesAndDeduplicates() {
+        assertEquals(Arrays.asList("o", "brien", "ivan"), Index.tokenize("O'Brien, Ivan ivan"));
+        assertEquals(Arrays.asList("smithers", "2nd"), Index.tokenize("  Smithers 2nd "));
+        assertTrue(Index.tokenize("--- !").isEmpty());
+    }
+
+    @Test
+    public void indexedSearchMatchesFullScan() {
+        final Path path = this.folder.getRoot().toPath();
+        final Store plain = openJson(path.resolve("plain")).getStore("people");
+        final Store indexed = openJson(path.resolve("indexed")).getStore("people");
+        for (final String name : NAMES) {
+            addPerson(plain, name, 0);
+            addPerson(indexed, name, 0);
+        }
+        indexed.createIndex(NAME, IndexType.FULL_TEXT);
+        for (final String query : new String[] {
+            "ivan", "IV", "kni iv", "smith", "smith jones", "2", "nobody", "ivan smith", ""
+        }) {
+            assertEquals(query, names(plain.select(NAME.search(query))),
+                names(indexed.select(NAME.search(query))));
+        }
+        assertEquals(
+            new HashSet<>(Arrays.asList("Ivan Kniazkov", "Ivana Petrova", "Kniaz Ivanov",
+                "O'Brien, Ivan", "ivan IVAN ivan")),
+            names(indexed.select(NAME.search("iv")))
+        );
+        assertEquals(1, indexed.select(NAME.search("smith").and(NAME.search("jon")))
+            .getRecordCount());
+        assertEquals(3, indexed.select(NAME.is("John Smith").or(NAME.search("kniaz")))
+            .getRecordCount());
+    }
+
+    @Test
+    public void indexFollowsSaveAndRemove() {
+        final Store store = openJson(this.folder.getRoot().toPath()).getStore("people");
+        store.createIndex(NAME, IndexType.FULL_TEXT);
+        final Record ivan = addPerson(store, "Ivan Kniazkov", 0);
+        addPerson(store, "John Smith", 0);
+        assertEquals(1, store.select(NAME.search("kni")).getRecordCount());
+
+        ivan.setValue(NAME, "Ivan Smith");
+        ivan.save();
+        assertEquals(0, store.select(NAME.search("kni")).getRecordCount());
+        assertEquals(2, store.select(NAME.search("smi")).getRecordCount());
+
+        ivan.remove();
+        assertEquals(0, store.select(NAME.search("ivan")).getRecordCount());
+        assertEquals(1, store.select(NAME.search("smi")).getRecordCount());
+    }
+
+    @Test
+    public void persistedIndexIsRestoredAndRefreshed() {
+        final Path path = this.folder.getRoot().toPath();
+        final File file = path.resolve("name.idx").toFile();
+        final JsonDatabase database = openJson(path);
+        final Store store = database.getStore("people");
+        for (final String name : NAMES) {
+            addPerson(store, name, 0);
+        }
+        store.createIndex(NAME, IndexType.FULL_TEXT);
+        assertTrue(store.writeTextIndex(NAME, file));
+        final Record changed = store.select(NAME.is("John Smith")).getRecords().get(0);
+        changed.setValue(NAME, "John Kniazkov");
+        changed.save();
+        store.select(NAME.is("Jane Smith-Jones")).getRecords().get(0).remove();
+        assertTrue(database.flush());
+
+        final Store reopened = openJson(path).getStore("people");
+        reopened.createTextIndex(NAME, file);
+        assertEquals(IndexType.FULL_TEXT, reopened.getIndexType(NAME));
+        assertEquals(new HashSet<>(Arrays.asList("Ivan Kniazkov", "John Kniazkov")),
+            names(reopened.select(NAME.search("kniazk"))));
+        assertEquals(new HashSet<>(Arrays.asList("Smithers 2nd")),
+            names(reopened.select(NAME.search("smith"))));
+    }
+
+    @Test
+    public void changedValueWithSameHashCodeIsReindexed() {
+        final Path path = this.folder.getRoot().toPath();
+        final File file = path.resolve("name.idx").toFile();
+        final JsonDatabase database = openJson(path);
+        final Store store = database.getStore("people");
+        final Record record = addPerson(store, "Aa", 0);
+        store.createIndex(NAME, IndexType.FULL_TEXT);
+        assertTrue(store.writeTextIndex(NAME, file));
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        record.setValue(NAME, "BB");
+        record.save();
+        assertTrue(database.flush());
+
+        final Store reopened = openJson(path).getStore("people");
+        reopened.createTextIndex(NAME, file);
+        assertEquals(0, reopened.select(NAME.search("aa")).getRecordCount());
+        assertEquals(1, reopened.select(NAME.search("bb")).getRecordCount());
+    }
+
+    @Test
+    public void unreadableFileRebuildsIndex() throws Exception {
+        final Path path = this.folder.getRoot().toPath();
+        final File file = this.folder.newFile("broken.idx");
+        final Store store = openJson(path).getStore("people");
+        for (final String name : NAMES) {
+            addPerson(store, name, 0);
+        }
+        store.createTextIndex(NAME, file);
+        assertEquals(3, store.select(NAME.search("smith")).getRecordCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fullTextIndexRequiresStrings() {
+        openJson(this.folder.getRoot().toPath()).getStore("people")
+            .createIndex(AGE, IndexType.FULL_TEXT);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void searchRequiresStrings() {
+        AGE.search("1");
+    }
+
+    private static Set<String> names(final RecordSet set) {
+        final Set<String> names = new HashSet<>();
+        for (final Record record : set.getRecords()) {
+            names.add(record.getValue(NAME));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for streaming loading of JSON stores.
+ */
+public final class JsonArrayReaderTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void splitsTopLevelElements() throws IOException {
+        final String text =
+            " [ {\"a\": \"x,]}\\\"[\", \"b\": [1, {\"c\": 2}]},\n 42 , \"s\" ,[] ] ";
+
+        assertEquals(
+            Arrays.asList("{\"a\": \"x,]}\\\"[\", \"b\": [1, {\"c\": 2}]}", "42 ", "\"s\" ", "[] "),
+            read(text)
+        );
+    }
+
+    @Test
+    public void stopsOnNonArrayAndTruncatedInput() throws IOException {
+        assertEquals(Collections.emptyList(), read("{\"a\": 1}"));
+        assertEquals(Collections.emptyList(), read(""));
+        assertEquals(Arrays.asList("{\"a\": 1}"), read("[{\"a\": 1}, {\"b\": \"trunc"));
+    }
+
+    @Test
+    public void loadsStoreSequentiallyAndInParallel() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase database = new JsonDatabase(path);
+        database.registerStore("people", NAME, AGE);
+        final Store store = database.getStore("people");
+        for (int i = 0; i < 2000; i++) {
+            final Record record = store.createRecord();
+            record.getModel(NAME).setData("person" + i);
+            record.getModel(AGE).setData(i);
+            record.save();
+        }
+        database.flush();
+
+        for (final boolean parallel : new boolean[] { false, true }) {
+            final Store loaded = new JsonDatabase(path, parallel)
+                .registerStore("people", NAME, AGE)
+                .getStore("people");
+            assertEquals(2000, loaded.getRecordCount());
+            final Record record = loaded.select(NAME.is("person1234")).getRecords().get(0);
+            assertEquals(Integer.valueOf(1234), record.getModel(AGE).getData());
+        }
+    }
+
+    private static List<String> read(final String text) throws IOException {
+        final List<String> elements = new ArrayList<>();
+        try (final JsonArrayReader reader = new JsonArrayReader(new StringReader(text))) {
+            String element;
+            while ((element = reader.next()) != null) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static com.kniazkov.widgets.db.People.addPerson;
+import static com.kniazkov.widgets.db.People.openJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for incremental serialization in {@link JsonStore#flush()}.
+ */
+public final class JsonStoreFlushTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void onlySavedRecordsAreSerializedAgain() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase database = openJson(path);
+        final Store store = database.getStore("people");
+        final Record alice = addPerson(store, "Alice", 30);
+        final Record bob = addPerson(store, "Bob", 40);
+        assertTrue(database.flush());
+
+        bob.setValue(AGE, 41);
+        alice.setValue(AGE, 31);
+        alice.save();
+        assertTrue(database.flush());
+
+        Store reopened = openJson(path).getStore("people");
+        assertEquals(Integer.valueOf(31), reopened.getRecordById(alice.getId()).getValue(AGE));
+        assertEquals(Integer.valueOf(40), reopened.getRecordById(bob.getId()).getValue(AGE));
+
+        store.save();
+        assertTrue(database.flush());
+        reopened = openJson(path).getStore("people");
+        assertEquals(Integer.valueOf(41), reopened.getRecordById(bob.getId()).getValue(AGE));
+    }
+
+    @Test
+    public void removedRecordsDisappearFromFile() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase database = openJson(path);
+        final Store store = database.getStore("people");
+        final Record alice = addPerson(store, "Alice", 30);
+        final Record bob = addPerson(store, "Bob", 40);
+        assertTrue(database.flush());
+        alice.remove();
+        assertTrue(database.flush());
+
+        final JsonDatabase second = openJson(path);
+        final Store reopened = second.getStore("people");
+        assertEquals(1, reopened.getRecordCount());
+        assertNull(reopened.getRecordById(alice.getId()));
+        assertEquals("Bob", reopened.getRecordById(bob.getId()).getValue(NAME));
+
+        reopened.getRecordById(bob.getId()).remove();
+        assertTrue(second.flush());
+        assertEquals(0, openJson(path).getStore("people").getRecordCount());
+    }
+
+    @Test
+    public void unchangedRecordsAreCopiedFromPreviousFile() throws Exception {
+        final Path path = this.folder.getRoot().toPath();
+        final Path file = path.resolve("people.json");
+        final UUID alice = UUID.randomUUID();
+        final UUID bob = UUID.randomUUID();
+        Files.write(file, ("[\n"
+            + "  {\"id\": \"" + alice + "\", \"timestamp\": \"2026-01-01T00:00:00Z\", "
+            + "\"name\": \"Alice\", \"note\": \"kept\"},\n"
+            + "  {\"timestamp\": \"2026-01-01T00:00:00Z\", \"id\": \"" + bob + "\", "
+            + "\"name\": \"Bob\", \"note\": \"kept\"}\n"
+            + "]").getBytes(Charset.defaultCharset()));
+
+        final JsonDatabase database = openJson(path);
+        final Store store = database.getStore("people");
+        addPerson(store, "Carol", 50);
+        assertTrue(database.flush());
+        assertEquals(2, count(file, "\"note\""));
+        assertEquals(3, openJson(path).getStore("people").getRecordCount());
+
+        store.getRecordById(alice).save();
+        assertTrue(database.flush());
+        assertEquals(1, count(file, "\"note\""));
+        final Store reopened = openJson(path).getStore("people");
+        assertEquals(3, reopened.getRecordCount());
+        assertEquals("Bob", reopened.getRecordById(bob).getValue(NAME));
+        assertEquals("Alice", reopened.getRecordById(alice).getValue(NAME));
+    }
+
+    private static int count(final Path file, final String text) throws Exception {
+        final String content = new String(Files.readAllBytes(file), Charset.defaultCharset());
+        int count = 0;
+        for (int index = content.indexOf(text); index >= 0;
+                index = content.indexOf(text, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
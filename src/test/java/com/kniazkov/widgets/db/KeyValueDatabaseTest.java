@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static com.kniazkov.widgets.db.People.addPerson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link KeyValueDatabase}.
+ */
+public final class KeyValueDatabaseTest {
+    private static final Field<UUID> OWNER = new Field<>(Type.IDENTIFIER, "owner");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsSurviveReopen() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        final UUID owner = UUID.randomUUID();
+        final UUID aliceId;
+        final UUID bobId;
+        try (KeyValueDatabase database = open(path)) {
+            final Store people = database.getStore("people");
+            final Record alice = addPerson(people, "Alice", 30);
+            alice.setValue(OWNER, owner);
+            alice.save();
+            final Record bob = addPerson(people, "Bob", 40);
+            addPerson(database.getStore("pets"), "Rex", 3);
+            aliceId = alice.getId();
+            bobId = bob.getId();
+            bob.remove();
+        }
+        try (KeyValueDatabase database = open(path)) {
+            final Store people = database.getStore("people");
+            assertEquals(1, people.getRecordCount());
+            assertNull(people.getRecordById(bobId));
+            final Record alice = people.getRecordById(aliceId);
+            assertEquals("Alice", alice.getValue(NAME));
+            assertEquals(Integer.valueOf(30), alice.getValue(AGE));
+            assertEquals(owner, alice.getValue(OWNER));
+            assertEquals(1, database.getStore("pets").getRecordCount());
+        }
+    }
+
+    @Test
+    public void manyRecordsAcrossTables() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        final KeyValueDatabase database = new KeyValueDatabase(
+            LsmEngine.open(path, 4096), RecordCodec.BINARY);
+        database.registerStore("people", NAME, AGE);
+        final Store people = database.getStore("people");
+        for (int i = 0; i < 2000; i++) {
+            addPerson(people, "person" + i, i);
+            if (i % 100 == 99) {
+                assertTrue(database.flush());
+            }
+        }
+        for (final Record record : people.select(AGE.lt(500)).getRecords()) {
+            record.remove();
+        }
+        database.close();
+
+        try (KeyValueDatabase reopened = open(path)) {
+            final Store store = reopened.getStore("people");
+            store.createIndex(AGE, IndexType.SORTED);
+            assertEquals(1500, store.getRecordCount());
+            assertEquals(0, store.select(AGE.lt(500)).getRecordCount());
+            assertEquals(1, store.select(NAME.is("person1999")).getRecordCount());
+        }
+    }
+
+    @Test
+    public void schemaChangesAreTolerated() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        try (KeyValueDatabase database = open(path)) {
+            addPerson(database.getStore("people"), "Alice", 30);
+        }
+        final Field<Double> age = new Field<>(Type.REAL, "age");
+        try (KeyValueDatabase database = new KeyValueDatabase(path)) {
+            database.registerStore("people", NAME, age);
+            final Record alice = database.getStore("people").getRecords().get(0);
+            assertEquals("Alice", alice.getValue(NAME));
+            assertFalse(alice.hasModel(age));
+        }
+    }
+
+    @Test
+    public void removalRacingWithSaveIsNotUndone() throws Exception {
+        final Path path = this.folder.getRoot().toPath();
+        final List<UUID> present = new ArrayList<>();
+        final List<UUID> removed = new ArrayList<>();
+        try (KeyValueDatabase database = open(path)) {
+            final Store store = database.getStore("people");
+            for (int i = 0; i < 200; i++) {
+                final Record record = addPerson(store, "person" + i, i);
+                final CountDownLatch started = new CountDownLatch(1);
+                final Thread saver = new Thread(() -> {
+                    started.countDown();
+                    for (int j = 0; j < 50; j++) {
+                        record.save();
+                    }
+                });
+                saver.start();
+                started.await();
+                store.removeRecord(record.getId());
+                saver.join();
+                (store.getRecordById(record.getId()) != null ? present : removed)
+                    .add(record.getId());
+            }
+        }
+        try (KeyValueDatabase database = open(path)) {
+            final Store store = database.getStore("people");
+            for (final UUID id : present) {
+                assertNotNull(store.getRecordById(id));
+            }
+            for (final UUID id : removed) {
+                assertNull(store.getRecordById(id));
+            }
+        }
+    }
+
+    @Test
+    public void openSelectsBackendByKind() {
+        final Path path = this.folder.getRoot().toPath();
+        assertTrue(Database.open("json", path) instanceof JsonDatabase);
+        assertTrue(Database.open("kv", path.resolve("kv")) instanceof KeyValueDatabase);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void openRejectsUnknownKind() {
+        Database.open("nosql", this.folder.getRoot().toPath());
+    }
+
+    private static KeyValueDatabase open(final Path path) {
+        final KeyValueDatabase database = new KeyValueDatabase(path);
+        database.registerStore("people", NAME, AGE, OWNER);
+        database.registerStore("pets", NAME, AGE);
+        return database;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import com.kniazkov.widgets.common.Listener;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static com.kniazkov.widgets.db.People.addPerson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LiveQuery live queries}.
+ */
+public final class LiveQueryTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Store store;
+
+    private final List<String> log = new ArrayList<>();
+
+    private final Listener<RecordChange> logger =
+        change -> this.log.add(change.getKind() + " " + change.getRecord().getValue(NAME));
+
+    @Before
+    public void createStore() {
+        this.store = new JsonDatabase(this.folder.getRoot().toPath())
+            .registerStore("people", NAME, AGE)
+            .getStore("people");
+    }
+
+    @Test
+    public void reportsInsertUpdateAndDelete() {
+        final Record alice = addPerson(this.store, "Alice", 30);
+        addPerson(this.store, "Bob", 10);
+        final LiveQuery adults = this.store.liveSelect(AGE.gt(17));
+        adults.addListener(this.logger);
+        assertEquals(1, adults.getRecordCount());
+
+        final Record carol = addPerson(this.store, "Carol", 40);
+        final Record edit = alice.edit();
+        edit.setValue(AGE, 31);
+        edit.save();
+        carol.setValue(AGE, 12);
+        carol.save();
+        alice.remove();
+        addPerson(this.store, "Dave", 5);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("INSERT Carol");
+        expected.add("UPDATE Alice");
+        expected.add("DELETE Carol");
+        expected.add("DELETE Alice");
+        assertEquals(expected, this.log);
+        assertTrue(adults.getRecords().isEmpty());
+    }
+
+    @Test
+    public void closedQueryStopsFollowingChanges() {
+        this.store.createIndex(AGE, IndexType.SORTED);
+        addPerson(this.store, "Alice", 30);
+        final LiveQuery adults = this.store.liveSelect(AGE.gt(17));
+        adults.addListener(this.logger);
+        adults.close();
+        addPerson(this.store, "Bob", 40);
+        assertTrue(this.log.isEmpty());
+        assertEquals(1, adults.getRecordCount());
+    }
+}
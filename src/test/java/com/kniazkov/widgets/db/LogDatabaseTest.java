@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static com.kniazkov.widgets.db.People.addPerson;
+import static com.kniazkov.widgets.db.People.openLog;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the log-structured {@link LogDatabase}.
+ */
+public final class LogDatabaseTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysLogOnLoad() {
+        final Path path = this.folder.getRoot().toPath();
+        final LogDatabase database = openLog(path);
+        final Store store = database.getStore("people");
+        final Record alice = addPerson(store, "Alice", 30);
+        final Record bob = addPerson(store, "Bob", 40);
+        final Record edit = alice.edit();
+        edit.getModel(AGE).setData(31);
+        edit.save();
+        bob.remove();
+        assertTrue(database.close());
+
+        final Store reopened = openLog(path).getStore("people");
+        assertEquals(1, reopened.getRecordCount());
+        final Record loaded = reopened.getRecordById(alice.getId());
+        assertEquals("Alice", loaded.getModel(NAME).getData());
+        assertEquals(Integer.valueOf(31), loaded.getModel(AGE).getData());
+        assertEquals(alice.getTimestamp(), loaded.getTimestamp());
+        assertNull(reopened.getRecordById(bob.getId()));
+    }
+
+    @Test
+    public void compactionReplacesSegmentsWithSnapshot() {
+        final Path path = this.folder.getRoot().toPath();
+        final LogDatabase database = openLog(path);
+        final Store store = database.getStore("people");
+        for (int i = 0; i < 10; i++) {
+            addPerson(store, "person" + i, i);
+        }
+        assertTrue(database.flush());
+        assertTrue(new File(path.toFile(), "people.0.log").exists());
+
+        assertTrue(database.compact());
+        addPerson(store, "late", 100);
+        assertTrue(database.close());
+
+        assertTrue(new File(path.toFile(), "people.json").exists());
+        assertFalse(new File(path.toFile(), "people.0.log").exists());
+        assertTrue(new File(path.toFile(), "people.1.log").exists());
+        final Store reopened = openLog(path).getStore("people");
+        assertEquals(11, reopened.getRecordCount());
+        assertEquals(1, reopened.select(NAME.is("late")).getRecordCount());
+    }
+
+    @Test
+    public void skipsTornLastLine() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        final LogDatabase database = openLog(path);
+        addPerson(database.getStore("people"), "Alice", 30);
+        assertTrue(database.close());
+        try (final FileWriter writer =
+                 new FileWriter(new File(path.toFile(), "people.0.log"), true)) {
+            writer.write("{\"op\": \"put\", \"id\": \"" + UUID.randomUUID() + "\", \"na");
+        }
+
+        final Store reopened = openLog(path).getStore("people");
+        assertEquals(1, reopened.getRecordCount());
+    }
+
+    @Test
+    public void readsSnapshotWrittenByJsonDatabase() {
+        final Path path = this.folder.getRoot().toPath();
+        final JsonDatabase json = new JsonDatabase(path);
+        json.registerStore("people", NAME, AGE);
+        addPerson(json.getStore("people"), "Alice", 30);
+        assertTrue(json.flush());
+
+        final Store store = openLog(path).getStore("people");
+        assertEquals(1, store.select(NAME.is("Alice")).getRecordCount());
+    }
+
+    @Test
+    public void removalRacingWithSaveIsReplayedAsSeenInMemory() throws Exception {
+        final Path path = this.folder.getRoot().toPath();
+        final LogDatabase database = openLog(path);
+        final Store store = database.getStore("people");
+        final List<UUID> present = new ArrayList<>();
+        final List<UUID> removed = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final Record record = addPerson(store, "person" + i, i);
+            final CountDownLatch started = new CountDownLatch(1);
+            final Thread saver = new Thread(() -> {
+                started.countDown();
+                for (int j = 0; j < 50; j++) {
+                    record.save();
+                }
+            });
+            saver.start();
+            started.await();
+            store.removeRecord(record.getId());
+            saver.join();
+            (store.getRecordById(record.getId()) != null ? present : removed)
+                .add(record.getId());
+        }
+        assertTrue(database.close());
+
+        final Store reopened = openLog(path).getStore("people");
+        for (final UUID id : present) {
+            assertTrue(reopened.getRecordById(id) != null);
+        }
+        for (final UUID id : removed) {
+            assertNull(reopened.getRecordById(id));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the embedded {@link LsmEngine}.
+ */
+public final class LsmEngineTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void putGetDeleteAndScan() throws IOException {
+        try (LsmEngine engine = LsmEngine.open(this.folder.getRoot().toPath())) {
+            engine.put(bytes("a/1"), bytes("one"));
+            engine.put(bytes("a/2"), bytes("two"));
+            engine.put(bytes("b/1"), bytes("other"));
+            engine.put(bytes("a/1"), bytes("uno"));
+            engine.delete(bytes("a/2"));
+            assertArrayEquals(bytes("uno"), engine.get(bytes("a/1")));
+            assertNull(engine.get(bytes("a/2")));
+            assertEquals(listOf("a/1=uno"), scan(engine, "a/"));
+            assertEquals(listOf("a/1=uno", "b/1=other"), scan(engine, ""));
+        }
+    }
+
+    @Test
+    public void tablesAndMergesKeepLatestValues() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        try (LsmEngine engine = LsmEngine.open(path, 1024)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 100; i++) {
+                    if ((i + round) % 7 == 0) {
+                        engine.delete(key(i));
+                    } else {
+                        engine.put(key(i), bytes(round + ":" + i));
+                    }
+                }
+                engine.sync();
+            }
+            assertTrue(engine.getTableCount() <= 9);
+        }
+        try (LsmEngine engine = LsmEngine.open(path, 1024)) {
+            int count = 0;
+            for (int i = 0; i < 100; i++) {
+                final byte[] value = engine.get(key(i));
+                if ((i + 19) % 7 == 0) {
+                    assertNull(value);
+                } else {
+                    assertArrayEquals(bytes("19:" + i), value);
+                    count++;
+                }
+            }
+            assertEquals(count, scan(engine, "key").size());
+        }
+    }
+
+    @Test
+    public void mergesRewriteEachTierInsteadOfAllData() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        try (LsmEngine engine = LsmEngine.open(path, 512)) {
+            for (int round = 0; round < 256; round++) {
+                for (int i = 0; i < 10; i++) {
+                    engine.put(key(round * 10 + i), bytes("value of the record " + i));
+                }
+                engine.sync();
+            }
+            assertTrue(engine.getTableCount() <= 16);
+            assertTrue(engine.getWrittenBytes() < 8 * engine.getTableBytes());
+        }
+        try (LsmEngine engine = LsmEngine.open(path, 512)) {
+            assertEquals(2560, scan(engine, "key").size());
+            assertArrayEquals(bytes("value of the record 3"), engine.get(key(13)));
+        }
+    }
+
+    @Test
+    public void logIsReplayedAndTornTailIgnored() throws IOException {
+        final Path path = this.folder.getRoot().toPath();
+        final LsmEngine engine = LsmEngine.open(path);
+        engine.put(bytes("x"), bytes("1"));
+        engine.put(bytes("y"), bytes("2"));
+        engine.sync();
+        engine.put(bytes("z"), bytes("3"));
+        Files.write(path.resolve("wal.log"), new byte[] {0, 0, 0, 42, 1, 2},
+            StandardOpenOption.APPEND);
+
+        try (LsmEngine reopened = LsmEngine.open(path)) {
+            assertArrayEquals(bytes("1"), reopened.get(bytes("x")));
+            assertArrayEquals(bytes("2"), reopened.get(bytes("y")));
+            assertNull(reopened.get(bytes("z")));
+            reopened.put(bytes("z"), bytes("4"));
+        }
+        try (LsmEngine reopened = LsmEngine.open(path)) {
+            assertArrayEquals(bytes("4"), reopened.get(bytes("z")));
+        }
+    }
+
+    private static byte[] key(final int i) {
+        return bytes(String.format("key%05d", i));
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> listOf(final String... items) {
+        final List<String> list = new ArrayList<>();
+        for (final String item : items) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    private static List<String> scan(final LsmEngine engine, final String prefix)
+            throws IOException {
+        final List<String> list = new ArrayList<>();
+        engine.scan(bytes(prefix), (key, value) -> list.add(
+            new String(key, StandardCharsets.UTF_8) + "="
+                + new String(value, StandardCharsets.UTF_8)));
+        return list;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.nio.file.Path;
+
+/**
+ * Schema and helpers shared by the database tests: a "people" store with a name and an age.
+ */
+final class People {
+    static final Field<String> NAME = new Field<>(Type.STRING, "name");
+    static final Field<Integer> AGE = new Field<>(Type.INTEGER, "age");
+
+    private People() {
+    }
+
+    /**
+     * Opens a JSON database in a folder with the "people" store registered.
+     */
+    static JsonDatabase openJson(final Path path) {
+        final JsonDatabase database = new JsonDatabase(path);
+        database.registerStore("people", NAME, AGE);
+        return database;
+    }
+
+    /**
+     * Opens a log-structured database in a folder with the "people" store registered.
+     */
+    static LogDatabase openLog(final Path path) {
+        final LogDatabase database = new LogDatabase(path);
+        database.registerStore("people", NAME, AGE);
+        return database;
+    }
+
+    /**
+     * Creates and saves a person.
+     */
+    static Record addPerson(final Store store, final String name, final int age) {
+        final Record record = store.createRecord();
+        record.setValue(NAME, name);
+        record.setValue(AGE, age);
+        record.save();
+        return record;
+    }
+}
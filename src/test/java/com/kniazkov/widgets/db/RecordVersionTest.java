@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static com.kniazkov.widgets.db.People.addPerson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for record versions, conflict detection and record snapshots.
+ */
+public final class RecordVersionTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Store store;
+
+    @Before
+    public void createStore() {
+        this.store = new JsonDatabase(this.folder.getRoot().toPath())
+            .registerStore("people", NAME, AGE)
+            .getStore("people");
+    }
+
+    @Test
+    public void saveAdvancesVersion() {
+        final Record record = addPerson(this.store, "Alice", 30);
+        final long version = record.getVersion();
+        record.setValue(AGE, 31);
+        record.save();
+        assertEquals(version + 1, record.getVersion());
+    }
+
+    @Test
+    public void secondConcurrentEditConflicts() {
+        final Record record = addPerson(this.store, "Alice", 30);
+        final Record first = record.edit();
+        final Record second = record.edit();
+        first.setValue(AGE, 31);
+        second.setValue(AGE, 40);
+        first.save();
+        try {
+            second.save();
+            fail("Expected a conflict");
+        } catch (final ConflictException exception) {
+            assertEquals(record.getId(), exception.getId());
+        }
+        assertEquals(Integer.valueOf(31), record.getValue(AGE));
+
+        final Record retry = record.edit();
+        retry.setValue(AGE, 40);
+        retry.save();
+        assertEquals(Integer.valueOf(40), record.getValue(AGE));
+    }
+
+    @Test
+    public void keptEditCanBeSavedAgain() {
+        final Record record = addPerson(this.store, "Alice", 30);
+        final Record edit = record.edit();
+        edit.setValue(AGE, 31);
+        edit.save();
+        edit.setValue(AGE, 32);
+        edit.save();
+        assertEquals(Integer.valueOf(32), record.getValue(AGE));
+
+        final Record other = record.edit();
+        other.setValue(AGE, 40);
+        other.save();
+        try {
+            edit.save();
+            fail("Expected a conflict");
+        } catch (final ConflictException exception) {
+            assertEquals(record.getId(), exception.getId());
+        }
+    }
+
+    @Test(expected = ConflictException.class)
+    public void editOfRemovedRecordConflicts() {
+        final Record record = addPerson(this.store, "Alice", 30);
+        final Record edit = record.edit();
+        edit.setValue(AGE, 31);
+        record.remove();
+        edit.save();
+    }
+
+    @Test
+    public void snapshotIsStableWhileStoreChanges() {
+        addPerson(this.store, "Alice", 30);
+        final List<Record> before = this.store.getSnapshot();
+        final Record bob = addPerson(this.store, "Bob", 40);
+        assertEquals(1, before.size());
+        assertEquals(2, this.store.getSnapshot().size());
+        bob.remove();
+        assertEquals(1, this.store.getRecords().size());
+        assertTrue(this.store.getSnapshot().contains(before.get(0)));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for lazy, ordered and paged {@link RecordView record views}.
+ */
+public final class RecordViewTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Store store;
+
+    @Before
+    public void createStore() {
+        this.store = new JsonDatabase(this.folder.getRoot().toPath())
+            .registerStore("people", NAME, AGE)
+            .getStore("people");
+        for (int i = 0; i < 200; i++) {
+            final Record record = this.store.createRecord();
+            record.setValue(NAME, "person" + i);
+            record.setValue(AGE, i % 50);
+            record.save();
+        }
+        this.store.createIndex(AGE, IndexType.SORTED);
+    }
+
+    @Test
+    public void defaultViewIsOrderedById() {
+        final List<Record> expected = this.store.getRecords();
+        expected.sort(Comparator.comparing(Record::getId));
+        assertEquals(expected, this.store.view().getRecords());
+        assertEquals(200, this.store.view().getRecordCount());
+    }
+
+    @Test
+    public void orderByFollowsSortedIndex() {
+        final List<Record> expected = this.sortedByAge();
+        assertEquals(expected, this.store.orderBy(AGE).getRecords());
+        final List<Record> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertEquals(reversed, this.store.view().orderByDescending(AGE).getRecords());
+    }
+
+    @Test
+    public void keysetPagesCoverAllRecordsOnce() {
+        final List<Record> expected = this.sortedByAge();
+        final RecordView pages = this.store.orderBy(AGE).limit(30);
+        final List<Record> collected = new ArrayList<>();
+        List<Record> page = pages.getRecords();
+        while (!page.isEmpty()) {
+            collected.addAll(page);
+            page = pages.after(page.get(page.size() - 1)).getRecords();
+        }
+        assertEquals(expected, collected);
+    }
+
+    @Test
+    public void offsetLimitAndFilterCombine() {
+        final List<Record> expected = new ArrayList<>();
+        for (final Record record : this.sortedByAge()) {
+            if (record.getValue(AGE) >= 10) {
+                expected.add(record);
+            }
+        }
+        final List<Record> page = this.store.orderBy(AGE)
+            .where(AGE.gt(9)).offset(5).limit(7).getRecords();
+        assertEquals(expected.subList(5, 12), page);
+    }
+
+    @Test
+    public void hugeLimitsDoNotOverflow() {
+        assertEquals(200, this.store.view().limit(Integer.MAX_VALUE).getRecords().size());
+        assertEquals(195,
+            this.store.view().offset(5).limit(Integer.MAX_VALUE).getRecords().size());
+        assertEquals(RecordView.CHUNK_SIZE,
+            RecordView.getChunkSize(5L + Integer.MAX_VALUE));
+        assertEquals(3, RecordView.getChunkSize(3));
+        assertEquals(1, RecordView.getChunkSize(0));
+        assertEquals(RecordView.CHUNK_SIZE, RecordView.getChunkSize(-1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void orderByRequiresSortedIndex() {
+        this.store.orderBy(NAME);
+    }
+
+    private List<Record> sortedByAge() {
+        final List<Record> list = this.store.getRecords();
+        list.sort(Comparator.comparing((Record record) -> record.getValue(AGE))
+            .thenComparing(Record::getId));
+        return list;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.kniazkov.widgets.db.People.AGE;
+import static com.kniazkov.widgets.db.People.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for secondary indexes and indexed selection in {@link Store}.
+ */
+public final class StoreIndexTest {
+    private static final Field<Boolean> ACTIVE = new Field<>(Type.BOOLEAN, "active");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Store store;
+
+    @Before
+    public void createStore() {
+        this.store = new JsonDatabase(this.folder.getRoot().toPath())
+            .registerStore("people", NAME, AGE, ACTIVE)
+            .getStore("people");
+        for (int i = 0; i < 20; i++) {
+            this.addPerson("person" + (i % 5), i, i % 2 == 0);
+        }
+    }
+
+    @Test
+    public void indexedSelectionMatchesFullScan() {
+        final List<Filter> filters = new ArrayList<>();
+        filters.add(NAME.is("person3"));
+        filters.add(AGE.lt(7));
+        filters.add(AGE.gt(15));
+        filters.add(AGE.between(4, 9));
+        filters.add(AGE.between(9, 4));
+        filters.add(NAME.is("person1").and(AGE.between(0, 10)));
+        filters.add(ACTIVE.is(true).and(AGE.lt(10)));
+        final List<List<Record>> expected = new ArrayList<>();
+        for (final Filter filter : filters) {
+            expected.add(this.store.select(filter).getRecords());
+        }
+
+        this.store.createIndex(NAME, IndexType.HASH).createIndex(AGE, IndexType.SORTED);
+
+        assertEquals(IndexType.SORTED, this.store.getIndexType(AGE));
+        assertNull(this.store.getIndexType(ACTIVE));
+        for (int i = 0; i < filters.size(); i++) {
+            assertEquals(expected.get(i), this.store.select(filters.get(i)).getRecords());
+        }
+        assertEquals(4, this.store.select(NAME.is("person3")).getRecordCount());
+        assertEquals(6, this.store.select(AGE.between(4, 9)).getRecordCount());
+        assertEquals(2, this.store.select(NAME.is("person1").and(AGE.between(0, 10)))
+            .getRecordCount());
+    }
+
+    @Test
+    public void indexesFollowSavedChangesAndRemovals() {
+        this.store.createIndex(NAME, IndexType.HASH).createIndex(AGE, IndexType.SORTED);
+        final Record record = this.store.select(AGE.is(3)).getRecords().get(0);
+
+        final Record copy = record.edit();
+        copy.getModel(AGE).setData(100);
+        copy.getModel(NAME).setData("renamed");
+        copy.save();
+
+        assertEquals(0, this.store.select(AGE.is(3)).getRecordCount());
+        assertEquals(1, this.store.select(AGE.gt(99)).getRecordCount());
+        assertEquals(1, this.store.select(NAME.is("renamed")).getRecordCount());
+
+        final Record created = this.store.createRecord();
+        assertEquals(0, this.store.select(NAME.is("")).getRecordCount());
+        created.save();
+        assertEquals(1, this.store.select(NAME.is("")).getRecordCount());
+
+        record.remove();
+        assertEquals(0, this.store.select(NAME.is("renamed")).getRecordCount());
+        assertEquals(20, this.store.getRecordCount());
+        assertEquals(Integer.valueOf(20), this.store.getRecordCounter().getData());
+    }
+
+    private void addPerson(final String name, final int age, final boolean active) {
+        final Record record = this.store.createRecord();
+        record.getModel(NAME).setData(name);
+        record.getModel(AGE).setData(age);
+        record.getModel(ACTIVE).setData(active);
+        record.save();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.Listener;
+import com.kniazkov.widgets.model.Model;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link ImageJobs} worker pool.
+ */
+public final class ImageJobsTest {
+    @Test
+    public void queuedJobsRunByPriorityThenInOrder() throws Exception {
+        final ImageJobs jobs = new ImageJobs(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<ImageSource> blocker = jobs.submit(() -> {
+            await(release);
+            return image();
+        });
+        final List<CompletableFuture<ImageSource>> futures = Arrays.asList(
+            jobs.submit(ImageJobs.Priority.LOW, record(order, "low")),
+            jobs.submit(ImageJobs.Priority.NORMAL, record(order, "normal 1")),
+            jobs.submit(ImageJobs.Priority.HIGH, record(order, "high")),
+            jobs.submit(ImageJobs.Priority.NORMAL, record(order, "normal 2"))
+        );
+        assertEquals(4, jobs.getQueueLength());
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        for (final CompletableFuture<ImageSource> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).toString()
+                .startsWith(ImageStore.URL_PREFIX));
+        }
+        assertEquals(Arrays.asList("high", "normal 1", "normal 2", "low"), order);
+        jobs.shutdown();
+    }
+
+    @Test
+    public void cancelledJobIsRemovedFromQueue() throws Exception {
+        final ImageJobs jobs = new ImageJobs(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<ImageSource> blocker = jobs.submit(() -> {
+            await(release);
+            return image();
+        });
+        final CompletableFuture<ImageSource> cancelled = jobs.submit(record(order, "cancelled"));
+        final CompletableFuture<ImageSource> kept = jobs.submit(record(order, "kept"));
+        final Model<ImageSource> model = ImageJobs.track(cancelled, ImageSource.INVALID);
+
+        assertTrue(cancelled.cancel(false));
+        assertEquals(1, jobs.getQueueLength());
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        kept.get(5, TimeUnit.SECONDS);
+        assertEquals(Collections.singletonList("kept"), order);
+        assertSame(ImageSource.INVALID, model.getData());
+        jobs.shutdown();
+    }
+
+    @Test
+    public void modelSwitchesFromPlaceholderToResult() throws Exception {
+        final ImageJobs jobs = new ImageJobs(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ImageSource placeholder = ImageSource.fromHyperlink("waiting.svg");
+        final CompletableFuture<ImageSource> future = jobs.submit(() -> {
+            await(release);
+            return image();
+        });
+        final Model<ImageSource> model = ImageJobs.track(future, placeholder);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        final Listener<ImageSource> loadedListener = source -> loaded.countDown();
+        model.addListener(loadedListener);
+        assertSame(placeholder, model.getData());
+
+        release.countDown();
+        await(loaded);
+        assertSame(future.get(5, TimeUnit.SECONDS), model.getData());
+
+        final CountDownLatch fail = new CountDownLatch(1);
+        final CompletableFuture<ImageSource> failed = jobs.submit(() -> {
+            await(fail);
+            throw new IOException("broken image");
+        });
+        final Model<ImageSource> broken = ImageJobs.track(failed, placeholder);
+        final CountDownLatch rejected = new CountDownLatch(1);
+        final Listener<ImageSource> rejectedListener = source -> rejected.countDown();
+        broken.addListener(rejectedListener);
+        fail.countDown();
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+        } catch (final ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof IOException);
+        }
+        await(rejected);
+        assertSame(ImageSource.INVALID, broken.getData());
+        jobs.shutdown();
+    }
+
+    private static ImageJobs.Task record(final List<String> order, final String name) {
+        return () -> {
+            order.add(name);
+            return image();
+        };
+    }
+
+    private static BufferedImage image() {
+        return new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.UploadedFile;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import javax.imageio.ImageIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link ImageLoader}.
+ */
+public final class ImageLoaderTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void largeImagesAreSubsampled() throws Exception {
+        final byte[] png = encode(image(800, 400), "PNG");
+
+        final BufferedImage full = ImageLoader.load("image/png", png);
+        assertEquals(800, full.getWidth());
+        final BufferedImage reduced = ImageLoader.load("image/png", png, 100);
+        assertEquals(200, reduced.getWidth());
+        assertEquals(100, reduced.getHeight());
+        assertEquals(full.getRGB(4, 4), reduced.getRGB(1, 1));
+        assertEquals(800, ImageLoader.load("image/png", png, 300).getWidth());
+    }
+
+    @Test
+    public void filesAreLoadedWithoutReadingThemIntoArrays() throws Exception {
+        final byte[] png = encode(image(120, 60), "PNG");
+        final File named = this.folder.newFile("picture.png");
+        Files.write(named.toPath(), png);
+        final File unnamed = this.folder.newFile("picture.data");
+        Files.write(unnamed.toPath(), png);
+
+        assertEquals(120, ImageLoader.load(named).getWidth());
+        assertEquals(60, ImageLoader.load(unnamed, 30).getWidth());
+
+        final File stored = this.folder.newFile("upload.tmp");
+        Files.write(stored.toPath(), png);
+        final UploadedFile upload = new UploadedFile("picture.png", "image/png",
+            stored.toPath(), png.length);
+        assertEquals(60, ImageLoader.load(upload, 0).getHeight());
+        upload.delete();
+    }
+
+    @Test
+    public void exifOrientationIsReadFromJpegHeader() throws Exception {
+        final byte[] jpeg = encode(image(200, 100), "JPEG");
+        final byte[] exif = {
+            (byte) 0xFF, (byte) 0xE1, 0, 34,
+            'E', 'x', 'i', 'f', 0, 0,
+            'M', 'M', 0, 42, 0, 0, 0, 8,
+            0, 1,
+            0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0,
+            0, 0, 0, 0
+        };
+        final byte[] rotated = new byte[jpeg.length + exif.length];
+        System.arraycopy(jpeg, 0, rotated, 0, 2);
+        System.arraycopy(exif, 0, rotated, 2, exif.length);
+        System.arraycopy(jpeg, 2, rotated, 2 + exif.length, jpeg.length - 2);
+
+        final BufferedImage image = ImageLoader.load("image/jpeg", rotated, 50);
+        assertEquals(50, image.getWidth());
+        assertEquals(100, image.getHeight());
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownFormatIsRejected() throws Exception {
+        ImageLoader.load("image/png", new byte[] {1, 2, 3, 4});
+    }
+
+    private static BufferedImage image(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x % 256) << 16 | (y % 256) << 8 | 0x40);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(final BufferedImage image, final String format)
+            throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, stream);
+        return stream.toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.Color;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ImageProcessor} and {@link ImagePipeline}.
+ */
+public final class ImageProcessorTest {
+    @Test
+    public void copiesPreservePixelsOfAnyFormat() {
+        final BufferedImage argb = pattern(50, 40, BufferedImage.TYPE_INT_ARGB);
+        final BufferedImage sub = argb.getSubimage(10, 5, 20, 30);
+        final BufferedImage copy = ImageProcessor.copyAsARGB(sub);
+        assertTrue(ImageProcessor.isPlain(copy));
+        assertFalse(ImageProcessor.isPlain(sub));
+        assertPixels(sub, copy);
+
+        final BufferedImage rgb = pattern(30, 20, BufferedImage.TYPE_3BYTE_BGR);
+        assertPixels(rgb, ImageProcessor.copyAsARGB(rgb));
+        assertPixels(argb.getSubimage(5, 0, 40, 40), ImageProcessor.cropToSquare(argb));
+    }
+
+    @Test
+    public void largeImagesAreRecoloredInBands() {
+        final int width = 700;
+        final int height = 500;
+        final BufferedImage image = new BufferedImage(width, height,
+            BufferedImage.TYPE_INT_ARGB);
+        final int black = Color.BLACK.pack();
+        final int halfBlack = 0x80000000;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x + y) % 3 == 0 ? black : (x + y) % 3 == 1 ? halfBlack : -1);
+            }
+        }
+
+        final BufferedImage exact = ImageProcessor.replaceColor(image, Color.BLACK, Color.RED);
+        final BufferedImage any = ImageProcessor.replaceColorIgnoreAlpha(image, Color.BLACK,
+            Color.RED);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int pixel = image.getRGB(x, y);
+                assertEquals(pixel == black ? Color.RED.pack() : pixel, exact.getRGB(x, y));
+                assertEquals(pixel == black ? Color.RED.pack()
+                    : pixel == halfBlack ? 0x80FF0000 : pixel, any.getRGB(x, y));
+            }
+        }
+        assertEquals(black, image.getRGB(0, 0));
+    }
+
+    @Test
+    public void pipelineCopiesOnlyWhenNeeded() {
+        final BufferedImage image = pattern(60, 40, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(30, 20, Color.BLACK.pack());
+
+        final BufferedImage result = ImagePipeline.of(image)
+            .cropToSquare()
+            .resizeToFit(100)
+            .replaceColor(Color.BLACK, Color.WHITE)
+            .toImage();
+        assertEquals(40, result.getWidth());
+        assertEquals(Color.WHITE.pack(), result.getRGB(20, 20));
+        assertEquals(Color.BLACK.pack(), image.getRGB(30, 20));
+        assertNotSame(image, result);
+
+        final BufferedImage small = ImagePipeline.of(image).resizeToFit(30).toImage();
+        assertEquals(30, small.getWidth());
+        assertEquals(20, small.getHeight());
+    }
+
+    private static BufferedImage pattern(final int width, final int height, final int type) {
+        final BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | x * 4 << 16 | y * 4 << 8 | (x + y));
+            }
+        }
+        return image;
+    }
+
+    private static void assertPixels(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the content-addressed {@link ImageStore}.
+ */
+public final class ImageStoreTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameContentHasSameUrl() {
+        final ImageStore store = new ImageStore();
+        final String first = store.put("image/png", new byte[] {1, 2, 3});
+        final String second = store.put("image/png", new byte[] {1, 2, 3});
+        final String other = store.put("image/png", new byte[] {1, 2, 4});
+
+        assertEquals(first, second);
+        assertFalse(first.equals(other));
+        assertTrue(first.startsWith(ImageStore.URL_PREFIX));
+        assertEquals(ImageStore.URL_PREFIX.length() + 64, first.length());
+        assertEquals(6, store.getMemorySize());
+        assertEquals("image/png", store.get(first).getType());
+        assertArrayEquals(new byte[] {1, 2, 3}, store.get(first).getData());
+        assertNull(store.get(ImageStore.URL_PREFIX + "0123"));
+    }
+
+    @Test
+    public void leastRecentlyUsedImagesAreEvicted() {
+        final ImageStore store = new ImageStore(8, null);
+        final String first = store.put("image/png", new byte[4]);
+        final String second = store.put("image/png", new byte[] {1, 1, 1, 1});
+        store.get(first);
+        final String third = store.put("image/png", new byte[] {2, 2, 2, 2});
+
+        assertTrue(store.contains(first));
+        assertFalse(store.contains(second));
+        assertTrue(store.contains(third));
+        assertNull(store.get(second));
+        assertEquals(8, store.getMemorySize());
+    }
+
+    @Test
+    public void evictedImagesSpillToDisk() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        final ImageStore store = new ImageStore(4, directory);
+        final String first = store.put("image/gif", new byte[] {1, 2, 3, 4});
+        store.put("image/png", new byte[] {5, 6, 7, 8});
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertTrue(store.contains(first));
+        final ImageStore.Image image = store.get(first);
+        assertEquals("image/gif", image.getType());
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, image.getData());
+        assertEquals(4, store.getMemorySize());
+    }
+
+    @Test
+    public void spillDirectoryIsBoundedByDeletingLeastRecentlyUsedFiles() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        final ImageStore store = new ImageStore(4, directory, 8);
+        final String first = store.put("image/png", new byte[] {1, 1, 1, 1});
+        final String second = store.put("image/png", new byte[] {2, 2, 2, 2});
+        final String third = store.put("image/png", new byte[] {3, 3, 3, 3});
+        final String fourth = store.put("image/png", new byte[] {4, 4, 4, 4});
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        assertEquals(8, store.getSpilledSize());
+        assertFalse(store.contains(first));
+        assertNull(store.get(first));
+        assertTrue(store.contains(second));
+        assertTrue(store.contains(third));
+        assertTrue(store.contains(fourth));
+    }
+
+    @Test
+    public void bufferedImageIsEncodedOnceAndRestoredAfterEviction() {
+        final ImageStore previous = ImageStore.getInstance();
+        final ImageStore store = new ImageStore(1, null);
+        ImageStore.setInstance(store);
+        try {
+            final BufferedImage image = new BufferedImage(3, 3, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(1, 1, 0xFFFF0000);
+            final ImageSource source = ImageSource.fromImage(image);
+            final String url = source.toString();
+            assertEquals(url, source.toString());
+            assertEquals(url, ImageSource.fromImage(image).toString());
+
+            store.put("image/png", new byte[] {1});
+            assertFalse(store.contains(url));
+            assertEquals(url, source.toString());
+            assertTrue(store.contains(url));
+        } finally {
+            ImageStore.setInstance(previous);
+        }
+    }
+
+    @Test
+    public void droppedImageOfLiveSourceIsEncodedAgainOnRequest() {
+        final ImageStore previous = ImageStore.getInstance();
+        final ImageStore store = new ImageStore(1, null);
+        ImageStore.setInstance(store);
+        try {
+            final BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(2, 2, 0xFF00FF00);
+            final ImageSource source = ImageSource.fromImage(image);
+            final String url = source.toString();
+            final byte[] data = store.get(url).getData();
+
+            ImageSource.fromImage(new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB))
+                .toString();
+            assertFalse(store.contains(url));
+            final ImageStore.Image restored = store.get(url);
+            assertEquals("image/png", restored.getType());
+            assertArrayEquals(data, restored.getData());
+            assertTrue(store.contains(url));
+
+            final String raw = store.put("image/png", new byte[] {1, 2});
+            store.put("image/png", new byte[] {3, 4});
+            assertNull(store.get(raw));
+        } finally {
+            ImageStore.setInstance(previous);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.AbsoluteSize;
+import com.kniazkov.widgets.common.UploadedFile;
+import com.kniazkov.widgets.view.ImageWidget;
+import com.kniazkov.widgets.view.RootWidget;
+import com.kniazkov.widgets.view.Section;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ImageVariants}.
+ */
+public final class ImageVariantsTest {
+    private static final List<ImageVariants.Size> SIZES = Arrays.asList(
+        new ImageVariants.Size("small", 64, 0.8f),
+        new ImageVariants.Size("medium", 256, 0.8f),
+        ImageVariants.Size.ORIGINAL
+    );
+
+    @Test
+    public void variantsAreResizedAndEncoded() throws Exception {
+        final ImageJobs jobs = new ImageJobs(2);
+        final ImageVariants variants = ImageVariants.create(jobs, ImageJobs.Priority.NORMAL,
+            photo(600, 300), SIZES).get(5, TimeUnit.SECONDS);
+
+        assertEquals(64, decode(variants.get("small")).getWidth());
+        assertEquals(128, decode(variants.get("medium")).getHeight());
+        assertEquals(600, decode(variants.get("original")).getWidth());
+        assertEquals("image/jpeg", stored(variants.get("small")).getType());
+        assertNull(variants.get("huge"));
+
+        final BufferedImage transparent = new BufferedImage(100, 100,
+            BufferedImage.TYPE_INT_ARGB);
+        final ImageVariants png = ImageVariants.create(jobs, ImageJobs.Priority.NORMAL,
+            transparent, SIZES).get(5, TimeUnit.SECONDS);
+        assertEquals("image/png", stored(png.get("small")).getType());
+        jobs.shutdown();
+    }
+
+    @Test
+    public void variantIsSelectedBySizeAndDevice() throws Exception {
+        final ImageJobs jobs = new ImageJobs(2);
+        final ImageVariants variants = ImageVariants.create(jobs, ImageJobs.Priority.NORMAL,
+            photo(600, 300), SIZES).get(5, TimeUnit.SECONDS);
+        jobs.shutdown();
+
+        assertSame(variants.get("small"), variants.select(32, false));
+        assertSame(variants.get("medium"), variants.select(33, false));
+        assertSame(variants.get("original"), variants.select(200, false));
+        assertSame(variants.get("original"), variants.select(0, false));
+        assertSame(variants.get("medium"), variants.select(200, true));
+        assertSame(variants.get("medium"), variants.select(0, true));
+        assertSame(variants.getLargest(), variants.get("original"));
+
+        final RootWidget root = new RootWidget();
+        final Section section = new Section();
+        root.add(section);
+        final ImageWidget image = new ImageWidget(variants);
+        section.add(image);
+        image.setWidth(30);
+        assertEquals(variants.get("small").toString(), image.getSource().toString());
+        image.setWidth(AbsoluteSize.UNDEFINED);
+        assertEquals(variants.get("original").toString(), image.getSource().toString());
+        root.setMobile(true);
+        assertEquals(variants.get("medium").toString(), image.getSource().toString());
+    }
+
+    @Test
+    public void variantsOfUploadedFilesAreCached() throws Exception {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ImageIO.write(photo(300, 200), "PNG", stream);
+        final ImageJobs jobs = new ImageJobs(2);
+        final CompletableFuture<ImageVariants> first = ImageVariants.load(jobs,
+            ImageJobs.Priority.HIGH, new UploadedFile("a.png", "image/png", stream.toByteArray()),
+            SIZES);
+        final CompletableFuture<ImageVariants> second = ImageVariants.load(jobs,
+            ImageJobs.Priority.HIGH, new UploadedFile("b.png", "image/png", stream.toByteArray()),
+            SIZES);
+
+        assertSame(first, second);
+        assertEquals(300, decode(first.get(5, TimeUnit.SECONDS).getLargest()).getWidth());
+        jobs.shutdown();
+    }
+
+    @Test
+    public void defaultSizesDecodeUploadsAtReducedResolution() throws Exception {
+        assertFalse(ImageVariants.DEFAULT_SIZES.contains(ImageVariants.Size.ORIGINAL));
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ImageIO.write(photo(2600, 1300), "PNG", stream);
+        final ImageJobs jobs = new ImageJobs(2);
+        final ImageVariants variants = ImageVariants.load(jobs, ImageJobs.Priority.HIGH,
+            new UploadedFile("big.png", "image/png", stream.toByteArray()),
+            ImageVariants.DEFAULT_SIZES).get(10, TimeUnit.SECONDS);
+        jobs.shutdown();
+
+        assertEquals(1280, decode(variants.getLargest()).getWidth());
+        assertEquals(256, decode(variants.get("thumbnail")).getWidth());
+    }
+
+    @Test
+    public void variantsKeepOnlyEncodedBytes() throws Exception {
+        final ImageStore previous = ImageStore.getInstance();
+        final ImageStore store = new ImageStore(1, null);
+        ImageStore.setInstance(store);
+        try {
+            final ImageJobs jobs = new ImageJobs(2);
+            final ImageVariants variants = ImageVariants.create(jobs, ImageJobs.Priority.NORMAL,
+                photo(300, 200), SIZES).get(5, TimeUnit.SECONDS);
+            jobs.shutdown();
+            final ImageSource small = variants.get("small");
+            assertTrue(small instanceof EncodedImageSource);
+
+            final String url = small.toString();
+            final byte[] data = store.get(url).getData();
+            store.put("image/png", new byte[] {1});
+            assertFalse(store.contains(url));
+            assertArrayEquals(data, store.get(url).getData());
+        } finally {
+            ImageStore.setInstance(previous);
+        }
+    }
+
+    @Test
+    public void cacheIsBoundedByEncodedSize() throws Exception {
+        final ImageJobs jobs = new ImageJobs(2);
+        final List<UploadedFile> files = Arrays.asList(upload(photo(120, 80)),
+            upload(photo(80, 120)));
+        final CompletableFuture<ImageVariants> first = ImageVariants.load(jobs,
+            ImageJobs.Priority.HIGH, files.get(0), SIZES);
+        first.get(5, TimeUnit.SECONDS);
+        final CompletableFuture<ImageVariants> second = ImageVariants.load(jobs,
+            ImageJobs.Priority.HIGH, files.get(1), SIZES);
+        second.get(5, TimeUnit.SECONDS);
+
+        ImageVariants.trimCache(0);
+        assertSame(second, ImageVariants.load(jobs, ImageJobs.Priority.HIGH, files.get(1),
+            SIZES));
+        assertNotSame(first, ImageVariants.load(jobs, ImageJobs.Priority.HIGH, files.get(0),
+            SIZES));
+        jobs.shutdown();
+    }
+
+    private static UploadedFile upload(final BufferedImage image) throws Exception {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", stream);
+        return new UploadedFile("photo.png", "image/png", stream.toByteArray());
+    }
+
+    private static BufferedImage photo(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        return image;
+    }
+
+    private static ImageStore.Image stored(final ImageSource source) {
+        return ImageStore.getInstance().get(source.toString());
+    }
+
+    private static BufferedImage decode(final ImageSource source) throws Exception {
+        return ImageIO.read(new ByteArrayInputStream(stored(source).getData()));
+    }
+}
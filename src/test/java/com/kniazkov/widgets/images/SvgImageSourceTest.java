@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.images;
+
+import com.kniazkov.widgets.common.Color;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SvgImageSource} and {@link MonochromaticImageSource}.
+ */
+public final class SvgImageSourceTest {
+    @Test
+    public void onlyUnsafeCharactersAreEncoded() {
+        assertEquals("%3Csvg%20width='10'%3E%3Ctext%3E50%25%20%23a%C3%A9%F0%9F%98%80"
+                + "%3C/text%3E%3C/svg%3E",
+            SvgImageSource.encode("<svg width='10'><text>50% #aé😀</text></svg>"));
+        assertEquals("a%0A%09%22%7B%7D", SvgImageSource.encode("a\n\t\"{}"));
+    }
+
+    @Test
+    public void dataUrlIsBuiltOnceAndDecodesBack() throws Exception {
+        final String svg = "<svg xmlns='http://www.w3.org/2000/svg'><text>é + 1</text></svg>";
+        final AtomicInteger calls = new AtomicInteger();
+        final SvgImageSource source = new SvgImageSource() {
+            @Override
+            protected String getSvg() {
+                calls.incrementAndGet();
+                return svg;
+            }
+        };
+        final String url = source.toString();
+        assertSame(url, source.toString());
+        assertEquals(1, calls.get());
+        assertTrue(url.startsWith("data:image/svg+xml,"));
+        final String encoded = url.substring("data:image/svg+xml,".length())
+            .replace("+", "%2B");
+        assertEquals(svg, URLDecoder.decode(encoded, StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void monochromaticImagesAreShared() {
+        final MonochromaticImageSource first = MonochromaticImageSource.of(Color.RED, 8, 4);
+        assertSame(first, MonochromaticImageSource.of(new Color(255, 0, 0), 8, 4));
+        assertNotSame(first, MonochromaticImageSource.of(Color.RED, 4, 8));
+        assertNotSame(first, MonochromaticImageSource.of(Color.BLUE, 8, 4));
+        assertEquals(new MonochromaticImageSource(Color.RED, 8, 4).toString(),
+            first.toString());
+        assertTrue(first.toString().contains("width='8'%20height='4'"));
+    }
+}
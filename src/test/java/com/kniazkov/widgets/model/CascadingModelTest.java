@@ -84,4 +84,34 @@ public final class CascadingModelTest {
         assertTrue(derivedAfterFork instanceof StringModel);
         assertEquals("second", derivedAfterFork.getData());
     }
+
+    @Test
+    public void detachesFromBaseWhenLastListenerIsRemoved() {
+        final StringModel base = new StringModel("base");
+        final Model<String> cascading = base.asCascading();
+        final Listener<String> listener = data -> { };
+
+        assertEquals(0, base.getListenerCount());
+        cascading.addListener(listener);
+        assertEquals(1, base.getListenerCount());
+        cascading.removeListener(listener);
+        assertEquals(0, base.getListenerCount());
+
+        assertTrue(base.setData("shared"));
+        assertEquals("shared", cascading.getData());
+    }
+
+    @Test
+    public void bindingUnbindStopsUpdates() {
+        final StringModel base = new StringModel("base");
+        final List<String> observed = new ArrayList<>();
+        final Binding<String> binding = new Binding<>(base.asCascading(), observed::add);
+
+        assertEquals(1, base.getListenerCount());
+        binding.unbind();
+        assertEquals(0, base.getListenerCount());
+        assertTrue(base.setData("changed"));
+
+        assertEquals(Arrays.asList("base"), observed);
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.model;
+
+import com.kniazkov.widgets.common.Listener;
+import com.kniazkov.widgets.view.State;
+import com.kniazkov.widgets.view.TextWidget;
+import com.kniazkov.widgets.view.TextWidgetStyle;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for listener counting and {@link ModelDiagnostics}.
+ */
+public final class ModelDiagnosticsTest {
+    @Test
+    public void countsListenersOfModelsAndWrappers() {
+        final StringModel model = new StringModel("text");
+        final IntModel counter = new IntModel();
+        final SynchronizedModel<String> wrapper = model.asSynchronized();
+        final Listener<String> listener = data -> { };
+
+        assertEquals(0, model.getListenerCount());
+        wrapper.addListener(listener);
+        model.addListener(listener);
+        counter.addIntListener(value -> { });
+        counter.addListener(value -> { });
+
+        assertEquals(1, wrapper.getListenerCount());
+        assertEquals(2, model.getListenerCount());
+        assertEquals(2, counter.getListenerCount());
+        assertEquals(-1, new MutableTestModel<>("text", true).getListenerCount());
+    }
+
+    @Test
+    public void flagsModelsWhoseListenerCountKeepsGrowing() {
+        final StringModel leaking = new StringModel("leaking");
+        final StringModel stable = new StringModel("stable");
+        final List<Listener<String>> listeners = new ArrayList<>();
+        final int threshold = ModelDiagnostics.getGrowthThreshold();
+        ModelDiagnostics.setGrowthThreshold(3);
+        ModelDiagnostics.watch(leaking, "leaking");
+        ModelDiagnostics.watch(stable, "stable");
+        try {
+            for (int sample = 0; sample < 4; sample++) {
+                final Listener<String> listener = createListener();
+                listeners.add(listener);
+                leaking.addListener(listener);
+                final Listener<String> temporary = createListener();
+                stable.addListener(temporary);
+                ModelDiagnostics.sample();
+                stable.removeListener(temporary);
+            }
+            assertEquals(1, ModelDiagnostics.getGrowingModels().size());
+            final ModelDiagnostics.Report report = ModelDiagnostics.getGrowingModels().get(0);
+            assertEquals("leaking", report.getName());
+            assertEquals(4, report.getListenerCount());
+
+            leaking.removeListener(listeners.get(0));
+            ModelDiagnostics.sample();
+            assertTrue(ModelDiagnostics.getGrowingModels().isEmpty());
+        } finally {
+            ModelDiagnostics.unwatch(leaking);
+            ModelDiagnostics.unwatch(stable);
+            ModelDiagnostics.setGrowthThreshold(threshold);
+        }
+        for (final ModelDiagnostics.Report report : ModelDiagnostics.getReports()) {
+            assertFalse(report.getName().equals("leaking"));
+        }
+    }
+
+    @Test
+    public void defaultStyleModelsAreWatched() {
+        final TextWidgetStyle style = TextWidget.getDefaultStyle();
+        final String name = "TextWidgetStyle." + State.NORMAL + ".color";
+        final int before = findReport(name).getListenerCount();
+        final TextWidgetStyle derived = style.derive();
+        assertEquals(before, findReport(name).getListenerCount());
+        assertNotNull(derived);
+    }
+
+    /**
+     * Samples all watched models and returns the report with the specified name.
+     *
+     * @param name the model name
+     * @return the report
+     */
+    private static ModelDiagnostics.Report findReport(final String name) {
+        for (final ModelDiagnostics.Report report : ModelDiagnostics.sample()) {
+            if (report.getName().equals(name)) {
+                return report;
+            }
+        }
+        throw new AssertionError("Model is not watched: " + name);
+    }
+
+    /**
+     * Creates a distinct do-nothing listener (non-capturing lambdas may be shared instances).
+     *
+     * @return a new listener
+     */
+    private static Listener<String> createListener() {
+        return new Listener<String>() {
+            @Override
+            public void accept(final String data) {
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 Ivan Kniazkov
+ */
+package com.kniazkov.widgets.model;
+
+import com.kniazkov.widgets.common.DoubleListener;
+import com.kniazkov.widgets.common.IntListener;
+import com.kniazkov.widgets.common.Listener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for models with primitive storage.
+ */
+public final class PrimitiveModelTest {
+    @Test
+    public void intModelNotifiesPrimitiveAndGenericListeners() {
+        final IntModel model = new IntModel(1);
+        final List<Integer> primitive = new ArrayList<>();
+        final List<Integer> generic = new ArrayList<>();
+        final IntListener intListener = primitive::add;
+        final Listener<Integer> listener = generic::add;
+        model.addIntListener(intListener);
+        model.addListener(listener);
+
+        assertTrue(model.setInt(2));
+        assertFalse(model.setInt(2));
+        assertTrue(model.setData(3));
+        assertEquals(5, model.add(2));
+
+        assertEquals(5, model.getInt());
+        assertEquals(Integer.valueOf(5), model.getData());
+        assertEquals(Arrays.asList(2, 3, 5), primitive);
+        assertEquals(Arrays.asList(2, 3, 5), generic);
+
+        model.removeIntListener(intListener);
+        model.removeListener(listener);
+        assertTrue(model.setInt(6));
+        assertEquals(3, primitive.size());
+        assertEquals(3, generic.size());
+    }
+
+    @Test
+    public void intModelAppliesCriterionAndKeepsItWhenDerived() {
+        final IntModel model = new IntModel(0, ValidatedIntegerModel.POSITIVE);
+
+        assertFalse(model.isValid());
+        assertTrue(model.setInt(1));
+        assertTrue(model.isValid());
+
+        final Model<Integer> derived = model.deriveWithData(-1);
+        assertNotSame(model, derived);
+        assertEquals(IntModel.class, derived.getClass());
+        assertFalse(derived.isValid());
+        assertTrue(new IntModel().isValid());
+    }
+
+    @Test
+    public void intModelWorksWithStringAdapter() {
+        final IntModel model = new IntModel(7);
+        final IntegerToStringModel adapter = new IntegerToStringModel(model);
+
+        assertTrue(adapter.setData("42"));
+        assertEquals(42, model.getInt());
+        assertTrue(model.setInt(9));
+        assertEquals("9", adapter.getData());
+    }
+
+    @Test
+    public void doubleModelComparesValuesLikeDoubleEquals() {
+        final DoubleModel model = new DoubleModel(Double.NaN);
+        final List<Double> observed = new ArrayList<>();
+        final DoubleListener listener = observed::add;
+        model.addDoubleListener(listener);
+
+        assertFalse(model.setDouble(Double.NaN));
+        assertTrue(model.setDouble(0.0));
+        assertTrue(model.setDouble(-0.0));
+        assertEquals(1.5, model.add(1.5), 0.0);
+
+        assertEquals(Arrays.asList(0.0, -0.0, 1.5), observed);
+        model.removeDoubleListener(listener);
+    }
+
+    @Test
+    public void doubleModelAppliesCriterionAndWorksWithStringAdapter() {
+        final DoubleModel model = new DoubleModel(2.0, ValidatedRealNumberModel.UNIT_INTERVAL);
+        final RealToStringModel adapter = new RealToStringModel(model);
+
+        assertFalse(model.isValid());
+        assertFalse(adapter.isValid());
+        assertTrue(adapter.setData("0.5"));
+        assertEquals(0.5, model.getDouble(), 0.0);
+        assertTrue(model.isValid());
+        assertTrue(adapter.isValid());
+        assertEquals(DoubleModel.class, model.deriveWithData(0.25).getClass());
+    }
+
+    @Test
+    public void nullValuesAreRejectedInsteadOfThrowing() {
+        final IntModel ints = new IntModel(5);
+        assertFalse(ints.setData(null));
+        assertEquals(5, ints.getInt());
+        assertEquals(Integer.valueOf(0), ints.deriveWithData(null).getData());
+
+        final DoubleModel doubles = new DoubleModel(0.5);
+        assertFalse(doubles.setData(null));
+        assertEquals(0.5, doubles.getDouble(), 0.0);
+        assertEquals(Double.valueOf(0.0), doubles.deriveWithData(null).getData());
+    }
+}
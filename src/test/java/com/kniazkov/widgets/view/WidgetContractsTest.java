@@ -31,7 +31,8 @@ public final class WidgetContractsTest {
             {new InputField(), "input field"},
             {new PasswordInput(), "password input"},
             {new TextArea(), "text area"},
-            {new CheckBox(), "checkbox"}
+            {new CheckBox(), "checkbox"},
+            {new ProgressCircle(), "progress circle"}
         };
 
         for (final Object[] item : cases) {
@@ -4,20 +4,37 @@
 package com.kniazkov.widgets.view;
 
 import com.kniazkov.json.JsonObject;
+import com.kniazkov.widgets.common.UploadedFile;
 import com.kniazkov.widgets.controller.Event;
 import com.kniazkov.widgets.controller.HandlesPointerEvents;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /** Tests synthetic browser events inside a widget sandbox. */
 public final class WidgetEventTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void editableTextWidgetsApplyEventBeforeController() {
         final List<Widget<?>> widgets = Arrays.<Widget<?>>asList(
@@ -115,8 +132,7 @@ public final class WidgetEventTest {
         data.addString("name", "data.bin");
         data.addString("type", "application/octet-stream");
         data.addNumber("size", 2);
-        data.addString("content", "00");
-        data.addNumber("chunkIndex", 0);
+        data.addNumber("chunkSize", 1);
         data.addNumber("totalChunks", 2);
 
         sandbox.fire(Event.UPLOAD, data);
@@ -124,10 +140,214 @@ public final class WidgetEventTest {
         assertEquals("data.bin", selected.get().getName());
         assertEquals("application/octet-stream", selected.get().getType());
         assertEquals(2, selected.get().getSize());
-        assertEquals(Integer.valueOf(50), selected.get().getLoadingPercentageModel().getData());
+        assertEquals(Integer.valueOf(0), selected.get().getLoadingPercentageModel().getData());
         assertEquals(1, WidgetSandbox.findUpdates(
             sandbox.drainUpdates(), "next chunk", loader
         ).size());
+        assertTrue(loader.receiveChunk(7, 1, new byte[] {2}));
+        assertEquals(Integer.valueOf(50), selected.get().getLoadingPercentageModel().getData());
+        assertFalse(loader.receiveChunk(7, 2, new byte[] {3}));
+        assertFalse(loader.receiveChunk(7, 0, new byte[] {1, 2}));
+        assertFalse(loader.receiveChunk(8, 0, new byte[] {1}));
         assertSame(loader, sandbox.getSubject());
     }
+
+    @Test
+    public void fileLoaderIgnoresInconsistentAnnouncement() {
+        final FileLoader loader = new FileLoader();
+        final AtomicReference<UploadingFile> selected = new AtomicReference<>();
+        loader.onSelect(selected::set);
+        final WidgetSandbox<FileLoader> sandbox = WidgetSandbox.open(loader);
+        sandbox.clearUpdates();
+        final JsonObject data = new JsonObject();
+        data.addNumber("fileId", 1);
+        data.addString("name", "data.bin");
+        data.addString("type", "");
+        data.addNumber("size", 10);
+        data.addNumber("chunkSize", 4);
+        data.addNumber("totalChunks", 2);
+
+        sandbox.fire(Event.UPLOAD, data);
+
+        assertNull(selected.get());
+        assertTrue(WidgetSandbox.findUpdates(
+            sandbox.drainUpdates(), "next chunk", loader
+        ).isEmpty());
+    }
+
+    @Test
+    public void fileLoaderSpillsLargeUploadToTemporaryFile() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        final FileLoader loader = new FileLoader();
+        loader.setMemoryThreshold(4);
+        loader.setTemporaryDirectory(directory);
+        final AtomicReference<UploadingFile> selected = new AtomicReference<>();
+        loader.onSelect(selected::set);
+        final WidgetSandbox<FileLoader> sandbox = WidgetSandbox.open(loader);
+        sandbox.fire(Event.UPLOAD, announcement(1, 10, 4));
+        final UploadingFile large = selected.get();
+        sandbox.fire(Event.UPLOAD, announcement(2, 3, 4));
+        assertEquals(1, list(directory).size());
+
+        assertTrue(loader.receiveChunk(1, 2, new byte[] {9, 10}));
+        assertTrue(loader.receiveChunk(1, 0, new byte[] {1, 2, 3, 4}));
+        assertTrue(loader.receiveChunk(1, 1, new byte[] {5, 6, 7, 8}));
+        final UploadedFile file = large.getUploadedFile();
+        final byte[] expected = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertTrue(file.isStoredOnDisk());
+        assertEquals(10, file.getSize());
+        assertArrayEquals(expected, file.getContent());
+        final byte[] streamed = new byte[10];
+        try (InputStream stream = file.getInputStream()) {
+            assertEquals(10, stream.read(streamed));
+        }
+        assertArrayEquals(expected, streamed);
+        try (ReadableByteChannel channel = file.openChannel()) {
+            assertTrue(channel instanceof FileChannel);
+            assertEquals(10, ((FileChannel) channel).size());
+        }
+        final ByteBuffer mapped = file.map();
+        assertTrue(mapped.isReadOnly());
+        assertEquals(7, mapped.get(6));
+
+        sandbox.fire(Event.UPLOAD, announcement(3, 6, 4));
+        final UploadingFile unfinished = selected.get();
+        assertTrue(loader.receiveChunk(3, 0, new byte[] {1, 2, 3, 4}));
+        assertEquals(2, list(directory).size());
+        loader.dispose();
+        assertEquals(1, list(directory).size());
+        assertFalse(loader.receiveChunk(3, 1, new byte[] {5, 6}));
+        unfinished.discard();
+        assertTrue(list(directory).isEmpty());
+        assertNull(FileLoader.getReceivedChunks(unfinished.getUploadId()));
+    }
+
+    @Test
+    public void suspendedUploadResumesOnAnotherLoader() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        final FileLoader first = new FileLoader();
+        first.setMemoryThreshold(0);
+        first.setTemporaryDirectory(directory);
+        final AtomicReference<UploadingFile> started = new AtomicReference<>();
+        first.onSelect(started::set);
+        WidgetSandbox.open(first).fire(Event.UPLOAD, announcement(1, 10, 4));
+        assertTrue(first.receiveChunk(1, 1, new byte[] {5, 6, 7, 8}));
+        assertTrue(started.get().isOpen());
+        first.dispose();
+        assertFalse(started.get().isOpen());
+        final String uploadId = started.get().getUploadId();
+        assertEquals("{1}", FileLoader.getReceivedChunks(uploadId).toString());
+
+        final FileLoader second = new FileLoader();
+        second.setParallelChunks(2);
+        final AtomicReference<UploadingFile> resumed = new AtomicReference<>();
+        second.onSelect(resumed::set);
+        final WidgetSandbox<FileLoader> sandbox = WidgetSandbox.open(second);
+        sandbox.clearUpdates();
+        final JsonObject data = announcement(5, 10, 4);
+        data.addString("resume", uploadId);
+        sandbox.fire(Event.UPLOAD, data);
+
+        assertSame(started.get(), resumed.get());
+        assertTrue(resumed.get().isOpen());
+        final List<JsonObject> updates = WidgetSandbox.findUpdates(
+            sandbox.drainUpdates(), "next chunk", second
+        );
+        assertEquals(uploadId, updates.get(0).get("upload").getStringValue());
+        assertEquals(2, updates.get(0).get("parallel").getIntValue());
+        assertFalse(first.receiveChunk(1, 0, new byte[] {1, 2, 3, 4}));
+        assertTrue(second.receiveChunk(5, 0, new byte[] {1, 2, 3, 4}));
+        assertTrue(second.receiveChunk(5, 2, new byte[] {9, 10}));
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10},
+            resumed.get().getUploadedFile().getContent());
+        assertNull(FileLoader.getReceivedChunks(uploadId));
+        second.dispose();
+        assertTrue(list(directory).isEmpty());
+    }
+
+    @Test
+    public void expiredSuspendedUploadIsDiscardedWithoutNewUploads() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        final FileLoader loader = new FileLoader();
+        loader.setMemoryThreshold(0);
+        loader.setTemporaryDirectory(directory);
+        final AtomicReference<UploadingFile> started = new AtomicReference<>();
+        loader.onSelect(started::set);
+        WidgetSandbox.open(loader).fire(Event.UPLOAD, announcement(1, 10, 4));
+        assertTrue(loader.receiveChunk(1, 0, new byte[] {1, 2, 3, 4}));
+        loader.dispose();
+        final String uploadId = started.get().getUploadId();
+
+        FileLoader.discardExpiredUploads();
+        assertEquals(1, list(directory).size());
+        UploadRegistry.purge(System.currentTimeMillis() + UploadRegistry.RESUME_TIMEOUT + 1);
+        assertTrue(list(directory).isEmpty());
+        assertNull(FileLoader.getReceivedChunks(uploadId));
+    }
+
+    @Test
+    public void uploadIsCheckedAgainstDigest() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        final FileLoader loader = new FileLoader();
+        loader.setMemoryThreshold(2);
+        loader.setTemporaryDirectory(directory);
+        final AtomicReference<UploadingFile> selected = new AtomicReference<>();
+        loader.onSelect(selected::set);
+        final WidgetSandbox<FileLoader> sandbox = WidgetSandbox.open(loader);
+        final JsonObject valid = announcement(1, 3, 4);
+        valid.addString("sha256",
+            "039058C6F2C0CB492C533B0A4D14EF77CC0F78ABCCCED5287D84A1A2011CFB81");
+        sandbox.fire(Event.UPLOAD, valid);
+        assertTrue(loader.receiveChunk(1, 0, new byte[] {1, 2, 3}));
+        assertTrue(selected.get().isComplete());
+
+        final JsonObject corrupted = announcement(2, 3, 4);
+        corrupted.addString("sha256",
+            "0000000000000000000000000000000000000000000000000000000000000000");
+        sandbox.fire(Event.UPLOAD, corrupted);
+        assertFalse(loader.receiveChunk(2, 0, new byte[] {1, 2, 3}));
+        assertNull(selected.get().getUploadedFile());
+        assertEquals(1, list(directory).size());
+    }
+
+    @Test
+    public void movedUploadSurvivesDispose() throws Exception {
+        final Path directory = this.folder.newFolder("uploads").toPath();
+        final FileLoader loader = new FileLoader();
+        loader.setMemoryThreshold(0);
+        loader.setTemporaryDirectory(directory);
+        final AtomicReference<UploadingFile> selected = new AtomicReference<>();
+        loader.onSelect(selected::set);
+        final WidgetSandbox<FileLoader> sandbox = WidgetSandbox.open(loader);
+        sandbox.fire(Event.UPLOAD, announcement(1, 2, 4));
+        assertTrue(loader.receiveChunk(1, 0, new byte[] {1, 2}));
+        final Path target = this.folder.getRoot().toPath().resolve("saved.bin");
+
+        selected.get().getUploadedFile().moveTo(target);
+        loader.dispose();
+
+        assertTrue(list(directory).isEmpty());
+        assertArrayEquals(new byte[] {1, 2}, Files.readAllBytes(target));
+        assertArrayEquals(new byte[] {1, 2}, selected.get().getUploadedFile().getContent());
+    }
+
+    private static JsonObject announcement(final int fileId, final int size,
+            final int chunkSize) {
+        final JsonObject data = new JsonObject();
+        data.addNumber("fileId", fileId);
+        data.addString("name", "data.bin");
+        data.addString("type", "application/octet-stream");
+        data.addNumber("size", size);
+        data.addNumber("chunkSize", chunkSize);
+        data.addNumber("totalChunks", Math.max(1, (size + chunkSize - 1) / chunkSize));
+        return data;
+    }
+
+    private static List<Path> list(final Path directory) throws Exception {
+        final List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
 }
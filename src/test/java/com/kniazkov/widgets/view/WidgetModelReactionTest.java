@@ -6,6 +6,7 @@ package com.kniazkov.widgets.view;
 import com.kniazkov.json.JsonObject;
 import com.kniazkov.widgets.common.Color;
 import com.kniazkov.widgets.images.ImageSource;
+import com.kniazkov.widgets.model.IntModel;
 import com.kniazkov.widgets.model.Model;
 import java.util.Arrays;
 import java.util.List;
@@ -98,6 +99,23 @@ public final class WidgetModelReactionTest {
         assertEquals(1, WidgetSandbox.findUpdates(updates, "set multiple input", loader).size());
     }
 
+    @Test
+    public void progressCircleSendsOnlyThePercent() {
+        final IntModel percent = new IntModel(0);
+        final ProgressCircle circle = new ProgressCircle(percent);
+        final WidgetSandbox<ProgressCircle> sandbox = WidgetSandbox.open(circle);
+        sandbox.clearUpdates();
+        percent.setData(42);
+        final JsonObject update = singleUpdate(sandbox, "set percent", circle);
+        assertEquals(42, update.get("percent").getIntValue());
+
+        circle.setPercentModel(new IntModel(ProgressCircle.INDETERMINATE));
+        assertEquals(
+            ProgressCircle.INDETERMINATE,
+            singleUpdate(sandbox, "set percent", circle).get("percent").getIntValue()
+        );
+    }
+
     @Test
     public void containersReactToTheirModels() {
         assertModelUpdate(